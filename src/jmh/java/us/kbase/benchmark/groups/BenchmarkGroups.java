@@ -0,0 +1,132 @@
+package us.kbase.benchmark.groups;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import us.kbase.groups.core.CreateAndModTimes;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.IllegalParameterException;
+import us.kbase.groups.core.exceptions.MissingParameterException;
+import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+
+/** Test data for the benchmarks. A group of size n has n members, including the owner,
+ * one administrator per 100 members, and n workspace resources. Each member has a custom field.
+ */
+final class BenchmarkGroups {
+
+	static final ResourceType WORKSPACE = type("workspace");
+	static final NumberedCustomField FIELD = field("field-1");
+	static final UserName OWNER = user("owner");
+
+	private static final Instant CREATED = Instant.ofEpochMilli(1500000000000L);
+	private static final Instant MODIFIED = Instant.ofEpochMilli(1600000000000L);
+
+	private BenchmarkGroups() {}
+
+	/** Get the members of a group of the given size. The owner is the first member.
+	 * @param size the number of members.
+	 * @return the members.
+	 */
+	static List<GroupUser> members(final int size) {
+		final List<GroupUser> ret = new ArrayList<>(size);
+		ret.add(member(OWNER, 0));
+		for (int i = 1; i < size; i++) {
+			ret.add(member(user("user" + i), i));
+		}
+		return ret;
+	}
+
+	/** Get the resources of a group of the given size.
+	 * @param size the number of resources.
+	 * @return the resources.
+	 */
+	static List<ResourceDescriptor> resources(final int size) {
+		final List<ResourceDescriptor> ret = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ret.add(new ResourceDescriptor(resourceID(i)));
+		}
+		return ret;
+	}
+
+	/** Build a group from the output of {@link #members(int)} and {@link #resources(int)}.
+	 * @param members the members.
+	 * @param resources the resources.
+	 * @return the group.
+	 */
+	static Group group(final List<GroupUser> members, final List<ResourceDescriptor> resources) {
+		try {
+			final Group.Builder b = Group.getBuilder(
+					new GroupID("benchmark"), new GroupName("Benchmark group"),
+					members.get(0), new CreateAndModTimes(CREATED, MODIFIED))
+					.withCustomField(FIELD, "a group field");
+			for (int i = 1; i < members.size(); i++) {
+				if (i % 100 == 0) {
+					b.withAdministrator(members.get(i));
+				} else {
+					b.withMember(members.get(i));
+				}
+			}
+			for (int i = 0; i < resources.size(); i++) {
+				b.withResource(WORKSPACE, resources.get(i), CREATED.plusSeconds(i));
+			}
+			return b.build();
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static GroupUser member(final UserName name, final int i) {
+		return GroupUser.getBuilder(name, CREATED.plusSeconds(i))
+				.withNullableLastVisit(MODIFIED.plusSeconds(i))
+				.withCustomField(FIELD, "member field " + i)
+				.build();
+	}
+
+	/** Get a user name.
+	 * @param name the name.
+	 * @return the user name.
+	 */
+	static UserName user(final String name) {
+		try {
+			return new UserName(name);
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Get a resource ID.
+	 * @param i the ID number.
+	 * @return the resource ID.
+	 */
+	static ResourceID resourceID(final int i) {
+		try {
+			return new ResourceID(Integer.toString(i + 1));
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static ResourceType type(final String type) {
+		try {
+			return new ResourceType(type);
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static NumberedCustomField field(final String field) {
+		try {
+			return new NumberedCustomField(field);
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
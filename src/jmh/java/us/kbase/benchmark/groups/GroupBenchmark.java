@@ -0,0 +1,104 @@
+package us.kbase.benchmark.groups;
+
+import static us.kbase.benchmark.groups.BenchmarkGroups.WORKSPACE;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.GroupView;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceInformationSet;
+import us.kbase.groups.service.api.APICommon;
+
+/** Benchmarks for building groups and group views, and converting views to JSON, for groups
+ * of various sizes. See {@link BenchmarkGroups} for the contents of the groups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class GroupBenchmark {
+
+	// the number of resources removed from the group in the removeResources benchmark
+	private static final int REMOVE_COUNT = 10;
+
+	@Param({"10", "1000", "50000"})
+	public int members;
+
+	private List<GroupUser> users;
+	private List<ResourceDescriptor> resources;
+	private Group group;
+	private UserName member;
+	private ResourceInformationSet resourceInfo;
+	private Set<ResourceID> toRemove;
+	private GroupView standardView;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		users = BenchmarkGroups.members(members);
+		resources = BenchmarkGroups.resources(members);
+		group = BenchmarkGroups.group(users, resources);
+		member = users.get(users.size() - 1).getName();
+		final ResourceInformationSet.Builder b = ResourceInformationSet.getBuilder(member);
+		resources.stream().forEach(r -> b.withResourceField(
+				r.getResourceID(), "name", "workspace " + r.getResourceID().getName()));
+		resourceInfo = b.build();
+		toRemove = new HashSet<>();
+		for (int i = 0; i < Math.min(REMOVE_COUNT, members); i++) {
+			toRemove.add(resources.get(i).getResourceID());
+		}
+		standardView = standardView();
+	}
+
+	@Benchmark
+	public Group buildGroup() {
+		return BenchmarkGroups.group(users, resources);
+	}
+
+	@Benchmark
+	public Group removeResources() {
+		return group.removeResources(WORKSPACE, toRemove);
+	}
+
+	@Benchmark
+	public GroupView buildStandardView() {
+		return standardView();
+	}
+
+	@Benchmark
+	public GroupView buildMinimalView() {
+		return GroupView.getBuilder(group, member)
+				.withMinimalViewFieldDeterminer(f -> true)
+				.build();
+	}
+
+	@Benchmark
+	public Map<String, Object> toGroupJSON() {
+		return APICommon.toGroupJSON(standardView);
+	}
+
+	private GroupView standardView() {
+		return GroupView.getBuilder(group, member)
+				.withStandardView(true)
+				.withResource(WORKSPACE, resourceInfo)
+				.withPublicFieldDeterminer(f -> true)
+				.withPublicUserFieldDeterminer(f -> true)
+				.build();
+	}
+}
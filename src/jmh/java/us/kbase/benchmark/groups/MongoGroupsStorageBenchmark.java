@@ -0,0 +1,111 @@
+package us.kbase.benchmark.groups;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.mongodb.MongoClientSettings;
+
+import us.kbase.groups.core.CreateModAndExpireTimes;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.request.RequestType;
+import us.kbase.groups.core.resource.ResourceAdministrativeID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.storage.mongo.MongoGroupsStorage;
+
+/** Benchmarks for converting MongoDB documents to groups and for calculating the
+ * characteristic string of a request.
+ *
+ * The methods are private, and so are called via method handles. The handle overhead is
+ * negligible compared to the methods themselves.
+ *
+ * The group documents are created with the same code the storage uses to save groups and
+ * round tripped through BSON so they match the documents read from MongoDB.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MongoGroupsStorageBenchmark {
+
+	private static MethodHandle getMethod(final String name, final Class<?> argType) {
+		try {
+			final Method m = MongoGroupsStorage.class.getDeclaredMethod(name, argType);
+			m.setAccessible(true);
+			return MethodHandles.lookup().unreflect(m);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final MethodHandle TO_DOCUMENT = getMethod("toDocument", Group.class);
+	private static final MethodHandle TO_GROUP = getMethod("toGroup", Document.class);
+	private static final MethodHandle CHAR_STRING = getMethod(
+			"getCharacteristicString", GroupRequest.class);
+
+	@State(Scope.Benchmark)
+	public static class GroupDocument {
+
+		@Param({"10", "1000", "50000"})
+		public int members;
+
+		private Document document;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Throwable {
+			final Document stored = (Document) TO_DOCUMENT.invoke(BenchmarkGroups.group(
+					BenchmarkGroups.members(members), BenchmarkGroups.resources(members)));
+			document = new RawBsonDocument(stored, new DocumentCodec(
+					MongoClientSettings.getDefaultCodecRegistry()))
+					.decode(new DocumentCodec());
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Request {
+
+		private GroupRequest request;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			final Instant now = Instant.ofEpochMilli(1600000000000L);
+			request = GroupRequest.getBuilder(
+					new RequestID(UUID.randomUUID()),
+					new GroupID("benchmark"),
+					BenchmarkGroups.OWNER,
+					CreateModAndExpireTimes.getBuilder(now, now.plusSeconds(1209600)).build())
+					.withType(RequestType.INVITE)
+					.withResource(BenchmarkGroups.WORKSPACE, new ResourceDescriptor(
+							new ResourceAdministrativeID("42"), new ResourceID("42")))
+					.build();
+		}
+	}
+
+	@Benchmark
+	public Group toGroup(final GroupDocument doc) throws Throwable {
+		return (Group) TO_GROUP.invoke(doc.document);
+	}
+
+	@Benchmark
+	public String getCharacteristicString(final Request req) throws Throwable {
+		return (String) CHAR_STRING.invoke(req.request);
+	}
+}
@@ -4,7 +4,14 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.slf4j.LoggerFactory;
 
@@ -23,6 +30,7 @@ import us.kbase.common.service.UnauthorizedException;
 import us.kbase.groups.cataloghandler.SDKClientCatalogHandler;
 import us.kbase.groups.config.GroupsConfig;
 import us.kbase.groups.config.GroupsConfigurationException;
+import us.kbase.groups.core.GroupID;
 import us.kbase.groups.core.Groups;
 import us.kbase.groups.core.UserHandler;
 import us.kbase.groups.core.exceptions.AuthenticationException;
@@ -38,11 +46,23 @@ import us.kbase.groups.core.fieldvalidation.FieldValidators;
 import us.kbase.groups.core.notifications.Notifications;
 import us.kbase.groups.core.notifications.NotificationsFactory;
 import us.kbase.groups.core.resource.ResourceHandler;
+import us.kbase.groups.core.resource.ResourceHandlerExecutor;
 import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.notifications.AsyncNotifications;
+import us.kbase.groups.notifications.OutboxNotifications;
+import us.kbase.groups.resourcehandler.CachingResourceHandler;
+import us.kbase.groups.resourcehandler.CachingResourceHandler.CachedMethod;
+import us.kbase.groups.resourcehandler.GuardedResourceHandler;
+import us.kbase.groups.storage.AsyncResourceReaper;
+import us.kbase.groups.storage.CachingGroupsStorage;
 import us.kbase.groups.storage.GroupsStorage;
 import us.kbase.groups.storage.exceptions.StorageInitException;
+import us.kbase.groups.storage.mongo.ConnectionPoolMonitor;
+import us.kbase.groups.storage.mongo.GroupChangeStream.GroupChangeListener;
 import us.kbase.groups.storage.mongo.MongoGroupsStorage;
 import us.kbase.groups.userhandler.KBaseUserHandler;
+import us.kbase.groups.userhandler.TokenCache;
+import us.kbase.groups.util.DependencyGuard;
 import us.kbase.groups.util.Util;
 import us.kbase.groups.workspacehandler.SDKClientWorkspaceHandler;
 import us.kbase.workspace.WorkspaceClient;
@@ -70,8 +90,11 @@ public class GroupsBuilder {
 	private static final int MAX_FIELD_SIZE = 5000;
 	
 	private final MongoClient mc;
+	private final Optional<ConnectionPoolMonitor> poolMonitor;
 	private final Groups groups;
 	private final GroupsStorage storage;
+	// set while building the groups instance, null if the build failed
+	private SDKClientWorkspaceHandler workspaceHandler = null;
 	
 	/** Build a groups instance.
 	 * @param cfg the configuration to build to.
@@ -82,9 +105,14 @@ public class GroupsBuilder {
 	public GroupsBuilder(final GroupsConfig cfg)
 			throws StorageInitException, GroupsConfigurationException {
 		checkNotNull(cfg, "cfg");
-		mc = buildMongo(cfg);
-		storage = buildStorage(cfg, mc);
+		final ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(
+				cfg.getMongoPoolSlowCheckOutMS());
+		poolMonitor = Optional.of(monitor);
+		mc = buildMongo(cfg, monitor);
+		final MongoGroupsStorage mongoStorage = buildMongoStorage(cfg, mc);
+		storage = buildStorage(cfg, mongoStorage);
 		groups = buildGroups(cfg, storage);
+		notifyOnExpiration(mongoStorage, groups);
 	}
 	
 	/** Build a groups instance with a previously existing MongoDB client. MongoDB
@@ -101,16 +129,42 @@ public class GroupsBuilder {
 		checkNotNull(cfg, "cfg");
 		checkNotNull(mc, "mc");
 		this.mc = mc;
-		storage = buildStorage(cfg, mc);
+		poolMonitor = Optional.empty();
+		final MongoGroupsStorage mongoStorage = buildMongoStorage(cfg, mc);
+		storage = buildStorage(cfg, mongoStorage);
 		groups = buildGroups(cfg, storage);
+		notifyOnExpiration(mongoStorage, groups);
 	}
 	
-	private MongoClient buildMongo(final GroupsConfig c) throws StorageInitException {
-		//TODO ZLATER MONGO handle shards & replica sets
+	private void notifyOnExpiration(final MongoGroupsStorage storage, final Groups groups) {
+		// the expiration agent starts when the storage is created, so any requests it
+		// expires before this point do not trigger notifications.
+		storage.setExpiredRequestsListener(requests -> groups.notifyExpiredRequests(requests));
+	}
+	
+	private MongoClient buildMongo(final GroupsConfig c, final ConnectionPoolMonitor monitor)
+			throws StorageInitException {
+		//TODO ZLATER MONGO handle shards
+		final List<ServerAddress> hosts = c.getMongoHosts().stream()
+				.map(h -> new ServerAddress(h)).collect(Collectors.toList());
 		final MongoClientSettings.Builder mongoBuilder = MongoClientSettings.builder()
 				.retryWrites(c.getMongoRetryWrites())
-				.applyToClusterSettings(builder -> builder.hosts(
-						Arrays.asList(new ServerAddress(c.getMongoHost()))));
+				.applyToClusterSettings(builder -> {
+					builder.hosts(hosts);
+					if (c.getMongoReplicaSet().isPresent()) {
+						builder.requiredReplicaSetName(c.getMongoReplicaSet().get());
+					}
+				})
+				.applyToConnectionPoolSettings(builder -> builder
+						.minSize(c.getMongoPoolMinSize())
+						.maxSize(c.getMongoPoolMaxSize())
+						.maxWaitTime(c.getMongoPoolMaxWaitMS(), TimeUnit.MILLISECONDS)
+						.maxConnectionIdleTime(
+								c.getMongoMaxConnectionIdleMS(), TimeUnit.MILLISECONDS)
+						.addConnectionPoolListener(monitor))
+				.applyToSocketSettings(builder -> builder
+						.connectTimeout(c.getMongoConnectTimeoutMS(), TimeUnit.MILLISECONDS)
+						.readTimeout(c.getMongoSocketTimeoutMS(), TimeUnit.MILLISECONDS));
 		try {
 			if (c.getMongoUser().isPresent()) {
 				final MongoCredential creds = MongoCredential.createCredential(
@@ -133,21 +187,63 @@ public class GroupsBuilder {
 		// these handler creation methods may need changes if we want to allow alternate
 		// implementations. YAGNI for now.
 		try {
-			uh = new KBaseUserHandler(c.getAuthURL(), c.getWorkspaceAdminToken());
+			uh = new KBaseUserHandler(c.getAuthURL(), c.getWorkspaceAdminToken(),
+					new TokenCache(c.getTokenCacheSize(), c.getTokenCacheTTLSec(),
+							c.getInvalidTokenCacheTTLSec()),
+					getGuard(c, "authentication"));
 		} catch (IOException | URISyntaxException | AuthenticationException e) {
 			//TODO CODE check for a bad login and note the workspace token failed or throw a better error from the handler
 			throw new GroupsConfigurationException(
 					"Failed to create KBase user handler for auth service: " + e.getMessage(), e);
 		}
 		
+		final Map<ResourceType, ResourceHandler> handlers = ImmutableMap.of(
+				RESOURCE_TYPE_WORKSPACE, cache(c, guard(c, "workspace", getWorkspaceHandler(c))),
+				RESOURCE_TYPE_CATALOG_METHOD,
+						cache(c, guard(c, "catalog", getCatalogHandler(c))));
 		return new Groups(
 				storage,
 				uh,
-				ImmutableMap.of(
-						RESOURCE_TYPE_WORKSPACE, getWorkspaceHandler(c),
-						RESOURCE_TYPE_CATALOG_METHOD, getCatalogHandler(c)),
+				handlers,
 				getValidators(c),
-				getNotifier(c));
+				getNotifier(c, storage),
+				c.isNotifierOutbox(),
+				c.getResourceReaperQueueSize() < 1 ? null :
+					new AsyncResourceReaper(storage, c.getResourceReaperQueueSize()),
+				c.getResourceHandlerThreads() < 1 ? new ResourceHandlerExecutor() :
+					new ResourceHandlerExecutor(
+							c.getResourceHandlerThreads(), c.getResourceHandlerTimeoutMS()));
+	}
+
+	private DependencyGuard getGuard(final GroupsConfig c, final String name) {
+		return new DependencyGuard(name, c.getDependencyMaxConcurrentCalls(),
+				c.getDependencyFailureThreshold(), c.getDependencyOpenSec() * 1000L);
+	}
+
+	// guard inside the cache so cache hits aren't limited by the guard
+	private ResourceHandler guard(
+			final GroupsConfig c,
+			final String name,
+			final ResourceHandler handler) {
+		return new GuardedResourceHandler(handler, getGuard(c, name));
+	}
+
+	private ResourceHandler cache(final GroupsConfig c, final ResourceHandler handler) {
+		if (c.getResourceCacheSize() < 1) {
+			return handler;
+		}
+		final int ttl = c.getResourceCacheTTLSec();
+		final int adminTTL = c.getResourceCacheAdminTTLSec();
+		final Map<CachedMethod, Integer> ttls = new HashMap<>();
+		ttls.put(CachedMethod.GET_DESCRIPTOR, ttl);
+		ttls.put(CachedMethod.IS_PUBLIC, ttl);
+		// administration info drives authorization, so only cache it if explicitly enabled
+		if (adminTTL > 0) {
+			ttls.put(CachedMethod.IS_ADMINISTRATOR, adminTTL);
+			ttls.put(CachedMethod.GET_ADMINISTRATORS, adminTTL);
+			ttls.put(CachedMethod.GET_ADMINISTRATED_RESOURCES, adminTTL);
+		}
+		return new CachingResourceHandler(handler, c.getResourceCacheSize(), ttls);
 	}
 
 	private ResourceHandler getWorkspaceHandler(final GroupsConfig c)
@@ -157,7 +253,10 @@ public class GroupsBuilder {
 					c.getWorkspaceURL(),
 					new AuthToken(c.getWorkspaceAdminToken().getToken(), "<fake>"));
 			client.setIsInsecureHttpConnectionAllowed(c.isAllowInsecureURLs());
-			return new SDKClientWorkspaceHandler(client);
+			client.setConnectionReadTimeOut(c.getDependencyTimeoutMS());
+			workspaceHandler = new SDKClientWorkspaceHandler(
+					client, c.getWorkspaceBatchSize(), c.getWorkspaceInfoThreads());
+			return workspaceHandler;
 		} catch (IOException | UnauthorizedException | ResourceHandlerException e) {
 			throw new GroupsConfigurationException(
 					"Failed to create workspace handler: " + e.getMessage(), e);
@@ -169,6 +268,7 @@ public class GroupsBuilder {
 		try {
 			final CatalogClient client = new CatalogClient(c.getCatalogURL());
 			client.setIsInsecureHttpConnectionAllowed(c.isAllowInsecureURLs());
+			client.setConnectionReadTimeOut(c.getDependencyTimeoutMS());
 			return new SDKClientCatalogHandler(client);
 		} catch (ResourceHandlerException e) {
 			throw new GroupsConfigurationException(
@@ -176,16 +276,25 @@ public class GroupsBuilder {
 		}
 	}
 	
-	private Notifications getNotifier(final GroupsConfig c)
+	private Notifications getNotifier(final GroupsConfig c, final GroupsStorage storage)
 			throws GroupsConfigurationException {
 		final NotificationsFactory fac = Util.loadClassWithInterface(
 				c.getNotifierFactory(), NotificationsFactory.class);
+		final Notifications notifier;
 		try {
-			return fac.getNotifier(c.getNotifierParameters());
+			notifier = fac.getNotifier(c.getNotifierParameters());
 		} catch (IllegalParameterException | MissingParameterException e) {
 			throw new GroupsConfigurationException(
 					"Error building notifier: " + e.getMessage(), e);
 		}
+		if (c.isNotifierOutbox()) {
+			return new OutboxNotifications(storage, notifier, c.getNotifierBatchSize());
+		}
+		if (c.getNotifierQueueSize() < 1) {
+			return notifier;
+		}
+		return new AsyncNotifications(notifier, c.getNotifierQueueSize(),
+				c.getNotifierThreads(), c.getNotifierBatchSize());
 	}
 
 	private FieldValidators getValidators(final GroupsConfig groupscfg)
@@ -221,7 +330,7 @@ public class GroupsBuilder {
 		}
 	}
 
-	private GroupsStorage buildStorage(
+	private MongoGroupsStorage buildMongoStorage(
 			final GroupsConfig c,
 			final MongoClient mc)
 			throws StorageInitException {
@@ -235,8 +344,42 @@ public class GroupsBuilder {
 					e.getMessage(), e);
 		}
 		//TODO TEST authenticate to db, write actual test with authentication
-		return new MongoGroupsStorage(
-				db, Arrays.asList(RESOURCE_TYPE_WORKSPACE, RESOURCE_TYPE_CATALOG_METHOD));
+		final MongoGroupsStorage storage = new MongoGroupsStorage(
+				db, Arrays.asList(RESOURCE_TYPE_WORKSPACE, RESOURCE_TYPE_CATALOG_METHOD),
+				c.getMaxListSize());
+		if (c.getRequestArchiveAgeDays() > 0) {
+			storage.setRequestArchiveAge(Duration.ofDays(c.getRequestArchiveAgeDays()));
+		}
+		if (c.getMongoListReadPreference().isPresent()) {
+			storage.setListReadPreference(c.getMongoListReadPreference().get());
+		}
+		return storage;
+	}
+	
+	private GroupsStorage buildStorage(
+			final GroupsConfig c,
+			final MongoGroupsStorage storage)
+			throws StorageInitException {
+		if (c.getGroupCacheSizeMB() < 1) {
+			return storage;
+		}
+		final CachingGroupsStorage cache = new CachingGroupsStorage(
+				storage, c.getGroupCacheSizeMB() * 1024L * 1024L, c.getGroupCacheTTLSec());
+		if (c.isGroupCacheChangeStream()) {
+			storage.startGroupChangeStream(new GroupChangeListener() {
+				
+				@Override
+				public void groupChanged(final GroupID groupID) {
+					cache.invalidate(groupID);
+				}
+				
+				@Override
+				public void changesMissed() {
+					cache.invalidateAll();
+				}
+			});
+		}
+		return cache;
 	}
 	
 	/** Get the mongo client associated with the groups instance.
@@ -246,6 +389,15 @@ public class GroupsBuilder {
 		return mc;
 	}
 
+	/** Get the monitor for the connection pool of the mongo client associated with the groups
+	 * instance. The monitor is only available if the mongo client was created by this builder.
+	 * @return the connection pool monitor, or {@link Optional#empty()} if the builder was
+	 * provided with a mongo client.
+	 */
+	public Optional<ConnectionPoolMonitor> getConnectionPoolMonitor() {
+		return poolMonitor;
+	}
+
 	/** Get the groups instance.
 	 * @return the groups instance.
 	 */
@@ -259,4 +411,14 @@ public class GroupsBuilder {
 	public GroupsStorage getStorage() {
 		return storage;
 	}
+
+	/** Release the threads held by the groups instance. The groups instance should not be
+	 * used after calling this method. The mongo client is not closed, since it may be shared
+	 * with other groups instances.
+	 */
+	public void close() {
+		if (workspaceHandler != null) {
+			workspaceHandler.close();
+		}
+	}
 }
@@ -8,17 +8,22 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.ini4j.Ini;
 import org.productivity.java.syslog4j.SyslogIF;
 
 import com.google.common.base.Optional;
+import com.mongodb.ReadPreference;
 
 import us.kbase.groups.core.Token;
 import us.kbase.groups.core.exceptions.IllegalParameterException;
@@ -27,6 +32,7 @@ import us.kbase.groups.core.fieldvalidation.CustomField;
 import us.kbase.groups.core.fieldvalidation.FieldConfiguration;
 import us.kbase.groups.core.fieldvalidation.FieldValidatorConfiguration;
 import us.kbase.groups.service.SLF4JAutoLogger;
+import us.kbase.groups.userhandler.TokenCache;
 import us.kbase.groups.util.FileOpener;
 import us.kbase.common.service.JsonServerSyslog;
 import us.kbase.common.service.JsonServerSyslog.RpcInfo;
@@ -55,14 +61,50 @@ public class GroupsConfig {
 	private static final String KEY_MONGO_USER = "mongo-user";
 	private static final String KEY_MONGO_PWD = "mongo-pwd";
 	private static final String KEY_MONGO_RETRY_WRITES = "mongo-retrywrites";
+	private static final String KEY_MONGO_REPLICA_SET = "mongo-replica-set";
+	private static final String KEY_MONGO_POOL_MIN_SIZE = "mongo-pool-min-size";
+	private static final String KEY_MONGO_POOL_MAX_SIZE = "mongo-pool-max-size";
+	private static final String KEY_MONGO_POOL_MAX_WAIT = "mongo-pool-max-wait-ms";
+	private static final String KEY_MONGO_POOL_SLOW_CHECKOUT = "mongo-pool-slow-checkout-ms";
+	private static final String KEY_MONGO_MAX_CONNECTION_IDLE = "mongo-max-connection-idle-ms";
+	private static final String KEY_MONGO_CONNECT_TIMEOUT = "mongo-connect-timeout-ms";
+	private static final String KEY_MONGO_SOCKET_TIMEOUT = "mongo-socket-timeout-ms";
+	private static final String KEY_MONGO_LIST_READ_PREFERENCE = "mongo-list-read-preference";
+	private static final String KEY_MONGO_LIST_MAX_STALENESS = "mongo-list-max-staleness-sec";
+	private static final String KEY_GROUP_CACHE_SIZE = "group-cache-size-mb";
+	private static final String KEY_GROUP_CACHE_TTL = "group-cache-ttl-sec";
+	private static final String KEY_GROUP_CACHE_CHANGE_STREAM = "group-cache-change-stream";
 	private static final String KEY_AUTH_URL = "auth-url";
+	private static final String KEY_TOKEN_CACHE_SIZE = "token-cache-size";
+	private static final String KEY_TOKEN_CACHE_TTL = "token-cache-ttl-sec";
+	private static final String KEY_INVALID_TOKEN_CACHE_TTL = "invalid-token-cache-ttl-sec";
 	private static final String KEY_WORKSPACE_URL = "workspace-url";
 	private static final String KEY_WORKSPACE_TOKEN = "workspace-admin-token";
+	private static final String KEY_WORKSPACE_BATCH_SIZE = "workspace-batch-size";
+	private static final String KEY_WORKSPACE_INFO_THREADS = "workspace-info-threads";
 	private static final String KEY_CATALOG_URL = "catalog-url";
+	private static final String KEY_RESOURCE_CACHE_SIZE = "resource-cache-size";
+	private static final String KEY_RESOURCE_CACHE_TTL = "resource-cache-ttl-sec";
+	private static final String KEY_RESOURCE_CACHE_ADMIN_TTL = "resource-cache-admin-ttl-sec";
+	private static final String KEY_RESOURCE_REAPER_QUEUE_SIZE = "resource-reaper-queue-size";
+	private static final String KEY_RESOURCE_HANDLER_THREADS = "resource-handler-threads";
+	private static final String KEY_RESOURCE_HANDLER_TIMEOUT = "resource-handler-timeout-ms";
+	private static final String KEY_DEPENDENCY_TIMEOUT = "dependency-timeout-ms";
+	private static final String KEY_DEPENDENCY_MAX_CALLS = "dependency-max-concurrent-calls";
+	private static final String KEY_DEPENDENCY_FAILURE_THRESHOLD = "dependency-failure-threshold";
+	private static final String KEY_DEPENDENCY_OPEN = "dependency-open-sec";
 	private static final String KEY_NOTIFIER_FACTORY = "notifier-factory";
 	private static final String KEY_PREFIX_NOTIFIER_PARAMS = "notifier-param-";
+	private static final String KEY_NOTIFIER_OUTBOX = "notifier-outbox";
+	private static final String KEY_NOTIFIER_QUEUE_SIZE = "notifier-queue-size";
+	private static final String KEY_NOTIFIER_THREADS = "notifier-threads";
+	private static final String KEY_NOTIFIER_BATCH_SIZE = "notifier-batch-size";
 	private static final String KEY_IGNORE_IP_HEADERS = "dont-trust-x-ip-headers";
 	private static final String KEY_ALLOW_INSECURE_URLS = "allow-insecure-urls";
+	private static final String KEY_JSON_INDENT = "json-indent";
+	private static final String KEY_GZIP_MIN_SIZE = "gzip-min-size-bytes";
+	private static final String KEY_MAX_LIST_SIZE = "max-list-size";
+	private static final String KEY_REQUEST_ARCHIVE_AGE = "request-archive-age-days";
 	
 	// field validators
 	private static final String KEY_PREFIX_FIELD = "field-";
@@ -78,20 +120,133 @@ public class GroupsConfig {
 	
 	public static final String TRUE = "true";
 	
+	/** The default minimum number of connections in the MongoDB connection pool. */
+	public static final int DEFAULT_MONGO_POOL_MIN_SIZE = 0;
+	/** The default maximum number of connections in the MongoDB connection pool. */
+	public static final int DEFAULT_MONGO_POOL_MAX_SIZE = 100;
+	/** The default time, in milliseconds, to wait for a connection from the MongoDB
+	 * connection pool.
+	 */
+	public static final int DEFAULT_MONGO_POOL_MAX_WAIT_MS = 120000;
+	/** The default time, in milliseconds, after which a wait for a connection from the MongoDB
+	 * connection pool is logged.
+	 */
+	public static final int DEFAULT_MONGO_POOL_SLOW_CHECKOUT_MS = 1000;
+	/** The default time, in milliseconds, a pooled MongoDB connection may be idle before it is
+	 * closed. 0 indicates no limit.
+	 */
+	public static final int DEFAULT_MONGO_MAX_CONNECTION_IDLE_MS = 0;
+	/** The default time, in milliseconds, to wait for a connection to MongoDB to be
+	 * established.
+	 */
+	public static final int DEFAULT_MONGO_CONNECT_TIMEOUT_MS = 10000;
+	/** The default time, in milliseconds, to wait for a response from MongoDB. 0 indicates
+	 * no limit.
+	 */
+	public static final int DEFAULT_MONGO_SOCKET_TIMEOUT_MS = 0;
+	/** The minimum maximum staleness, in seconds, MongoDB allows for a read preference. */
+	public static final int MIN_MONGO_MAX_STALENESS_SEC = 90;
+	/** The default maximum estimated size, in megabytes, of the group cache. */
+	public static final int DEFAULT_GROUP_CACHE_SIZE_MB = 0;
+	/** The default time, in seconds, to cache a group. */
+	public static final int DEFAULT_GROUP_CACHE_TTL_SEC = 60;
+	/** The default maximum number of results to cache per resource handler method. */
+	public static final int DEFAULT_RESOURCE_CACHE_SIZE = 10000;
+	/** The default time, in seconds, to cache resource descriptors and public status. */
+	public static final int DEFAULT_RESOURCE_CACHE_TTL_SEC = 300;
+	/** The default time, in seconds, to cache resource administration information. 0 indicates
+	 * the information is not cached.
+	 */
+	public static final int DEFAULT_RESOURCE_CACHE_ADMIN_TTL_SEC = 0;
+	/** The default maximum number of groups and resource types with queued nonexistent
+	 * resource removals.
+	 */
+	public static final int DEFAULT_RESOURCE_REAPER_QUEUE_SIZE = 1000;
+	/** The default maximum number of concurrent resource handler calls. */
+	public static final int DEFAULT_RESOURCE_HANDLER_THREADS = 20;
+	/** The default time, in milliseconds, to wait for a set of resource handler calls. */
+	public static final int DEFAULT_RESOURCE_HANDLER_TIMEOUT_MS = 30000;
+	/** The default time, in milliseconds, to wait for a response from the workspace and
+	 * catalog services.
+	 */
+	public static final int DEFAULT_DEPENDENCY_TIMEOUT_MS = 30000;
+	/** The default maximum number of concurrent calls to each external service. */
+	public static final int DEFAULT_DEPENDENCY_MAX_CONCURRENT_CALLS = 50;
+	/** The default number of consecutive failed calls to an external service after which calls
+	 * to the service are rejected.
+	 */
+	public static final int DEFAULT_DEPENDENCY_FAILURE_THRESHOLD = 5;
+	/** The default time, in seconds, to reject calls to a failed external service before
+	 * trying the service again.
+	 */
+	public static final int DEFAULT_DEPENDENCY_OPEN_SEC = 30;
+	/** The default maximum number of queued notifications. */
+	public static final int DEFAULT_NOTIFIER_QUEUE_SIZE = 10000;
+	/** The default number of notification sender threads. */
+	public static final int DEFAULT_NOTIFIER_THREADS = 2;
+	/** The default maximum number of notifications a sender thread dequeues at once. */
+	public static final int DEFAULT_NOTIFIER_BATCH_SIZE = 100;
+	/** The default maximum number of workspaces queried in one call to the workspace. */
+	public static final int DEFAULT_WORKSPACE_BATCH_SIZE = 100;
+	/** The default maximum number of concurrent workspace information requests. */
+	public static final int DEFAULT_WORKSPACE_INFO_THREADS = 10;
+	/** The default minimum size, in bytes, of a response body before it is compressed. */
+	public static final int DEFAULT_GZIP_MIN_SIZE_BYTES = 1024;
+	/** The default maximum number of groups or requests returned in one page of a list. */
+	public static final int DEFAULT_MAX_LIST_SIZE = 100;
+	/** The default age, in days, at which closed requests are archived. */
+	public static final int DEFAULT_REQUEST_ARCHIVE_AGE_DAYS = 0;
+	
 	private final String mongoHost;
+	private final List<String> mongoHosts;
 	private final String mongoDB;
 	private final Optional<String> mongoUser;
 	private final Optional<char[]> mongoPwd;
 	private final boolean mongoRetryWrites;
+	private final Optional<String> mongoReplicaSet;
+	private final int mongoPoolMinSize;
+	private final int mongoPoolMaxSize;
+	private final int mongoPoolMaxWaitMS;
+	private final int mongoPoolSlowCheckOutMS;
+	private final int mongoMaxConnectionIdleMS;
+	private final int mongoConnectTimeoutMS;
+	private final int mongoSocketTimeoutMS;
+	private final Optional<ReadPreference> mongoListReadPreference;
+	private final int groupCacheSizeMB;
+	private final int groupCacheTTLSec;
+	private final boolean groupCacheChangeStream;
 	private final URL authURL;
+	private final int tokenCacheSize;
+	private final int tokenCacheTTLSec;
+	private final int invalidTokenCacheTTLSec;
 	private final URL workspaceURL;
 	private final Token workspaceAdminToken;
+	private final int workspaceBatchSize;
+	private final int workspaceInfoThreads;
 	private final URL catalogURL;
+	private final int resourceCacheSize;
+	private final int resourceCacheTTLSec;
+	private final int resourceCacheAdminTTLSec;
+	private final int resourceReaperQueueSize;
+	private final int resourceHandlerThreads;
+	private final int resourceHandlerTimeoutMS;
+	private final int dependencyTimeoutMS;
+	private final int dependencyMaxConcurrentCalls;
+	private final int dependencyFailureThreshold;
+	private final int dependencyOpenSec;
 	private final String notifierFactory;
 	private final Map<String, String> notifierParameters;
+	private final boolean notifierOutbox;
+	private final int notifierQueueSize;
+	private final int notifierThreads;
+	private final int notifierBatchSize;
 	private final SLF4JAutoLogger logger;
 	private final boolean ignoreIPHeaders;
 	private final boolean allowInsecureURLs;
+	private final boolean jsonIndent;
+	private final int gzipMinSizeBytes;
+	private final int maxListSize;
+	private final int requestArchiveAgeDays;
 	private final Set<FieldValidatorConfiguration> fieldConfigs;
 	private final Set<FieldValidatorConfiguration> userFieldConfigs;
 
@@ -142,15 +297,83 @@ public class GroupsConfig {
 		final Map<String, String> cfg = getConfig(filepath, fileOpener);
 		ignoreIPHeaders = TRUE.equals(getString(KEY_IGNORE_IP_HEADERS, cfg));
 		allowInsecureURLs = TRUE.equals(getString(KEY_ALLOW_INSECURE_URLS, cfg));
+		jsonIndent = TRUE.equals(getString(KEY_JSON_INDENT, cfg));
+		gzipMinSizeBytes = getInt(KEY_GZIP_MIN_SIZE, cfg, DEFAULT_GZIP_MIN_SIZE_BYTES, 0);
+		maxListSize = getInt(KEY_MAX_LIST_SIZE, cfg, DEFAULT_MAX_LIST_SIZE, 1);
+		requestArchiveAgeDays = getInt(
+				KEY_REQUEST_ARCHIVE_AGE, cfg, DEFAULT_REQUEST_ARCHIVE_AGE_DAYS, 0);
 		authURL = getURL(KEY_AUTH_URL, cfg);
+		tokenCacheSize = getInt(
+				KEY_TOKEN_CACHE_SIZE, cfg, TokenCache.DEFAULT_TOKEN_CACHE_SIZE, 0);
+		tokenCacheTTLSec = getInt(
+				KEY_TOKEN_CACHE_TTL, cfg, TokenCache.DEFAULT_TOKEN_CACHE_TTL_SEC, 1);
+		invalidTokenCacheTTLSec = getInt(KEY_INVALID_TOKEN_CACHE_TTL, cfg,
+				TokenCache.DEFAULT_INVALID_TOKEN_CACHE_TTL_SEC, 0);
 		workspaceURL = getURL(KEY_WORKSPACE_URL, cfg);
 		workspaceAdminToken = getToken(KEY_WORKSPACE_TOKEN, cfg);
+		workspaceBatchSize = getInt(
+				KEY_WORKSPACE_BATCH_SIZE, cfg, DEFAULT_WORKSPACE_BATCH_SIZE, 1);
+		workspaceInfoThreads = getInt(
+				KEY_WORKSPACE_INFO_THREADS, cfg, DEFAULT_WORKSPACE_INFO_THREADS, 1);
 		catalogURL = getURL(KEY_CATALOG_URL, cfg);
+		resourceCacheSize = getInt(
+				KEY_RESOURCE_CACHE_SIZE, cfg, DEFAULT_RESOURCE_CACHE_SIZE, 0);
+		resourceCacheTTLSec = getInt(
+				KEY_RESOURCE_CACHE_TTL, cfg, DEFAULT_RESOURCE_CACHE_TTL_SEC, 1);
+		resourceCacheAdminTTLSec = getInt(
+				KEY_RESOURCE_CACHE_ADMIN_TTL, cfg, DEFAULT_RESOURCE_CACHE_ADMIN_TTL_SEC, 0);
+		resourceReaperQueueSize = getInt(KEY_RESOURCE_REAPER_QUEUE_SIZE, cfg,
+				DEFAULT_RESOURCE_REAPER_QUEUE_SIZE, 0);
+		resourceHandlerThreads = getInt(KEY_RESOURCE_HANDLER_THREADS, cfg,
+				DEFAULT_RESOURCE_HANDLER_THREADS, 0);
+		resourceHandlerTimeoutMS = getInt(KEY_RESOURCE_HANDLER_TIMEOUT, cfg,
+				DEFAULT_RESOURCE_HANDLER_TIMEOUT_MS, 1);
+		dependencyTimeoutMS = getInt(KEY_DEPENDENCY_TIMEOUT, cfg,
+				DEFAULT_DEPENDENCY_TIMEOUT_MS, 1);
+		dependencyMaxConcurrentCalls = getInt(KEY_DEPENDENCY_MAX_CALLS, cfg,
+				DEFAULT_DEPENDENCY_MAX_CONCURRENT_CALLS, 0);
+		dependencyFailureThreshold = getInt(KEY_DEPENDENCY_FAILURE_THRESHOLD, cfg,
+				DEFAULT_DEPENDENCY_FAILURE_THRESHOLD, 0);
+		dependencyOpenSec = getInt(KEY_DEPENDENCY_OPEN, cfg, DEFAULT_DEPENDENCY_OPEN_SEC, 1);
 		notifierFactory = getString(KEY_NOTIFIER_FACTORY, cfg, true);
 		notifierParameters = getParams(KEY_PREFIX_NOTIFIER_PARAMS, cfg);
+		notifierOutbox = TRUE.equals(getString(KEY_NOTIFIER_OUTBOX, cfg));
+		notifierQueueSize = getInt(KEY_NOTIFIER_QUEUE_SIZE, cfg, DEFAULT_NOTIFIER_QUEUE_SIZE, 0);
+		notifierThreads = getInt(KEY_NOTIFIER_THREADS, cfg, DEFAULT_NOTIFIER_THREADS, 1);
+		notifierBatchSize = getInt(KEY_NOTIFIER_BATCH_SIZE, cfg, DEFAULT_NOTIFIER_BATCH_SIZE, 1);
 		mongoHost = getString(KEY_MONGO_HOST, cfg, true);
+		mongoHosts = Collections.unmodifiableList(Arrays.stream(mongoHost.split(","))
+				.map(h -> h.trim()).filter(h -> !h.isEmpty()).collect(Collectors.toList()));
+		if (mongoHosts.isEmpty()) {
+			throw new GroupsConfigurationException(String.format(
+					"Parameter %s in config file %s section %s contains no hosts",
+					KEY_MONGO_HOST, cfg.get(TEMP_KEY_CFG_FILE), CFG_LOC));
+		}
 		mongoDB = getString(KEY_MONGO_DB, cfg, true);
 		mongoRetryWrites = TRUE.equals(getString(KEY_MONGO_RETRY_WRITES, cfg));
+		mongoReplicaSet = Optional.fromNullable(getString(KEY_MONGO_REPLICA_SET, cfg));
+		mongoPoolMinSize = getInt(KEY_MONGO_POOL_MIN_SIZE, cfg, DEFAULT_MONGO_POOL_MIN_SIZE, 0);
+		mongoPoolMaxSize = getInt(KEY_MONGO_POOL_MAX_SIZE, cfg, DEFAULT_MONGO_POOL_MAX_SIZE, 1);
+		if (mongoPoolMinSize > mongoPoolMaxSize) {
+			throw new GroupsConfigurationException(String.format(
+					"Parameter %s must not be greater than %s in config file %s section %s",
+					KEY_MONGO_POOL_MIN_SIZE, KEY_MONGO_POOL_MAX_SIZE,
+					cfg.get(TEMP_KEY_CFG_FILE), CFG_LOC));
+		}
+		mongoPoolMaxWaitMS = getInt(
+				KEY_MONGO_POOL_MAX_WAIT, cfg, DEFAULT_MONGO_POOL_MAX_WAIT_MS, 0);
+		mongoPoolSlowCheckOutMS = getInt(
+				KEY_MONGO_POOL_SLOW_CHECKOUT, cfg, DEFAULT_MONGO_POOL_SLOW_CHECKOUT_MS, 0);
+		mongoMaxConnectionIdleMS = getInt(
+				KEY_MONGO_MAX_CONNECTION_IDLE, cfg, DEFAULT_MONGO_MAX_CONNECTION_IDLE_MS, 0);
+		mongoConnectTimeoutMS = getInt(
+				KEY_MONGO_CONNECT_TIMEOUT, cfg, DEFAULT_MONGO_CONNECT_TIMEOUT_MS, 0);
+		mongoSocketTimeoutMS = getInt(
+				KEY_MONGO_SOCKET_TIMEOUT, cfg, DEFAULT_MONGO_SOCKET_TIMEOUT_MS, 0);
+		mongoListReadPreference = getReadPreference(cfg);
+		groupCacheSizeMB = getInt(KEY_GROUP_CACHE_SIZE, cfg, DEFAULT_GROUP_CACHE_SIZE_MB, 0);
+		groupCacheTTLSec = getInt(KEY_GROUP_CACHE_TTL, cfg, DEFAULT_GROUP_CACHE_TTL_SEC, 1);
+		groupCacheChangeStream = TRUE.equals(getString(KEY_GROUP_CACHE_CHANGE_STREAM, cfg));
 		mongoUser = Optional.fromNullable(getString(KEY_MONGO_USER, cfg));
 		Optional<String> mongop = Optional.fromNullable(getString(KEY_MONGO_PWD, cfg));
 		if (mongoUser.isPresent() ^ mongop.isPresent()) {
@@ -319,6 +542,63 @@ public class GroupsConfig {
 		}
 	}
 	
+	private Optional<ReadPreference> getReadPreference(final Map<String, String> cfg)
+			throws GroupsConfigurationException {
+		final String name = getString(KEY_MONGO_LIST_READ_PREFERENCE, cfg);
+		final String staleness = getString(KEY_MONGO_LIST_MAX_STALENESS, cfg);
+		if (name == null) {
+			if (staleness != null) {
+				throw new GroupsConfigurationException(String.format(
+						"Parameter %s requires parameter %s in config file %s section %s",
+						KEY_MONGO_LIST_MAX_STALENESS, KEY_MONGO_LIST_READ_PREFERENCE,
+						cfg.get(TEMP_KEY_CFG_FILE), CFG_LOC));
+			}
+			return Optional.absent();
+		}
+		final int maxStaleness = getInt(
+				KEY_MONGO_LIST_MAX_STALENESS, cfg, 0, MIN_MONGO_MAX_STALENESS_SEC);
+		try {
+			if (staleness == null) {
+				return Optional.of(ReadPreference.valueOf(name));
+			}
+			return Optional.of(ReadPreference.valueOf(
+					name, Collections.emptyList(), maxStaleness, TimeUnit.SECONDS));
+		} catch (IllegalArgumentException e) {
+			throw new GroupsConfigurationException(String.format(
+					"Illegal read preference in parameter %s in section %s of config file %s: %s",
+					KEY_MONGO_LIST_READ_PREFERENCE, CFG_LOC, cfg.get(TEMP_KEY_CFG_FILE),
+					e.getMessage()), e);
+		}
+	}
+	
+	private int getInt(
+			final String key,
+			final Map<String, String> cfg,
+			final int defaultValue,
+			final int minimum)
+			throws GroupsConfigurationException {
+		final String value = getString(key, cfg);
+		if (value == null) {
+			return defaultValue;
+		}
+		final int ret;
+		try {
+			ret = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new GroupsConfigurationException(String.format(
+					"Value %s of parameter %s in section %s of config " +
+					"file %s is not an integer",
+					value, key, CFG_LOC, cfg.get(TEMP_KEY_CFG_FILE)));
+		}
+		if (ret < minimum) {
+			throw new GroupsConfigurationException(String.format(
+					"Value %s of parameter %s in section %s of config " +
+					"file %s must be at least %s",
+					value, key, CFG_LOC, cfg.get(TEMP_KEY_CFG_FILE), minimum));
+		}
+		return ret;
+	}
+	
 	private URL getURL(final String key, final Map<String, String> cfg)
 			throws GroupsConfigurationException {
 		final String url = getString(key, cfg, true);
@@ -416,12 +696,20 @@ public class GroupsConfig {
 		}
 	}
 	
-	/** Get the MongoDB host, including the port if any.
+	/** Get the MongoDB host, including the port if any. For a replica set, this is a comma
+	 * separated list of seed hosts.
 	 * @return the host.
 	 */
 	public String getMongoHost() {
 		return mongoHost;
 	}
+	
+	/** Get the MongoDB hosts, including the ports if any, from {@link #getMongoHost()}.
+	 * @return the hosts.
+	 */
+	public List<String> getMongoHosts() {
+		return mongoHosts;
+	}
 
 	/** Get the MongoDB database to use.
 	 * @return the database.
@@ -436,6 +724,77 @@ public class GroupsConfig {
 	public boolean getMongoRetryWrites() {
 		return mongoRetryWrites;
 	}
+	
+	/** Get the name of the MongoDB replica set, if any. If provided, only members of the
+	 * replica set will be used.
+	 * @return the replica set name.
+	 */
+	public Optional<String> getMongoReplicaSet() {
+		return mongoReplicaSet;
+	}
+	
+	/** Get the minimum number of connections in the MongoDB connection pool.
+	 * @return the minimum pool size.
+	 */
+	public int getMongoPoolMinSize() {
+		return mongoPoolMinSize;
+	}
+	
+	/** Get the maximum number of connections in the MongoDB connection pool.
+	 * @return the maximum pool size.
+	 */
+	public int getMongoPoolMaxSize() {
+		return mongoPoolMaxSize;
+	}
+	
+	/** Get the maximum time, in milliseconds, to wait for a connection from the MongoDB
+	 * connection pool. 0 indicates the request should fail immediately if no connection is
+	 * available.
+	 * @return the maximum wait time.
+	 */
+	public int getMongoPoolMaxWaitMS() {
+		return mongoPoolMaxWaitMS;
+	}
+	
+	/** Get the time, in milliseconds, after which a wait for a connection from the MongoDB
+	 * connection pool is logged. 0 indicates waits should not be logged.
+	 * @return the slow check out time.
+	 */
+	public int getMongoPoolSlowCheckOutMS() {
+		return mongoPoolSlowCheckOutMS;
+	}
+	
+	/** Get the time, in milliseconds, a pooled MongoDB connection may be idle before it is
+	 * closed. 0 indicates no limit.
+	 * @return the maximum idle time.
+	 */
+	public int getMongoMaxConnectionIdleMS() {
+		return mongoMaxConnectionIdleMS;
+	}
+	
+	/** Get the time, in milliseconds, to wait for a connection to MongoDB to be established.
+	 * 0 indicates no limit.
+	 * @return the connection timeout.
+	 */
+	public int getMongoConnectTimeoutMS() {
+		return mongoConnectTimeoutMS;
+	}
+	
+	/** Get the time, in milliseconds, to wait for a response from MongoDB. 0 indicates no
+	 * limit.
+	 * @return the socket timeout.
+	 */
+	public int getMongoSocketTimeoutMS() {
+		return mongoSocketTimeoutMS;
+	}
+	
+	/** Get the MongoDB read preference for listing groups and requests, if any. If absent,
+	 * the default read preference, primary, is used.
+	 * @return the read preference.
+	 */
+	public Optional<ReadPreference> getMongoListReadPreference() {
+		return mongoListReadPreference;
+	}
 
 	/** Get the MongoDB user name, if any. If provided a password will also be provided.
 	 * @return the user name
@@ -450,7 +809,31 @@ public class GroupsConfig {
 	public Optional<char[]> getMongoPwd() {
 		return mongoPwd;
 	}
-	
+
+	/** Get the maximum estimated size, in megabytes, of the groups cached in memory. 0 indicates
+	 * groups should not be cached.
+	 * @return the cache size.
+	 */
+	public int getGroupCacheSizeMB() {
+		return groupCacheSizeMB;
+	}
+
+	/** Get the amount of time, in seconds, to cache a group.
+	 * @return the cache time.
+	 */
+	public int getGroupCacheTTLSec() {
+		return groupCacheTTLSec;
+	}
+
+	/** Get whether groups modified by any MongoDB client, including other service instances,
+	 * should be removed from the group cache via a MongoDB change stream. Requires MongoDB to
+	 * run as a replica set or sharded cluster.
+	 * @return true if the group cache should watch the change stream.
+	 */
+	public boolean isGroupCacheChangeStream() {
+		return groupCacheChangeStream;
+	}
+
 	/** Get the root url of the KBase authentication service.
 	 * @return the url.
 	 */
@@ -458,6 +841,28 @@ public class GroupsConfig {
 		return authURL;
 	}
 	
+	/** Get the maximum number of tokens to cache. 0 indicates tokens should not be cached.
+	 * @return the cache size.
+	 */
+	public int getTokenCacheSize() {
+		return tokenCacheSize;
+	}
+	
+	/** Get the amount of time, in seconds, to cache a valid token.
+	 * @return the cache time.
+	 */
+	public int getTokenCacheTTLSec() {
+		return tokenCacheTTLSec;
+	}
+	
+	/** Get the amount of time, in seconds, to cache an invalid token. 0 indicates invalid
+	 * tokens should not be cached.
+	 * @return the cache time.
+	 */
+	public int getInvalidTokenCacheTTLSec() {
+		return invalidTokenCacheTTLSec;
+	}
+	
 	/** Get the root url of the KBase workspace service.
 	 * @return the url.
 	 */
@@ -472,6 +877,22 @@ public class GroupsConfig {
 		return workspaceAdminToken;
 	}
 	
+	/** Get the maximum number of workspaces to query in a single call to the workspace when
+	 * retrieving workspace information. A value of 1 means workspaces are queried one at a time.
+	 * @return the batch size.
+	 */
+	public int getWorkspaceBatchSize() {
+		return workspaceBatchSize;
+	}
+	
+	/** Get the maximum number of concurrent requests to the workspace when retrieving
+	 * workspace information.
+	 * @return the number of threads.
+	 */
+	public int getWorkspaceInfoThreads() {
+		return workspaceInfoThreads;
+	}
+	
 	/** Get the root url of the KBase catalog service.
 	 * @return the url.
 	 */
@@ -479,6 +900,87 @@ public class GroupsConfig {
 		return catalogURL;
 	}
 	
+	/** Get the maximum number of results to cache for each resource handler method.
+	 * 0 indicates resource handler results should not be cached.
+	 * @return the cache size.
+	 */
+	public int getResourceCacheSize() {
+		return resourceCacheSize;
+	}
+	
+	/** Get the amount of time, in seconds, to cache resource descriptors and whether resources
+	 * are public.
+	 * @return the cache time.
+	 */
+	public int getResourceCacheTTLSec() {
+		return resourceCacheTTLSec;
+	}
+	
+	/** Get the amount of time, in seconds, to cache resource administrators and the resources
+	 * a user administrates. 0 indicates the information is not cached.
+	 * @return the cache time.
+	 */
+	public int getResourceCacheAdminTTLSec() {
+		return resourceCacheAdminTTLSec;
+	}
+	
+	/** Get the maximum number of groups and resource types that may have queued removals of
+	 * nonexistent resources. 0 indicates nonexistent resources should be removed synchronously.
+	 * @return the queue size.
+	 */
+	public int getResourceReaperQueueSize() {
+		return resourceReaperQueueSize;
+	}
+	
+	/** Get the maximum number of concurrent calls to the resource handlers, shared between all
+	 * requests. 0 indicates the resource handlers for different resource types should be called
+	 * one after the other.
+	 * @return the number of threads.
+	 */
+	public int getResourceHandlerThreads() {
+		return resourceHandlerThreads;
+	}
+	
+	/** Get the maximum time, in milliseconds, to wait for concurrent calls to the resource
+	 * handlers to complete.
+	 * @return the timeout.
+	 */
+	public int getResourceHandlerTimeoutMS() {
+		return resourceHandlerTimeoutMS;
+	}
+	
+	/** Get the maximum time, in milliseconds, to wait for a response from the workspace and
+	 * catalog services.
+	 * @return the timeout.
+	 */
+	public int getDependencyTimeoutMS() {
+		return dependencyTimeoutMS;
+	}
+	
+	/** Get the maximum number of concurrent calls to each external service. Calls over the
+	 * limit fail immediately. 0 indicates no limit.
+	 * @return the maximum number of calls.
+	 */
+	public int getDependencyMaxConcurrentCalls() {
+		return dependencyMaxConcurrentCalls;
+	}
+	
+	/** Get the number of consecutive failed calls to an external service after which calls
+	 * to the service fail immediately. 0 indicates calls are always made.
+	 * @return the failure threshold.
+	 */
+	public int getDependencyFailureThreshold() {
+		return dependencyFailureThreshold;
+	}
+	
+	/** Get the time, in seconds, that calls to a failed external service fail immediately
+	 * before a trial call is made to the service.
+	 * @return the time.
+	 */
+	public int getDependencyOpenSec() {
+		return dependencyOpenSec;
+	}
+	
 	/** Get the name of the factory class for the notifier.
 	 * @return the class name.
 	 */
@@ -493,6 +995,37 @@ public class GroupsConfig {
 		return notifierParameters;
 	}
 	
+	/** Get whether notifications should be stored in the notification outbox in the database
+	 * and sent by a background relay.
+	 * @return true if the notification outbox should be used.
+	 */
+	public boolean isNotifierOutbox() {
+		return notifierOutbox;
+	}
+	
+	/** Get the maximum number of notifications that may be queued for asynchronous sending.
+	 * 0 indicates notifications should be sent synchronously.
+	 * @return the queue size.
+	 */
+	public int getNotifierQueueSize() {
+		return notifierQueueSize;
+	}
+	
+	/** Get the number of threads sending queued notifications.
+	 * @return the number of threads.
+	 */
+	public int getNotifierThreads() {
+		return notifierThreads;
+	}
+	
+	/** Get the maximum number of notifications a sender thread removes from the queue, or the
+	 * outbox relay removes from the outbox, at once.
+	 * @return the batch size.
+	 */
+	public int getNotifierBatchSize() {
+		return notifierBatchSize;
+	}
+	
 	/** Get a logger. The logger is expected to intercept SLF4J log events and log them
 	 * appropriately. A reference to the logger must be maintained so that it is not garbage
 	 * collected.
@@ -516,6 +1049,38 @@ public class GroupsConfig {
 		return ignoreIPHeaders;
 	}
 	
+	/** True if JSON responses should be indented for human readability. If false, responses
+	 * are written in compact form.
+	 * @return true to indent JSON responses.
+	 */
+	public boolean isJSONIndent() {
+		return jsonIndent;
+	}
+	
+	/** Get the minimum size of a response body, in bytes, before the body is gzip compressed
+	 * for clients that accept gzip encoding. 0 indicates responses should never be compressed.
+	 * @return the minimum response size for compression.
+	 */
+	public int getGzipMinSizeBytes() {
+		return gzipMinSizeBytes;
+	}
+	
+	/** Get the maximum number of groups or requests returned in one page of a list. Larger
+	 * limits requested by clients are reduced to this value.
+	 * @return the maximum list size.
+	 */
+	public int getMaxListSize() {
+		return maxListSize;
+	}
+	
+	/** Get the age, in days since the request was closed, at which closed requests are moved
+	 * to the request archive. 0 indicates requests should never be archived.
+	 * @return the request archive age.
+	 */
+	public int getRequestArchiveAgeDays() {
+		return requestArchiveAgeDays;
+	}
+	
 	/** Get the configurations for the field validators.
 	 * @return the configurations.
 	 */
@@ -22,18 +22,21 @@ public class GetGroupsParams {
 	private final Role role;
 	private final Optional<ResourceType> resourceType;
 	private final Optional<ResourceID> resourceID;
+	private final Optional<Integer> limit;
 	
 	private GetGroupsParams(
 			final boolean sortAscending,
 			final Optional<String> excludeUpTo,
 			final Role role,
 			final Optional<ResourceType> resourceType,
-			final Optional<ResourceID> resourceID) {
+			final Optional<ResourceID> resourceID,
+			final Optional<Integer> limit) {
 		this.sortAscending = sortAscending;
 		this.excludeUpTo = excludeUpTo;
 		this.role = role;
 		this.resourceType = resourceType;
 		this.resourceID = resourceID;
+		this.limit = limit;
 	}
 
 	/** Get whether the list should be sorted in ascending or descending order.
@@ -76,12 +79,21 @@ public class GetGroupsParams {
 	public Optional<ResourceID> getResourceID() {
 		return resourceID;
 	}
+	
+	/** Get the maximum number of groups to return. If absent, the storage system's maximum
+	 * is used. The storage system may return fewer groups than the limit.
+	 * @return the limit.
+	 */
+	public Optional<Integer> getLimit() {
+		return limit;
+	}
 
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((excludeUpTo == null) ? 0 : excludeUpTo.hashCode());
+		result = prime * result + ((limit == null) ? 0 : limit.hashCode());
 		result = prime * result + ((resourceID == null) ? 0 : resourceID.hashCode());
 		result = prime * result + ((resourceType == null) ? 0 : resourceType.hashCode());
 		result = prime * result + ((role == null) ? 0 : role.hashCode());
@@ -108,6 +120,13 @@ public class GetGroupsParams {
 		} else if (!excludeUpTo.equals(other.excludeUpTo)) {
 			return false;
 		}
+		if (limit == null) {
+			if (other.limit != null) {
+				return false;
+			}
+		} else if (!limit.equals(other.limit)) {
+			return false;
+		}
 		if (resourceID == null) {
 			if (other.resourceID != null) {
 				return false;
@@ -149,6 +168,7 @@ public class GetGroupsParams {
 		private Role role = Role.NONE;
 		private Optional<ResourceType> resourceType = Optional.empty();
 		private Optional<ResourceID> resourceID = Optional.empty();
+		private Optional<Integer> limit = Optional.empty();
 		
 		private Builder() {}
 		
@@ -204,11 +224,27 @@ public class GetGroupsParams {
 			return this;
 		}
 		
+		/** Set the maximum number of groups to return. The storage system may impose a lower
+		 * maximum.
+		 * If null, no limit is set and the storage system's maximum is used.
+		 * @param limit the limit.
+		 * @return this builder.
+		 * @throws IllegalArgumentException if the limit is less than 1.
+		 */
+		public Builder withNullableLimit(final Integer limit) {
+			if (limit != null && limit < 1) {
+				throw new IllegalArgumentException("limit must be > 0");
+			}
+			this.limit = Optional.ofNullable(limit);
+			return this;
+		}
+		
 		/** Build the {@link GetGroupsParams}.
 		 * @return the params.
 		 */
 		public GetGroupsParams build() {
-			return new GetGroupsParams(sortAscending, excludeUpTo, role, resourceType, resourceID);
+			return new GetGroupsParams(
+					sortAscending, excludeUpTo, role, resourceType, resourceID, limit);
 		}
 	}
 }
@@ -277,12 +277,14 @@ public class Group {
 			throw new IllegalArgumentException(String.format("No such resource type %s",
 					type.getName()));
 		}
-		final Map<ResourceType, Map<ResourceID, ResourceAdministrativeID>> res = this.resources
-				.entrySet().stream().collect(Collectors.toMap(
-						e -> e.getKey(), e -> new HashMap<>(e.getValue())));
-		final Map<ResourceType, Map<ResourceID, Optional<Instant>>> resJoin = this.resourceJoinDate
-				.entrySet().stream().collect(Collectors.toMap(
-						e -> e.getKey(), e -> new HashMap<>(e.getValue())));
+		// only the maps for the modified type are copied, the other maps are never modified
+		// and so can be shared between group instances.
+		final Map<ResourceType, Map<ResourceID, ResourceAdministrativeID>> res =
+				new HashMap<>(this.resources);
+		res.put(type, new HashMap<>(res.get(type)));
+		final Map<ResourceType, Map<ResourceID, Optional<Instant>>> resJoin =
+				new HashMap<>(this.resourceJoinDate);
+		resJoin.put(type, new HashMap<>(resJoin.get(type)));
 		for (final ResourceID r: resources) {
 			if (res.get(type).remove(r) == null) {
 				throw new IllegalArgumentException(String.format("No such resource %s %s",
@@ -0,0 +1,29 @@
+package us.kbase.groups.core;
+
+import java.io.IOException;
+
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+
+/** An export of groups. Authentication and authorization are completed when the export is
+ * created; the groups themselves are read from the storage system and passed to a consumer
+ * one at a time when the export is written, and so are never all held in memory.
+ */
+public interface GroupExport {
+
+	/** A consumer of group views that may fail with an {@link IOException}. */
+	interface GroupViewConsumer {
+
+		/** Accept a group view.
+		 * @param group the group view.
+		 * @throws IOException if an IO error occurs processing the group.
+		 */
+		void accept(GroupView group) throws IOException;
+	}
+
+	/** Write the groups in the export to a consumer.
+	 * @param consumer the consumer of the groups.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 * @throws IOException if the consumer throws an IO exception.
+	 */
+	void writeTo(GroupViewConsumer consumer) throws GroupsStorageException, IOException;
+}
@@ -0,0 +1,452 @@
+package us.kbase.groups.core;
+
+import static java.util.Objects.requireNonNull;
+import static us.kbase.groups.util.Util.exceptOnEmpty;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import us.kbase.groups.core.Group.Role;
+import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.resource.ResourceType;
+
+/** A summary of a {@link Group} as seen by a particular user. The summary contains the group
+ * properties, the administrators, the number of members and resources, and the member record of
+ * the user, if the user is a member, rather than the full member and resource lists.
+ *
+ * A summary contains enough information to build a minimal {@link GroupView}.
+ */
+public class GroupSummary {
+
+	private final GroupID groupID;
+	private final GroupName groupName;
+	private final UserName owner;
+	private final boolean isPrivate;
+	private final boolean privateMemberList;
+	private final Set<UserName> admins;
+	private final Optional<GroupUser> member;
+	private final int memberCount;
+	private final Map<ResourceType, Integer> resourceCounts;
+	private final Instant creationDate;
+	private final Instant modificationDate;
+	private final Map<NumberedCustomField, String> customFields;
+
+	private GroupSummary(
+			final GroupID groupID,
+			final GroupName groupName,
+			final UserName owner,
+			final boolean isPrivate,
+			final boolean privateMemberList,
+			final Set<UserName> admins,
+			final Optional<GroupUser> member,
+			final int memberCount,
+			final Map<ResourceType, Integer> resourceCounts,
+			final Instant creationDate,
+			final Instant modificationDate,
+			final Map<NumberedCustomField, String> customFields) {
+		this.groupID = groupID;
+		this.groupName = groupName;
+		this.owner = owner;
+		this.isPrivate = isPrivate;
+		this.privateMemberList = privateMemberList;
+		this.admins = Collections.unmodifiableSet(admins);
+		this.member = member;
+		this.memberCount = memberCount;
+		this.resourceCounts = Collections.unmodifiableMap(resourceCounts);
+		this.creationDate = creationDate;
+		this.modificationDate = modificationDate;
+		this.customFields = Collections.unmodifiableMap(customFields);
+	}
+
+	/** The ID of the group.
+	 * @return the ID.
+	 */
+	public GroupID getGroupID() {
+		return groupID;
+	}
+
+	/** The name of the group.
+	 * @return the name.
+	 */
+	public GroupName getGroupName() {
+		return groupName;
+	}
+
+	/** The owner of the group.
+	 * @return the owner.
+	 */
+	public UserName getOwner() {
+		return owner;
+	}
+
+	/** Whether the group is private.
+	 * @return true if the group is private.
+	 */
+	public boolean isPrivate() {
+		return isPrivate;
+	}
+
+	/** Whether the group member list is private.
+	 * @return true if the member list is private.
+	 */
+	public boolean isPrivateMemberList() {
+		return privateMemberList;
+	}
+
+	/** Get the administrators of the group, not including the owner.
+	 * @return the administrators.
+	 */
+	public Set<UserName> getAdministrators() {
+		return admins;
+	}
+
+	/** Get the member record of the user for whom the summary was created, if that user is a
+	 * member of the group, including the owner and administrators.
+	 * @return the member record.
+	 */
+	public Optional<GroupUser> getMember() {
+		return member;
+	}
+
+	/** Get the number of members of the group, including the owner and administrators.
+	 * @return the member count.
+	 */
+	public int getMemberCount() {
+		return memberCount;
+	}
+
+	/** Get the number of resources of each type in the group. Types with no resources are
+	 * not included.
+	 * @return the resource counts.
+	 */
+	public Map<ResourceType, Integer> getResourceCounts() {
+		return resourceCounts;
+	}
+
+	/** The group's creation date.
+	 * @return the creation date.
+	 */
+	public Instant getCreationDate() {
+		return creationDate;
+	}
+
+	/** The group's modification date.
+	 * @return the modification date.
+	 */
+	public Instant getModificationDate() {
+		return modificationDate;
+	}
+
+	/** Get any custom fields associated with the group.
+	 * @return the custom fields.
+	 */
+	public Map<NumberedCustomField, String> getCustomFields() {
+		return customFields;
+	}
+
+	/** Check if a user is an administrator of the group, including the owner.
+	 * @param user the user.
+	 * @return true if the user is an administrator or the owner.
+	 */
+	public boolean isAdministrator(final UserName user) {
+		requireNonNull(user, "user");
+		return owner.equals(user) || admins.contains(user);
+	}
+
+	/** Get the role of a user within the group. Since the summary only contains the member
+	 * record for the user for whom the summary was created, any other user that is not the
+	 * owner or an administrator has the role {@link Role#NONE}.
+	 * @param userName the user.
+	 * @return the user's role.
+	 */
+	public Role getRole(final UserName userName) {
+		requireNonNull(userName, "userName");
+		if (owner.equals(userName)) {
+			return Role.OWNER;
+		}
+		if (admins.contains(userName)) {
+			return Role.ADMIN;
+		}
+		if (member.isPresent() && member.get().getName().equals(userName)) {
+			return Role.MEMBER;
+		}
+		return Role.NONE;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((admins == null) ? 0 : admins.hashCode());
+		result = prime * result + ((creationDate == null) ? 0 : creationDate.hashCode());
+		result = prime * result + ((customFields == null) ? 0 : customFields.hashCode());
+		result = prime * result + ((groupID == null) ? 0 : groupID.hashCode());
+		result = prime * result + ((groupName == null) ? 0 : groupName.hashCode());
+		result = prime * result + (isPrivate ? 1231 : 1237);
+		result = prime * result + ((member == null) ? 0 : member.hashCode());
+		result = prime * result + memberCount;
+		result = prime * result + ((modificationDate == null) ? 0 : modificationDate.hashCode());
+		result = prime * result + ((owner == null) ? 0 : owner.hashCode());
+		result = prime * result + (privateMemberList ? 1231 : 1237);
+		result = prime * result + ((resourceCounts == null) ? 0 : resourceCounts.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		GroupSummary other = (GroupSummary) obj;
+		if (admins == null) {
+			if (other.admins != null) {
+				return false;
+			}
+		} else if (!admins.equals(other.admins)) {
+			return false;
+		}
+		if (creationDate == null) {
+			if (other.creationDate != null) {
+				return false;
+			}
+		} else if (!creationDate.equals(other.creationDate)) {
+			return false;
+		}
+		if (customFields == null) {
+			if (other.customFields != null) {
+				return false;
+			}
+		} else if (!customFields.equals(other.customFields)) {
+			return false;
+		}
+		if (groupID == null) {
+			if (other.groupID != null) {
+				return false;
+			}
+		} else if (!groupID.equals(other.groupID)) {
+			return false;
+		}
+		if (groupName == null) {
+			if (other.groupName != null) {
+				return false;
+			}
+		} else if (!groupName.equals(other.groupName)) {
+			return false;
+		}
+		if (isPrivate != other.isPrivate) {
+			return false;
+		}
+		if (member == null) {
+			if (other.member != null) {
+				return false;
+			}
+		} else if (!member.equals(other.member)) {
+			return false;
+		}
+		if (memberCount != other.memberCount) {
+			return false;
+		}
+		if (modificationDate == null) {
+			if (other.modificationDate != null) {
+				return false;
+			}
+		} else if (!modificationDate.equals(other.modificationDate)) {
+			return false;
+		}
+		if (owner == null) {
+			if (other.owner != null) {
+				return false;
+			}
+		} else if (!owner.equals(other.owner)) {
+			return false;
+		}
+		if (privateMemberList != other.privateMemberList) {
+			return false;
+		}
+		if (resourceCounts == null) {
+			if (other.resourceCounts != null) {
+				return false;
+			}
+		} else if (!resourceCounts.equals(other.resourceCounts)) {
+			return false;
+		}
+		return true;
+	}
+
+	/** Create a summary of a group for a user.
+	 * @param group the group.
+	 * @param user the user for whom the summary is created. May be null, in which case the
+	 * summary contains no member record.
+	 * @return the summary.
+	 */
+	public static GroupSummary from(final Group group, final UserName user) {
+		requireNonNull(group, "group");
+		final Builder b = getBuilder(group.getGroupID(), group.getGroupName(), group.getOwner(),
+				new CreateAndModTimes(group.getCreationDate(), group.getModificationDate()))
+				.withIsPrivate(group.isPrivate())
+				.withPrivateMemberList(group.isPrivateMemberList())
+				.withMemberCount(group.getAllMembers().size());
+		group.getAdministrators().stream().forEach(a -> b.withAdministrator(a));
+		group.getResourceTypes().stream().forEach(
+				t -> b.withResourceCount(t, group.getResources(t).size()));
+		group.getCustomFields().entrySet().stream().forEach(
+				e -> b.withCustomField(e.getKey(), e.getValue()));
+		if (user != null && group.isMember(user)) {
+			b.withMember(group.getMember(user));
+		}
+		return b.build();
+	}
+
+	/** Get a builder for a {@link GroupSummary}.
+	 * @param id the group ID.
+	 * @param name the group name.
+	 * @param owner the owner of the group.
+	 * @param times the creation and modification times for the group.
+	 * @return the new builder.
+	 */
+	public static Builder getBuilder(
+			final GroupID id,
+			final GroupName name,
+			final UserName owner,
+			final CreateAndModTimes times) {
+		return new Builder(id, name, owner, times);
+	}
+
+	/** A builder for a {@link GroupSummary}. */
+	public static class Builder {
+
+		private final GroupID groupID;
+		private final GroupName groupName;
+		private final UserName owner;
+		private final CreateAndModTimes times;
+		private boolean isPrivate = false;
+		private boolean privateMemberList = true;
+		private final Set<UserName> admins = new HashSet<>();
+		private Optional<GroupUser> member = Optional.empty();
+		private int memberCount = 1;
+		private final Map<ResourceType, Integer> resourceCounts = new HashMap<>();
+		private final Map<NumberedCustomField, String> customFields = new HashMap<>();
+
+		private Builder(
+				final GroupID id,
+				final GroupName name,
+				final UserName owner,
+				final CreateAndModTimes times) {
+			this.groupID = requireNonNull(id, "id");
+			this.groupName = requireNonNull(name, "name");
+			this.owner = requireNonNull(owner, "owner");
+			this.times = requireNonNull(times, "times");
+		}
+
+		/** Set the group to public or private.
+		 * @param isPrivate true to set the group to private, false for public.
+		 * @return this builder.
+		 */
+		public Builder withIsPrivate(final boolean isPrivate) {
+			this.isPrivate = isPrivate;
+			return this;
+		}
+
+		/** Set the member list to private or public.
+		 * @param privateMembers true to make the members list private, false for public.
+		 * @return this builder.
+		 */
+		public Builder withPrivateMemberList(final boolean privateMembers) {
+			this.privateMemberList = privateMembers;
+			return this;
+		}
+
+		/** Add an administrator to the builder.
+		 * @param admin the administrator.
+		 * @return this builder.
+		 * @throws IllegalArgumentException if the administrator is the owner of the group.
+		 */
+		public Builder withAdministrator(final UserName admin) {
+			requireNonNull(admin, "admin");
+			if (owner.equals(admin)) {
+				throw new IllegalArgumentException("The owner cannot be an administrator");
+			}
+			admins.add(admin);
+			return this;
+		}
+
+		/** Set the member record of the user for whom the summary is created.
+		 * @param member the member record.
+		 * @return this builder.
+		 */
+		public Builder withMember(final GroupUser member) {
+			this.member = Optional.of(requireNonNull(member, "member"));
+			return this;
+		}
+
+		/** Set the number of members in the group, including the owner and administrators.
+		 * The default is 1, the owner.
+		 * @param memberCount the number of members.
+		 * @return this builder.
+		 */
+		public Builder withMemberCount(final int memberCount) {
+			if (memberCount < 1) {
+				throw new IllegalArgumentException("memberCount must be > 0");
+			}
+			this.memberCount = memberCount;
+			return this;
+		}
+
+		/** Set the number of resources of a type in the group. A count of 0 removes the type
+		 * from the summary.
+		 * @param type the resource type.
+		 * @param count the number of resources.
+		 * @return this builder.
+		 */
+		public Builder withResourceCount(final ResourceType type, final int count) {
+			requireNonNull(type, "type");
+			if (count < 0) {
+				throw new IllegalArgumentException("count must be >= 0");
+			}
+			if (count == 0) {
+				resourceCounts.remove(type);
+			} else {
+				resourceCounts.put(type, count);
+			}
+			return this;
+		}
+
+		/** Add a custom field to the group.
+		 * @param field the field name.
+		 * @param value the field value.
+		 * @return this builder.
+		 */
+		public Builder withCustomField(final NumberedCustomField field, final String value) {
+			requireNonNull(field, "field");
+			exceptOnEmpty(value, "value");
+			customFields.put(field, value);
+			return this;
+		}
+
+		/** Build the {@link GroupSummary}.
+		 * @return the new summary.
+		 * @throws IllegalArgumentException if the member count is less than the number of
+		 * administrators and the owner.
+		 */
+		public GroupSummary build() {
+			if (memberCount < admins.size() + 1) {
+				throw new IllegalArgumentException(
+						"memberCount must include the owner and administrators");
+			}
+			return new GroupSummary(groupID, groupName, owner, isPrivate, privateMemberList,
+					admins, member, memberCount, resourceCounts,
+					times.getCreationTime(), times.getModificationTime(), customFields);
+		}
+	}
+}
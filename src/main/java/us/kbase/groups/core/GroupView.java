@@ -2,15 +2,25 @@ package us.kbase.groups.core;
 
 import static java.util.Objects.requireNonNull;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.google.common.hash.Hashing;
+
 import us.kbase.groups.core.Group.Role;
 import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
 import us.kbase.groups.core.resource.ResourceID;
@@ -161,6 +171,7 @@ public class GroupView {
 	// This class is going to need a pretty serious refactor anyway
 	private final Map<ResourceType, ResourceInformationSet> resourceInfo;
 	private final Map<ResourceType, Map<ResourceID, Optional<Instant>>> resourceJoinDate;
+	private final Set<ResourceType> unavailableResourceTypes;
 	
 	// not part of the view, just describes the view
 	private final boolean isStandardView;
@@ -169,21 +180,26 @@ public class GroupView {
 	private final Optional<Boolean> isPrivateMemberList;
 	
 	// this class is starting to get a little hairy. Getting close to rethink/refactor time
+	// the group is only present for standard views or when the view was built from a group.
 	private GroupView(
-			final Group group,
+			final GroupSummary summary,
+			final Optional<Group> group,
 			final boolean standardView,
 			final boolean isOverridePrivateView,
 			final Optional<UserName> user,
 			final Map<ResourceType, ResourceInformationSet> resourceInfo,
 			final Map<ResourceType, Map<ResourceID, Optional<Instant>>> resourceJoinDate,
+			final Set<ResourceType> unavailableResourceTypes,
 			final Function<NumberedCustomField, Boolean> isPublicField,
 			final Function<NumberedCustomField, Boolean> isMinimalViewField,
 			final Function<NumberedCustomField, Boolean> isUserPublicField) {
 		this.isStandardView = standardView;
 		this.isOverridePrivateView = isOverridePrivateView;
-		this.role = user.map(u -> group.getRole(u)).orElse(Role.NONE);
-		this.isPrivate = group.isPrivate();
-		this.groupID = group.getGroupID();
+		this.role = user.map(u -> summary.getRole(u)).orElse(Role.NONE);
+		this.isPrivate = summary.isPrivate();
+		this.groupID = summary.getGroupID();
+		this.unavailableResourceTypes = Collections.unmodifiableSet(
+				new HashSet<>(unavailableResourceTypes));
 		if (isPrivateView()) {
 			// resInfo is expected to only contain admin'd resources for non-members
 			this.resourceInfo = Collections.unmodifiableMap(resourceInfo);
@@ -200,9 +216,8 @@ public class GroupView {
 			this.isPrivateMemberList = Optional.empty();
 			this.lastVisit = Optional.empty();
 		} else {
-			this.memberCount = Optional.of(group.getAllMembers().size());
-			this.resourceCount = Collections.unmodifiableMap(group.getResourceTypes().stream()
-					.collect(Collectors.toMap(t -> t, t -> group.getResources(t).size())));
+			this.memberCount = Optional.of(summary.getMemberCount());
+			this.resourceCount = summary.getResourceCounts();
 			this.resourceInfo = Collections.unmodifiableMap(resourceInfo);
 			if (role.equals(Role.NONE)) {
 				this.resourceJoinDate = Collections.emptyMap();
@@ -210,32 +225,33 @@ public class GroupView {
 			} else {
 				// since the user is a member, we know the view isn't private
 				this.resourceJoinDate = Collections.unmodifiableMap(resourceJoinDate);
-				this.lastVisit = group.getMember(user.get()).getLastVisit();
+				this.lastVisit = summary.getMember().flatMap(m -> m.getLastVisit());
 			}
 			
 			// group properties
-			this.groupName = Optional.of(group.getGroupName());
-			this.owner = Optional.of(group.getOwner());
+			this.groupName = Optional.of(summary.getGroupName());
+			this.owner = Optional.of(summary.getOwner());
 			this.customFields = getCustomFields(
-					group.getCustomFields(), isPublicField, isMinimalViewField);
-			this.creationDate = Optional.of(group.getCreationDate());
-			this.modificationDate = Optional.of(group.getModificationDate());
+					summary.getCustomFields(), isPublicField, isMinimalViewField);
+			this.creationDate = Optional.of(summary.getCreationDate());
+			this.modificationDate = Optional.of(summary.getModificationDate());
 			if (!standardView) {
 				isPrivateMemberList = Optional.empty();
 				members = Collections.emptySet();
 				admins = Collections.emptySet();
 			} else {
+				final Group g = group.get(); // the builder ensures the group is present
 				final Function<NumberedCustomField, Boolean> upub = isUserPublicField;
-				isPrivateMemberList = Optional.of(group.isPrivateMemberList());
-				admins = group.getAdministrators();
-				if (role.equals(Role.NONE) && group.isPrivateMemberList()) {
-					group.getAdministratorsAndOwner().stream().forEach(u -> userInfo.put(
-							u, filterUserFields(group.getMember(u), upub, group, user)));
+				isPrivateMemberList = Optional.of(g.isPrivateMemberList());
+				admins = g.getAdministrators();
+				if (role.equals(Role.NONE) && g.isPrivateMemberList()) {
+					g.getAdministratorsAndOwner().stream().forEach(u -> userInfo.put(
+							u, filterUserFields(g.getMember(u), upub, g, user)));
 					members = Collections.emptySet();
 				} else {
-					members = group.getMembers();
-					group.getAllMembers().stream().forEach(u -> userInfo.put(
-							u, filterUserFields(group.getMember(u), upub, group, user)));
+					members = g.getMembers();
+					g.getAllMembers().stream().forEach(u -> userInfo.put(
+							u, filterUserFields(g.getMember(u), upub, g, user)));
 				}
 			}
 		}
@@ -319,6 +335,104 @@ public class GroupView {
 		return isPrivate && !isOverridePrivateView && role.equals(Role.NONE);
 	}
 	
+	/** Get a tag that changes when the contents of this view change. The tag is derived from
+	 * the group information in the view, including the information about the members and their
+	 * custom fields visible to the user viewing the group, and the resource information in
+	 * the view.
+	 * 
+	 * Private views have no tag, as the tag would reveal when the group was modified.
+	 * Views with {@link #getUnavailableResourceTypes()} have no tag so that clients do not
+	 * cache a view that is missing resource information.
+	 * 
+	 * The tag is calculated each time this method is called. See {@link VersionedGroupView}.
+	 * @return the tag, or {@link Optional#empty()} for private views and views with
+	 * unavailable resource types.
+	 */
+	public Optional<String> getVersionTag() {
+		if (isPrivateView() || !unavailableResourceTypes.isEmpty()) {
+			return Optional.empty();
+		}
+		// maps are sorted so the tag is the same for equal views in any service instance
+		final Map<String, List<Object>> users = new TreeMap<>();
+		for (final GroupUserView u: userInfo.values()) {
+			// admins can see member visit dates, which don't change the modification date,
+			// and user fields may be updated without changing the modification date.
+			users.put(u.getName().getName(), Arrays.asList(toMillis(u.getJoinDate()),
+					toMillis(u.getLastVisit()), toSortedFields(u.getCustomFields())));
+		}
+		final Map<String, Map<String, List<Object>>> resources = new TreeMap<>();
+		for (final ResourceType t: resourceInfo.keySet()) {
+			final ResourceInformationSet ris = resourceInfo.get(t);
+			final Map<ResourceID, Optional<Instant>> joinDates = resourceJoinDate
+					.getOrDefault(t, Collections.emptyMap());
+			final Map<String, List<Object>> res = new TreeMap<>();
+			for (final ResourceID r: ris.getResources()) {
+				res.put(r.getName(), Arrays.asList(
+						toMillis(joinDates.getOrDefault(r, Optional.empty())),
+						ris.getFields(r)));
+			}
+			resources.put(t.getName(), res);
+		}
+		final StringBuilder sb = new StringBuilder();
+		encode(sb, Arrays.asList(
+				groupID.getName(),
+				isPrivate,
+				isStandardView,
+				isPrivateMemberList.orElse(null),
+				role.getRepresentation(),
+				modificationDate.get().toEpochMilli(),
+				toMillis(lastVisit),
+				new TreeSet<>(toNames(members)),
+				new TreeSet<>(toNames(admins)),
+				toSortedFields(customFields),
+				users,
+				resources));
+		return Optional.of(Hashing.sha256()
+				.hashString(sb.toString(), StandardCharsets.UTF_8).toString());
+	}
+	
+	private static long toMillis(final Optional<Instant> instant) {
+		return instant.map(i -> i.toEpochMilli()).orElse(-1L);
+	}
+	
+	private static List<String> toNames(final Set<UserName> users) {
+		return users.stream().map(u -> u.getName()).collect(Collectors.toList());
+	}
+	
+	private static Map<String, String> toSortedFields(
+			final Map<NumberedCustomField, String> fields) {
+		final Map<String, String> ret = new TreeMap<>();
+		fields.keySet().stream().forEach(f -> ret.put(f.getField(), fields.get(f)));
+		return ret;
+	}
+	
+	// encodes JSON compatible values with a type and length prefix on every value, so that
+	// different values cannot have the same encoding regardless of the characters in strings.
+	private static void encode(final StringBuilder sb, final Object value) {
+		if (value == null) {
+			sb.append("n;");
+		} else if (value instanceof Map) {
+			final Map<String, Object> sorted = new TreeMap<>();
+			((Map<?, ?>) value).entrySet().stream().forEach(
+					e -> sorted.put(String.valueOf(e.getKey()), e.getValue()));
+			sb.append("m").append(sorted.size()).append(";");
+			for (final Entry<String, Object> e: sorted.entrySet()) {
+				encode(sb, e.getKey());
+				encode(sb, e.getValue());
+			}
+		} else if (value instanceof Collection) {
+			final Collection<?> col = (Collection<?>) value;
+			sb.append("l").append(col.size()).append(";");
+			for (final Object o: col) {
+				encode(sb, o);
+			}
+		} else {
+			final String str = value.toString();
+			sb.append(value instanceof String ? "s" : "v")
+					.append(str.length()).append(";").append(str);
+		}
+	}
+	
 	/** Get the group ID.
 	 * @return the ID.
 	 */
@@ -409,6 +523,15 @@ public class GroupView {
 		return resourceInfo.get(type);
 	}
 	
+	/** Get the resource types for which resource information could not be retrieved, for
+	 * example because the resource service was unavailable. The resource information for
+	 * these types is empty.
+	 * @return the resource types.
+	 */
+	public Set<ResourceType> getUnavailableResourceTypes() {
+		return unavailableResourceTypes;
+	}
+	
 	/** Get the date a resource was added to the group. May be {@link Optional#empty()} for
 	 * resources added before version 0.1.3 of the software. Calling this method for views of
 	 * a group where the user is not a member will throw an error.
@@ -477,6 +600,7 @@ public class GroupView {
 		result = prime * result + ((resourceInfo == null) ? 0 : resourceInfo.hashCode());
 		result = prime * result + ((resourceJoinDate == null) ? 0 : resourceJoinDate.hashCode());
 		result = prime * result + ((role == null) ? 0 : role.hashCode());
+		result = prime * result + ((unavailableResourceTypes == null) ? 0 : unavailableResourceTypes.hashCode());
 		result = prime * result + ((userInfo == null) ? 0 : userInfo.hashCode());
 		return result;
 	}
@@ -603,6 +727,13 @@ public class GroupView {
 		if (role != other.role) {
 			return false;
 		}
+		if (unavailableResourceTypes == null) {
+			if (other.unavailableResourceTypes != null) {
+				return false;
+			}
+		} else if (!unavailableResourceTypes.equals(other.unavailableResourceTypes)) {
+			return false;
+		}
 		if (userInfo == null) {
 			if (other.userInfo != null) {
 				return false;
@@ -622,7 +753,20 @@ public class GroupView {
 	 * @return a new builder.
 	 */
 	public static Builder getBuilder(final Group group, final UserName user) {
-		return new Builder(group, user);
+		requireNonNull(group, "group");
+		return new Builder(GroupSummary.from(group, user), Optional.of(group), user);
+	}
+	
+	/** Get a builder for a minimal {@link GroupView} of a group summary. Standard views and
+	 * resource information require the full group and are not available from this builder.
+	 * @param summary the summary of the group for the view, created for the same user as the
+	 * view.
+	 * @param user the user for whom the view is being constructed. May be null.
+	 * @return a new builder.
+	 */
+	public static Builder getBuilder(final GroupSummary summary, final UserName user) {
+		requireNonNull(summary, "summary");
+		return new Builder(summary, Optional.empty(), user);
 	}
 	
 	/** A builder for {@link GroupView}s.
@@ -631,28 +775,47 @@ public class GroupView {
 	 */
 	public static class Builder {
 		
-		private final Group group;
+		private final GroupSummary summary;
+		private final Optional<Group> group;
 		private final Optional<UserName> user;
 		private boolean isStandardView = false;
 		private boolean isOverridePrivateView = false;
 		private final Map<ResourceType, ResourceInformationSet> resourceInfo = new HashMap<>();
 		private final Map<ResourceType, Map<ResourceID, Optional<Instant>>> resourceJoinDate =
 				new HashMap<>();
+		private final Set<ResourceType> unavailableResourceTypes = new HashSet<>();
 		private Function<NumberedCustomField, Boolean> isPublicField = f -> false;
 		private Function<NumberedCustomField, Boolean> isMinimalViewField = f -> false;
 		private Function<NumberedCustomField, Boolean> isUserPublicField = f -> false;
 		
-		private Builder(final Group group, final UserName user) {
-			this.group = requireNonNull(group, "group");
+		private Builder(
+				final GroupSummary summary,
+				final Optional<Group> group,
+				final UserName user) {
+			this.summary = summary;
+			this.group = group;
 			this.user = Optional.ofNullable(user);
 		}
 		
+		private Group getGroup() {
+			if (!group.isPresent()) {
+				throw new IllegalArgumentException(
+						"A full group is required for standard views and resource information");
+			}
+			return group.get();
+		}
+		
 		/** Set the type of the view - false for a minimal view (the default), true for a
 		 * standard view.
 		 * @param isStandardView the view type.
 		 * @return this builder.
+		 * @throws IllegalArgumentException if a standard view is requested and the builder
+		 * was created from a {@link GroupSummary}.
 		 */
 		public Builder withStandardView(final boolean isStandardView) {
+			if (isStandardView) {
+				getGroup();
+			}
 			this.isStandardView = isStandardView;
 			return this;
 		}
@@ -665,10 +828,13 @@ public class GroupView {
 		 * @param type the type of the resource.
 		 * @param info the information for the resource.
 		 * @return this builder.
+		 * @throws IllegalArgumentException if the builder was created from a
+		 * {@link GroupSummary}.
 		 */
 		public Builder withResource(final ResourceType type, final ResourceInformationSet info) {
 			requireNonNull(type, "type");
 			requireNonNull(info, "info");
+			final Group group = getGroup();
 			if (!info.getUser().equals(user)) {
 				throw new IllegalArgumentException("User in info does not match user in builder");
 			}
@@ -689,6 +855,7 @@ public class GroupView {
 			}
 			
 			resourceInfo.put(type, info);
+			unavailableResourceTypes.remove(type);
 			resourceJoinDate.put(type, new HashMap<>());
 			info.getResources().stream().forEach(
 					r -> resourceJoinDate.get(type).put(r, group.getResourceAddDate(type, r)));
@@ -705,10 +872,24 @@ public class GroupView {
 		public Builder withResourceType(final ResourceType type) {
 			requireNonNull(type, "type");
 			resourceInfo.put(type, ResourceInformationSet.getBuilder(user.orElse(null)).build());
+			unavailableResourceTypes.remove(type);
 			resourceJoinDate.put(type, new HashMap<>());
 			return this;
 		}
 		
+		/** Add an empty {@link ResourceInformationSet} to the builder and mark the resource
+		 * type as unavailable. This allows returning a view of the group when the resource
+		 * information for the type cannot be retrieved.
+		 * Calling this method will overwrite any previous information for the type.
+		 * @param type the type of the resource.
+		 * @return this builder.
+		 */
+		public Builder withUnavailableResourceType(final ResourceType type) {
+			withResourceType(type);
+			unavailableResourceTypes.add(type);
+			return this;
+		}
+		
 		/** Add a function that will be used to determine which fields are public fields and
 		 * therefore viewable by all users, not just group members.
 		 * By default, no fields are considered to be public fields.
@@ -765,8 +946,8 @@ public class GroupView {
 		 * @return the view.
 		 */
 		public GroupView build() {
-			return new GroupView(group, isStandardView, isOverridePrivateView, user,
-					resourceInfo, resourceJoinDate,
+			return new GroupView(summary, group, isStandardView, isOverridePrivateView, user,
+					resourceInfo, resourceJoinDate, unavailableResourceTypes,
 					isPublicField, isMinimalViewField, isUserPublicField);
 		}
 	}
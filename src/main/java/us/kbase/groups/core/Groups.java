@@ -14,13 +14,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
+import org.slf4j.LoggerFactory;
+
 import us.kbase.groups.core.Group.Role;
 import us.kbase.groups.core.exceptions.AuthenticationException;
 import us.kbase.groups.core.exceptions.ClosedRequestException;
@@ -44,6 +48,8 @@ import us.kbase.groups.core.fieldvalidation.FieldValidatorException;
 import us.kbase.groups.core.fieldvalidation.FieldValidators;
 import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
 import us.kbase.groups.core.notifications.Notifications;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.notifications.OutboxNotification.Operation;
 import us.kbase.groups.core.request.GroupRequest;
 import us.kbase.groups.core.request.GroupRequestStatus;
 import us.kbase.groups.core.request.GroupRequestStatusType;
@@ -55,11 +61,14 @@ import us.kbase.groups.core.resource.ResourceAccess;
 import us.kbase.groups.core.resource.ResourceAdministrativeID;
 import us.kbase.groups.core.resource.ResourceDescriptor;
 import us.kbase.groups.core.resource.ResourceHandler;
+import us.kbase.groups.core.resource.ResourceHandlerExecutor;
+import us.kbase.groups.core.resource.ResourceHandlerExecutor.HandlerCall;
 import us.kbase.groups.core.resource.ResourceID;
 import us.kbase.groups.core.resource.ResourceInformation;
 import us.kbase.groups.core.resource.ResourceInformationSet;
 import us.kbase.groups.core.resource.ResourceType;
 import us.kbase.groups.storage.GroupsStorage;
+import us.kbase.groups.storage.ResourceReaper;
 import us.kbase.groups.storage.exceptions.GroupsStorageException;
 
 /** The core class in the Groups software. 
@@ -79,6 +88,9 @@ public class Groups {
 	private final Map<ResourceType, ResourceHandler> resourceHandlers;
 	private final FieldValidators validators;
 	private final Notifications notifications;
+	private final boolean notificationOutbox;
+	private final ResourceReaper resourceReaper;
+	private final ResourceHandlerExecutor handlerExecutor;
 	private final UUIDGenerator uuidGen;
 	private final Clock clock;
 	
@@ -100,8 +112,41 @@ public class Groups {
 			final Map<ResourceType, ResourceHandler> resourceHandlers,
 			final FieldValidators validators,
 			final Notifications notifications) {
+		this(storage, userHandler, resourceHandlers, validators, notifications, false, null,
+				new ResourceHandlerExecutor(), new UUIDGenerator(), Clock.systemDefaultZone());
+	}
+	
+	/** Create a new {@link Groups} class.
+	 * @param storage the storage system to be used by the class.
+	 * @param userHandler the user handler by which users shall be handled.
+	 * @param resourceHandlers the resource handlers for providing information about resources.
+	 * See {@link #Groups(GroupsStorage, UserHandler, Map, FieldValidators, Notifications)}.
+	 * @param validators the validators for group custom fields.
+	 * @param notifications where notification should be sent.
+	 * @param notificationOutbox true to record notifications regarding requests and resources
+	 * added to groups in the storage system in the same write as the change that triggers the
+	 * notification, rather than sending them to the notifications instance. The storage system
+	 * moves the notifications to the notification outbox via
+	 * {@link GroupsStorage#movePendingNotifications(int)}. Expired request notifications are
+	 * always sent to the notifications instance.
+	 * @param resourceReaper the reaper to which nonexistent resources found when reading a
+	 * group will be passed, or null to remove nonexistent resources from the storage system
+	 * before the read completes.
+	 * @param handlerExecutor the executor with which calls to the resource handlers for
+	 * different resource types are made.
+	 */
+	public Groups(
+			final GroupsStorage storage,
+			final UserHandler userHandler,
+			final Map<ResourceType, ResourceHandler> resourceHandlers,
+			final FieldValidators validators,
+			final Notifications notifications,
+			final boolean notificationOutbox,
+			final ResourceReaper resourceReaper,
+			final ResourceHandlerExecutor handlerExecutor) {
 		this(storage, userHandler, resourceHandlers, validators, notifications,
-				new UUIDGenerator(), Clock.systemDefaultZone());
+				notificationOutbox, resourceReaper, handlerExecutor, new UUIDGenerator(),
+				Clock.systemDefaultZone());
 	}
 	
 	// for testing
@@ -111,6 +156,9 @@ public class Groups {
 			final Map<ResourceType, ResourceHandler> resourceHandlers,
 			final FieldValidators validators,
 			final Notifications notifications,
+			final boolean notificationOutbox,
+			final ResourceReaper resourceReaper,
+			final ResourceHandlerExecutor handlerExecutor,
 			final UUIDGenerator uuidGen,
 			final Clock clock) {
 		checkNotNull(storage, "storage");
@@ -118,6 +166,10 @@ public class Groups {
 		checkNotNull(resourceHandlers, "resourceHandlers");
 		checkNotNull(validators, "validators");
 		checkNotNull(notifications, "notifications");
+		checkNotNull(handlerExecutor, "handlerExecutor");
+		this.handlerExecutor = handlerExecutor;
+		this.resourceReaper = resourceReaper != null ? resourceReaper :
+				(g, t, r) -> storage.removeResources(g, t, r, clock.instant());
 		this.storage = storage;
 		this.userHandler = userHandler;
 		if (resourceHandlers.containsKey(USER_TYPE)) {
@@ -127,6 +179,7 @@ public class Groups {
 		this.resourceHandlers = new HashMap<>(resourceHandlers);
 		this.validators = validators;
 		this.notifications = notifications;
+		this.notificationOutbox = notificationOutbox;
 		this.uuidGen = uuidGen;
 		this.clock = clock;
 	}
@@ -339,6 +392,11 @@ public class Groups {
 	 * A null token will result in only public group workspaces being included in the view.
 	 * A non-member token will also include workspaces the user administrates.
 	 * A member will get a full view and all group workspaces will be included.
+	 * 
+	 * This method does not throw a {@link ResourceHandlerException}. If the resource
+	 * information for a resource type cannot be retrieved because of an error contacting the
+	 * resource service, the view is returned with the type marked as unavailable. See
+	 * {@link GroupView#getUnavailableResourceTypes()}.
 	 * @param userToken the user's token.
 	 * @param groupID the ID of the group to get.
 	 * @return a view of the group.
@@ -346,18 +404,64 @@ public class Groups {
 	 * @throws InvalidTokenException if the token is invalid.
 	 * @throws AuthenticationException if authentication fails.
 	 * @throws GroupsStorageException if an error occurs contacting the storage system.
-	 * @throws ResourceHandlerException if an error occurs contacting the resource service.
 	 */
 	public GroupView getGroup(final Token userToken, final GroupID groupID)
 			throws InvalidTokenException, AuthenticationException, NoSuchGroupException,
-				GroupsStorageException, ResourceHandlerException {
+				GroupsStorageException {
+		return getGroupView(userToken, groupID);
+	}
+	
+	/** Get a view of a group as {@link #getGroup(Token, GroupID)} with the view's version tag,
+	 * unless the {@link GroupView#getVersionTag()} of the view matches one of the provided tags.
+	 * The tag includes the resource information, so the resource handlers are always contacted.
+	 * 
+	 * If the resource information for a resource type cannot be retrieved because of an error
+	 * contacting the resource service, the view is returned with the type marked as
+	 * unavailable. See {@link GroupView#getUnavailableResourceTypes()}.
+	 * @param userToken the user's token.
+	 * @param groupID the ID of the group to get.
+	 * @param versionTags version tags from previously retrieved views of the group.
+	 * @return a view of the group and its version tag, or {@link Optional#empty()} if the
+	 * version tag of the view matches one of the provided tags.
+	 * @throws NoSuchGroupException if there is no such group.
+	 * @throws InvalidTokenException if the token is invalid.
+	 * @throws AuthenticationException if authentication fails.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	public Optional<VersionedGroupView> getGroupIfChanged(
+			final Token userToken,
+			final GroupID groupID,
+			final Set<String> versionTags)
+			throws InvalidTokenException, AuthenticationException, NoSuchGroupException,
+				GroupsStorageException {
+		requireNonNull(versionTags, "versionTags");
+		final VersionedGroupView view = VersionedGroupView.of(getGroupView(userToken, groupID));
+		final Optional<String> tag = view.getVersionTag();
+		if (tag.isPresent() && versionTags.contains(tag.get())) {
+			return Optional.empty();
+		}
+		return Optional.of(view);
+	}
+	
+	private GroupView getGroupView(final Token userToken, final GroupID groupID)
+			throws InvalidTokenException, AuthenticationException, NoSuchGroupException,
+				GroupsStorageException {
 		Group g = storage.getGroup(groupID);
 		final UserName user = getOptionalUser(userToken);
-		final Map<ResourceType, ResourceInformationSet> resources = new HashMap<>();
+		// sorted so the calls are made in a consistent order
+		final Map<ResourceType, HandlerCall<ResourceInformationSet>> calls = new TreeMap<>();
 		for (final ResourceType type: g.getResourceTypes()) {
-			final ResourceInformationSet resourceInfo = getResourceInfo(g, user, type);
-			resources.put(type, resourceInfo);
-			g = g.removeResources(type, resourceInfo.getNonexistentResources());
+			calls.put(type, getResourceInfoCall(g, user, type));
+		}
+		final Map<ResourceType, Optional<ResourceInformationSet>> resources =
+				handlerExecutor.callAllAvailable(calls);
+		for (final ResourceType type: resources.keySet()) {
+			final Set<ResourceID> missing = resources.get(type)
+					.map(r -> r.getNonexistentResources()).orElse(Collections.emptySet());
+			if (!missing.isEmpty()) {
+				resourceReaper.reap(g.getGroupID(), type, missing);
+				g = g.removeResources(type, missing);
+			}
 		}
 		final GroupView.Builder b = startViewBuild(g, user)
 				// this seems odd. Maybe there's a better way to deal with this?
@@ -368,7 +472,12 @@ public class Groups {
 						f -> validators.getUserFieldConfigOrEmpty(f.getFieldRoot())
 								.map(c -> c.isPublicField()).orElse(false));
 		for (final ResourceType type: resources.keySet()) {
-			b.withResource(type, resources.get(type).withoutNonexistentResources());
+			if (resources.get(type).isPresent()) {
+				b.withResource(type, resources.get(type).get().withoutNonexistentResources());
+			} else {
+				// the resource service is down or overloaded. Return what we can.
+				b.withUnavailableResourceType(type);
+			}
 		}
 		return b.build();
 	}
@@ -387,11 +496,10 @@ public class Groups {
 		return b;
 	}
 	
-	private ResourceInformationSet getResourceInfo(
+	private HandlerCall<ResourceInformationSet> getResourceInfoCall(
 			final Group g,
 			final UserName user,
-			final ResourceType type)
-			throws ResourceHandlerException, NoSuchGroupException, GroupsStorageException {
+			final ResourceType type) {
 		final ResourceHandler h;
 		try {
 			h = getHandler(type);
@@ -400,26 +508,18 @@ public class Groups {
 					"Group %s has %s data without a configured handler",
 					g.getGroupID().getName(), type.getName()), e);
 		}
-		final ResourceInformationSet info;
-		try {
-			info = h.getResourceInformation(
-					user,
-					g.getResources(type).stream().map(r -> r.getResourceID())
-							.collect(Collectors.toSet()),
-					getAccessLevel(g, user));
-		} catch (IllegalResourceIDException e) {
-			throw new RuntimeException(String.format(
-					"Illegal data associated with group %s: %s",
-					g.getGroupID().getName(), e.getMessage()), e);
-		}
-		for (final ResourceID rid: info.getNonexistentResources()) {
+		final Set<ResourceID> resources = g.getResources(type).stream()
+				.map(r -> r.getResourceID()).collect(Collectors.toSet());
+		final ResourceAccess access = getAccessLevel(g, user);
+		return () -> {
 			try {
-				storage.removeResource(g.getGroupID(), type, rid, clock.instant());
-			} catch (NoSuchResourceException e) {
-				// do nothing, if the resource isn't there fine.
+				return h.getResourceInformation(user, resources, access);
+			} catch (IllegalResourceIDException e) {
+				throw new RuntimeException(String.format(
+						"Illegal data associated with group %s: %s",
+						g.getGroupID().getName(), e.getMessage()), e);
 			}
-		}
-		return info;
+		};
 	}
 
 	private ResourceAccess getAccessLevel(final Group g, final UserName user) {
@@ -506,30 +606,29 @@ public class Groups {
 					"No more than %s group IDs are allowed", MAX_GROUP_HAS_REQUESTS_COUNT));
 		}
 		final UserName user = userHandler.getUser(requireNonNull(userToken, "userToken"));
-		final Map<GroupID, Optional<Instant>> gToLastVisit = new HashMap<>();
-		for (final GroupID gid: groupIDs) {
-			// could make a bulk method that returns less info per group if necessary
-			// or even an isAdmin(Username, Set<GroupID>) method. YAGNI for now
-			final Group g = storage.getGroup(gid);
+		final Set<GroupSummary> groups = storage.getGroupSummaries(groupIDs, user);
+		for (final GroupSummary g: groups) {
 			if (!g.isAdministrator(user)) {
 				throw new UnauthorizedException(String.format(
-						"User %s may not administrate group %s", user.getName(), gid.getName()));
+						"User %s may not administrate group %s",
+						user.getName(), g.getGroupID().getName()));
 			}
-			gToLastVisit.put(gid, g.getMember(user).getLastVisit());
 		}
+		final Map<GroupID, Instant> latestRequest = storage.getLatestOpenRequestDates(groupIDs);
 		final Map<GroupID, GroupHasRequests> ret = new HashMap<>();
-		for (final GroupID gid: groupIDs) {
-			final Instant laterThan = gToLastVisit.get(gid).orElse(null);
+		for (final GroupSummary g: groups) {
+			// admins are always members, so the member record is present
+			final Optional<Instant> lastVisit = g.getMember().get().getLastVisit();
+			final Instant latest = latestRequest.get(g.getGroupID());
 			final GroupHasRequests reqstate;
-			if (storage.groupHasRequest(gid, laterThan)) {
+			if (latest == null) {
+				reqstate = GroupHasRequests.NONE;
+			} else if (!lastVisit.isPresent() || latest.isAfter(lastVisit.get())) {
 				reqstate = GroupHasRequests.NEW;
-			} else if (laterThan != null) {
-				reqstate = storage.groupHasRequest(gid, null) ?
-						GroupHasRequests.OLD : GroupHasRequests.NONE;
 			} else {
-				reqstate = GroupHasRequests.NONE;
+				reqstate = GroupHasRequests.OLD;
 			}
-			ret.put(gid, reqstate);
+			ret.put(g.getGroupID(), reqstate);
 		}
 		return ret;
 	}
@@ -564,11 +663,50 @@ public class Groups {
 			resourceIsPublic = getHandler(params.getResourceType().get())
 					.isPublic(params.getResourceID().get());
 		}
-		return storage.getGroups(params, resourceIsPublic, user).stream()
+		return storage.getGroupSummaries(params, resourceIsPublic, user).stream()
 				.map(g -> toMinimalView(user, g)).collect(Collectors.toList());
 	}
 
-	private GroupView toMinimalView(final UserName user, final Group g) {
+	/** Export minimal views of all the groups in the system visible to the user. The visibility
+	 * rules are identical to {@link #getGroups(Token, GetGroupsParams)}, but the number of groups
+	 * is not capped; only the limit in the parameters, if any, is applied.
+	 * The user and resource are checked when this method is called; the groups are only read
+	 * from the storage system when the returned export is written.
+	 * @param userToken the user's token. If null, only public groups are returned.
+	 * @param params the parameters for getting the groups.
+	 * @return the export.
+	 * @throws InvalidTokenException if the token is invalid.
+	 * @throws AuthenticationException if authentication fails.
+	 * @throws UnauthorizedException if a role is specified but no token is provided.
+	 * @throws ResourceHandlerException if an error occurs contacting the resource service.
+	 * @throws NoSuchResourceTypeException if the specified resource type does not exist.
+	 * @throws IllegalResourceIDException if the specified resource id is illegal.
+	 * @throws NoSuchResourceException if the specified resource does not exist.
+	 */
+	public GroupExport exportGroups(final Token userToken, final GetGroupsParams params)
+			throws InvalidTokenException, AuthenticationException, UnauthorizedException,
+				NoSuchResourceException, IllegalResourceIDException,
+				NoSuchResourceTypeException, ResourceHandlerException {
+		checkNotNull(params, "params");
+		if (userToken == null && !params.getRole().equals(Role.NONE)) {
+			throw new UnauthorizedException("A token is required when filtering groups by role");
+		}
+		final UserName user = getOptionalUser(userToken);
+		final boolean resourceIsPublic;
+		if (params.getResourceType().isPresent()) {
+			resourceIsPublic = getHandler(params.getResourceType().get())
+					.isPublic(params.getResourceID().get());
+		} else {
+			resourceIsPublic = false;
+		}
+		return consumer -> {
+			checkNotNull(consumer, "consumer");
+			storage.exportGroupSummaries(params, resourceIsPublic, user,
+					g -> consumer.accept(toMinimalView(user, g)));
+		};
+	}
+
+	private GroupView toMinimalView(final UserName user, final GroupSummary g) {
 		return GroupView.getBuilder(g, user)
 				// this seems odd. Maybe there's a better way to deal with this?
 				.withMinimalViewFieldDeterminer(
@@ -604,7 +742,8 @@ public class Groups {
 		final UserName user = getOptionalUser(userToken);
 		final Set<Group> groups = storage.getGroups(groupIDs);
 		final Map<Object, GroupView> idToGroup = groups.stream()
-				.collect(Collectors.toMap(g -> g.getGroupID(), g -> toMinimalView(user, g)));
+				.collect(Collectors.toMap(g -> g.getGroupID(),
+						g -> toMinimalView(user, GroupSummary.from(g, user))));
 		return groupIDs.stream().map(gid -> idToGroup.get(gid)).collect(Collectors.toList());
 	}
 	
@@ -693,11 +832,41 @@ public class Groups {
 				.withType(type)
 				.withResource(resourceType, resource)
 				.build();
-		storage.storeRequest(request);
-		notifications.notify(notifyTargets, request);
+		if (notificationOutbox) {
+			storage.storeRequest(request, toOutbox(Operation.NOTIFY, notifyTargets, request));
+		} else {
+			storage.storeRequest(request);
+			notifications.notify(notifyTargets, request);
+		}
 		return request;
 	}
 	
+	private OutboxNotification toOutbox(
+			final Operation op,
+			final Collection<UserName> targets,
+			final GroupRequest request) {
+		return OutboxNotification.getBuilder(uuidGen.randomUUID(), op,
+				request.getModificationDate(), request)
+				.withTargets(targets)
+				.build();
+	}
+	
+	// returns the request as closeRequest() in the storage system will store it.
+	private static GroupRequest toClosed(
+			final GroupRequest request,
+			final GroupRequestStatus status,
+			final Instant modificationTime) {
+		return GroupRequest.getBuilder(request.getID(), request.getGroupID(),
+				request.getRequester(), CreateModAndExpireTimes.getBuilder(
+						request.getCreationDate(), request.getExpirationDate())
+						.withModificationTime(modificationTime)
+						.build())
+				.withType(request.getType())
+				.withResource(request.getResourceType(), request.getResource())
+				.withStatus(status)
+				.build();
+	}
+	
 	private final Set<GroupRequestUserAction> CREATOR_ACTIONS = new HashSet<>(Arrays.asList(
 			GroupRequestUserAction.CANCEL));
 	private final Set<GroupRequestUserAction> TARGET_ACTIONS = new HashSet<>(Arrays.asList(
@@ -839,12 +1008,18 @@ public class Groups {
 			}
 			ret = storage.getRequestsByTarget(params);
 		} else {
-			final Map<ResourceType, Set<ResourceAdministrativeID>> resources = new HashMap<>();
+			// sorted so the calls are made in a consistent order
+			final Map<ResourceType, HandlerCall<Set<ResourceAdministrativeID>>> calls =
+					new TreeMap<>();
 			for (final ResourceType t: resourceHandlers.keySet()) {
-				final Set<ResourceAdministrativeID> reslist = resourceHandlers.get(t)
-						.getAdministratedResources(user);
-				if (!reslist.isEmpty()) {
-					resources.put(t, reslist);
+				final ResourceHandler h = resourceHandlers.get(t);
+				calls.put(t, () -> h.getAdministratedResources(user));
+			}
+			final Map<ResourceType, Set<ResourceAdministrativeID>> resources = new HashMap<>();
+			for (final Entry<ResourceType, Set<ResourceAdministrativeID>> e:
+					handlerExecutor.callAll(calls).entrySet()) {
+				if (!e.getValue().isEmpty()) {
+					resources.put(e.getKey(), e.getValue());
 				}
 			}
 			ret = storage.getRequestsByTarget(user, resources, params);
@@ -945,8 +1120,15 @@ public class Groups {
 					user.getName(), requestID.getID()));
 		}
 		ensureIsOpen(gr);
-		storage.closeRequest(requestID, GroupRequestStatus.canceled(), clock.instant());
-		notifications.cancel(requestID);
+		final Instant now = clock.instant();
+		if (notificationOutbox) {
+			storage.closeRequest(requestID, GroupRequestStatus.canceled(), now,
+					OutboxNotification.getBuilder(
+							uuidGen.randomUUID(), Operation.CANCEL, now, requestID).build());
+		} else {
+			storage.closeRequest(requestID, GroupRequestStatus.canceled(), now);
+			notifications.cancel(requestID);
+		}
 		return storage.getRequest(requestID);
 	}
 	
@@ -982,9 +1164,15 @@ public class Groups {
 		ensureIsRequestTarget(request, group.isAdministrator(user), user, "deny");
 		ensureIsOpen(request);
 		
-		storage.closeRequest(requestID, denied, clock.instant());
-		final GroupRequest r = storage.getRequest(requestID);
 		//TODO FEEDS who should get notified?
+		final Instant now = clock.instant();
+		if (notificationOutbox) {
+			storage.closeRequest(requestID, denied, now, toOutbox(
+					Operation.DENY, new HashSet<>(), toClosed(request, denied, now)));
+			return storage.getRequest(requestID);
+		}
+		storage.closeRequest(requestID, denied, now);
+		final GroupRequest r = storage.getRequest(requestID);
 		notifications.deny(new HashSet<>(), r);
 		return r;
 	}
@@ -1029,12 +1217,90 @@ public class Groups {
 			notifyTargets.addAll(group.getAllMembers());
 		}
 		notifyTargets.remove(user);
-		storage.closeRequest(request.getID(), GroupRequestStatus.accepted(user), clock.instant());
+		final GroupRequestStatus accepted = GroupRequestStatus.accepted(user);
+		final Instant now = clock.instant();
+		if (notificationOutbox) {
+			storage.closeRequest(request.getID(), accepted, now, toOutbox(
+					Operation.ACCEPT, notifyTargets, toClosed(request, accepted, now)));
+			return storage.getRequest(request.getID());
+		}
+		storage.closeRequest(request.getID(), accepted, now);
 		final GroupRequest r = storage.getRequest(request.getID());
 		notifications.accept(notifyTargets, r);
 		return r;
 	}
 
+	/** Notify the targets of expired requests that the requests have lapsed. The targets are
+	 * the targets of the original request notification - the invited user or the
+	 * administrators of the invited resource for invitations, and the group administrators for
+	 * requests. If the invited resource no longer exists, the notification is sent with no
+	 * targets.
+	 * 
+	 * The administrators of the invited resources are fetched concurrently via the
+	 * {@link ResourceHandlerExecutor}. If the administrators of a resource cannot be fetched,
+	 * the error is logged with the request ID and the notification is sent with no targets.
+	 * @param requests the expired requests.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	public void notifyExpiredRequests(final Collection<GroupRequest> requests)
+			throws GroupsStorageException {
+		checkNoNullsInCollection(requests, "requests");
+		final Map<RequestID, HandlerCall<Set<UserName>>> calls = new LinkedHashMap<>();
+		for (final GroupRequest r: requests) {
+			if (r.isInvite() && !r.getResourceType().equals(USER_TYPE)) {
+				calls.put(r.getID(), getExpiredInviteTargetsCall(r));
+			}
+		}
+		final Map<RequestID, Optional<Set<UserName>>> resourceAdmins =
+				handlerExecutor.callAllAvailable(calls);
+		for (final GroupRequest r: requests) {
+			final Set<UserName> targets = new HashSet<>();
+			if (!r.isInvite()) {
+				try {
+					targets.addAll(storage.getGroup(r.getGroupID()).getAdministratorsAndOwner());
+				} catch (NoSuchGroupException e) {
+					// shouldn't happen, but don't fail the other notifications if it does
+				}
+			} else if (r.getResourceType().equals(USER_TYPE)) {
+				targets.add(toUserName(r));
+			} else {
+				final Optional<Set<UserName>> admins = resourceAdmins.get(r.getID());
+				if (admins.isPresent()) {
+					targets.addAll(admins.get());
+				} else {
+					LoggerFactory.getLogger(getClass()).error(String.format(
+							"Timed out getting the administrators of %s %s for expired " +
+							"request %s", r.getResourceType().getName(),
+							r.getResource().getResourceID().getName(), r.getID().getID()));
+				}
+			}
+			notifications.expire(targets, r);
+		}
+	}
+	
+	private HandlerCall<Set<UserName>> getExpiredInviteTargetsCall(final GroupRequest r) {
+		final ResourceHandler handler = getHandlerRuntimeException(r);
+		return () -> {
+			try {
+				return handler.getAdministrators(r.getResource().getResourceID());
+			} catch (NoSuchResourceException e) {
+				// resource was deleted, nothing to do
+				return Collections.emptySet();
+			} catch (IllegalResourceIDException e) {
+				throw new RuntimeException(String.format(
+						"Illegal value stored in request %s: %s",
+						r.getID().getID(), e.getMessage()), e);
+			} catch (ResourceHandlerException e) {
+				// don't fail the other notifications
+				LoggerFactory.getLogger(getClass()).error(String.format(
+						"Error getting the administrators of %s %s for expired request %s: %s",
+						r.getResourceType().getName(), r.getResource().getResourceID().getName(),
+						r.getID().getID(), e.getMessage()), e);
+				return Collections.emptySet();
+			}
+		};
+	}
+	
 	// returns any users other than the group administrators that should be notified
 	private Set<UserName> processRequest(
 			final GroupID groupID,
@@ -1291,11 +1557,19 @@ public class Groups {
 		final ResourceDescriptor d = h.getDescriptor(resource);
 		final Set<UserName> admins = h.getAdministrators(resource);
 		if (g.isAdministrator(user) && admins.contains(user)) {
-			storage.addResource(groupID, type, d, clock.instant());
 			final Set<UserName> targets = new HashSet<>(admins);
 			targets.addAll(g.getAllMembers());
 			targets.remove(user);
-			notifications.addResource(user, targets, groupID, type, resource);
+			final Instant now = clock.instant();
+			if (notificationOutbox) {
+				storage.addResource(groupID, type, d, now, OutboxNotification.getBuilder(
+						uuidGen.randomUUID(), now, user, groupID, type, resource)
+						.withTargets(targets)
+						.build());
+			} else {
+				storage.addResource(groupID, type, d, now);
+				notifications.addResource(user, targets, groupID, type, resource);
+			}
 			return Optional.empty();
 		}
 		if (admins.contains(user)) {
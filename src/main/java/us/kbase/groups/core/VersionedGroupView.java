@@ -0,0 +1,80 @@
+package us.kbase.groups.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Optional;
+
+/** A {@link GroupView} and its version tag, calculated once when this class is created.
+ * @author gaprice@lbl.gov
+ *
+ */
+public class VersionedGroupView {
+
+	private final GroupView view;
+	private final Optional<String> versionTag;
+
+	private VersionedGroupView(final GroupView view) {
+		this.view = view;
+		this.versionTag = view.getVersionTag();
+	}
+
+	/** Get the view.
+	 * @return the view.
+	 */
+	public GroupView getView() {
+		return view;
+	}
+
+	/** Get the version tag of the view. See {@link GroupView#getVersionTag()}.
+	 * @return the tag, or {@link Optional#empty()} if the view has no tag.
+	 */
+	public Optional<String> getVersionTag() {
+		return versionTag;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((versionTag == null) ? 0 : versionTag.hashCode());
+		result = prime * result + ((view == null) ? 0 : view.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		VersionedGroupView other = (VersionedGroupView) obj;
+		if (versionTag == null) {
+			if (other.versionTag != null) {
+				return false;
+			}
+		} else if (!versionTag.equals(other.versionTag)) {
+			return false;
+		}
+		if (view == null) {
+			if (other.view != null) {
+				return false;
+			}
+		} else if (!view.equals(other.view)) {
+			return false;
+		}
+		return true;
+	}
+
+	/** Create a versioned view, calculating the version tag of the view.
+	 * @param view the view.
+	 * @return the versioned view.
+	 */
+	public static VersionedGroupView of(final GroupView view) {
+		return new VersionedGroupView(requireNonNull(view, "view"));
+	}
+}
@@ -0,0 +1,12 @@
+package us.kbase.groups.core.exceptions;
+
+/** Thrown when the authentication service is temporarily unavailable, for example because it
+ * is overloaded or has been failing. The request may be retried later.
+ */
+@SuppressWarnings("serial")
+public class AuthenticationUnavailableException extends AuthenticationException {
+
+	public AuthenticationUnavailableException(final String message) {
+		super(ErrorType.AUTHENTICATION_UNAVAILABLE, message);
+	}
+}
@@ -12,6 +12,8 @@ public enum ErrorType {
 	NO_TOKEN				(10010, "No authentication token"),
 	/** The token provided is not valid. */
 	INVALID_TOKEN			(10020, "Invalid token"),
+	/** The authentication service is temporarily unavailable. */
+	AUTHENTICATION_UNAVAILABLE	(10030, "Authentication service unavailable"),
 	/** The user is not authorized to perform the requested action. */
 	UNAUTHORIZED			(20000, "Unauthorized"),
 	/** A required input parameter was not provided. */
@@ -22,6 +22,8 @@ public interface Notifications {
 
 	void accept(Collection<UserName> targets, GroupRequest request);
 
+	void expire(Collection<UserName> targets, GroupRequest request);
+
 	void addResource(
 			UserName user,
 			Set<UserName> targets,
@@ -0,0 +1,416 @@
+package us.kbase.groups.core.notifications;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static us.kbase.groups.util.Util.checkNoNullsInCollection;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+
+/** A notification that has been recorded for later delivery to a {@link Notifications}
+ * instance.
+ *
+ * Notifications regarding a request, other than {@link Operation#CANCEL} notifications, store
+ * a snapshot of the request as it was when the notification was created, so that later changes
+ * to the request do not affect the notification.
+ */
+public class OutboxNotification {
+
+	/** The notification operation, corresponding to a method in {@link Notifications}. */
+	public static enum Operation {
+		/** See {@link Notifications#notify(Collection, us.kbase.groups.core.request.GroupRequest)}.
+		 */
+		NOTIFY,
+		/** See {@link Notifications#cancel(RequestID)}. */
+		CANCEL,
+		/** See {@link Notifications#deny(Collection, us.kbase.groups.core.request.GroupRequest)}.
+		 */
+		DENY,
+		/** See {@link Notifications#accept(Collection, us.kbase.groups.core.request.GroupRequest)}.
+		 */
+		ACCEPT,
+		/** See {@link Notifications#expire(Collection, us.kbase.groups.core.request.GroupRequest)}.
+		 */
+		EXPIRE,
+		/** See {@link Notifications#addResource(UserName, Set, GroupID, ResourceType, ResourceID)}.
+		 */
+		ADD_RESOURCE;
+	}
+
+	private final UUID id;
+	private final Operation operation;
+	private final Instant creationDate;
+	private final Set<UserName> targets;
+	private final Optional<RequestID> requestID;
+	private final Optional<GroupRequest> request;
+	private final Optional<UserName> actor;
+	private final Optional<GroupID> groupID;
+	private final Optional<ResourceType> resourceType;
+	private final Optional<ResourceID> resourceID;
+	private final int attempts;
+
+	private OutboxNotification(
+			final UUID id,
+			final Operation operation,
+			final Instant creationDate,
+			final Set<UserName> targets,
+			final Optional<RequestID> requestID,
+			final Optional<GroupRequest> request,
+			final Optional<UserName> actor,
+			final Optional<GroupID> groupID,
+			final Optional<ResourceType> resourceType,
+			final Optional<ResourceID> resourceID,
+			final int attempts) {
+		this.id = id;
+		this.operation = operation;
+		this.creationDate = creationDate;
+		this.targets = Collections.unmodifiableSet(targets);
+		this.requestID = requestID;
+		this.request = request;
+		this.actor = actor;
+		this.groupID = groupID;
+		this.resourceType = resourceType;
+		this.resourceID = resourceID;
+		this.attempts = attempts;
+	}
+
+	/** Get the ID of the notification.
+	 * @return the ID.
+	 */
+	public UUID getID() {
+		return id;
+	}
+
+	/** Get the notification operation.
+	 * @return the operation.
+	 */
+	public Operation getOperation() {
+		return operation;
+	}
+
+	/** Get the date the notification was created.
+	 * @return the creation date.
+	 */
+	public Instant getCreationDate() {
+		return creationDate;
+	}
+
+	/** Get the targets of the notification.
+	 * @return the targets.
+	 */
+	public Set<UserName> getTargets() {
+		return targets;
+	}
+
+	/** Get the ID of the request that is the subject of the notification. Present for all
+	 * operations other than {@link Operation#ADD_RESOURCE}.
+	 * @return the request ID.
+	 */
+	public Optional<RequestID> getRequestID() {
+		return requestID;
+	}
+
+	/** Get the request that is the subject of the notification, as it was when the
+	 * notification was created. Present for all operations other than
+	 * {@link Operation#CANCEL} and {@link Operation#ADD_RESOURCE}.
+	 * @return the request.
+	 */
+	public Optional<GroupRequest> getRequest() {
+		return request;
+	}
+
+	/** Get the user that added the resource. Present for {@link Operation#ADD_RESOURCE}.
+	 * @return the user.
+	 */
+	public Optional<UserName> getActor() {
+		return actor;
+	}
+
+	/** Get the ID of the group to which the resource was added. Present for
+	 * {@link Operation#ADD_RESOURCE}.
+	 * @return the group ID.
+	 */
+	public Optional<GroupID> getGroupID() {
+		return groupID;
+	}
+
+	/** Get the type of the resource that was added. Present for {@link Operation#ADD_RESOURCE}.
+	 * @return the resource type.
+	 */
+	public Optional<ResourceType> getResourceType() {
+		return resourceType;
+	}
+
+	/** Get the ID of the resource that was added. Present for {@link Operation#ADD_RESOURCE}.
+	 * @return the resource ID.
+	 */
+	public Optional<ResourceID> getResourceID() {
+		return resourceID;
+	}
+
+	/** Get the number of failed attempts to send the notification.
+	 * @return the number of attempts.
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((actor == null) ? 0 : actor.hashCode());
+		result = prime * result + attempts;
+		result = prime * result + ((creationDate == null) ? 0 : creationDate.hashCode());
+		result = prime * result + ((groupID == null) ? 0 : groupID.hashCode());
+		result = prime * result + ((id == null) ? 0 : id.hashCode());
+		result = prime * result + ((operation == null) ? 0 : operation.hashCode());
+		result = prime * result + ((request == null) ? 0 : request.hashCode());
+		result = prime * result + ((requestID == null) ? 0 : requestID.hashCode());
+		result = prime * result + ((resourceID == null) ? 0 : resourceID.hashCode());
+		result = prime * result + ((resourceType == null) ? 0 : resourceType.hashCode());
+		result = prime * result + ((targets == null) ? 0 : targets.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		OutboxNotification other = (OutboxNotification) obj;
+		if (actor == null) {
+			if (other.actor != null) {
+				return false;
+			}
+		} else if (!actor.equals(other.actor)) {
+			return false;
+		}
+		if (attempts != other.attempts) {
+			return false;
+		}
+		if (creationDate == null) {
+			if (other.creationDate != null) {
+				return false;
+			}
+		} else if (!creationDate.equals(other.creationDate)) {
+			return false;
+		}
+		if (groupID == null) {
+			if (other.groupID != null) {
+				return false;
+			}
+		} else if (!groupID.equals(other.groupID)) {
+			return false;
+		}
+		if (id == null) {
+			if (other.id != null) {
+				return false;
+			}
+		} else if (!id.equals(other.id)) {
+			return false;
+		}
+		if (operation != other.operation) {
+			return false;
+		}
+		if (request == null) {
+			if (other.request != null) {
+				return false;
+			}
+		} else if (!request.equals(other.request)) {
+			return false;
+		}
+		if (requestID == null) {
+			if (other.requestID != null) {
+				return false;
+			}
+		} else if (!requestID.equals(other.requestID)) {
+			return false;
+		}
+		if (resourceID == null) {
+			if (other.resourceID != null) {
+				return false;
+			}
+		} else if (!resourceID.equals(other.resourceID)) {
+			return false;
+		}
+		if (resourceType == null) {
+			if (other.resourceType != null) {
+				return false;
+			}
+		} else if (!resourceType.equals(other.resourceType)) {
+			return false;
+		}
+		if (targets == null) {
+			if (other.targets != null) {
+				return false;
+			}
+		} else if (!targets.equals(other.targets)) {
+			return false;
+		}
+		return true;
+	}
+
+	/** Get a builder for a notification regarding a request ID.
+	 * @param id the ID of the notification.
+	 * @param operation the notification operation. Must be {@link Operation#CANCEL}.
+	 * @param creationDate the creation date of the notification.
+	 * @param requestID the ID of the request.
+	 * @return the builder.
+	 */
+	public static Builder getBuilder(
+			final UUID id,
+			final Operation operation,
+			final Instant creationDate,
+			final RequestID requestID) {
+		checkNotNull(operation, "operation");
+		checkNotNull(requestID, "requestID");
+		if (Operation.ADD_RESOURCE.equals(operation)) {
+			throw new IllegalArgumentException("Operation requires a resource");
+		}
+		if (!Operation.CANCEL.equals(operation)) {
+			throw new IllegalArgumentException("Operation requires a request");
+		}
+		return new Builder(id, operation, creationDate, Optional.of(requestID),
+				Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+				Optional.empty());
+	}
+
+	/** Get a builder for a notification regarding a request.
+	 * @param id the ID of the notification.
+	 * @param operation the notification operation. May not be {@link Operation#ADD_RESOURCE}
+	 * or {@link Operation#CANCEL}.
+	 * @param creationDate the creation date of the notification.
+	 * @param request the request, which is sent with the notification as is.
+	 * @return the builder.
+	 */
+	public static Builder getBuilder(
+			final UUID id,
+			final Operation operation,
+			final Instant creationDate,
+			final GroupRequest request) {
+		checkNotNull(operation, "operation");
+		checkNotNull(request, "request");
+		if (Operation.ADD_RESOURCE.equals(operation)) {
+			throw new IllegalArgumentException("Operation requires a resource");
+		}
+		if (Operation.CANCEL.equals(operation)) {
+			throw new IllegalArgumentException("Operation requires a request ID");
+		}
+		return new Builder(id, operation, creationDate, Optional.of(request.getID()),
+				Optional.of(request), Optional.empty(), Optional.empty(), Optional.empty(),
+				Optional.empty());
+	}
+
+	/** Get a builder for a notification regarding a resource added to a group.
+	 * The operation is {@link Operation#ADD_RESOURCE}.
+	 * @param id the ID of the notification.
+	 * @param creationDate the creation date of the notification.
+	 * @param actor the user that added the resource.
+	 * @param groupID the ID of the group to which the resource was added.
+	 * @param resourceType the type of the resource.
+	 * @param resourceID the ID of the resource.
+	 * @return the builder.
+	 */
+	public static Builder getBuilder(
+			final UUID id,
+			final Instant creationDate,
+			final UserName actor,
+			final GroupID groupID,
+			final ResourceType resourceType,
+			final ResourceID resourceID) {
+		checkNotNull(actor, "actor");
+		checkNotNull(groupID, "groupID");
+		checkNotNull(resourceType, "resourceType");
+		checkNotNull(resourceID, "resourceID");
+		return new Builder(id, Operation.ADD_RESOURCE, creationDate, Optional.empty(),
+				Optional.empty(), Optional.of(actor), Optional.of(groupID),
+				Optional.of(resourceType), Optional.of(resourceID));
+	}
+
+	/** A builder for an {@link OutboxNotification}. */
+	public static class Builder {
+
+		private final UUID id;
+		private final Operation operation;
+		private final Instant creationDate;
+		private final Optional<RequestID> requestID;
+		private final Optional<GroupRequest> request;
+		private final Optional<UserName> actor;
+		private final Optional<GroupID> groupID;
+		private final Optional<ResourceType> resourceType;
+		private final Optional<ResourceID> resourceID;
+		private final Set<UserName> targets = new HashSet<>();
+		private int attempts = 0;
+
+		private Builder(
+				final UUID id,
+				final Operation operation,
+				final Instant creationDate,
+				final Optional<RequestID> requestID,
+				final Optional<GroupRequest> request,
+				final Optional<UserName> actor,
+				final Optional<GroupID> groupID,
+				final Optional<ResourceType> resourceType,
+				final Optional<ResourceID> resourceID) {
+			checkNotNull(id, "id");
+			checkNotNull(creationDate, "creationDate");
+			this.id = id;
+			this.operation = operation;
+			this.creationDate = creationDate;
+			this.requestID = requestID;
+			this.request = request;
+			this.actor = actor;
+			this.groupID = groupID;
+			this.resourceType = resourceType;
+			this.resourceID = resourceID;
+		}
+
+		/** Add targets for the notification.
+		 * @param targets the targets.
+		 * @return this builder.
+		 */
+		public Builder withTargets(final Collection<UserName> targets) {
+			checkNoNullsInCollection(targets, "targets");
+			this.targets.addAll(targets);
+			return this;
+		}
+
+		/** Set the number of failed attempts to send the notification.
+		 * @param attempts the number of attempts.
+		 * @return this builder.
+		 */
+		public Builder withAttempts(final int attempts) {
+			if (attempts < 0) {
+				throw new IllegalArgumentException("attempts must be >= 0");
+			}
+			this.attempts = attempts;
+			return this;
+		}
+
+		/** Build the notification.
+		 * @return the notification.
+		 */
+		public OutboxNotification build() {
+			return new OutboxNotification(id, operation, creationDate, new HashSet<>(targets),
+					requestID, request, actor, groupID, resourceType, resourceID, attempts);
+		}
+	}
+}
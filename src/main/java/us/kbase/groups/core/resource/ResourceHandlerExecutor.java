@@ -0,0 +1,256 @@
+package us.kbase.groups.core.resource;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import us.kbase.groups.core.exceptions.ResourceHandlerException;
+
+/** Calls resource handlers for multiple resource types concurrently, so that the time taken
+ * for the set of calls is the time taken by the slowest handler rather than the sum of the
+ * handler times.
+ *
+ * The calls run on a fixed size pool of threads shared between all callers. If all the
+ * threads are busy, a call runs on the calling thread. Each set of calls has a deadline after
+ * which any incomplete calls are cancelled and an error is thrown.
+ */
+public class ResourceHandlerExecutor {
+
+	private final ThreadPoolExecutor executor; // null if calls run on the calling thread
+	private final long timeoutMillis;
+
+	/** A call to a resource handler.
+	 * @param <T> the type of the call result.
+	 */
+	@FunctionalInterface
+	public interface HandlerCall<T> {
+
+		/** Call the handler.
+		 * @return the result of the call.
+		 * @throws ResourceHandlerException if an error occurs contacting the resource service.
+		 */
+		T call() throws ResourceHandlerException;
+	}
+
+	/** Create an executor that calls each handler in turn on the calling thread, without a
+	 * deadline.
+	 */
+	public ResourceHandlerExecutor() {
+		executor = null;
+		timeoutMillis = 0;
+	}
+
+	/** Create an executor that calls handlers concurrently.
+	 * @param threads the maximum number of concurrent handler calls across all callers.
+	 * @param timeoutMillis the maximum time, in milliseconds, to wait for a set of handler
+	 * calls to complete.
+	 */
+	public ResourceHandlerExecutor(final int threads, final long timeoutMillis) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be > 0");
+		}
+		if (timeoutMillis < 1) {
+			throw new IllegalArgumentException("timeoutMillis must be > 0");
+		}
+		this.timeoutMillis = timeoutMillis;
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new SynchronousQueue<>(),
+				new ThreadFactoryBuilder()
+						.setDaemon(true)
+						.setNameFormat("resource-handler-%d")
+						.build(),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/** Make a set of handler calls, one per resource type.
+	 *
+	 * If any call fails, the remaining calls are cancelled and the error is thrown without
+	 * waiting for the remaining calls to complete. If more than one call fails, the error from
+	 * the first call to fail is thrown. When calls run on the calling thread, calls are made
+	 * in the iteration order of the calls and stop at the first failure.
+	 * @param <T> the type of the call results.
+	 * @param calls the calls to make.
+	 * @return the results of the calls, in the iteration order of the calls.
+	 * @throws ResourceHandlerException if a call fails, the deadline passes, or the thread is
+	 * interrupted while waiting for the calls to complete.
+	 */
+	public <T> Map<ResourceType, T> callAll(final Map<ResourceType, HandlerCall<T>> calls)
+			throws ResourceHandlerException {
+		checkNotNull(calls, "calls");
+		final Map<ResourceType, T> ret = new LinkedHashMap<>();
+		if (executor == null) {
+			for (final Entry<ResourceType, HandlerCall<T>> c: calls.entrySet()) {
+				ret.put(c.getKey(), c.getValue().call());
+			}
+			return ret;
+		}
+		final long deadline = getDeadline();
+		final CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+		final Map<ResourceType, Future<T>> futures = new LinkedHashMap<>();
+		final Map<Future<T>, T> results = new HashMap<>();
+		try {
+			for (final Entry<ResourceType, HandlerCall<T>> c: calls.entrySet()) {
+				futures.put(c.getKey(), completion.submit(() -> c.getValue().call()));
+			}
+			// process the calls as they complete so a failure is seen without waiting for
+			// slower calls
+			while (results.size() < futures.size()) {
+				final Future<T> f = poll(completion, futures, deadline);
+				results.put(f, get(getType(futures, f).getName(), f, deadline));
+			}
+		} finally {
+			cancel(futures);
+		}
+		futures.keySet().stream().forEach(t -> ret.put(t, results.get(futures.get(t))));
+		return ret;
+	}
+	
+	private <T> Future<T> poll(
+			final CompletionService<T> completion,
+			final Map<ResourceType, Future<T>> futures,
+			final long deadline)
+			throws ResourceHandlerException {
+		final Future<T> f;
+		try {
+			f = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceHandlerException(String.format(
+					"Interrupted while waiting for the %s resource handler",
+					getIncompleteType(futures).getName()), e);
+		}
+		if (f == null) {
+			throw new ResourceHandlerException(String.format(
+					"Timed out after %s ms waiting for the %s resource handler",
+					timeoutMillis, getIncompleteType(futures).getName()));
+		}
+		return f;
+	}
+	
+	private <T> ResourceType getType(
+			final Map<ResourceType, Future<T>> futures,
+			final Future<T> future) {
+		// futures don't override equals, so only the submitted future will match
+		return futures.entrySet().stream().filter(e -> e.getValue().equals(future))
+				.findFirst().get().getKey();
+	}
+	
+	// returns the first incomplete call in iteration order. A call may complete just after the
+	// deadline, in which case the first call is returned.
+	private <T> ResourceType getIncompleteType(final Map<ResourceType, Future<T>> futures) {
+		return futures.entrySet().stream().filter(e -> !e.getValue().isDone())
+				.findFirst().orElse(futures.entrySet().iterator().next()).getKey();
+	}
+	
+	/** Make a set of handler calls, as {@link #callAll(Map)}. However, a call that fails
+	 * with a {@link ResourceHandlerException}, including a call that does not complete before
+	 * the deadline, does not cause the other calls to fail. Instead, the result for that call
+	 * is {@link Optional#empty()}.
+	 * 
+	 * The calls are usually one per resource type, but may be keyed by any value, for
+	 * example to make independent calls for multiple resources of the same type.
+	 * @param <K> the type of the call keys.
+	 * @param <T> the type of the call results.
+	 * @param calls the calls to make.
+	 * @return the results of the calls, in the iteration order of the calls.
+	 */
+	public <K, T> Map<K, Optional<T>> callAllAvailable(final Map<K, HandlerCall<T>> calls) {
+		checkNotNull(calls, "calls");
+		final Map<K, Optional<T>> ret = new LinkedHashMap<>();
+		if (executor == null) {
+			for (final Entry<K, HandlerCall<T>> c: calls.entrySet()) {
+				ret.put(c.getKey(), callOrEmpty(c.getValue()));
+			}
+			return ret;
+		}
+		final long deadline = getDeadline();
+		final Map<K, Future<T>> futures = new LinkedHashMap<>();
+		try {
+			submit(calls, futures);
+			for (final Entry<K, Future<T>> f: futures.entrySet()) {
+				// the error message is discarded, so no need to describe the call
+				ret.put(f.getKey(), callOrEmpty(() -> get("", f.getValue(), deadline)));
+			}
+		} finally {
+			cancel(futures);
+		}
+		return ret;
+	}
+	
+	private static <T> Optional<T> callOrEmpty(final HandlerCall<T> call) {
+		try {
+			return Optional.of(call.call());
+		} catch (ResourceHandlerException e) {
+			return Optional.empty();
+		}
+	}
+	
+	private long getDeadline() {
+		return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+	}
+	
+	private <K, T> void submit(
+			final Map<K, HandlerCall<T>> calls,
+			final Map<K, Future<T>> futures) {
+		for (final Entry<K, HandlerCall<T>> c: calls.entrySet()) {
+			futures.put(c.getKey(), executor.submit(() -> c.getValue().call()));
+		}
+	}
+	
+	private <K, T> void cancel(final Map<K, Future<T>> futures) {
+		// no-op for completed calls
+		futures.values().stream().forEach(f -> f.cancel(true));
+	}
+
+	private <T> T get(final String typeName, final Future<T> future, final long deadline)
+			throws ResourceHandlerException {
+		try {
+			return future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			throw new ResourceHandlerException(String.format(
+					"Timed out after %s ms waiting for the %s resource handler",
+					timeoutMillis, typeName), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceHandlerException(String.format(
+					"Interrupted while waiting for the %s resource handler", typeName), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ResourceHandlerException) {
+				throw (ResourceHandlerException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			} else {
+				throw new RuntimeException("Unexpected error: " + e.getCause().getMessage(),
+						e.getCause());
+			}
+		}
+	}
+
+	/** Stop the handler threads, waiting up to the given time for any in progress calls to
+	 * complete.
+	 * @param timeoutMillis the maximum time to wait in milliseconds.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public void shutdown(final long timeoutMillis) throws InterruptedException {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+}
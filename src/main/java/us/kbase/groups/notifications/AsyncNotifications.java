@@ -0,0 +1,216 @@
+package us.kbase.groups.notifications;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static us.kbase.groups.util.Util.checkNoNullsInCollection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.notifications.Notifications;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+
+/** A {@link Notifications} implementation that wraps another implementation and sends
+ * notifications asynchronously. Calls to the notification methods place the notification on a
+ * bounded in memory queue and return immediately. A set of sender threads drain the queue in
+ * batches and pass each notification to the wrapped implementation.
+ *
+ * If the queue is full, the notification is dropped, logged, and counted.
+ * Errors thrown by the wrapped implementation are logged and counted.
+ *
+ * Since the queue is in memory, queued notifications are lost if the process exits.
+ */
+public class AsyncNotifications implements Notifications {
+
+	private final Notifications notifier;
+	private final int batchSize;
+	private final BlockingQueue<Message> queue;
+	private final ExecutorService senders;
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private static class Message {
+
+		private final String operation;
+		private final Runnable send;
+
+		private Message(final String operation, final Runnable send) {
+			this.operation = operation;
+			this.send = send;
+		}
+	}
+
+	/** Create the notifier.
+	 * @param notifier the notifier to which notifications will be sent.
+	 * @param queueSize the maximum number of notifications that may be queued.
+	 * @param senderThreads the number of threads sending notifications.
+	 * @param batchSize the maximum number of notifications a sender thread removes from the
+	 * queue at once.
+	 */
+	public AsyncNotifications(
+			final Notifications notifier,
+			final int queueSize,
+			final int senderThreads,
+			final int batchSize) {
+		checkNotNull(notifier, "notifier");
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("queueSize must be > 0");
+		}
+		if (senderThreads < 1) {
+			throw new IllegalArgumentException("senderThreads must be > 0");
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be > 0");
+		}
+		this.notifier = notifier;
+		this.batchSize = batchSize;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		senders = Executors.newFixedThreadPool(senderThreads, new ThreadFactoryBuilder()
+				.setDaemon(true).setNameFormat("notification-sender-%d").build());
+		for (int i = 0; i < senderThreads; i++) {
+			senders.execute(() -> send());
+		}
+	}
+
+	private void send() {
+		final List<Message> batch = new ArrayList<>(batchSize);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch, batchSize - 1);
+			for (final Message m: batch) {
+				try {
+					m.send.run();
+					sent.incrementAndGet();
+				} catch (RuntimeException e) {
+					failed.incrementAndGet();
+					LoggerFactory.getLogger(getClass()).error(String.format(
+							"Failed sending %s notification: %s", m.operation, e.getMessage()),
+							e);
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	private void enqueue(final String operation, final Runnable send) {
+		if (!queue.offer(new Message(operation, send))) {
+			dropped.incrementAndGet();
+			LoggerFactory.getLogger(getClass()).error(String.format(
+					"Notification queue is full, dropped %s notification", operation));
+		}
+	}
+
+	/** Get the number of notifications successfully passed to the wrapped notifier.
+	 * @return the number of sent notifications.
+	 */
+	public long getSentCount() {
+		return sent.get();
+	}
+
+	/** Get the number of notifications for which the wrapped notifier threw an error.
+	 * @return the number of failed notifications.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/** Get the number of notifications dropped because the queue was full.
+	 * @return the number of dropped notifications.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/** Get the number of notifications currently waiting in the queue.
+	 * @return the queue size.
+	 */
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	/** Stop the sender threads, waiting up to the given time for any in progress sends to
+	 * complete. Queued notifications that have not been sent are discarded.
+	 * @param timeoutMillis the maximum time to wait in milliseconds.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public void shutdown(final long timeoutMillis) throws InterruptedException {
+		senders.shutdownNow();
+		senders.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void notify(final Collection<UserName> targets, final GroupRequest request) {
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(request, "request");
+		final List<UserName> t = new ArrayList<>(targets);
+		enqueue("notify", () -> notifier.notify(t, request));
+	}
+
+	@Override
+	public void cancel(final RequestID requestID) {
+		checkNotNull(requestID, "requestID");
+		enqueue("cancel", () -> notifier.cancel(requestID));
+	}
+
+	@Override
+	public void deny(final Collection<UserName> targets, final GroupRequest request) {
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(request, "request");
+		final List<UserName> t = new ArrayList<>(targets);
+		enqueue("deny", () -> notifier.deny(t, request));
+	}
+
+	@Override
+	public void accept(final Collection<UserName> targets, final GroupRequest request) {
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(request, "request");
+		final List<UserName> t = new ArrayList<>(targets);
+		enqueue("accept", () -> notifier.accept(t, request));
+	}
+
+	@Override
+	public void expire(final Collection<UserName> targets, final GroupRequest request) {
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(request, "request");
+		final List<UserName> t = new ArrayList<>(targets);
+		enqueue("expire", () -> notifier.expire(t, request));
+	}
+
+	@Override
+	public void addResource(
+			final UserName user,
+			final Set<UserName> targets,
+			final GroupID groupID,
+			final ResourceType type,
+			final ResourceID resource) {
+		checkNotNull(user, "user");
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(groupID, "groupID");
+		checkNotNull(type, "type");
+		checkNotNull(resource, "resource");
+		final Set<UserName> t = new HashSet<>(targets);
+		enqueue("addResource", () -> notifier.addResource(user, t, groupID, type, resource));
+	}
+}
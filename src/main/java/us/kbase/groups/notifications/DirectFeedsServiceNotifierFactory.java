@@ -249,6 +249,13 @@ public class DirectFeedsServiceNotifierFactory implements NotificationsFactory {
 		
 		}
 
+		@Override
+		public void expire(final Collection<UserName> targets, final GroupRequest request) {
+			// the feeds service shows the targets that the request notification has lapsed
+			// when it is expired, so no new notification is needed.
+			cancel(request.getID());
+		}
+		
 		@Override
 		public void addResource(
 				final UserName user,
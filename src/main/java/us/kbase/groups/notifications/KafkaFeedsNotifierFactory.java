@@ -57,6 +57,10 @@ public class KafkaFeedsNotifierFactory implements NotificationsFactory {
 	 * 
 	 * If this turns out to be a bad plan, we may need to relax those requirements.
 	 * 
+	 * Note that when the notifier is wrapped in an AsyncNotifications instance, which is the
+	 * default for the groups service, the wait and any exception occur in a sender thread and
+	 * the error is logged rather than returned to the user.
+	 * 
 	 * To improve reliability further, we'd need persistent storage of unsent feeds messages -
 	 * maybe a flag on the request object?.
 	 */
@@ -241,6 +245,15 @@ public class KafkaFeedsNotifierFactory implements NotificationsFactory {
 					"alert");
 		}
 
+		@Override
+		public void expire(final Collection<UserName> targets, final GroupRequest request) {
+			checkNoNullsInCollection(targets, "targets");
+			requireNonNull(request, "request");
+			// the feeds service shows the targets that the request notification has lapsed
+			// when it is expired, so no new notification is needed.
+			cancel(request.getID());
+		}
+
 		@Override
 		public void addResource(
 				final UserName user,
@@ -0,0 +1,287 @@
+package us.kbase.groups.notifications;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static us.kbase.groups.util.Util.checkNoNullsInCollection;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.notifications.Notifications;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.notifications.OutboxNotification.Operation;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.storage.GroupsStorage;
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+
+/** A {@link Notifications} implementation that records notifications in the
+ * {@link GroupsStorage} notification outbox rather than sending them. A relay running in a
+ * background thread claims notifications from the outbox in batches and sends them to the
+ * wrapped implementation.
+ *
+ * Notifications that fail are retried with exponential backoff, and notifications claimed by a
+ * relay that dies before sending them are retried once the claim expires, so every notification
+ * in the outbox is delivered at least once. Notifications regarding a request are sent with the
+ * request as it was when the notification was recorded.
+ *
+ * The relay also moves notifications recorded with changes to requests and groups, via
+ * {@link GroupsStorage#movePendingNotifications(int)}, to the outbox. Notifications recorded
+ * that way are stored if and only if the change that triggered them is stored. Notifications
+ * passed to the methods of this class are stored in the outbox in a separate write, and if the
+ * write fails the method throws an exception.
+ */
+public class OutboxNotifications implements Notifications {
+
+	private static final long RELAY_FREQUENCY_SEC = 5;
+	private static final long LEASE_SEC = 300;
+	private static final long INITIAL_BACKOFF_SEC = 10;
+	private static final long MAX_BACKOFF_SEC = 3600;
+
+	private final GroupsStorage storage;
+	private final Notifications notifier;
+	private final int batchSize;
+	private final Clock clock;
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+
+	private ScheduledExecutorService executor;
+	private boolean relayRunning = false;
+
+	/** Create the notifier and start the outbox relay.
+	 * @param storage the storage system containing the outbox.
+	 * @param notifier the notifier to which the relay sends notifications.
+	 * @param batchSize the maximum number of notifications the relay claims from the outbox
+	 * at once.
+	 */
+	public OutboxNotifications(
+			final GroupsStorage storage,
+			final Notifications notifier,
+			final int batchSize) {
+		this(storage, notifier, batchSize, Clock.systemDefaultZone());
+	}
+
+	// for tests
+	private OutboxNotifications(
+			final GroupsStorage storage,
+			final Notifications notifier,
+			final int batchSize,
+			final Clock clock) {
+		checkNotNull(storage, "storage");
+		checkNotNull(notifier, "notifier");
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be > 0");
+		}
+		this.storage = storage;
+		this.notifier = notifier;
+		this.batchSize = batchSize;
+		this.clock = clock;
+		startRelay(RELAY_FREQUENCY_SEC);
+	}
+
+	/** Schedule the outbox relay with the given period between runs.
+	 * The relay calls {@link #relay()} every periodInSeconds.
+	 * @param periodInSeconds how often the relay runs.
+	 * @throws IllegalArgumentException if the relay is already running or the period is less
+	 * than or equal to zero.
+	 */
+	public synchronized void startRelay(final long periodInSeconds) {
+		if (relayRunning) {
+			throw new IllegalArgumentException("The outbox relay is already running");
+		}
+		if (periodInSeconds <= 0) {
+			throw new IllegalArgumentException("periodInSeconds must be > 0");
+		}
+		relayRunning = true;
+		executor = Executors.newSingleThreadScheduledExecutor();
+		executor.scheduleWithFixedDelay(
+				new OutboxRelay(), periodInSeconds, periodInSeconds, TimeUnit.SECONDS);
+	}
+
+	/** Returns true if the outbox relay is running, false otherwise.
+	 * @return true if the relay is running.
+	 */
+	public synchronized boolean isRelayRunning() {
+		return relayRunning;
+	}
+
+	/** Stops the outbox relay from running again. Call {@link #startRelay(long)}
+	 * to restart the relay.
+	 * Calling this method multiple times in succession has no effect.
+	 */
+	public synchronized void stopRelay() {
+		executor.shutdown();
+		relayRunning = false;
+	}
+
+	private class OutboxRelay implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				relay();
+			} catch (Throwable e) {
+				// as with the request expiration agent, this is almost certainly a lost
+				// connection to the storage system, so log and retry next time.
+				LoggerFactory.getLogger(getClass())
+						.error("Error relaying notifications: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/** Move any notifications recorded with changes to requests and groups to the outbox, and
+	 * then send all the notifications in the outbox that are ready to be sent.
+	 * Notifications that fail are rescheduled.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	public void relay() throws GroupsStorageException {
+		while (storage.movePendingNotifications(batchSize) > 0);
+		List<OutboxNotification> batch;
+		do {
+			final Instant now = clock.instant();
+			batch = storage.claimNotifications(
+					now, now.plusSeconds(LEASE_SEC), batchSize);
+			for (final OutboxNotification n: batch) {
+				send(n);
+			}
+		} while (batch.size() == batchSize);
+	}
+
+	private void send(final OutboxNotification n) throws GroupsStorageException {
+		try {
+			sendToNotifier(n);
+		} catch (RuntimeException e) {
+			failed.incrementAndGet();
+			final long backoff = Math.min(MAX_BACKOFF_SEC,
+					INITIAL_BACKOFF_SEC << Math.min(n.getAttempts(), 20));
+			LoggerFactory.getLogger(getClass()).error(String.format(
+					"Failed sending %s notification %s on attempt %s, retrying in %s seconds: %s",
+					n.getOperation(), n.getID(), n.getAttempts() + 1, backoff, e.getMessage()),
+					e);
+			storage.retryNotification(n.getID(), clock.instant().plusSeconds(backoff));
+			return;
+		}
+		storage.removeNotification(n.getID());
+		sent.incrementAndGet();
+	}
+
+	private void sendToNotifier(final OutboxNotification n) {
+		final Operation op = n.getOperation();
+		if (Operation.CANCEL.equals(op)) {
+			notifier.cancel(n.getRequestID().get());
+		} else if (Operation.ADD_RESOURCE.equals(op)) {
+			notifier.addResource(n.getActor().get(), n.getTargets(), n.getGroupID().get(),
+					n.getResourceType().get(), n.getResourceID().get());
+		} else {
+			final GroupRequest r = n.getRequest().get();
+			if (Operation.NOTIFY.equals(op)) {
+				notifier.notify(n.getTargets(), r);
+			} else if (Operation.DENY.equals(op)) {
+				notifier.deny(n.getTargets(), r);
+			} else if (Operation.ACCEPT.equals(op)) {
+				notifier.accept(n.getTargets(), r);
+			} else if (Operation.EXPIRE.equals(op)) {
+				notifier.expire(n.getTargets(), r);
+			} else { // can't test
+				throw new RuntimeException("Unknown operation: " + op);
+			}
+		}
+	}
+
+	/** Get the number of notifications successfully sent by the relay.
+	 * @return the number of sent notifications.
+	 */
+	public long getSentCount() {
+		return sent.get();
+	}
+
+	/** Get the number of failed attempts to send a notification.
+	 * @return the number of failed attempts.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	private void store(final OutboxNotification n) {
+		try {
+			storage.storeNotification(n);
+		} catch (GroupsStorageException e) {
+			throw new RuntimeException(String.format(
+					"Failed storing %s notification %s in the outbox: %s",
+					n.getOperation(), n.getID(), e.getMessage()), e);
+		}
+	}
+
+	private void storeRequestNotification(
+			final Operation op,
+			final Collection<UserName> targets,
+			final GroupRequest request) {
+		store(OutboxNotification.getBuilder(UUID.randomUUID(), op, clock.instant(), request)
+				.withTargets(targets).build());
+	}
+
+	@Override
+	public void notify(final Collection<UserName> targets, final GroupRequest request) {
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(request, "request");
+		storeRequestNotification(Operation.NOTIFY, targets, request);
+	}
+
+	@Override
+	public void cancel(final RequestID requestID) {
+		checkNotNull(requestID, "requestID");
+		store(OutboxNotification.getBuilder(
+				UUID.randomUUID(), Operation.CANCEL, clock.instant(), requestID).build());
+	}
+
+	@Override
+	public void deny(final Collection<UserName> targets, final GroupRequest request) {
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(request, "request");
+		storeRequestNotification(Operation.DENY, targets, request);
+	}
+
+	@Override
+	public void accept(final Collection<UserName> targets, final GroupRequest request) {
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(request, "request");
+		storeRequestNotification(Operation.ACCEPT, targets, request);
+	}
+
+	@Override
+	public void expire(final Collection<UserName> targets, final GroupRequest request) {
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(request, "request");
+		storeRequestNotification(Operation.EXPIRE, targets, request);
+	}
+
+	@Override
+	public void addResource(
+			final UserName user,
+			final Set<UserName> targets,
+			final GroupID groupID,
+			final ResourceType type,
+			final ResourceID resource) {
+		checkNotNull(user, "user");
+		checkNoNullsInCollection(targets, "targets");
+		checkNotNull(groupID, "groupID");
+		checkNotNull(type, "type");
+		checkNotNull(resource, "resource");
+		store(OutboxNotification.getBuilder(
+				UUID.randomUUID(), clock.instant(), user, groupID, type, resource)
+				.withTargets(targets).build());
+	}
+}
@@ -78,6 +78,13 @@ public class SLF4JNotifierFactory implements NotificationsFactory {
 					userNamesToStrings(targets)));
 		}
 
+		@Override
+		public void expire(final Collection<UserName> targets, final GroupRequest request) {
+			LoggerFactory.getLogger(getClass()).info(String.format(
+					"Request %s expired, targets: %s",
+					request.getID().getID(), userNamesToStrings(targets)));
+		}
+
 		@Override
 		public void addResource(
 				final UserName user,
@@ -0,0 +1,232 @@
+package us.kbase.groups.resourcehandler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.IllegalResourceIDException;
+import us.kbase.groups.core.exceptions.NoSuchResourceException;
+import us.kbase.groups.core.exceptions.ResourceHandlerException;
+import us.kbase.groups.core.resource.ResourceAccess;
+import us.kbase.groups.core.resource.ResourceAdministrativeID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceHandler;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceInformationSet;
+
+/** A {@link ResourceHandler} implementation that wraps another implementation and caches the
+ * results of the lookup methods. Each cacheable method has its own cache, time to live, and
+ * hit and miss counts. Methods without a time to live are not cached.
+ *
+ * {@link #getResourceInformation(UserName, Set, ResourceAccess)} and
+ * {@link #setReadPermission(ResourceID, UserName)} are never cached.
+ * Errors are not cached.
+ *
+ * Note that caching the administration methods means that a user whose administration
+ * privileges for a resource are revoked may retain them in the groups service until the
+ * cache entry expires.
+ */
+public class CachingResourceHandler implements ResourceHandler {
+
+	/** The methods of {@link ResourceHandler} that may be cached. */
+	public static enum CachedMethod {
+		/** {@link ResourceHandler#getDescriptor(ResourceID)}. */
+		GET_DESCRIPTOR,
+		/** {@link ResourceHandler#isAdministrator(ResourceID, UserName)}. */
+		IS_ADMINISTRATOR,
+		/** {@link ResourceHandler#isPublic(ResourceID)}. */
+		IS_PUBLIC,
+		/** {@link ResourceHandler#getAdministrators(ResourceID)}. */
+		GET_ADMINISTRATORS,
+		/** {@link ResourceHandler#getAdministratedResources(UserName)}. */
+		GET_ADMINISTRATED_RESOURCES;
+	}
+
+	private final ResourceHandler handler;
+	private final Map<CachedMethod, Cache<Object, Object>> caches =
+			new EnumMap<>(CachedMethod.class);
+
+	/** Create the caching handler.
+	 * @param handler the handler to wrap.
+	 * @param maximumSize the maximum number of results to cache per method.
+	 * @param ttlSec the amount of time, in seconds, to cache the results of each method.
+	 * Methods that are not included in the map are not cached.
+	 */
+	public CachingResourceHandler(
+			final ResourceHandler handler,
+			final int maximumSize,
+			final Map<CachedMethod, Integer> ttlSec) {
+		this(handler, maximumSize, ttlSec, Clock.systemDefaultZone());
+	}
+
+	// for tests
+	private CachingResourceHandler(
+			final ResourceHandler handler,
+			final int maximumSize,
+			final Map<CachedMethod, Integer> ttlSec,
+			final Clock clock) {
+		checkNotNull(handler, "handler");
+		checkNotNull(ttlSec, "ttlSec");
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximumSize must be > 0");
+		}
+		this.handler = handler;
+		final Ticker ticker = new Ticker() {
+
+			@Override
+			public long read() {
+				return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+			}
+		};
+		for (final CachedMethod m: ttlSec.keySet()) {
+			final Integer ttl = checkNotNull(ttlSec.get(m), "ttlSec for " + m);
+			if (ttl < 1) {
+				throw new IllegalArgumentException(String.format("ttlSec for %s must be > 0", m));
+			}
+			caches.put(m, CacheBuilder.newBuilder()
+					.maximumSize(maximumSize)
+					.expireAfterWrite(ttl, TimeUnit.SECONDS)
+					.ticker(ticker)
+					.recordStats()
+					.build());
+		}
+	}
+
+	private Object getCached(final CachedMethod method, final Object key) {
+		final Cache<Object, Object> cache = caches.get(method);
+		return cache == null ? null : cache.getIfPresent(key);
+	}
+
+	private <T> T cache(final CachedMethod method, final Object key, final T value) {
+		final Cache<Object, Object> cache = caches.get(method);
+		if (cache != null) {
+			cache.put(key, value);
+		}
+		return value;
+	}
+
+	private static <T> Set<T> immutable(final Set<T> set) {
+		// cached sets are shared between callers
+		return Collections.unmodifiableSet(new HashSet<>(set));
+	}
+
+	/** Get the number of calls to a method that were served from the cache.
+	 * @param method the method.
+	 * @return the number of cache hits, or 0 if the method is not cached.
+	 */
+	public long getHitCount(final CachedMethod method) {
+		checkNotNull(method, "method");
+		return caches.containsKey(method) ? caches.get(method).stats().hitCount() : 0;
+	}
+
+	/** Get the number of calls to a method that were not served from the cache.
+	 * @param method the method.
+	 * @return the number of cache misses, or 0 if the method is not cached.
+	 */
+	public long getMissCount(final CachedMethod method) {
+		checkNotNull(method, "method");
+		return caches.containsKey(method) ? caches.get(method).stats().missCount() : 0;
+	}
+
+	/** Get the fraction of calls to cached methods that were served from the cache.
+	 * @return the hit rate, or 1 if there have been no calls to cached methods.
+	 */
+	public double getHitRate() {
+		CacheStats stats = new CacheStats(0, 0, 0, 0, 0, 0);
+		for (final Cache<Object, Object> c: caches.values()) {
+			stats = stats.plus(c.stats());
+		}
+		return stats.hitRate();
+	}
+
+	@Override
+	public ResourceDescriptor getDescriptor(final ResourceID resource)
+			throws IllegalResourceIDException, ResourceHandlerException, NoSuchResourceException {
+		checkNotNull(resource, "resource");
+		final Object cached = getCached(CachedMethod.GET_DESCRIPTOR, resource);
+		if (cached != null) {
+			return (ResourceDescriptor) cached;
+		}
+		return cache(CachedMethod.GET_DESCRIPTOR, resource, handler.getDescriptor(resource));
+	}
+
+	@Override
+	public boolean isAdministrator(final ResourceID resource, final UserName user)
+			throws IllegalResourceIDException, ResourceHandlerException, NoSuchResourceException {
+		checkNotNull(resource, "resource");
+		checkNotNull(user, "user");
+		final List<Object> key = Arrays.asList(resource, user);
+		final Object cached = getCached(CachedMethod.IS_ADMINISTRATOR, key);
+		if (cached != null) {
+			return (Boolean) cached;
+		}
+		return cache(CachedMethod.IS_ADMINISTRATOR, key,
+				handler.isAdministrator(resource, user));
+	}
+
+	@Override
+	public boolean isPublic(final ResourceID resource)
+			throws IllegalResourceIDException, ResourceHandlerException, NoSuchResourceException {
+		checkNotNull(resource, "resource");
+		final Object cached = getCached(CachedMethod.IS_PUBLIC, resource);
+		if (cached != null) {
+			return (Boolean) cached;
+		}
+		return cache(CachedMethod.IS_PUBLIC, resource, handler.isPublic(resource));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Set<UserName> getAdministrators(final ResourceID resource)
+			throws IllegalResourceIDException, NoSuchResourceException, ResourceHandlerException {
+		checkNotNull(resource, "resource");
+		final Object cached = getCached(CachedMethod.GET_ADMINISTRATORS, resource);
+		if (cached != null) {
+			return (Set<UserName>) cached;
+		}
+		return cache(CachedMethod.GET_ADMINISTRATORS, resource,
+				immutable(handler.getAdministrators(resource)));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Set<ResourceAdministrativeID> getAdministratedResources(final UserName user)
+			throws ResourceHandlerException {
+		checkNotNull(user, "user");
+		final Object cached = getCached(CachedMethod.GET_ADMINISTRATED_RESOURCES, user);
+		if (cached != null) {
+			return (Set<ResourceAdministrativeID>) cached;
+		}
+		return cache(CachedMethod.GET_ADMINISTRATED_RESOURCES, user,
+				immutable(handler.getAdministratedResources(user)));
+	}
+
+	@Override
+	public ResourceInformationSet getResourceInformation(
+			final UserName user,
+			final Set<ResourceID> resources,
+			final ResourceAccess access)
+			throws IllegalResourceIDException, ResourceHandlerException {
+		return handler.getResourceInformation(user, resources, access);
+	}
+
+	@Override
+	public void setReadPermission(final ResourceID resource, final UserName user)
+			throws IllegalResourceIDException, NoSuchResourceException, ResourceHandlerException {
+		handler.setReadPermission(resource, user);
+	}
+}
@@ -0,0 +1,127 @@
+package us.kbase.groups.resourcehandler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.IllegalResourceIDException;
+import us.kbase.groups.core.exceptions.NoSuchResourceException;
+import us.kbase.groups.core.exceptions.ResourceHandlerException;
+import us.kbase.groups.core.resource.ResourceAccess;
+import us.kbase.groups.core.resource.ResourceAdministrativeID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceHandler;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceInformationSet;
+import us.kbase.groups.util.DependencyGuard;
+import us.kbase.groups.util.DependencyGuard.Permit;
+
+/** A {@link ResourceHandler} implementation that wraps another implementation and passes
+ * each call through a {@link DependencyGuard}. Calls rejected by the guard fail immediately
+ * with a {@link ResourceHandlerException}.
+ *
+ * {@link ResourceHandlerException}s and runtime exceptions thrown by the wrapped handler are
+ * counted as failures by the guard. Other exceptions are caused by the input to the handler
+ * and are not.
+ */
+public class GuardedResourceHandler implements ResourceHandler {
+
+	private final ResourceHandler handler;
+	private final DependencyGuard guard;
+
+	/** Create the guarded handler.
+	 * @param handler the handler to wrap.
+	 * @param guard the guard through which calls to the handler pass.
+	 */
+	public GuardedResourceHandler(final ResourceHandler handler, final DependencyGuard guard) {
+		this.handler = checkNotNull(handler, "handler");
+		this.guard = checkNotNull(guard, "guard");
+	}
+
+	/** Get the guard through which calls to the handler pass.
+	 * @return the guard.
+	 */
+	public DependencyGuard getGuard() {
+		return guard;
+	}
+
+	private interface HandlerMethod<T> {
+
+		T call() throws IllegalResourceIDException, NoSuchResourceException,
+				ResourceHandlerException;
+	}
+
+	private <T> T guard(final HandlerMethod<T> method)
+			throws IllegalResourceIDException, NoSuchResourceException,
+				ResourceHandlerException {
+		final Permit permit = guard.acquire(err -> new ResourceHandlerException(err));
+		boolean success = false;
+		try {
+			final T ret = method.call();
+			success = true;
+			return ret;
+		} catch (IllegalResourceIDException | NoSuchResourceException e) {
+			success = true;
+			throw e;
+		} finally {
+			permit.release(success);
+		}
+	}
+
+	@Override
+	public ResourceDescriptor getDescriptor(final ResourceID resource)
+			throws IllegalResourceIDException, ResourceHandlerException, NoSuchResourceException {
+		return guard(() -> handler.getDescriptor(resource));
+	}
+
+	@Override
+	public boolean isAdministrator(final ResourceID resource, final UserName user)
+			throws IllegalResourceIDException, ResourceHandlerException, NoSuchResourceException {
+		return guard(() -> handler.isAdministrator(resource, user));
+	}
+
+	@Override
+	public boolean isPublic(final ResourceID resource)
+			throws IllegalResourceIDException, ResourceHandlerException, NoSuchResourceException {
+		return guard(() -> handler.isPublic(resource));
+	}
+
+	@Override
+	public Set<UserName> getAdministrators(final ResourceID resource)
+			throws IllegalResourceIDException, NoSuchResourceException, ResourceHandlerException {
+		return guard(() -> handler.getAdministrators(resource));
+	}
+
+	@Override
+	public Set<ResourceAdministrativeID> getAdministratedResources(final UserName user)
+			throws ResourceHandlerException {
+		try {
+			return guard(() -> handler.getAdministratedResources(user));
+		} catch (IllegalResourceIDException | NoSuchResourceException e) {
+			throw new RuntimeException("This should be impossible", e);
+		}
+	}
+
+	@Override
+	public ResourceInformationSet getResourceInformation(
+			final UserName user,
+			final Set<ResourceID> resources,
+			final ResourceAccess access)
+			throws IllegalResourceIDException, ResourceHandlerException {
+		try {
+			return guard(() -> handler.getResourceInformation(user, resources, access));
+		} catch (NoSuchResourceException e) {
+			throw new RuntimeException("This should be impossible", e);
+		}
+	}
+
+	@Override
+	public void setReadPermission(final ResourceID resource, final UserName user)
+			throws IllegalResourceIDException, NoSuchResourceException, ResourceHandlerException {
+		guard(() -> {
+			handler.setReadPermission(resource, user);
+			return null;
+		});
+	}
+}
@@ -0,0 +1,83 @@
+package us.kbase.groups.service;
+
+import static us.kbase.groups.service.api.APIConstants.HEADER_CONTINUATION_CURSOR;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.MultivaluedMap;
+
+import us.kbase.groups.config.GroupsConfig;
+import us.kbase.groups.core.GroupView;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.service.api.APICommon;
+
+/** Adds a continuation cursor header to full pages of groups or requests returned by
+ * endpoints annotated with {@link KeysetPaged}. A page is full if it contains as many items
+ * as the limit in the request or, if no limit is provided or the limit is larger,
+ * {@link GroupsConfig#getMaxListSize()}. The cursor encodes the sort key of the last item in
+ * the list, and may be passed to the endpoint to fetch the next page of the list.
+ */
+@KeysetPaged
+public class ContinuationCursorFilter implements ContainerResponseFilter {
+
+	private final ResourceInfo resourceInfo;
+	private final int maxListSize;
+
+	/** Create the filter. This is normally done by the Jersey framework.
+	 * @param resourceInfo information about the resource method that handled the request.
+	 * @param cfg the service configuration.
+	 */
+	@Inject
+	public ContinuationCursorFilter(final ResourceInfo resourceInfo, final GroupsConfig cfg) {
+		this.resourceInfo = resourceInfo;
+		maxListSize = cfg.getMaxListSize();
+	}
+
+	@Override
+	public void filter(
+			final ContainerRequestContext reqcon,
+			final ContainerResponseContext rescon)
+			throws IOException {
+		final KeysetPaged paged = resourceInfo.getResourceMethod() == null ? null :
+				resourceInfo.getResourceMethod().getAnnotation(KeysetPaged.class);
+		if (paged == null || !(rescon.getEntity() instanceof List)) {
+			return;
+		}
+		final MultivaluedMap<String, String> params = reqcon.getUriInfo().getQueryParameters();
+		for (final String p: paged.unpagedWith()) {
+			if (params.containsKey(p)) {
+				return;
+			}
+		}
+		final List<?> list = (List<?>) rescon.getEntity();
+		if (list.isEmpty() || list.size() < getLimit(params.getFirst(paged.limitParam()))) {
+			return;
+		}
+		final Object last = list.get(list.size() - 1);
+		if (last instanceof GroupView) {
+			rescon.getHeaders().putSingle(HEADER_CONTINUATION_CURSOR,
+					APICommon.getContinuationCursor((GroupView) last));
+		} else if (last instanceof GroupRequest) {
+			rescon.getHeaders().putSingle(HEADER_CONTINUATION_CURSOR,
+					APICommon.getContinuationCursor((GroupRequest) last));
+		}
+	}
+
+	private int getLimit(final String limit) {
+		if (limit == null || limit.trim().isEmpty()) {
+			return maxListSize;
+		}
+		try {
+			return Math.min(Integer.parseInt(limit.trim()), maxListSize);
+		} catch (NumberFormatException e) {
+			// the endpoint rejects bad limits, so this shouldn't happen
+			return maxListSize;
+		}
+	}
+}
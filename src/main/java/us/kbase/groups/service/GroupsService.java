@@ -1,5 +1,10 @@
 package us.kbase.groups.service;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.LinkedList;
+import java.util.List;
+
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.slf4j.LoggerFactory;
@@ -21,6 +26,7 @@ public class GroupsService extends ResourceConfig {
 	//TODO JAVADOC
 	
 	private static MongoClient mc;
+	private static final List<GroupsBuilder> builders = new LinkedList<>();
 	@SuppressWarnings("unused")
 	private final SLF4JAutoLogger logger; //keep a reference to prevent GC
 	
@@ -40,6 +46,21 @@ public class GroupsService extends ResourceConfig {
 		}
 	}
 
+	/** Create the service with a previously built {@link Groups} instance rather than building
+	 * one from the configuration, for example to run the service with alternate user and
+	 * resource handlers. Only the service level settings in the configuration, such as
+	 * JSON indentation, are used.
+	 * @param cfg the configuration.
+	 * @param groups the groups instance.
+	 */
+	public GroupsService(final GroupsConfig cfg, final Groups groups) {
+		checkNotNull(cfg, "cfg");
+		checkNotNull(groups, "groups");
+		quietLogger();
+		logger = cfg.getLogger();
+		registerApp(cfg, groups);
+	}
+
 	private void quietLogger() {
 		((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
 				.setLevel(Level.INFO);
@@ -57,11 +78,19 @@ public class GroupsService extends ResourceConfig {
 				gb = new GroupsBuilder(c, mc);
 			}
 		}
+		synchronized(builders) {
+			builders.add(gb);
+		}
+		registerApp(c, gb.getGroups());
+	}
+
+	private void registerApp(final GroupsConfig c, final Groups g) {
 		packages("us.kbase.groups.service.api");
-		register(JacksonFeature.class);
+		register(new JacksonFeature(c.isJSONIndent()));
 		register(LoggingFilter.class);
+		register(GzipWriterInterceptor.class);
+		register(ContinuationCursorFilter.class);
 		register(ExceptionHandler.class);
-		final Groups g = gb.getGroups();
 		register(new AbstractBinder() {
 			@Override
 			protected void configure() {
@@ -73,6 +102,10 @@ public class GroupsService extends ResourceConfig {
 	}
 	
 	static void shutdown() {
+		synchronized(builders) {
+			builders.forEach(b -> b.close());
+			builders.clear();
+		}
 		mc.close();
 	}
 }
@@ -0,0 +1,166 @@
+package us.kbase.groups.service;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import us.kbase.groups.config.GroupsConfig;
+
+/** Gzip compresses response bodies for clients that accept gzip encoding. The body is
+ * buffered until it reaches the minimum size specified by
+ * {@link GroupsConfig#getGzipMinSizeBytes()}; smaller bodies are sent uncompressed.
+ */
+public class GzipWriterInterceptor implements WriterInterceptor {
+
+	private static final String GZIP = "gzip";
+
+	private final HttpHeaders requestHeaders;
+	private final int minSize;
+
+	/** Create the interceptor. This is normally done by the Jersey framework.
+	 * @param requestHeaders the headers of the request being responded to.
+	 * @param cfg the service configuration.
+	 */
+	@Inject
+	public GzipWriterInterceptor(final HttpHeaders requestHeaders, final GroupsConfig cfg) {
+		this.requestHeaders = requestHeaders;
+		minSize = cfg.getGzipMinSizeBytes();
+	}
+
+	@Override
+	public void aroundWriteTo(final WriterInterceptorContext context)
+			throws IOException, WebApplicationException {
+		if (minSize < 1) {
+			context.proceed();
+			return;
+		}
+		final MultivaluedMap<String, Object> headers = context.getHeaders();
+		headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (!acceptsGzip(requestHeaders.getRequestHeaders().get(HttpHeaders.ACCEPT_ENCODING))) {
+			context.proceed();
+			return;
+		}
+		final ThresholdGzipOutputStream out = new ThresholdGzipOutputStream(
+				context.getOutputStream(), minSize, () -> {
+					headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+					headers.remove(HttpHeaders.CONTENT_LENGTH);
+				});
+		context.setOutputStream(out);
+		context.proceed();
+		out.finish();
+	}
+
+	private static boolean acceptsGzip(final Iterable<String> acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (final String header: acceptEncoding) {
+			for (final String coding: header.split(",")) {
+				final String[] parts = coding.split(";");
+				if (GZIP.equalsIgnoreCase(parts[0].trim()) && getQuality(parts) > 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static double getQuality(final String[] parts) {
+		for (int i = 1; i < parts.length; i++) {
+			final String[] param = parts[i].split("=");
+			if (param.length == 2 && "q".equalsIgnoreCase(param[0].trim())) {
+				try {
+					return Double.parseDouble(param[1].trim());
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	/* Buffers output until the minimum size is reached, at which point the onCompress
+	 * callback is run, and the buffered and all further output is compressed. Since nothing
+	 * is written to the underlying stream until then, the callback may still alter the
+	 * response headers.
+	 */
+	private static class ThresholdGzipOutputStream extends OutputStream {
+
+		private final OutputStream out;
+		private final int minSize;
+		private final Runnable onCompress;
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private GZIPOutputStream gzip = null;
+		private boolean finished = false;
+
+		private ThresholdGzipOutputStream(
+				final OutputStream out,
+				final int minSize,
+				final Runnable onCompress) {
+			this.out = requireNonNull(out, "out");
+			this.minSize = minSize;
+			this.onCompress = onCompress;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			if (finished) {
+				throw new IOException("Stream is closed");
+			}
+			if (gzip != null) {
+				gzip.write(b, off, len);
+			} else {
+				buffer.write(b, off, len);
+				if (buffer.size() >= minSize) {
+					onCompress.run();
+					gzip = new GZIPOutputStream(out);
+					buffer.writeTo(gzip);
+					buffer = null;
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// flushing a partial buffer would prevent compressing it later
+			if (gzip != null) {
+				gzip.flush();
+			}
+		}
+
+		// writes any remaining data without closing the underlying stream.
+		private void finish() throws IOException {
+			if (finished) {
+				return;
+			}
+			finished = true;
+			if (gzip != null) {
+				gzip.finish();
+			} else {
+				buffer.writeTo(out);
+			}
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+			out.close();
+		}
+	}
+}
@@ -1,28 +1,82 @@
 package us.kbase.groups.service;
 
+import java.io.IOException;
+
 import javax.ws.rs.core.Feature;
 import javax.ws.rs.core.FeatureContext;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
 
+import us.kbase.groups.core.GroupView;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.service.api.APICommon;
+
+/** Configures JSON serialization for the service.
+ *
+ * {@link GroupView} and {@link GroupRequest} instances, and collections thereof, may be
+ * returned directly from endpoints; they are streamed to the response without building
+ * intermediate maps.
+ */
 public final class JacksonFeature implements Feature {
 	// see https://stackoverflow.com/a/22152612/643675
 
-	private static final ObjectMapper MAPPER;
+	private final ObjectMapper mapper;
 
-	static {
-		MAPPER = new ObjectMapper().registerModule(new Jdk8Module());
-		MAPPER.configure(SerializationFeature.INDENT_OUTPUT, true);
+	/** Create the feature.
+	 * @param indent true to indent the JSON output, false to write compact JSON.
+	 */
+	public JacksonFeature(final boolean indent) {
+		final SimpleModule module = new SimpleModule("GroupsModule");
+		module.addSerializer(new GroupViewSerializer());
+		module.addSerializer(new GroupRequestSerializer());
+		mapper = new ObjectMapper().registerModule(new Jdk8Module()).registerModule(module);
+		mapper.configure(SerializationFeature.INDENT_OUTPUT, indent);
 	}
-	
+
 	@Override
 	public boolean configure(final FeatureContext context) {
 		final JacksonJaxbJsonProvider provider = new JacksonJaxbJsonProvider(
-				MAPPER, JacksonJaxbJsonProvider.DEFAULT_ANNOTATIONS);
+				mapper, JacksonJaxbJsonProvider.DEFAULT_ANNOTATIONS);
 		context.register(provider);
 		return true;
 	}
-}
\ No newline at end of file
+
+	private static class GroupViewSerializer extends StdSerializer<GroupView> {
+
+		private GroupViewSerializer() {
+			super(GroupView.class);
+		}
+
+		@Override
+		public void serialize(
+				final GroupView group,
+				final JsonGenerator gen,
+				final SerializerProvider provider)
+				throws IOException {
+			APICommon.writeGroupJSON(gen, group);
+		}
+	}
+
+	private static class GroupRequestSerializer extends StdSerializer<GroupRequest> {
+
+		private GroupRequestSerializer() {
+			super(GroupRequest.class);
+		}
+
+		@Override
+		public void serialize(
+				final GroupRequest request,
+				final JsonGenerator gen,
+				final SerializerProvider provider)
+				throws IOException {
+			APICommon.writeGroupRequestJSON(gen, request);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package us.kbase.groups.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.ws.rs.NameBinding;
+
+/** Marks a listing endpoint that accepts a continuation cursor to fetch the next page of the
+ * list. {@link ContinuationCursorFilter} only adds cursors to responses from endpoints
+ * with this annotation.
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface KeysetPaged {
+
+	/** The query parameter that sets the maximum number of items in a page.
+	 * @return the query parameter name.
+	 */
+	String limitParam() default "limit";
+
+	/** Query parameters that, if present, cause the endpoint to return a list that
+	 * is not paged, and so no continuation cursor is added.
+	 * @return the query parameter names.
+	 */
+	String[] unpagedWith() default {};
+}
@@ -4,12 +4,14 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.requireNonNull;
 import static us.kbase.groups.util.Util.isNullOrEmpty;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,6 +22,11 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
 import us.kbase.groups.core.GetGroupsParams;
 import us.kbase.groups.core.GetRequestsParams;
 import us.kbase.groups.core.Group.Role;
@@ -33,31 +40,71 @@ import us.kbase.groups.core.exceptions.MissingParameterException;
 import us.kbase.groups.core.exceptions.NoTokenProvidedException;
 import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
 import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
 import us.kbase.groups.core.resource.ResourceID;
 import us.kbase.groups.core.resource.ResourceInformationSet;
 import us.kbase.groups.core.resource.ResourceType;
 
 public class APICommon {
 	
+	// builds maps from the streamed JSON so the two representations can't diverge
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final TypeReference<Map<String, Object>> MAP_TYPE =
+			new TypeReference<Map<String, Object>>() {};
+	
+	@FunctionalInterface
+	private interface JSONWriter {
+		
+		void write(JsonGenerator gen) throws IOException;
+	}
+	
+	private static Map<String, Object> toMap(final JSONWriter writer) {
+		// without a codec, arbitrary objects such as resource fields are stored as is
+		final TokenBuffer buf = new TokenBuffer(null, false);
+		try {
+			writer.write(buf);
+			return MAPPER.readValue(buf.asParser(), MAP_TYPE);
+		} catch (IOException e) {
+			throw new RuntimeException("This should be impossible: " + e.getMessage(), e);
+		}
+	}
+	
 	/** Transform a {@link GroupRequest} object into a Map/List structure suitable for
-	 * serializing to JSON.
+	 * serializing to JSON. The structure is built from the output of
+	 * {@link #writeGroupRequestJSON(JsonGenerator, GroupRequest)}.
 	 * @param request the request object.
 	 * @return the JSONable structure.
 	 */
 	public static Map<String, Object> toGroupRequestJSON(final GroupRequest request) {
 		checkNotNull(request, "request");
-		final Map<String, Object> ret = new HashMap<>();
-		ret.put(Fields.REQUEST_ID, request.getID().getID());
-		ret.put(Fields.REQUEST_GROUP_ID, request.getGroupID().getName());
-		ret.put(Fields.REQUEST_REQUESTER, request.getRequester().getName());
-		ret.put(Fields.REQUEST_TYPE, request.getType().getRepresentation());
-		ret.put(Fields.REQUEST_RESOURCE_TYPE, request.getResourceType().getName());
-		ret.put(Fields.REQUEST_RESOURCE, request.getResource().getResourceID().getName());
-		ret.put(Fields.REQUEST_STATUS, request.getStatusType().getRepresentation());
-		ret.put(Fields.REQUEST_CREATION, request.getCreationDate().toEpochMilli());
-		ret.put(Fields.REQUEST_MODIFICATION, request.getModificationDate().toEpochMilli());
-		ret.put(Fields.REQUEST_EXPIRATION, request.getExpirationDate().toEpochMilli());
-		return ret;
+		return toMap(gen -> writeGroupRequestJSON(gen, request));
+	}
+	
+	/** Write a {@link GroupRequest} object directly to a JSON generator, without creating
+	 * an intermediate structure.
+	 * @param gen the generator to which the request will be written.
+	 * @param request the request object.
+	 * @throws IOException if the JSON could not be written.
+	 */
+	public static void writeGroupRequestJSON(final JsonGenerator gen, final GroupRequest request)
+			throws IOException {
+		checkNotNull(gen, "gen");
+		checkNotNull(request, "request");
+		gen.writeStartObject();
+		gen.writeStringField(Fields.REQUEST_ID, request.getID().getID());
+		gen.writeStringField(Fields.REQUEST_GROUP_ID, request.getGroupID().getName());
+		gen.writeStringField(Fields.REQUEST_REQUESTER, request.getRequester().getName());
+		gen.writeStringField(Fields.REQUEST_TYPE, request.getType().getRepresentation());
+		gen.writeStringField(Fields.REQUEST_RESOURCE_TYPE, request.getResourceType().getName());
+		gen.writeStringField(Fields.REQUEST_RESOURCE,
+				request.getResource().getResourceID().getName());
+		gen.writeStringField(Fields.REQUEST_STATUS, request.getStatusType().getRepresentation());
+		gen.writeNumberField(Fields.REQUEST_CREATION, request.getCreationDate().toEpochMilli());
+		gen.writeNumberField(Fields.REQUEST_MODIFICATION,
+				request.getModificationDate().toEpochMilli());
+		gen.writeNumberField(Fields.REQUEST_EXPIRATION,
+				request.getExpirationDate().toEpochMilli());
+		gen.writeEndObject();
 	}
 	
 	/** Transform {@link GroupRequest} objects into a list of  Map/List structures suitable for
@@ -72,88 +119,156 @@ public class APICommon {
 	}
 	
 	/** Convert a {@link GroupView} to a map based structure suitable for serializing to JSON.
+	 * The structure is built from the output of
+	 * {@link #writeGroupJSON(JsonGenerator, GroupView)}.
 	 * @param group the group view.
 	 * @return JSONable data.
 	 */
 	public static Map<String, Object> toGroupJSON(final GroupView group) {
 		requireNonNull(group, "group");
-		final Map<String, Object> ret = new HashMap<>();
-		ret.put(Fields.GROUP_ID, group.getGroupID().getName());
-		ret.put(Fields.GROUP_IS_PRIVATE, group.isPrivate());
-		ret.put(Fields.GROUP_ROLE, group.getRole().getRepresentation());
+		return toMap(gen -> writeGroupJSON(gen, group));
+	}
+	
+	/** Write a {@link GroupView} directly to a JSON generator, without creating an
+	 * intermediate structure.
+	 * @param gen the generator to which the group view will be written.
+	 * @param group the group view.
+	 * @throws IOException if the JSON could not be written.
+	 */
+	public static void writeGroupJSON(final JsonGenerator gen, final GroupView group)
+			throws IOException {
+		requireNonNull(gen, "gen");
+		requireNonNull(group, "group");
+		gen.writeStartObject();
+		gen.writeStringField(Fields.GROUP_ID, group.getGroupID().getName());
+		gen.writeBooleanField(Fields.GROUP_IS_PRIVATE, group.isPrivate());
+		gen.writeStringField(Fields.GROUP_ROLE, group.getRole().getRepresentation());
 		if (group.isStandardView()) {
-			final Map<String, Object> resources = new HashMap<>();
-			ret.put(Fields.GROUP_RESOURCES, resources);
+			gen.writeObjectFieldStart(Fields.GROUP_RESOURCES);
 			for (final ResourceType t: group.getResourceTypes()) {
-				resources.put(t.getName(), getResourceList(group, t));
+				gen.writeFieldName(t.getName());
+				writeResourceList(gen, group, t);
+			}
+			gen.writeEndObject();
+			if (!group.getUnavailableResourceTypes().isEmpty()) {
+				gen.writeFieldName(Fields.GROUP_RESOURCES_UNAVAILABLE);
+				gen.writeStartArray();
+				for (final String t: getUnavailableTypes(group)) {
+					gen.writeString(t);
+				}
+				gen.writeEndArray();
 			}
 		}
 		if (!group.isPrivateView()) {
-			ret.put(Fields.GROUP_NAME, group.getGroupName().get().getName());
-			ret.put(Fields.GROUP_OWNER, group.getOwner().get().getName());
-			ret.put(Fields.GROUP_MEMBER_COUNT, group.getMemberCount().get());
-			ret.put(Fields.GROUP_CUSTOM_FIELDS, getCustomFields(group.getCustomFields()));
-			ret.put(Fields.GROUP_CREATION, group.getCreationDate().get().toEpochMilli());
-			ret.put(Fields.GROUP_MODIFICATION, group.getModificationDate().get().toEpochMilli());
-			ret.put(Fields.GROUP_VISIT_DATE, toEpochMilli(group.getLastVisit()));
-			final Map<String, Object> resourceCounts = new HashMap<>();
-			ret.put(Fields.GROUP_RESOURCE_COUNT, resourceCounts);
+			gen.writeStringField(Fields.GROUP_NAME, group.getGroupName().get().getName());
+			gen.writeNumberField(Fields.GROUP_MEMBER_COUNT, group.getMemberCount().get());
+			gen.writeFieldName(Fields.GROUP_CUSTOM_FIELDS);
+			writeCustomFields(gen, group.getCustomFields());
+			gen.writeNumberField(Fields.GROUP_CREATION,
+					group.getCreationDate().get().toEpochMilli());
+			gen.writeNumberField(Fields.GROUP_MODIFICATION,
+					group.getModificationDate().get().toEpochMilli());
+			writeEpochMilliField(gen, Fields.GROUP_VISIT_DATE, group.getLastVisit());
+			gen.writeObjectFieldStart(Fields.GROUP_RESOURCE_COUNT);
 			for (final ResourceType t: group.getResourceCounts().keySet()) {
-				resourceCounts.put(t.getName(), group.getResourceCounts().get(t));
+				gen.writeNumberField(t.getName(), group.getResourceCounts().get(t));
 			}
+			gen.writeEndObject();
 			if (group.isStandardView()) {
-				ret.put(Fields.GROUP_MEMBERS_PRIVATE, group.isPrivateMembersList().get());
-				ret.put(Fields.GROUP_OWNER, toUserJson(group.getMember(group.getOwner().get())));
-				ret.put(Fields.GROUP_MEMBERS, toMemberList(group.getMembers(), group));
-				ret.put(Fields.GROUP_ADMINS, toMemberList(group.getAdministrators(), group));
+				gen.writeBooleanField(Fields.GROUP_MEMBERS_PRIVATE,
+						group.isPrivateMembersList().get());
+				gen.writeFieldName(Fields.GROUP_OWNER);
+				writeUserJSON(gen, group.getMember(group.getOwner().get()));
+				gen.writeFieldName(Fields.GROUP_MEMBERS);
+				writeMemberList(gen, group.getMembers(), group);
+				gen.writeFieldName(Fields.GROUP_ADMINS);
+				writeMemberList(gen, group.getAdministrators(), group);
+			} else {
+				gen.writeStringField(Fields.GROUP_OWNER, group.getOwner().get().getName());
 			}
 		}
-		return ret;
+		gen.writeEndObject();
 	}
 	
-	private static Long toEpochMilli(final Optional<Instant> instant) {
-		return instant.map(i -> i.toEpochMilli()).orElse(null);
+	private static List<String> getUnavailableTypes(final GroupView group) {
+		return group.getUnavailableResourceTypes().stream().map(t -> t.getName()).sorted()
+				.collect(Collectors.toList());
 	}
 	
-	private static Map<String, Object> toUserJson(final GroupUserView user) {
-		final Map<String, Object> ret = new HashMap<>();
-		ret.put(Fields.GROUP_MEMBER_NAME, user.getName().getName());
-		ret.put(Fields.GROUP_MEMBER_JOIN_DATE, toEpochMilli(user.getJoinDate()));
-		ret.put(Fields.GROUP_MEMBER_VISIT_DATE, toEpochMilli(user.getLastVisit()));
-		ret.put(Fields.GROUP_MEMBER_CUSTOM_FIELDS, getCustomFields(user.getCustomFields()));
-		return ret;
+	private static void writeEpochMilliField(
+			final JsonGenerator gen,
+			final String field,
+			final Optional<Instant> instant)
+			throws IOException {
+		if (instant.isPresent()) {
+			gen.writeNumberField(field, instant.get().toEpochMilli());
+		} else {
+			gen.writeNullField(field);
+		}
+	}
+	
+	private static void writeUserJSON(final JsonGenerator gen, final GroupUserView user)
+			throws IOException {
+		gen.writeStartObject();
+		gen.writeStringField(Fields.GROUP_MEMBER_NAME, user.getName().getName());
+		writeEpochMilliField(gen, Fields.GROUP_MEMBER_JOIN_DATE, user.getJoinDate());
+		writeEpochMilliField(gen, Fields.GROUP_MEMBER_VISIT_DATE, user.getLastVisit());
+		gen.writeFieldName(Fields.GROUP_MEMBER_CUSTOM_FIELDS);
+		writeCustomFields(gen, user.getCustomFields());
+		gen.writeEndObject();
 	}
 	
-	private static List<Map<String, Object>> toMemberList(
+	private static void writeMemberList(
+			final JsonGenerator gen,
 			final Collection<UserName> members,
-			final GroupView group) {
-		return members.stream().sorted().map(m -> toUserJson(group.getMember(m)))
-				.collect(Collectors.toList());
+			final GroupView group)
+			throws IOException {
+		gen.writeStartArray();
+		for (final UserName m: members.stream().sorted().collect(Collectors.toList())) {
+			writeUserJSON(gen, group.getMember(m));
+		}
+		gen.writeEndArray();
 	}
-
-	private static List<Map<String, Object>> getResourceList(
+	
+	private static void writeResourceList(
+			final JsonGenerator gen,
 			final GroupView g,
-			final ResourceType t) {
+			final ResourceType t)
+			throws IOException {
 		final ResourceInformationSet resourceInfo = g.getResourceInformation(t);
-		final List<Map<String, Object>> rlist = new LinkedList<>();
+		gen.writeStartArray();
 		for (final ResourceID rd: sorted(resourceInfo)) {
-			final Map<String, Object> resource = new HashMap<>();
-			rlist.add(resource);
-			resource.putAll(resourceInfo.getFields(rd));
-			resource.put(Fields.GROUP_RESOURCE_ID, rd.getName());
-			final Long added = Role.NONE.equals(g.getRole()) ?
-					null : toEpochMilli(g.getResourceAddDate(t, rd));
-			resource.put(Fields.GROUP_RESOURCE_ADDED, added);
+			gen.writeStartObject();
+			final Map<String, Object> fields = resourceInfo.getFields(rd);
+			for (final String f: fields.keySet()) {
+				// the ID and add date override any resource fields with the same name
+				if (!Fields.GROUP_RESOURCE_ID.equals(f) && !Fields.GROUP_RESOURCE_ADDED.equals(f)) {
+					gen.writeObjectField(f, fields.get(f));
+				}
+			}
+			gen.writeStringField(Fields.GROUP_RESOURCE_ID, rd.getName());
+			if (Role.NONE.equals(g.getRole())) {
+				gen.writeNullField(Fields.GROUP_RESOURCE_ADDED);
+			} else {
+				writeEpochMilliField(gen, Fields.GROUP_RESOURCE_ADDED,
+						g.getResourceAddDate(t, rd));
+			}
+			gen.writeEndObject();
 		}
-		return rlist;
+		gen.writeEndArray();
 	}
 	
-	private static Map<String, String> getCustomFields(
-			final Map<NumberedCustomField, String> fields) {
-		return fields.keySet().stream().collect(Collectors.toMap(
-				k -> k.getField(), k -> fields.get(k)));
+	private static void writeCustomFields(
+			final JsonGenerator gen,
+			final Map<NumberedCustomField, String> fields)
+			throws IOException {
+		gen.writeStartObject();
+		for (final NumberedCustomField k: fields.keySet()) {
+			gen.writeStringField(k.getField(), fields.get(k));
+		}
+		gen.writeEndObject();
 	}
-
+	
 	// may want to subclass the descriptors to allow for resource type specific sorts
 	// specifically for workspaces
 	// or associate a comparator with a resource type
@@ -163,6 +278,29 @@ public class APICommon {
 		return ret;
 	}
 	
+	/** Get the opaque values of the entity tags in an If-None-Match header. Weak and strong
+	 * tags are not distinguished, and the wildcard tag is ignored.
+	 * @param ifNoneMatch the header value. May be null.
+	 * @return the tags.
+	 */
+	public static Set<String> getEntityTags(final String ifNoneMatch) {
+		final Set<String> tags = new HashSet<>();
+		if (ifNoneMatch == null) {
+			return tags;
+		}
+		// tags generated by the service never contain commas or quotes
+		for (final String t: ifNoneMatch.split(",")) {
+			final String tag = t.trim().startsWith("W/") ? t.trim().substring(2) : t.trim();
+			if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+				final String value = tag.substring(1, tag.length() - 1);
+				if (!value.contains("\"")) {
+					tags.add(value);
+				}
+			}
+		}
+		return tags;
+	}
+	
 	/** Get a {@link Token} from a string.
 	 * @param token the string containing the token.
 	 * @param required true if the token is required, false if not. If true, if the token string
@@ -208,11 +346,17 @@ public class APICommon {
 	 * resource parameter must also be specified if this parameter is present.
 	 * @param resource the ID of the resource that will be used to filter the list. The
 	 * resourceType parameter must also be specified if this parameter is present.
+	 * @param limit the maximum number of requests to return. Null or whitespace only values
+	 * are ignored.
+	 * @param cursor a cursor from {@link #getContinuationCursor(GroupRequest)} that sets where
+	 * the list of requests starts. Null or whitespace only values are ignored. May not be
+	 * provided along with excludeUpTo.
 	 * @param defaultSort if sortDirection is null or whitespace only, this value is used instead.
 	 * true sets an ascending sort, false sets a descending sort.
 	 * @return the get request parameters.
-	 * @throws IllegalParameterException if excludeUpTo is not a valid date or sortDirection
-	 * is not a valid options.
+	 * @throws IllegalParameterException if excludeUpTo is not a valid date, sortDirection
+	 * is not a valid option, the limit is not a positive integer, the cursor is invalid, or
+	 * both excludeUpTo and the cursor are provided.
 	 */
 	public static GetRequestsParams getRequestsParams(
 			final String excludeUpTo,
@@ -220,14 +364,28 @@ public class APICommon {
 			final String sortDirection,
 			final String resourceType,
 			final String resource,
+			final String limit,
+			final String cursor,
 			final boolean defaultSort)
 			throws IllegalParameterException {
 		final GetRequestsParams.Builder b = GetRequestsParams.getBuilder();
+		checkCursorAndExcludeUpTo(excludeUpTo, cursor);
 		if (!isNullOrEmpty(excludeUpTo)) {
 			b.withNullableExcludeUpTo(epochMilliStringToInstant(excludeUpTo));
 		}
+		if (!isNullOrEmpty(cursor)) {
+			final String[] key = decodeCursor(cursor, REQUEST_CURSOR_PREFIX).split(":", 2);
+			try {
+				b.withNullableExcludeUpTo(
+						Instant.ofEpochMilli(Long.parseLong(key[0])), new RequestID(key[1]));
+			} catch (NumberFormatException | ArrayIndexOutOfBoundsException |
+					MissingParameterException | IllegalParameterException e) {
+				throw new IllegalParameterException("Invalid cursor");
+			}
+		}
 		setResource(resourceType, resource, (t, r) -> b.withResource(t, r));
 		setSortDirection(sortDirection, defaultSort, s -> b.withNullableSortAscending(s));
+		setLimit(limit, l -> b.withNullableLimit(l));
 		
 		return b.withNullableIncludeClosed(includeClosed != null).build();
 	}
@@ -262,10 +420,17 @@ public class APICommon {
 	 * resource parameter must also be specified if this parameter is present.
 	 * @param resource the ID of the resource that will be used to filter the list. The
 	 * resourceType parameter must also be specified if this parameter is present.
+	 * @param limit the maximum number of groups to return. Null or whitespace only values
+	 * are ignored.
+	 * @param cursor a cursor from {@link #getContinuationCursor(GroupView)} that sets where
+	 * the list of groups starts. Null or whitespace only values are ignored. May not be
+	 * provided along with excludeUpTo.
 	 * @param defaultSort if sortDirection is null or whitespace only, this value is used instead.
 	 * true sets an ascending sort, false sets a descending sort.
 	 * @return the get groups parameters.
-	 * @throws IllegalParameterException if sortDirection is not a valid options.
+	 * @throws IllegalParameterException if sortDirection is not a valid option, the limit is
+	 * not a positive integer, the cursor is invalid, or both excludeUpTo and the cursor are
+	 * provided.
 	 */
 	public static GetGroupsParams getGroupsParams(
 			final String excludeUpTo,
@@ -273,10 +438,16 @@ public class APICommon {
 			final String role,
 			final String resourceType,
 			final String resource,
+			final String limit,
+			final String cursor,
 			final boolean defaultSort)
 			throws IllegalParameterException {
+		checkCursorAndExcludeUpTo(excludeUpTo, cursor);
 		final GetGroupsParams.Builder b = GetGroupsParams.getBuilder()
 				.withNullableExcludeUpTo(excludeUpTo);
+		if (!isNullOrEmpty(cursor)) {
+			b.withNullableExcludeUpTo(decodeCursor(cursor, GROUP_CURSOR_PREFIX));
+		}
 		if (!isNullOrEmpty(role)) {
 			try {
 				b.withRole(Role.fromRepresentation(role));
@@ -286,9 +457,78 @@ public class APICommon {
 		}
 		setResource(resourceType, resource, (t, r) -> b.withResource(t, r));
 		setSortDirection(sortDirection, defaultSort, s -> b.withNullableSortAscending(s));
+		setLimit(limit, l -> b.withNullableLimit(l));
 		return b.build();
 	}
 	
+	private static final String GROUP_CURSOR_PREFIX = "g:";
+	private static final String REQUEST_CURSOR_PREFIX = "r:";
+	
+	/** Get an opaque cursor that encodes the sort key of a group. When provided to
+	 * {@link #getGroupsParams(String, String, String, String, String, String, String, boolean)},
+	 * the list of groups starts after the group.
+	 * @param group the group, typically the last group in a page of a list of groups.
+	 * @return the cursor.
+	 */
+	public static String getContinuationCursor(final GroupView group) {
+		checkNotNull(group, "group");
+		return encodeCursor(GROUP_CURSOR_PREFIX + group.getGroupID().getName());
+	}
+	
+	/** Get an opaque cursor that encodes the sort key of a request. When provided to
+	 * {@link #getRequestsParams(String, String, String, String, String, String, String, boolean)},
+	 * the list of requests starts after the request.
+	 * @param request the request, typically the last request in a page of a list of requests.
+	 * @return the cursor.
+	 */
+	public static String getContinuationCursor(final GroupRequest request) {
+		checkNotNull(request, "request");
+		return encodeCursor(REQUEST_CURSOR_PREFIX + request.getModificationDate().toEpochMilli() +
+				":" + request.getID().getID());
+	}
+	
+	private static String encodeCursor(final String key) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(
+				key.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static String decodeCursor(final String cursor, final String prefix)
+			throws IllegalParameterException {
+		final String key;
+		try {
+			key = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalParameterException("Invalid cursor");
+		}
+		if (!key.startsWith(prefix)) {
+			throw new IllegalParameterException("Invalid cursor");
+		}
+		return key.substring(prefix.length());
+	}
+	
+	private static void checkCursorAndExcludeUpTo(final String excludeUpTo, final String cursor)
+			throws IllegalParameterException {
+		if (!isNullOrEmpty(excludeUpTo) && !isNullOrEmpty(cursor)) {
+			throw new IllegalParameterException(
+					"Only one of excludeupto and cursor may be provided");
+		}
+	}
+	
+	private static void setLimit(final String limit, final Consumer<Integer> limitConsumer)
+			throws IllegalParameterException {
+		if (!isNullOrEmpty(limit)) {
+			final int l;
+			try {
+				l = Integer.parseInt(limit.trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalParameterException("Invalid limit: " + limit.trim());
+			}
+			if (l < 1) {
+				throw new IllegalParameterException("limit must be > 0");
+			}
+			limitConsumer.accept(l);
+		}
+	}
 
 	private static void setResource(
 			final String resourceType,
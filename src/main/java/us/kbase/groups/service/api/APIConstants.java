@@ -8,5 +8,11 @@ public class APIConstants {
 
 	/** The header key for an authorization token. */
 	public static final String HEADER_TOKEN = "authorization";
+	
+	/** The header key for the continuation cursor returned with a page of a list. */
+	public static final String HEADER_CONTINUATION_CURSOR = "X-Continuation-Cursor";
+	
+	/** The media type for newline delimited JSON. */
+	public static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
 
 }
@@ -0,0 +1,86 @@
+package us.kbase.groups.service.api;
+
+import static us.kbase.groups.service.api.APICommon.getGroupsParams;
+import static us.kbase.groups.service.api.APICommon.getToken;
+import static us.kbase.groups.service.api.APIConstants.HEADER_TOKEN;
+import static us.kbase.groups.service.api.APIConstants.MEDIA_TYPE_NDJSON;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+
+import us.kbase.groups.core.GroupExport;
+import us.kbase.groups.core.Groups;
+import us.kbase.groups.core.exceptions.AuthenticationException;
+import us.kbase.groups.core.exceptions.IllegalParameterException;
+import us.kbase.groups.core.exceptions.IllegalResourceIDException;
+import us.kbase.groups.core.exceptions.InvalidTokenException;
+import us.kbase.groups.core.exceptions.NoSuchResourceException;
+import us.kbase.groups.core.exceptions.NoSuchResourceTypeException;
+import us.kbase.groups.core.exceptions.NoTokenProvidedException;
+import us.kbase.groups.core.exceptions.ResourceHandlerException;
+import us.kbase.groups.core.exceptions.UnauthorizedException;
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+
+@Path(ServicePaths.EXPORT)
+public class ExportAPI {
+
+	// TODO JAVADOC / swagger
+
+	private static final JsonFactory JSON_FACTORY = new MappingJsonFactory()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	private final Groups groups;
+
+	// normally instantiated by Jersey
+	@Inject
+	public ExportAPI(final Groups groups) {
+		this.groups = groups;
+	}
+
+	@GET
+	@Path(ServicePaths.EXPORT_GROUPS)
+	@Produces(MEDIA_TYPE_NDJSON)
+	public StreamingOutput exportGroups(
+			@HeaderParam(HEADER_TOKEN) final String token,
+			@QueryParam(Fields.GET_GROUPS_EXCLUDE_UP_TO) final String excludeUpTo,
+			@QueryParam(Fields.GET_GROUPS_SORT_ORDER) final String order,
+			@QueryParam(Fields.GET_GROUPS_ROLE) final String role,
+			@QueryParam(Fields.GET_GROUPS_RESOURCE_TYPE) final String resType,
+			@QueryParam(Fields.GET_GROUPS_RESOURCE_ID) final String resource)
+			throws IllegalParameterException, NoTokenProvidedException, InvalidTokenException,
+				AuthenticationException, UnauthorizedException, NoSuchResourceException,
+				IllegalResourceIDException, NoSuchResourceTypeException,
+				ResourceHandlerException {
+		// check the token and parameters before the response is committed so errors are
+		// returned as normal error responses.
+		final GroupExport export = groups.exportGroups(getToken(token, false), getGroupsParams(
+				excludeUpTo, order, role, resType, resource, null, null, true));
+		return out -> {
+			// one group per line, written as it is read from the storage system
+			final JsonGenerator gen = JSON_FACTORY.createGenerator(out);
+			gen.setRootValueSeparator(null);
+			try {
+				export.writeTo(g -> {
+					APICommon.writeGroupJSON(gen, g);
+					gen.writeRaw('\n');
+				});
+			} catch (GroupsStorageException e) {
+				// the response is likely partially written, so all we can do is abort it
+				throw new IOException("Error exporting groups: " + e.getMessage(), e);
+			} finally {
+				gen.close();
+			}
+		};
+	}
+}
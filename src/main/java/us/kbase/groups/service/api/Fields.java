@@ -31,6 +31,8 @@ public class Fields {
 	public static final String GROUP_RESOURCES = "resources";
 	/** The count of the group resources. */
 	public static final String GROUP_RESOURCE_COUNT = "rescount";
+	/** The group resource types for which resource information is unavailable. */
+	public static final String GROUP_RESOURCES_UNAVAILABLE = "resunavailable";
 	/** The group creation date. */
 	public static final String GROUP_CREATION = "createdate";
 	/** The group modification date. */
@@ -118,6 +120,10 @@ public class Fields {
 	public static final String GET_GROUPS_RESOURCE_TYPE = "resourcetype";
 	/** Set the resource ID with which to filter the list. */
 	public static final String GET_GROUPS_RESOURCE_ID = "resource";
+	/** Set the maximum number of groups to return. */
+	public static final String GET_GROUPS_LIMIT = "limit";
+	/** Start the list after the group encoded in a continuation cursor. */
+	public static final String GET_GROUPS_CURSOR = "cursor";
 	
 	
 	/* ***********************
@@ -137,6 +143,10 @@ public class Fields {
 	public static final String GET_REQUESTS_RESOURCE_TYPE = "resourcetype";
 	/** Set the resource ID with which to filter the list. */
 	public static final String GET_REQUESTS_RESOURCE_ID = "resource";
+	/** Set the maximum number of requests to return. */
+	public static final String GET_REQUESTS_LIMIT = "limit";
+	/** Start the list after the request encoded in a continuation cursor. */
+	public static final String GET_REQUESTS_CURSOR = "cursor";
 	
 	/* ***********************
 	 * other fields
@@ -1,6 +1,7 @@
 package us.kbase.groups.service.api;
 
 import static us.kbase.groups.service.api.APIConstants.HEADER_TOKEN;
+import static us.kbase.groups.service.api.APICommon.getEntityTags;
 import static us.kbase.groups.service.api.APICommon.getToken;
 import static us.kbase.groups.service.api.APICommon.getGroupsParams;
 import static us.kbase.groups.service.api.APICommon.getRequestsParams;
@@ -12,7 +13,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.ws.rs.DELETE;
@@ -24,7 +25,11 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableMap;
@@ -40,6 +45,7 @@ import us.kbase.groups.core.OptionalGroupFields.Builder;
 import us.kbase.groups.core.OptionalString;
 import us.kbase.groups.core.Token;
 import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.VersionedGroupView;
 import us.kbase.groups.core.exceptions.AuthenticationException;
 import us.kbase.groups.core.exceptions.GroupExistsException;
 import us.kbase.groups.core.exceptions.IllegalParameterException;
@@ -62,6 +68,7 @@ import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
 import us.kbase.groups.core.request.GroupRequest;
 import us.kbase.groups.core.resource.ResourceID;
 import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.service.KeysetPaged;
 import us.kbase.groups.storage.exceptions.GroupsStorageException;
 
 @Path(ServicePaths.GROUP)
@@ -78,29 +85,30 @@ public class GroupsAPI {
 	}
 	
 	@GET
+	@KeysetPaged(unpagedWith = Fields.GET_GROUPS_IDS)
 	@Produces(MediaType.APPLICATION_JSON)
-	public List<Map<String, Object>> getGroups(
+	public List<GroupView> getGroups(
 			@HeaderParam(HEADER_TOKEN) final String token,
 			@QueryParam(Fields.GET_GROUPS_EXCLUDE_UP_TO) final String excludeUpTo,
 			@QueryParam(Fields.GET_GROUPS_SORT_ORDER) final String order,
 			@QueryParam(Fields.GET_GROUPS_ROLE) final String role,
 			@QueryParam(Fields.GET_GROUPS_RESOURCE_TYPE) final String resType,
 			@QueryParam(Fields.GET_GROUPS_RESOURCE_ID) final String resource,
-			@QueryParam(Fields.GET_GROUPS_IDS) final String groupIDs)
+			@QueryParam(Fields.GET_GROUPS_IDS) final String groupIDs,
+			@QueryParam(Fields.GET_GROUPS_LIMIT) final String limit,
+			@QueryParam(Fields.GET_GROUPS_CURSOR) final String cursor)
 			throws GroupsStorageException, IllegalParameterException, NoTokenProvidedException,
 				InvalidTokenException, AuthenticationException, NoSuchGroupException,
 				UnauthorizedException, NoSuchResourceException, IllegalResourceIDException,
 				NoSuchResourceTypeException, ResourceHandlerException {
 		final List<GroupID> gids = APICommon.toGroupIDs(groupIDs);
 		final Token t = getToken(token, false);
-		final List<GroupView> grps;
 		if (!gids.isEmpty()) {
-			grps = groups.getGroups(t, gids);
+			return groups.getGroups(t, gids);
 		} else {
-			grps = groups.getGroups(t, getGroupsParams(
-					excludeUpTo, order, role, resType, resource, true));
+			return groups.getGroups(t, getGroupsParams(
+					excludeUpTo, order, role, resType, resource, limit, cursor, true));
 		}
-		return grps.stream().map(g -> toGroupJSON(g)).collect(Collectors.toList());
 	}
 	
 	private static Map<NumberedCustomField, OptionalString> getCustomFieldsAndTypeCheck(
@@ -237,13 +245,29 @@ public class GroupsAPI {
 	@GET
 	@Path(ServicePaths.GROUP_ID)
 	@Produces(MediaType.APPLICATION_JSON)
-	public Map<String, Object> getGroup(
+	public Response getGroup(
 			@HeaderParam(HEADER_TOKEN) final String token,
+			@HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
 			@PathParam(Fields.GROUP_ID) final String groupID)
 			throws InvalidTokenException, NoSuchGroupException, NoTokenProvidedException,
 				AuthenticationException, MissingParameterException, IllegalParameterException,
-				GroupsStorageException, ResourceHandlerException {
-		return toGroupJSON(groups.getGroup(getToken(token, false), new GroupID(groupID)));
+				GroupsStorageException {
+		final Set<String> tags = getEntityTags(ifNoneMatch);
+		final Optional<VersionedGroupView> view = groups.getGroupIfChanged(
+				getToken(token, false), new GroupID(groupID), tags);
+		final ResponseBuilder resp;
+		if (view.isPresent()) {
+			resp = Response.ok(view.get().getView());
+			view.get().getVersionTag().ifPresent(t -> resp.tag(new EntityTag(t, true)));
+		} else {
+			resp = Response.notModified();
+			if (tags.size() == 1) {
+				// otherwise we don't know which tag matched
+				resp.tag(new EntityTag(tags.iterator().next(), true));
+			}
+		}
+		// the view depends on the user
+		return resp.header(HttpHeaders.VARY, HEADER_TOKEN).build();
 	}
 	
 	@GET
@@ -295,22 +319,26 @@ public class GroupsAPI {
 	}
 	
 	@GET
+	@KeysetPaged
 	@Produces(MediaType.APPLICATION_JSON)
 	@Path(ServicePaths.GROUP_REQUESTS)
-	public List<Map<String, Object>> getRequestsForGroup(
+	public List<GroupRequest> getRequestsForGroup(
 			@HeaderParam(HEADER_TOKEN) final String token,
 			@PathParam(Fields.GROUP_ID) final String groupID,
 			@QueryParam(Fields.GET_REQUESTS_EXCLUDE_UP_TO) final String excludeUpTo,
 			@QueryParam(Fields.GET_REQUESTS_INCLUDE_CLOSED) final String closed,
 			@QueryParam(Fields.GET_REQUESTS_SORT_ORDER) final String order,
 			@QueryParam(Fields.GET_REQUESTS_RESOURCE_TYPE) final String resType,
-			@QueryParam(Fields.GET_REQUESTS_RESOURCE_ID) final String resource)
+			@QueryParam(Fields.GET_REQUESTS_RESOURCE_ID) final String resource,
+			@QueryParam(Fields.GET_REQUESTS_LIMIT) final String limit,
+			@QueryParam(Fields.GET_REQUESTS_CURSOR) final String cursor)
 			throws InvalidTokenException, NoSuchGroupException, UnauthorizedException,
 				AuthenticationException, MissingParameterException, IllegalParameterException,
 				GroupsStorageException, NoSuchResourceTypeException {
-		return APICommon.toGroupRequestJSON(groups.getRequestsForGroup(
+		return groups.getRequestsForGroup(
 				getToken(token, true), new GroupID(groupID),
-				getRequestsParams(excludeUpTo, closed, order, resType, resource, closed == null)));
+				getRequestsParams(excludeUpTo, closed, order, resType, resource, limit, cursor,
+						closed == null));
 	}
 	
 	@DELETE
@@ -3,7 +3,6 @@ package us.kbase.groups.service.api;
 import static us.kbase.groups.service.api.APIConstants.HEADER_TOKEN;
 import static us.kbase.groups.service.api.APICommon.getToken;
 import static us.kbase.groups.service.api.APICommon.toGroupIDs;
-import static us.kbase.groups.service.api.APICommon.toGroupJSON;
 import static us.kbase.groups.service.api.APICommon.toGroupRequestJSON;
 
 import java.util.HashMap;
@@ -27,6 +26,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableMap;
 
+import us.kbase.groups.core.GroupView;
 import us.kbase.groups.core.Groups;
 import us.kbase.groups.core.exceptions.AuthenticationException;
 import us.kbase.groups.core.exceptions.ClosedRequestException;
@@ -43,9 +43,11 @@ import us.kbase.groups.core.exceptions.ResourceExistsException;
 import us.kbase.groups.core.exceptions.ResourceHandlerException;
 import us.kbase.groups.core.exceptions.UnauthorizedException;
 import us.kbase.groups.core.exceptions.UserIsMemberException;
+import us.kbase.groups.core.request.GroupRequest;
 import us.kbase.groups.core.request.GroupRequestWithActions;
 import us.kbase.groups.core.request.RequestID;
 import us.kbase.groups.core.resource.ResourceInformation;
+import us.kbase.groups.service.KeysetPaged;
 import us.kbase.groups.storage.exceptions.GroupsStorageException;
 
 @Path(ServicePaths.REQUEST)
@@ -81,15 +83,14 @@ public class RequestAPI {
 	@GET
 	@Path(ServicePaths.REQUEST_ID_GROUP)
 	@Produces(MediaType.APPLICATION_JSON)
-	public Map<String, Object> getGroupForRequest(
+	public GroupView getGroupForRequest(
 			@HeaderParam(HEADER_TOKEN) final String token,
 			@PathParam(Fields.REQUEST_ID) final String requestID)
 			throws InvalidTokenException, NoSuchRequestException, NoTokenProvidedException,
 				AuthenticationException, UnauthorizedException, ClosedRequestException,
 				IllegalParameterException, MissingParameterException, GroupsStorageException,
 				ResourceHandlerException {
-		return toGroupJSON(groups.getGroupForRequest(
-				getToken(token, true), new RequestID(requestID)));
+		return groups.getGroupForRequest(getToken(token, true), new RequestID(requestID));
 	}
 	
 	@POST
@@ -127,56 +128,68 @@ public class RequestAPI {
 	}
 
 	@GET
+	@KeysetPaged
 	@Path(ServicePaths.REQUEST_CREATED)
 	@Produces(MediaType.APPLICATION_JSON)
-	public List<Map<String, Object>> getCreatedRequests(
+	public List<GroupRequest> getCreatedRequests(
 			@HeaderParam(HEADER_TOKEN) final String token,
 			@QueryParam(Fields.GET_REQUESTS_EXCLUDE_UP_TO) final String excludeUpTo,
 			@QueryParam(Fields.GET_REQUESTS_INCLUDE_CLOSED) final String closed,
 			@QueryParam(Fields.GET_REQUESTS_SORT_ORDER) final String order,
 			@QueryParam(Fields.GET_REQUESTS_RESOURCE_TYPE) final String resType,
-			@QueryParam(Fields.GET_REQUESTS_RESOURCE_ID) final String resource)
+			@QueryParam(Fields.GET_REQUESTS_RESOURCE_ID) final String resource,
+			@QueryParam(Fields.GET_REQUESTS_LIMIT) final String limit,
+			@QueryParam(Fields.GET_REQUESTS_CURSOR) final String cursor)
 			throws InvalidTokenException, AuthenticationException, GroupsStorageException,
 			IllegalParameterException, NoSuchResourceTypeException {
-		return toGroupRequestJSON(groups.getRequestsForRequester(getToken(token, true),
+		return groups.getRequestsForRequester(getToken(token, true),
 				APICommon.getRequestsParams(
-						excludeUpTo, closed, order, resType, resource, closed == null)));
+						excludeUpTo, closed, order, resType, resource, limit, cursor,
+						closed == null));
 	}
 	
 	@GET
+	@KeysetPaged
 	@Path(ServicePaths.REQUEST_TARGETED)
 	@Produces(MediaType.APPLICATION_JSON)
-	public List<Map<String, Object>> getTargetedRequests(
+	public List<GroupRequest> getTargetedRequests(
 			@HeaderParam(HEADER_TOKEN) final String token,
 			@QueryParam(Fields.GET_REQUESTS_EXCLUDE_UP_TO) final String excludeUpTo,
 			@QueryParam(Fields.GET_REQUESTS_INCLUDE_CLOSED) final String closed,
 			@QueryParam(Fields.GET_REQUESTS_SORT_ORDER) final String order,
 			@QueryParam(Fields.GET_REQUESTS_RESOURCE_TYPE) final String resType,
-			@QueryParam(Fields.GET_REQUESTS_RESOURCE_ID) final String resource)
+			@QueryParam(Fields.GET_REQUESTS_RESOURCE_ID) final String resource,
+			@QueryParam(Fields.GET_REQUESTS_LIMIT) final String limit,
+			@QueryParam(Fields.GET_REQUESTS_CURSOR) final String cursor)
 			throws InvalidTokenException, AuthenticationException, GroupsStorageException,
 				IllegalParameterException, ResourceHandlerException, NoSuchResourceTypeException,
 				NoSuchResourceException, IllegalResourceIDException, UnauthorizedException {
-		return toGroupRequestJSON(groups.getRequestsForTarget(getToken(token, true),
+		return groups.getRequestsForTarget(getToken(token, true),
 				APICommon.getRequestsParams(
-						excludeUpTo, closed, order, resType, resource, closed == null)));
+						excludeUpTo, closed, order, resType, resource, limit, cursor,
+						closed == null));
 	}
 	
 	@GET
+	@KeysetPaged
 	@Path(ServicePaths.REQUEST_GROUPS)
 	@Produces(MediaType.APPLICATION_JSON)
-	public List<Map<String, Object>> getRequestsForAdministratedGroups(
+	public List<GroupRequest> getRequestsForAdministratedGroups(
 			@HeaderParam(HEADER_TOKEN) final String token,
 			@QueryParam(Fields.GET_REQUESTS_EXCLUDE_UP_TO) final String excludeUpTo,
 			@QueryParam(Fields.GET_REQUESTS_INCLUDE_CLOSED) final String closed,
 			@QueryParam(Fields.GET_REQUESTS_SORT_ORDER) final String order,
 			@QueryParam(Fields.GET_REQUESTS_RESOURCE_TYPE) final String resType,
-			@QueryParam(Fields.GET_REQUESTS_RESOURCE_ID) final String resource)
+			@QueryParam(Fields.GET_REQUESTS_RESOURCE_ID) final String resource,
+			@QueryParam(Fields.GET_REQUESTS_LIMIT) final String limit,
+			@QueryParam(Fields.GET_REQUESTS_CURSOR) final String cursor)
 			throws InvalidTokenException, NoTokenProvidedException, AuthenticationException,
 					IllegalParameterException, GroupsStorageException,
 					NoSuchResourceTypeException {
-		return toGroupRequestJSON(groups.getRequestsForGroups(getToken(token, true),
+		return groups.getRequestsForGroups(getToken(token, true),
 				APICommon.getRequestsParams(
-						excludeUpTo, closed, order, resType, resource, closed == null)));
+						excludeUpTo, closed, order, resType, resource, limit, cursor,
+						closed == null));
 	}
 	
 	@PUT
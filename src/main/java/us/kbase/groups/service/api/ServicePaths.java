@@ -94,4 +94,11 @@ public class ServicePaths {
 	public static final String NAMES = SEP + "names";
 	/** The bulk names endpoint location. */
 	public static final String NAMES_BULK = SEP + "{" + Fields.IDS + "}";
+	
+	/* Export endpoints */
+	
+	/** The export endpoint location. */
+	public static final String EXPORT = SEP + "export";
+	/** The location to export groups. */
+	public static final String EXPORT_GROUPS = SEP + GROUP_STR;
 }
@@ -14,6 +14,7 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 
 import us.kbase.groups.core.exceptions.GroupsException;
 import us.kbase.groups.core.exceptions.AuthenticationException;
+import us.kbase.groups.core.exceptions.AuthenticationUnavailableException;
 import us.kbase.groups.core.exceptions.NoDataException;
 import us.kbase.groups.core.exceptions.UnauthorizedException;
 
@@ -60,7 +61,9 @@ public class ErrorMessage {
 			final GroupsException ae = (GroupsException) ex;
 			appcode = ae.getErr().getErrorCode();
 			apperror = ae.getErr().getError();
-			if (ae instanceof AuthenticationException) {
+			if (ae instanceof AuthenticationUnavailableException) {
+				status = Response.Status.SERVICE_UNAVAILABLE;
+			} else if (ae instanceof AuthenticationException) {
 				status = Response.Status.UNAUTHORIZED;
 			} else if (ae instanceof UnauthorizedException) {
 				status = Response.Status.FORBIDDEN;
@@ -0,0 +1,217 @@
+package us.kbase.groups.storage;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static us.kbase.groups.util.Util.checkNoNullsInCollection;
+
+import java.time.Clock;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.exceptions.NoSuchGroupException;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+
+/** A {@link ResourceReaper} that removes resources from groups asynchronously. Calls to
+ * {@link #reap(GroupID, ResourceType, Set)} add the resources to a bounded in memory set of
+ * pending removals and return immediately. Removals for the same group and resource type are
+ * merged while pending, so a group that is read many times before its removal is processed
+ * only results in one write. A background thread removes each pending set of resources with
+ * one call to {@link GroupsStorage#removeResources(GroupID, ResourceType, Set,
+ * java.time.Instant)}.
+ *
+ * If the maximum number of pending group and resource type pairs is reached, the removal is
+ * dropped, logged, and counted. The resources will be found again the next time the group is
+ * read. Errors thrown by the storage system are logged and counted.
+ *
+ * Since the pending removals are in memory, they are lost if the process exits.
+ */
+public class AsyncResourceReaper implements ResourceReaper {
+
+	private final GroupsStorage storage;
+	private final int maxPending;
+	private final Clock clock;
+	// guarded by itself. Iteration order is insertion order, so removals are processed
+	// in the order they were first requested.
+	private final Map<Key, Set<ResourceID>> pending = new LinkedHashMap<>();
+	private final ExecutorService reaper;
+	private final AtomicLong reaped = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private static class Key {
+
+		private final GroupID groupID;
+		private final ResourceType type;
+
+		private Key(final GroupID groupID, final ResourceType type) {
+			this.groupID = groupID;
+			this.type = type;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + groupID.hashCode();
+			result = prime * result + type.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return groupID.equals(other.groupID) && type.equals(other.type);
+		}
+	}
+
+	/** Create the reaper.
+	 * @param storage the storage system from which resources will be removed.
+	 * @param maxPending the maximum number of group and resource type pairs that may have
+	 * pending removals.
+	 */
+	public AsyncResourceReaper(final GroupsStorage storage, final int maxPending) {
+		this(storage, maxPending, Clock.systemDefaultZone());
+	}
+
+	// for tests
+	private AsyncResourceReaper(
+			final GroupsStorage storage,
+			final int maxPending,
+			final Clock clock) {
+		checkNotNull(storage, "storage");
+		if (maxPending < 1) {
+			throw new IllegalArgumentException("maxPending must be > 0");
+		}
+		this.storage = storage;
+		this.maxPending = maxPending;
+		this.clock = clock;
+		reaper = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+				.setDaemon(true).setNameFormat("resource-reaper-%d").build());
+		reaper.execute(() -> reap());
+	}
+
+	private void reap() {
+		while (!Thread.currentThread().isInterrupted()) {
+			final Key key;
+			final Set<ResourceID> resources;
+			try {
+				synchronized (pending) {
+					while (pending.isEmpty()) {
+						pending.wait();
+					}
+					final Iterator<Entry<Key, Set<ResourceID>>> i = pending.entrySet().iterator();
+					final Entry<Key, Set<ResourceID>> e = i.next();
+					key = e.getKey();
+					resources = e.getValue();
+					i.remove();
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				storage.removeResources(key.groupID, key.type, resources, clock.instant());
+				reaped.incrementAndGet();
+			} catch (NoSuchGroupException e) {
+				// nothing to clean up
+				reaped.incrementAndGet();
+			} catch (GroupsStorageException | RuntimeException e) {
+				failed.incrementAndGet();
+				LoggerFactory.getLogger(getClass()).error(String.format(
+						"Failed removing %s nonexistent %s resources from group %s: %s",
+						resources.size(), key.type.getName(), key.groupID.getName(),
+						e.getMessage()), e);
+			}
+		}
+	}
+
+	@Override
+	public void reap(
+			final GroupID groupID,
+			final ResourceType type,
+			final Set<ResourceID> resources) {
+		checkNotNull(groupID, "groupID");
+		checkNotNull(type, "type");
+		checkNoNullsInCollection(resources, "resources");
+		if (resources.isEmpty()) {
+			return;
+		}
+		final Key key = new Key(groupID, type);
+		synchronized (pending) {
+			if (pending.containsKey(key)) {
+				pending.get(key).addAll(resources);
+				return;
+			}
+			if (pending.size() < maxPending) {
+				pending.put(key, new HashSet<>(resources));
+				pending.notifyAll();
+				return;
+			}
+		}
+		dropped.incrementAndGet();
+		LoggerFactory.getLogger(getClass()).error(String.format(
+				"Resource reaper queue is full, dropped removal of %s nonexistent %s " +
+				"resources from group %s",
+				resources.size(), type.getName(), groupID.getName()));
+	}
+
+	/** Get the number of sets of resources successfully removed from groups.
+	 * @return the number of completed removals.
+	 */
+	public long getReapedCount() {
+		return reaped.get();
+	}
+
+	/** Get the number of sets of resources for which the storage system threw an error.
+	 * @return the number of failed removals.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/** Get the number of removals dropped because the maximum number of pending removals was
+	 * reached.
+	 * @return the number of dropped removals.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/** Get the number of group and resource type pairs with pending removals.
+	 * @return the number of pending removals.
+	 */
+	public int getPendingCount() {
+		synchronized (pending) {
+			return pending.size();
+		}
+	}
+
+	/** Stop the reaper thread, waiting up to the given time for any in progress removal to
+	 * complete. Pending removals are discarded.
+	 * @param timeoutMillis the maximum time to wait in milliseconds.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public void shutdown(final long timeoutMillis) throws InterruptedException {
+		reaper.shutdownNow();
+		reaper.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+}
@@ -0,0 +1,649 @@
+package us.kbase.groups.storage;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static us.kbase.groups.util.Util.checkNoNullsInCollection;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import us.kbase.groups.core.GetGroupsParams;
+import us.kbase.groups.core.GetRequestsParams;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupIDAndName;
+import us.kbase.groups.core.GroupIDNameMembership;
+import us.kbase.groups.core.GroupSummary;
+import us.kbase.groups.core.GroupUpdateParams;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.OptionalString;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.GroupExistsException;
+import us.kbase.groups.core.exceptions.NoSuchGroupException;
+import us.kbase.groups.core.exceptions.NoSuchRequestException;
+import us.kbase.groups.core.exceptions.NoSuchResourceException;
+import us.kbase.groups.core.exceptions.NoSuchUserException;
+import us.kbase.groups.core.exceptions.RequestExistsException;
+import us.kbase.groups.core.exceptions.ResourceExistsException;
+import us.kbase.groups.core.exceptions.UserIsMemberException;
+import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.GroupRequestStatus;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceAdministrativeID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+
+/** A {@link GroupsStorage} implementation that wraps another implementation and caches groups
+ * retrieved by ID via {@link #getGroup(GroupID)} and {@link #getGroups(Collection)}.
+ * All other methods are passed directly to the wrapped implementation.
+ *
+ * The memory used by the cache is bounded by an estimate of the size of each group, which
+ * is dominated by the number of members and resources in the group.
+ *
+ * Any method that modifies a group removes the group from the cache. Since this only covers
+ * modifications made via this instance, groups modified by other service instances sharing the
+ * same storage may be stale until they expire from the cache or are removed via
+ * {@link #invalidate(GroupID)}, for example from a
+ * {@link us.kbase.groups.storage.mongo.GroupChangeStream}.
+ *
+ * The wrapped implementation must not serve {@link #getGroup(GroupID)} or
+ * {@link #getGroups(Collection)} from possibly stale data, for example a replica set
+ * secondary, since any stale groups would be cached.
+ */
+public class CachingGroupsStorage implements GroupsStorage {
+
+	// rough per object overheads for estimating the size of a group in memory.
+	private static final int GROUP_BASE_SIZE = 1000;
+	private static final int MEMBER_BASE_SIZE = 200;
+	private static final int RESOURCE_BASE_SIZE = 150;
+	private static final int FIELD_BASE_SIZE = 100;
+
+	private final GroupsStorage storage;
+	private final Cache<GroupID, Group> cache;
+	/* tracks groups that are being read from the wrapped storage so that a group modified
+	 * concurrently with the read is not cached. Entries only exist while reads are in
+	 * progress and are only accessed within the map's atomic compute methods.
+	 */
+	private final ConcurrentMap<GroupID, Reads> reads = new ConcurrentHashMap<>();
+	// incremented by invalidateAll() so that no group read concurrently is cached.
+	private final AtomicLong generation = new AtomicLong();
+	
+	private static class Reads {
+		
+		private int count = 0;
+		private long invalidations = 0;
+	}
+	
+	// the state of a read from the wrapped storage when the read started
+	private static class ReadStart {
+		
+		private final long generation;
+		private final long invalidations;
+		
+		private ReadStart(final long generation, final long invalidations) {
+			this.generation = generation;
+			this.invalidations = invalidations;
+		}
+	}
+
+	/** Create the cache.
+	 * @param storage the storage to wrap.
+	 * @param maximumSizeBytes the maximum estimated size of the groups in the cache in bytes.
+	 * @param ttlSec the amount of time, in seconds, to cache a group.
+	 */
+	public CachingGroupsStorage(
+			final GroupsStorage storage,
+			final long maximumSizeBytes,
+			final int ttlSec) {
+		this(storage, maximumSizeBytes, ttlSec, Clock.systemDefaultZone());
+	}
+
+	// for tests
+	private CachingGroupsStorage(
+			final GroupsStorage storage,
+			final long maximumSizeBytes,
+			final int ttlSec,
+			final Clock clock) {
+		checkNotNull(storage, "storage");
+		if (maximumSizeBytes < 1) {
+			throw new IllegalArgumentException("maximumSizeBytes must be > 0");
+		}
+		if (ttlSec < 1) {
+			throw new IllegalArgumentException("ttlSec must be > 0");
+		}
+		this.storage = storage;
+		cache = CacheBuilder.newBuilder()
+				.maximumWeight(maximumSizeBytes)
+				.<GroupID, Group>weigher((id, g) -> estimateSize(g))
+				.expireAfterWrite(ttlSec, TimeUnit.SECONDS)
+				.ticker(new Ticker() {
+
+					@Override
+					public long read() {
+						return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+					}
+				})
+				.recordStats()
+				.build();
+	}
+
+	/** Estimate the size of a group in memory.
+	 * @param group the group.
+	 * @return the estimated size in bytes.
+	 */
+	public static int estimateSize(final Group group) {
+		checkNotNull(group, "group");
+		long size = GROUP_BASE_SIZE + estimateSize(group.getCustomFields());
+		for (final UserName u: group.getAllMembers()) {
+			size += MEMBER_BASE_SIZE + 2 * u.getName().length() +
+					estimateSize(group.getMember(u).getCustomFields());
+		}
+		for (final ResourceType t: group.getResourceTypes()) {
+			for (final ResourceDescriptor d: group.getResources(t)) {
+				size += RESOURCE_BASE_SIZE + 2 * (d.getAdministrativeID().getName().length() +
+						d.getResourceID().getName().length());
+			}
+		}
+		return (int) Math.min(Integer.MAX_VALUE, size);
+	}
+
+	private static long estimateSize(final Map<NumberedCustomField, String> fields) {
+		long size = 0;
+		for (final NumberedCustomField f: fields.keySet()) {
+			size += FIELD_BASE_SIZE + 2 * (f.getField().length() + fields.get(f).length());
+		}
+		return size;
+	}
+
+	/** Remove a group from the cache. This method is intended for use when a group has been
+	 * modified other than via this instance, for example by another service instance.
+	 * @param groupID the ID of the group to remove.
+	 */
+	public void invalidate(final GroupID groupID) {
+		checkNotNull(groupID, "groupID");
+		// only reads of this group in progress are affected
+		invalidateReads(groupID);
+		cache.invalidate(groupID);
+	}
+	
+	private void invalidateReads(final GroupID groupID) {
+		reads.computeIfPresent(groupID, (id, r) -> {
+			r.invalidations++;
+			return r;
+		});
+	}
+
+	/** Remove all groups from the cache. */
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		// catches reads that checked the generation just before it was incremented
+		reads.keySet().forEach(id -> invalidateReads(id));
+		cache.invalidateAll();
+	}
+
+	/** Get the number of group lookups that were served from the cache.
+	 * @return the number of cache hits.
+	 */
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	/** Get the number of group lookups that were not served from the cache.
+	 * @return the number of cache misses.
+	 */
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	/** Get the number of groups removed from the cache due to size or age constraints.
+	 * Groups removed due to modifications are not included.
+	 * @return the number of evicted groups.
+	 */
+	public long getEvictionCount() {
+		return cache.stats().evictionCount();
+	}
+
+	/** Get the approximate number of groups in the cache.
+	 * @return the size of the cache.
+	 */
+	public long size() {
+		return cache.size();
+	}
+
+	private ReadStart startRead(final GroupID groupID) {
+		// read the generation first so an invalidateAll() during the read is always seen
+		final long gen = generation.get();
+		final long[] invalidations = new long[1];
+		reads.compute(groupID, (id, r) -> {
+			final Reads ret = r == null ? new Reads() : r;
+			ret.count++;
+			invalidations[0] = ret.invalidations;
+			return ret;
+		});
+		return new ReadStart(gen, invalidations[0]);
+	}
+	
+	// group is null if the read failed
+	private void endRead(final GroupID groupID, final ReadStart start, final Group group) {
+		reads.compute(groupID, (id, r) -> {
+			// if the group has been invalidated since the read started, it may have been
+			// modified after it was read and the invalidation may have already occurred.
+			// Don't cache a possibly stale group.
+			if (group != null && r.invalidations == start.invalidations &&
+					generation.get() == start.generation) {
+				cache.put(groupID, group);
+			}
+			r.count--;
+			return r.count < 1 ? null : r;
+		});
+	}
+
+	@Override
+	public void createGroup(final Group group)
+			throws GroupExistsException, GroupsStorageException {
+		checkNotNull(group, "group");
+		try {
+			storage.createGroup(group);
+		} finally {
+			invalidate(group.getGroupID());
+		}
+	}
+
+	@Override
+	public void updateGroup(final GroupUpdateParams update, final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException {
+		checkNotNull(update, "update");
+		try {
+			storage.updateGroup(update, modDate);
+		} finally {
+			invalidate(update.getGroupID());
+		}
+	}
+
+	@Override
+	public Group getGroup(final GroupID groupID)
+			throws GroupsStorageException, NoSuchGroupException {
+		checkNotNull(groupID, "groupID");
+		final Group cached = cache.getIfPresent(groupID);
+		if (cached != null) {
+			return cached;
+		}
+		final ReadStart start = startRead(groupID);
+		Group g = null;
+		try {
+			g = storage.getGroup(groupID);
+		} finally {
+			endRead(groupID, start, g);
+		}
+		return g;
+	}
+
+	@Override
+	public Set<Group> getGroups(final Collection<GroupID> groupIDs)
+			throws NoSuchGroupException, GroupsStorageException {
+		checkNoNullsInCollection(groupIDs, "groupIDs");
+		final Set<Group> ret = new HashSet<>();
+		final List<GroupID> missing = new ArrayList<>();
+		for (final GroupID id: groupIDs) {
+			final Group g = cache.getIfPresent(id);
+			if (g == null) {
+				missing.add(id);
+			} else {
+				ret.add(g);
+			}
+		}
+		if (!missing.isEmpty()) {
+			final Map<GroupID, ReadStart> starts = new HashMap<>();
+			for (final GroupID id: missing) {
+				starts.putIfAbsent(id, startRead(id));
+			}
+			final Map<GroupID, Group> groups = new HashMap<>();
+			try {
+				for (final Group g: storage.getGroups(missing)) {
+					groups.put(g.getGroupID(), g);
+				}
+			} finally {
+				for (final GroupID id: starts.keySet()) {
+					endRead(id, starts.get(id), groups.get(id));
+				}
+			}
+			ret.addAll(groups.values());
+		}
+		return ret;
+	}
+
+	@Override
+	public List<GroupIDNameMembership> getGroupNames(
+			final UserName user,
+			final Collection<GroupID> groupIDs)
+			throws GroupsStorageException, NoSuchGroupException {
+		return storage.getGroupNames(user, groupIDs);
+	}
+
+	@Override
+	public boolean getGroupExists(final GroupID groupID) throws GroupsStorageException {
+		return storage.getGroupExists(groupID);
+	}
+
+	@Override
+	public List<GroupIDAndName> getMemberGroups(final UserName user)
+			throws GroupsStorageException {
+		return storage.getMemberGroups(user);
+	}
+
+	@Override
+	public Set<GroupID> getAdministratedGroups(final UserName user)
+			throws GroupsStorageException {
+		return storage.getAdministratedGroups(user);
+	}
+
+	@Override
+	public List<Group> getGroups(
+			final GetGroupsParams params,
+			final boolean resourceIsPublic,
+			final UserName user)
+			throws GroupsStorageException {
+		return storage.getGroups(params, resourceIsPublic, user);
+	}
+
+	@Override
+	public List<GroupSummary> getGroupSummaries(
+			final GetGroupsParams params,
+			final boolean resourceIsPublic,
+			final UserName user)
+			throws GroupsStorageException {
+		return storage.getGroupSummaries(params, resourceIsPublic, user);
+	}
+
+	@Override
+	public void exportGroupSummaries(
+			final GetGroupsParams params,
+			final boolean resourceIsPublic,
+			final UserName user,
+			final GroupSummaryConsumer consumer)
+			throws GroupsStorageException, IOException {
+		storage.exportGroupSummaries(params, resourceIsPublic, user, consumer);
+	}
+
+	@Override
+	public Set<GroupSummary> getGroupSummaries(
+			final Collection<GroupID> groupIDs,
+			final UserName user)
+			throws NoSuchGroupException, GroupsStorageException {
+		return storage.getGroupSummaries(groupIDs, user);
+	}
+
+	@Override
+	public void addMember(final GroupID groupID, final GroupUser member, final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException, UserIsMemberException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.addMember(groupID, member, modDate);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void removeMember(final GroupID groupID, final UserName member, final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException, NoSuchUserException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.removeMember(groupID, member, modDate);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void addAdmin(final GroupID groupID, final UserName admin, final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException, UserIsMemberException,
+				NoSuchUserException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.addAdmin(groupID, admin, modDate);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void demoteAdmin(final GroupID groupID, final UserName member, final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException, NoSuchUserException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.demoteAdmin(groupID, member, modDate);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void updateUser(
+			final GroupID groupID,
+			final UserName member,
+			final Map<NumberedCustomField, OptionalString> fields,
+			final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException, NoSuchUserException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.updateUser(groupID, member, fields, modDate);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void updateUser(
+			final GroupID groupID,
+			final UserName member,
+			final Instant lastVisited)
+			throws NoSuchGroupException, GroupsStorageException, NoSuchUserException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.updateUser(groupID, member, lastVisited);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void addResource(
+			final GroupID groupID,
+			final ResourceType type,
+			final ResourceDescriptor resource,
+			final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException, ResourceExistsException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.addResource(groupID, type, resource, modDate);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+	
+	@Override
+	public void addResource(
+			final GroupID groupID,
+			final ResourceType type,
+			final ResourceDescriptor resource,
+			final Instant modDate,
+			final OutboxNotification notification)
+			throws NoSuchGroupException, GroupsStorageException, ResourceExistsException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.addResource(groupID, type, resource, modDate, notification);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void removeResource(
+			final GroupID groupID,
+			final ResourceType type,
+			final ResourceID resource,
+			final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException, NoSuchResourceException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.removeResource(groupID, type, resource, modDate);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void removeResources(
+			final GroupID groupID,
+			final ResourceType type,
+			final Set<ResourceID> resources,
+			final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException {
+		checkNotNull(groupID, "groupID");
+		try {
+			storage.removeResources(groupID, type, resources, modDate);
+		} finally {
+			invalidate(groupID);
+		}
+	}
+
+	@Override
+	public void storeRequest(final GroupRequest request)
+			throws RequestExistsException, GroupsStorageException {
+		storage.storeRequest(request);
+	}
+
+	@Override
+	public void storeRequest(final GroupRequest request, final OutboxNotification notification)
+			throws RequestExistsException, GroupsStorageException {
+		storage.storeRequest(request, notification);
+	}
+
+	@Override
+	public GroupRequest getRequest(final RequestID requestID)
+			throws NoSuchRequestException, GroupsStorageException {
+		return storage.getRequest(requestID);
+	}
+
+	@Override
+	public List<GroupRequest> getRequestsByRequester(
+			final UserName requester,
+			final GetRequestsParams params)
+			throws GroupsStorageException {
+		return storage.getRequestsByRequester(requester, params);
+	}
+
+	@Override
+	public List<GroupRequest> getRequestsByTarget(
+			final UserName target,
+			final Map<ResourceType, Set<ResourceAdministrativeID>> resources,
+			final GetRequestsParams params)
+			throws GroupsStorageException {
+		return storage.getRequestsByTarget(target, resources, params);
+	}
+
+	@Override
+	public List<GroupRequest> getRequestsByTarget(final GetRequestsParams params)
+			throws GroupsStorageException {
+		return storage.getRequestsByTarget(params);
+	}
+
+	@Override
+	public List<GroupRequest> getRequestsByGroup(
+			final GroupID groupID,
+			final GetRequestsParams params)
+			throws GroupsStorageException {
+		return storage.getRequestsByGroup(groupID, params);
+	}
+
+	@Override
+	public List<GroupRequest> getRequestsByGroups(
+			final Set<GroupID> groupIDs,
+			final GetRequestsParams params)
+			throws GroupsStorageException {
+		return storage.getRequestsByGroups(groupIDs, params);
+	}
+
+	@Override
+	public Map<GroupID, Instant> getLatestOpenRequestDates(final Collection<GroupID> groupIDs)
+			throws GroupsStorageException {
+		return storage.getLatestOpenRequestDates(groupIDs);
+	}
+
+	@Override
+	public boolean groupHasRequest(final GroupID groupID, final Instant laterThan)
+			throws GroupsStorageException {
+		return storage.groupHasRequest(groupID, laterThan);
+	}
+
+	@Override
+	public void closeRequest(
+			final RequestID requestID,
+			final GroupRequestStatus status,
+			final Instant modificationTime)
+			throws NoSuchRequestException, GroupsStorageException {
+		storage.closeRequest(requestID, status, modificationTime);
+	}
+
+	@Override
+	public void closeRequest(
+			final RequestID requestID,
+			final GroupRequestStatus status,
+			final Instant modificationTime,
+			final OutboxNotification notification)
+			throws NoSuchRequestException, GroupsStorageException {
+		storage.closeRequest(requestID, status, modificationTime, notification);
+	}
+
+	@Override
+	public void storeNotification(final OutboxNotification notification)
+			throws GroupsStorageException {
+		storage.storeNotification(notification);
+	}
+
+	@Override
+	public int movePendingNotifications(final int limit) throws GroupsStorageException {
+		return storage.movePendingNotifications(limit);
+	}
+
+	@Override
+	public List<OutboxNotification> claimNotifications(
+			final Instant now,
+			final Instant leaseExpiration,
+			final int limit)
+			throws GroupsStorageException {
+		return storage.claimNotifications(now, leaseExpiration, limit);
+	}
+
+	@Override
+	public void removeNotification(final UUID id) throws GroupsStorageException {
+		storage.removeNotification(id);
+	}
+
+	@Override
+	public void retryNotification(final UUID id, final Instant nextAttempt)
+			throws GroupsStorageException {
+		storage.retryNotification(id, nextAttempt);
+	}
+}
@@ -1,10 +1,12 @@
 package us.kbase.groups.storage;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import us.kbase.groups.core.GetGroupsParams;
 import us.kbase.groups.core.GetRequestsParams;
@@ -12,6 +14,7 @@ import us.kbase.groups.core.Group;
 import us.kbase.groups.core.GroupID;
 import us.kbase.groups.core.GroupIDAndName;
 import us.kbase.groups.core.GroupIDNameMembership;
+import us.kbase.groups.core.GroupSummary;
 import us.kbase.groups.core.GroupUpdateParams;
 import us.kbase.groups.core.GroupUser;
 import us.kbase.groups.core.Groups;
@@ -26,6 +29,7 @@ import us.kbase.groups.core.exceptions.RequestExistsException;
 import us.kbase.groups.core.exceptions.ResourceExistsException;
 import us.kbase.groups.core.exceptions.UserIsMemberException;
 import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.notifications.OutboxNotification;
 import us.kbase.groups.core.request.GroupRequest;
 import us.kbase.groups.core.request.GroupRequestStatus;
 import us.kbase.groups.core.request.GroupRequestStatusType;
@@ -127,7 +131,69 @@ public interface GroupsStorage {
 	 */
 	List<Group> getGroups(GetGroupsParams params, boolean resourceIsPublic, UserName user)
 			throws GroupsStorageException;
+
+	/** Get summaries of groups in the system. Identical to
+	 * {@link #getGroups(GetGroupsParams, boolean, UserName)} other than the summaries are
+	 * returned rather than the full groups, and so the member and resource lists are not
+	 * retrieved from the storage system.
+	 * @param params the parameters for getting the groups.
+	 * @param resourceIsPublic true if the resource in the params is public, false otherwise.
+	 * Ignored if no resource is present.
+	 * @param user an optional user. If no user is provided, only public groups are returned.
+	 * The summaries are created for this user.
+	 * @return the group summaries.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	List<GroupSummary> getGroupSummaries(
+			GetGroupsParams params,
+			boolean resourceIsPublic,
+			UserName user)
+			throws GroupsStorageException;
+
+	/** A consumer of group summaries that may fail with an {@link IOException}. */
+	interface GroupSummaryConsumer {
+		
+		/** Accept a group summary.
+		 * @param summary the summary.
+		 * @throws IOException if an IO error occurs processing the summary.
+		 */
+		void accept(GroupSummary summary) throws IOException;
+	}
+	
+	/** Stream summaries of all the groups in the system that match the parameters to a consumer.
+	 * The visibility rules are identical to
+	 * {@link #getGroupSummaries(GetGroupsParams, boolean, UserName)}, but the number of groups
+	 * is not capped at the maximum list size; only the limit in the parameters, if any, is
+	 * applied. Summaries are passed to the consumer as they are read from the storage system
+	 * rather than collected in memory.
+	 * @param params the parameters for getting the groups.
+	 * @param resourceIsPublic true if the resource in the params is public, false otherwise.
+	 * Ignored if no resource is present.
+	 * @param user an optional user. If no user is provided, only public groups are returned.
+	 * The summaries are created for this user.
+	 * @param consumer the consumer of the summaries.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 * @throws IOException if the consumer throws an IO exception.
+	 */
+	void exportGroupSummaries(
+			GetGroupsParams params,
+			boolean resourceIsPublic,
+			UserName user,
+			GroupSummaryConsumer consumer)
+			throws GroupsStorageException, IOException;
 	
+	/** Get summaries of a set of groups. The summaries are read with the same consistency as
+	 * {@link #getGroup(GroupID)}, and so may be used to check the user's role in the groups.
+	 * @param groupIDs the IDs of the groups.
+	 * @param user the user for whom the summaries are created. The user's member record, if
+	 * any, is included in each summary. May be null.
+	 * @return the summaries.
+	 * @throws NoSuchGroupException if one of the groups does not exist.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	Set<GroupSummary> getGroupSummaries(Collection<GroupID> groupIDs, UserName user)
+			throws NoSuchGroupException, GroupsStorageException;
+
 	/** Add a member to a group.
 	 * @param groupID the ID of the group.
 	 * @param member the new member.
@@ -222,6 +288,27 @@ public interface GroupsStorage {
 			Instant modDate)
 			throws NoSuchGroupException, GroupsStorageException, ResourceExistsException;
 	
+	/** Add a resource to a group and record a notification regarding the addition in the same
+	 * write. The notification is moved to the notification outbox by
+	 * {@link #movePendingNotifications(int)}.
+	 * @param groupID the group ID.
+	 * @param type the resource type.
+	 * @param resource the resource descriptor.
+	 * @param modDate the modification date to apply to the group.
+	 * @param notification the notification. Must be an
+	 * {@link OutboxNotification.Operation#ADD_RESOURCE} notification for the group.
+	 * @throws NoSuchGroupException if there is no group with the given ID.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 * @throws ResourceExistsException if the resource already exists in the group.
+	 */
+	void addResource(
+			GroupID groupID,
+			ResourceType type,
+			ResourceDescriptor resource,
+			Instant modDate,
+			OutboxNotification notification)
+			throws NoSuchGroupException, GroupsStorageException, ResourceExistsException;
+	
 	/** Remove a resource from a group.
 	 * @param groupID the group ID.
 	 * @param type the resource type.
@@ -238,6 +325,22 @@ public interface GroupsStorage {
 			Instant modDate)
 			throws NoSuchGroupException, GroupsStorageException, NoSuchResourceException;
 	
+	/** Remove a set of resources from a group in one operation. Resources that are not in the
+	 * group are ignored. If none of the resources are in the group, the group is not modified.
+	 * @param groupID the group ID.
+	 * @param type the resource type.
+	 * @param resources the resource IDs.
+	 * @param modDate the modification date to apply to the group.
+	 * @throws NoSuchGroupException if there is no group with the given ID.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	void removeResources(
+			GroupID groupID,
+			ResourceType type,
+			Set<ResourceID> resources,
+			Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException;
+	
 	/** Store a new request. The request ID must not already be present in the system.
 	 * @param request the new request.
 	 * @throws IllegalArgumentException if the request ID already exists.
@@ -249,6 +352,20 @@ public interface GroupsStorage {
 	void storeRequest(GroupRequest request)
 			throws RequestExistsException, GroupsStorageException;
 	
+	/** Store a new request as {@link #storeRequest(GroupRequest)} and record a notification
+	 * regarding the request in the same write. The notification is moved to the notification
+	 * outbox by {@link #movePendingNotifications(int)}.
+	 * @param request the new request.
+	 * @param notification the notification. Must refer to the request.
+	 * @throws IllegalArgumentException if the request ID already exists.
+	 * @throws RequestExistsException if an effectively identical request (the same requester,
+	 * group, target, and type) already exists in an {@link GroupRequestStatusType#OPEN} state
+	 * in the system.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	void storeRequest(GroupRequest request, OutboxNotification notification)
+			throws RequestExistsException, GroupsStorageException;
+	
 	/** Get a request.
 	 * @param requestID the ID of the request.
 	 * @return the request.
@@ -318,6 +435,16 @@ public interface GroupsStorage {
 	List<GroupRequest> getRequestsByGroups(Set<GroupID> groupIDs, GetRequestsParams params)
 			throws GroupsStorageException;
 	
+	/** Get the latest modification date of the open incoming
+	 * (e.g. are {@link RequestType#REQUEST}s) requests for each of a set of groups.
+	 * @param groupIDs the IDs of the groups to check.
+	 * @return a mapping from group ID to the latest modification date of the group's open
+	 * requests. Groups with no open requests are not included in the mapping.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	Map<GroupID, Instant> getLatestOpenRequestDates(Collection<GroupID> groupIDs)
+			throws GroupsStorageException;
+	
 	/** Check if a group has at least one open incoming
 	 * (e.g. are {@link RequestType#REQUEST}s) request later than a specified date.
 	 * @param groupID the ID of the group to check.
@@ -343,4 +470,70 @@ public interface GroupsStorage {
 			GroupRequestStatus status,
 			Instant modificationTime)
 			throws NoSuchRequestException, GroupsStorageException;
+	
+	/** Close a request as {@link #closeRequest(RequestID, GroupRequestStatus, Instant)} and
+	 * record a notification regarding the request in the same write. The notification is moved
+	 * to the notification outbox by {@link #movePendingNotifications(int)}.
+	 * @param requestID the ID of the request to close.
+	 * @param status the status to apply to the request. Must not be
+	 * {@link GroupRequestStatus#open()}.
+	 * @param modificationTime the modification time of the request.
+	 * @param notification the notification. Must refer to the request.
+	 * @throws NoSuchRequestException if there is no open request with the given ID
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	void closeRequest(
+			RequestID requestID,
+			GroupRequestStatus status,
+			Instant modificationTime,
+			OutboxNotification notification)
+			throws NoSuchRequestException, GroupsStorageException;
+	
+	/** Store a notification in the notification outbox. The notification is immediately
+	 * available to {@link #claimNotifications(Instant, Instant, int)}.
+	 * @param notification the notification.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 * @throws IllegalArgumentException if a notification with the same ID already exists.
+	 */
+	void storeNotification(OutboxNotification notification) throws GroupsStorageException;
+	
+	/** Move notifications recorded with changes to requests and groups to the notification
+	 * outbox, where they are available to {@link #claimNotifications(Instant, Instant, int)}.
+	 * A notification is removed from the request or group only after it is stored in the
+	 * outbox, so a notification is never lost if the move fails part way.
+	 * @param limit the maximum number of requests and the maximum number of groups from which
+	 * to move notifications.
+	 * @return the number of notifications moved.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	int movePendingNotifications(int limit) throws GroupsStorageException;
+	
+	/** Claim notifications from the notification outbox for sending, oldest first.
+	 * Claimed notifications are not available to other claims until the lease expires.
+	 * A notification that is claimed but neither removed nor retried before the lease expires
+	 * will be available to claim again.
+	 * @param now the current time. Notifications scheduled to be sent after this time are
+	 * not claimed.
+	 * @param leaseExpiration the time at which the claim expires.
+	 * @param limit the maximum number of notifications to claim.
+	 * @return the claimed notifications.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	List<OutboxNotification> claimNotifications(Instant now, Instant leaseExpiration, int limit)
+			throws GroupsStorageException;
+	
+	/** Remove a notification from the notification outbox, typically after it has been sent.
+	 * Removing a nonexistent notification has no effect.
+	 * @param id the ID of the notification.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	void removeNotification(UUID id) throws GroupsStorageException;
+	
+	/** Record a failed attempt to send a notification and schedule the next attempt.
+	 * Has no effect if the notification does not exist.
+	 * @param id the ID of the notification.
+	 * @param nextAttempt the earliest time at which the notification may be claimed again.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	void retryNotification(UUID id, Instant nextAttempt) throws GroupsStorageException;
 }
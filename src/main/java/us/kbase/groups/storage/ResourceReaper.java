@@ -0,0 +1,25 @@
+package us.kbase.groups.storage;
+
+import java.util.Set;
+
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.exceptions.NoSuchGroupException;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+
+/** Removes resources that a resource handler has reported as no longer existing from groups.
+ */
+public interface ResourceReaper {
+
+	/** Remove nonexistent resources from a group. Resources that are not in the group are
+	 * ignored. Implementations may remove the resources at a later time.
+	 * @param groupID the ID of the group containing the resources.
+	 * @param type the type of the resources.
+	 * @param resources the IDs of the resources.
+	 * @throws NoSuchGroupException if there is no group with the given ID.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	void reap(GroupID groupID, ResourceType type, Set<ResourceID> resources)
+			throws NoSuchGroupException, GroupsStorageException;
+}
@@ -0,0 +1,142 @@
+package us.kbase.groups.storage.mongo;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+/** Records how long threads wait to check out a connection from the MongoDB connection pool,
+ * so that pool exhaustion can be detected and the pool sized accordingly.
+ *
+ * Check outs that take longer than a threshold are logged as warnings, and failed check outs,
+ * for example when the wait for a connection times out, are logged as errors. Since slow
+ * check outs usually occur in bursts when the pool is exhausted, at most one warning is
+ * logged per minute, summarizing the slow check outs since the previous warning.
+ */
+public class ConnectionPoolMonitor implements ConnectionPoolListener {
+
+	private static final long WARN_INTERVAL_MS = 60000;
+
+	private final long slowCheckOutMillis;
+	private final Clock clock;
+	private final AtomicLong checkOuts = new AtomicLong();
+	private final AtomicLong slowCheckOuts = new AtomicLong();
+	private final AtomicLong failedCheckOuts = new AtomicLong();
+	private final AtomicLong totalWaitMicros = new AtomicLong();
+	private final AtomicLong maxWaitMicros = new AtomicLong();
+	private final AtomicLong checkedOut = new AtomicLong();
+	// slow check outs since the last warning
+	private final AtomicLong unloggedSlowCheckOuts = new AtomicLong();
+	private final AtomicLong unloggedMaxWaitMicros = new AtomicLong();
+	private final AtomicLong nextWarning = new AtomicLong(Long.MIN_VALUE);
+
+	/** Create the monitor.
+	 * @param slowCheckOutMillis the time, in milliseconds, after which a wait for a connection
+	 * is logged. 0 indicates waits should not be logged.
+	 */
+	public ConnectionPoolMonitor(final long slowCheckOutMillis) {
+		this(slowCheckOutMillis, Clock.systemDefaultZone());
+	}
+
+	// for tests
+	private ConnectionPoolMonitor(final long slowCheckOutMillis, final Clock clock) {
+		if (slowCheckOutMillis < 0) {
+			throw new IllegalArgumentException("slowCheckOutMillis must be >= 0");
+		}
+		this.slowCheckOutMillis = slowCheckOutMillis;
+		this.clock = clock;
+	}
+
+	@Override
+	public void connectionCheckedOut(final ConnectionCheckedOutEvent event) {
+		final long waitMicros = event.getElapsedTime(TimeUnit.MICROSECONDS);
+		checkOuts.incrementAndGet();
+		checkedOut.incrementAndGet();
+		totalWaitMicros.addAndGet(waitMicros);
+		maxWaitMicros.accumulateAndGet(waitMicros, Math::max);
+		if (slowCheckOutMillis > 0 && waitMicros >= slowCheckOutMillis * 1000) {
+			slowCheckOuts.incrementAndGet();
+			unloggedSlowCheckOuts.incrementAndGet();
+			unloggedMaxWaitMicros.accumulateAndGet(waitMicros, Math::max);
+			warnSlowCheckOuts();
+		}
+	}
+
+	private void warnSlowCheckOuts() {
+		final long now = clock.millis();
+		final long next = nextWarning.get();
+		// only one thread gets to log per interval
+		if (now >= next && nextWarning.compareAndSet(next, now + WARN_INTERVAL_MS)) {
+			final long count = unloggedSlowCheckOuts.getAndSet(0);
+			final long maxMicros = unloggedMaxWaitMicros.getAndSet(0);
+			LoggerFactory.getLogger(getClass()).warn(String.format(
+					"%s MongoDB connection check outs took at least %s ms since the last " +
+					"warning, the longest wait was %s ms. Consider increasing the pool size",
+					count, slowCheckOutMillis, maxMicros / 1000));
+		}
+	}
+
+	@Override
+	public void connectionCheckOutFailed(final ConnectionCheckOutFailedEvent event) {
+		failedCheckOuts.incrementAndGet();
+		LoggerFactory.getLogger(getClass()).error(String.format(
+				"Failed to check out MongoDB connection to %s after %s ms: %s",
+				event.getServerId().getAddress(), event.getElapsedTime(TimeUnit.MILLISECONDS),
+				event.getReason()));
+	}
+
+	@Override
+	public void connectionCheckedIn(final ConnectionCheckedInEvent event) {
+		checkedOut.decrementAndGet();
+	}
+
+	/** Get the number of successful connection check outs.
+	 * @return the number of check outs.
+	 */
+	public long getCheckOutCount() {
+		return checkOuts.get();
+	}
+
+	/** Get the number of successful connection check outs that took at least as long as the
+	 * slow check out threshold.
+	 * @return the number of slow check outs.
+	 */
+	public long getSlowCheckOutCount() {
+		return slowCheckOuts.get();
+	}
+
+	/** Get the number of failed connection check outs.
+	 * @return the number of failed check outs.
+	 */
+	public long getFailedCheckOutCount() {
+		return failedCheckOuts.get();
+	}
+
+	/** Get the mean time, in milliseconds, taken to check out a connection.
+	 * @return the mean wait time, or 0 if no connections have been checked out.
+	 */
+	public double getMeanWaitMillis() {
+		final long count = checkOuts.get();
+		return count == 0 ? 0 : totalWaitMicros.get() / 1000.0 / count;
+	}
+
+	/** Get the longest time, in milliseconds, taken to check out a connection.
+	 * @return the maximum wait time.
+	 */
+	public double getMaxWaitMillis() {
+		return maxWaitMicros.get() / 1000.0;
+	}
+
+	/** Get the number of connections currently checked out of the pool.
+	 * @return the number of connections.
+	 */
+	public long getCheckedOutCount() {
+		return checkedOut.get();
+	}
+}
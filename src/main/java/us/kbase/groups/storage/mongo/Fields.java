@@ -37,6 +37,18 @@ public class Fields {
 	public static final String GROUP_MODIFICATION = "mod";
 	/** The group custom fields. */
 	public static final String GROUP_CUSTOM_FIELDS = "cust";
+	/** The number of members in the group, including the owner and administrators.
+	 * Denormalized from the members list.
+	 */
+	public static final String GROUP_MEMBER_COUNT = "membcnt";
+	/** The number of resources in the group per resource type. Denormalized from the
+	 * resources map.
+	 */
+	public static final String GROUP_RESOURCE_COUNTS = "rescnt";
+	/** Notifications recorded with a change to the group that have not yet been moved to the
+	 * notification outbox. Uses the notification outbox fields.
+	 */
+	public static final String GROUP_PENDING_NOTIFICATIONS = "pendnote";
 	
 	// members fields
 	/** A group member name. */
@@ -91,6 +103,44 @@ public class Fields {
 	public static final String REQUEST_EXPIRATION = "expire";
 	/** The characteristic string for a request. */
 	public static final String REQUEST_CHARACTERISTIC_STRING = "charstr";
+	/** Notifications recorded with a change to the request that have not yet been moved to the
+	 * notification outbox. Uses the notification outbox fields.
+	 */
+	public static final String REQUEST_PENDING_NOTIFICATIONS = "pendnote";
+	
+	/* ***********************
+	 * notification outbox fields
+	 * ***********************
+	 */
+	
+	/** The notification ID. */
+	public static final String OUTBOX_ID = "id";
+	/** The notification operation. */
+	public static final String OUTBOX_OPERATION = "op";
+	/** The creation date of the notification. */
+	public static final String OUTBOX_CREATION = "create";
+	/** The targets of the notification. */
+	public static final String OUTBOX_TARGETS = "targets";
+	/** The ID of the request that is the subject of the notification. */
+	public static final String OUTBOX_REQUEST_ID = "reqid";
+	/** The request that is the subject of the notification, as it was when the notification
+	 * was created.
+	 */
+	public static final String OUTBOX_REQUEST = "req";
+	/** The user that added a resource. */
+	public static final String OUTBOX_ACTOR = "actor";
+	/** The ID of the group to which a resource was added. */
+	public static final String OUTBOX_GROUP_ID = "gid";
+	/** The type of a resource that was added to a group. */
+	public static final String OUTBOX_RESOURCE_TYPE = "restype";
+	/** The ID of a resource that was added to a group. */
+	public static final String OUTBOX_RESOURCE_ID = "resid";
+	/** The number of failed attempts to send the notification. */
+	public static final String OUTBOX_ATTEMPTS = "attempts";
+	/** The earliest time at which the notification may be sent. */
+	public static final String OUTBOX_NEXT_ATTEMPT = "next";
+	/** The ID of the most recent claim of the notification. */
+	public static final String OUTBOX_CLAIM = "claim";
 	
 	/* ***********************
 	 * database schema fields
@@ -109,5 +159,13 @@ public class Fields {
 	public static final String DB_SCHEMA_UPDATE = "inupdate";
 	/** The version of the database schema. */
 	public static final String DB_SCHEMA_VERSION = "schemaver";
+	/** Whether member and resource counts have been added to groups created before the
+	 * counts were stored.
+	 */
+	public static final String DB_SCHEMA_COUNTS_ADDED = "countsadded";
+	/** Whether the request indexes replaced by indexes ending with the request ID have been
+	 * dropped.
+	 */
+	public static final String DB_SCHEMA_REQUEST_INDEXES_REPLACED = "reqidxreplaced";
 
 }
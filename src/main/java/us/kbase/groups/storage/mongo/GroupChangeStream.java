@@ -0,0 +1,206 @@
+package us.kbase.groups.storage.mongo;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.exceptions.IllegalParameterException;
+import us.kbase.groups.core.exceptions.MissingParameterException;
+
+/** Watches a MongoDB groups collection via a change stream and reports changed groups to a
+ * listener, for example so that in process caches of groups can be invalidated when groups
+ * are modified by other service instances. Change streams require MongoDB to run as a
+ * replica set or sharded cluster. If the server reports that change streams are not supported,
+ * the watcher stops.
+ *
+ * After an error the stream is reopened from the last event seen. If that isn't possible,
+ * or a change can't be attributed to a single group, the listener is told that changes may
+ * have been missed.
+ *
+ * {@link #run()} blocks until {@link #stop()} is called or the MongoDB client is closed, and
+ * so is expected to be run in a dedicated thread.
+ */
+public class GroupChangeStream implements Runnable {
+
+	/** A listener for changes to groups. */
+	public interface GroupChangeListener {
+
+		/** Called when a group has been created or modified.
+		 * @param groupID the ID of the group.
+		 */
+		void groupChanged(GroupID groupID);
+
+		/** Called when changes to groups may not have been reported, for example when the
+		 * change stream is opened without a prior position in the stream.
+		 */
+		void changesMissed();
+	}
+
+	private static final long RETRY_DELAY_MS = 5000;
+	// how long to wait for an event before checking whether the stream has been stopped
+	private static final long MAX_AWAIT_MS = 1000;
+
+	/* MongoDB error codes indicating the stream can't be resumed from the last position,
+	 * usually because the position is no longer in the oplog:
+	 * CappedPositionLost, ChangeStreamFatalError, and ChangeStreamHistoryLost.
+	 */
+	private static final Set<Integer> CANNOT_RESUME = ImmutableSet.of(136, 280, 286);
+	
+	/* MongoDB error codes indicating change streams are not supported by the deployment,
+	 * for example a standalone server: 40573, and 40415 for versions prior to 4.0.
+	 */
+	private static final Set<Integer> UNSUPPORTED = ImmutableSet.of(40573, 40415);
+
+	// only the group ID is needed from the group
+	private static final List<Bson> PIPELINE = Arrays.asList(new Document("$project",
+			new Document("operationType", 1)
+					.append("fullDocument." + Fields.GROUP_ID, 1)));
+
+	private final MongoCollection<Document> groups;
+	private final GroupChangeListener listener;
+	private final long retryDelayMS;
+	private volatile boolean running = true;
+	private BsonDocument resumeToken = null;
+
+	/** Create the change stream watcher.
+	 * @param groups the groups collection.
+	 * @param listener the listener to which changes will be reported.
+	 */
+	public GroupChangeStream(
+			final MongoCollection<Document> groups,
+			final GroupChangeListener listener) {
+		this(groups, listener, RETRY_DELAY_MS);
+	}
+
+	// for tests
+	private GroupChangeStream(
+			final MongoCollection<Document> groups,
+			final GroupChangeListener listener,
+			final long retryDelayMS) {
+		checkNotNull(groups, "groups");
+		checkNotNull(listener, "listener");
+		this.groups = groups;
+		this.listener = listener;
+		this.retryDelayMS = retryDelayMS;
+	}
+
+	/** Stop watching the change stream. The watcher stops within about a second. */
+	public void stop() {
+		running = false;
+	}
+
+	/** Returns true if the watcher has not been stopped.
+	 * @return true if the watcher is running.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				watch();
+			} catch (IllegalStateException e) {
+				// the client has been closed
+				LoggerFactory.getLogger(getClass()).info(
+						"Stopped watching group changes: " + e.getMessage());
+				running = false;
+			} catch (MongoException e) {
+				if (UNSUPPORTED.contains(e.getCode())) {
+					// retrying will never succeed
+					LoggerFactory.getLogger(getClass()).error(
+							"Stopped watching group changes, change streams are not " +
+							"supported by the MongoDB deployment: " + e.getMessage(), e);
+					listener.changesMissed();
+					running = false;
+					return;
+				}
+				if (CANNOT_RESUME.contains(e.getCode())) {
+					resumeToken = null;
+				}
+				LoggerFactory.getLogger(getClass()).error(String.format(
+						"Error watching group changes, retrying in %s ms: %s",
+						retryDelayMS, e.getMessage()), e);
+				try {
+					Thread.sleep(retryDelayMS);
+				} catch (InterruptedException ie) {
+					running = false;
+				}
+			}
+		}
+	}
+
+	private void watch() {
+		final ChangeStreamIterable<Document> stream = groups.watch(PIPELINE)
+				.fullDocument(FullDocument.UPDATE_LOOKUP)
+				.maxAwaitTime(MAX_AWAIT_MS, TimeUnit.MILLISECONDS);
+		if (resumeToken != null) {
+			stream.resumeAfter(resumeToken);
+		}
+		try (final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor =
+				stream.cursor()) {
+			if (resumeToken == null) {
+				listener.changesMissed();
+			}
+			while (running) {
+				final ChangeStreamDocument<Document> event = cursor.tryNext();
+				if (event != null && !process(event)) {
+					// the stream is closed by the server after an invalidate event
+					resumeToken = null;
+					return;
+				}
+				// the resume token advances even if there are no events
+				if (cursor.getResumeToken() != null) {
+					resumeToken = cursor.getResumeToken();
+				}
+			}
+		}
+	}
+
+	// returns false if the stream has been invalidated
+	private boolean process(final ChangeStreamDocument<Document> event) {
+		final OperationType op = event.getOperationType();
+		try {
+			if (OperationType.INVALIDATE.equals(op)) {
+				listener.changesMissed();
+				return false;
+			}
+			final Document group = event.getFullDocument();
+			if ((OperationType.INSERT.equals(op) || OperationType.UPDATE.equals(op) ||
+					OperationType.REPLACE.equals(op)) && group != null) {
+				listener.groupChanged(new GroupID(group.getString(Fields.GROUP_ID)));
+			} else {
+				// the group was deleted, or the collection was dropped or renamed.
+				// The group ID is no longer available.
+				listener.changesMissed();
+			}
+		} catch (MissingParameterException | IllegalParameterException e) {
+			LoggerFactory.getLogger(getClass()).error(
+					"Unexpected value in database: " + e.getMessage(), e);
+			listener.changesMissed();
+		} catch (RuntimeException e) {
+			LoggerFactory.getLogger(getClass()).error(
+					"Error processing group change: " + e.getMessage(), e);
+		}
+		return true;
+	}
+}
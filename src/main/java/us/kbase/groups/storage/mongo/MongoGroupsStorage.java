@@ -4,23 +4,29 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.requireNonNull;
 import static us.kbase.groups.util.Util.checkNoNullsInCollection;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -35,13 +41,20 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableMap;
 import com.mongodb.ErrorCategory;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoCommandException;
 import com.mongodb.MongoException;
 import com.mongodb.MongoWriteException;
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertManyOptions;
 import com.mongodb.client.result.UpdateResult;
 
 import us.kbase.groups.core.Group;
@@ -49,6 +62,7 @@ import us.kbase.groups.core.GroupID;
 import us.kbase.groups.core.GroupIDAndName;
 import us.kbase.groups.core.GroupIDNameMembership;
 import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupSummary;
 import us.kbase.groups.core.GroupUpdateParams;
 import us.kbase.groups.core.GroupUser;
 import us.kbase.groups.core.OptionalGroupFields;
@@ -70,6 +84,8 @@ import us.kbase.groups.core.exceptions.RequestExistsException;
 import us.kbase.groups.core.exceptions.ResourceExistsException;
 import us.kbase.groups.core.exceptions.UserIsMemberException;
 import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.notifications.OutboxNotification.Operation;
 import us.kbase.groups.core.request.GroupRequest;
 import us.kbase.groups.core.request.GroupRequestStatus;
 import us.kbase.groups.core.request.GroupRequestStatusType;
@@ -106,15 +122,22 @@ public class MongoGroupsStorage implements GroupsStorage {
 	
 	private static final int SCHEMA_VERSION = 1;
 	
+	// the MongoDB error code for dropping an index that doesn't exist
+	private static final int INDEX_NOT_FOUND = 27;
+	
 	// collection names
 	private static final String COL_CONFIG = "config";
 	
 	private static final String COL_GROUPS = "groups";
 	private static final String COL_REQUESTS = "requests";
+	private static final String COL_REQUESTS_ARCHIVE = "requests_archive";
+	private static final String COL_OUTBOX = "outbox";
 	
 	private static final Map<String, Map<List<String>, IndexOptions>> INDEXES;
+	// request indexes from before the request ID was added to support paging
+	private static final List<List<String>> REPLACED_REQUEST_INDEXES;
 	private static final IndexOptions IDX_UNIQ = new IndexOptions().unique(true);
-//	private static final IndexOptions IDX_SPARSE = new IndexOptions().sparse(true);
+	private static final IndexOptions IDX_SPARSE = new IndexOptions().sparse(true);
 	private static final IndexOptions IDX_UNIQ_SPARSE = new IndexOptions()
 			.unique(true).sparse(true);
 	static {
@@ -125,16 +148,26 @@ public class MongoGroupsStorage implements GroupsStorage {
 		final Map<List<String>, IndexOptions> groups = new HashMap<>();
 		// will probably need to sort by time at some point
 		groups.put(Arrays.asList(Fields.GROUP_ID), IDX_UNIQ);
-		// find by owner and sort by ID
+		/* The user indexes below are multikey where the user field is an array, and so can't
+		 * cover queries on that field. However, each supports the filter and the ID sort
+		 * without an in memory sort, and the $or queries for the admin role and for listing
+		 * public groups plus the user's groups are served by merging two of the indexes.
+		 * See checkQueryPlans().
+		 */
+		// find by owner and sort by ID. Also the owner branch of the admin role query.
 		groups.put(Arrays.asList(Fields.GROUP_OWNER, Fields.GROUP_ID), null);
 		// find by admin and sort by ID
 		groups.put(Arrays.asList(Fields.GROUP_ADMINS, Fields.GROUP_ID), null);
-		// find public groups and sort by ID (not needed?)
+		// find public groups and sort by ID. Also the public branch of the no role user query.
 		groups.put(Arrays.asList(Fields.GROUP_IS_PRIVATE, Fields.GROUP_ID), null);
-		// find groups by member and sort by ID
+		// find groups by member and sort by ID. The members array contains all members, so
+		// this serves the member role, getMemberGroups(), and the no role user query.
 		groups.put(Arrays.asList(
 				Fields.GROUP_MEMBERS + Fields.FIELD_SEP + Fields.GROUP_MEMBER_NAME,
 				Fields.GROUP_ID), null);
+		// find groups with notifications to move to the outbox.
+		groups.put(Arrays.asList(Fields.GROUP_PENDING_NOTIFICATIONS + Fields.FIELD_SEP +
+				Fields.OUTBOX_ID), IDX_SPARSE);
 		INDEXES.put(COL_GROUPS, groups);
 		
 		// requests indexes
@@ -142,54 +175,100 @@ public class MongoGroupsStorage implements GroupsStorage {
 		final Map<List<String>, IndexOptions> requests = new HashMap<>();
 		// may need compound indexes to speed things up.
 		requests.put(Arrays.asList(Fields.REQUEST_ID), IDX_UNIQ);
-		// find by group & type & sort/filter by modification time.
+		// find by group & type & sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_GROUP_ID, Fields.REQUEST_TYPE,
-				Fields.REQUEST_MODIFICATION), null);
-		// find by group, status, and type and sort/filter by modification time.
+				Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find by group, status, and type and sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_GROUP_ID, Fields.REQUEST_STATUS,
-				Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION), null);
-		// find by requester and sort/filter by modification time.
-		requests.put(Arrays.asList(Fields.REQUEST_REQUESTER, Fields.REQUEST_MODIFICATION), null);
-		// find by requester and state and sort/filter by modification time.
+				Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find by requester and sort/filter by modification time and ID.
+		requests.put(Arrays.asList(Fields.REQUEST_REQUESTER, Fields.REQUEST_MODIFICATION,
+				Fields.REQUEST_ID), null);
+		// find by requester and state and sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_REQUESTER, Fields.REQUEST_STATUS,
-				Fields.REQUEST_MODIFICATION), null);
-		// find by resource admin ID and sort/filter by modification time.
+				Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find by resource admin ID and sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_RESOURCE_ADMINISTRATIVE_ID,
-				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION),
-				null);
-		// find by resource admin ID and state and sort/filter by modification time.
+				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION,
+				Fields.REQUEST_ID), null);
+		// find by resource admin ID and state and sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_RESOURCE_ADMINISTRATIVE_ID,
 				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_STATUS, Fields.REQUEST_TYPE,
-				Fields.REQUEST_MODIFICATION), null);
-		// find by resource ID and sort/filter by modification time.
+				Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find by resource ID and sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_RESOURCE_ID,
-				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION),
-				null);
-		// find by resource ID and state and sort/filter by modification time.
+				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION,
+				Fields.REQUEST_ID), null);
+		// find by resource ID and state and sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_RESOURCE_ID,
 				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_STATUS, Fields.REQUEST_TYPE,
-				Fields.REQUEST_MODIFICATION), null);
-		// find by resource ID and requester and sort/filter by modification time.
+				Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find by resource ID and requester and sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_RESOURCE_ID, Fields.REQUEST_REQUESTER,
-				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION),
-				null);
-		// find by resource ID and requester and state and sort/filter by modification time.
+				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION,
+				Fields.REQUEST_ID), null);
+		// find by resource ID and requester and state and sort/filter by mod time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_RESOURCE_ID, Fields.REQUEST_REQUESTER,
 				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_STATUS, Fields.REQUEST_TYPE,
-				Fields.REQUEST_MODIFICATION), null);
-		// find by resource ID and group and sort/filter by modification time.
+				Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find by resource ID and group and sort/filter by modification time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_RESOURCE_ID, Fields.REQUEST_GROUP_ID,
-				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION),
-				null);
-		// find by resource ID and group and state and sort/filter by modification time.
+				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_TYPE, Fields.REQUEST_MODIFICATION,
+				Fields.REQUEST_ID), null);
+		// find by resource ID and group and state and sort/filter by mod time and ID.
 		requests.put(Arrays.asList(Fields.REQUEST_RESOURCE_ID, Fields.REQUEST_GROUP_ID,
 				Fields.REQUEST_RESOURCE_TYPE, Fields.REQUEST_STATUS, Fields.REQUEST_TYPE,
-				Fields.REQUEST_MODIFICATION), null);
-		// find expired requests.
-		requests.put(Arrays.asList(Fields.REQUEST_EXPIRATION), null);
+				Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find open requests that have expired, oldest first.
+		requests.put(Arrays.asList(Fields.REQUEST_STATUS, Fields.REQUEST_EXPIRATION), null);
+		// find closed requests to archive.
+		requests.put(Arrays.asList(Fields.REQUEST_STATUS, Fields.REQUEST_MODIFICATION), null);
 		// ensure equivalent requests are rejected. See getCharacteristicString()
 		requests.put(Arrays.asList(Fields.REQUEST_CHARACTERISTIC_STRING), IDX_UNIQ_SPARSE);
+		// find requests with notifications to move to the outbox.
+		requests.put(Arrays.asList(Fields.REQUEST_PENDING_NOTIFICATIONS + Fields.FIELD_SEP +
+				Fields.OUTBOX_ID), IDX_SPARSE);
 		INDEXES.put(COL_REQUESTS, requests);
+		// the replaced indexes are the modification time and ID indexes without the ID
+		final List<List<String>> replaced = new LinkedList<>();
+		for (final List<String> idx: requests.keySet()) {
+			if (idx.size() > 2 && idx.get(idx.size() - 1).equals(Fields.REQUEST_ID) &&
+					idx.get(idx.size() - 2).equals(Fields.REQUEST_MODIFICATION)) {
+				replaced.add(idx.subList(0, idx.size() - 1));
+			}
+		}
+		REPLACED_REQUEST_INDEXES = Collections.unmodifiableList(replaced);
+		
+		/* archived requests indexes. Archived requests are only read when listing closed
+		 * requests or when a request isn't found in the requests collection, so only the
+		 * main query fields are indexed.
+		 */
+		final Map<List<String>, IndexOptions> archive = new HashMap<>();
+		archive.put(Arrays.asList(Fields.REQUEST_ID), IDX_UNIQ);
+		// find the newest archived request.
+		archive.put(Arrays.asList(Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find by group and sort by modification time and ID.
+		archive.put(Arrays.asList(Fields.REQUEST_GROUP_ID, Fields.REQUEST_MODIFICATION,
+				Fields.REQUEST_ID), null);
+		// find by requester and sort by modification time and ID.
+		archive.put(Arrays.asList(Fields.REQUEST_REQUESTER, Fields.REQUEST_MODIFICATION,
+				Fields.REQUEST_ID), null);
+		// find by resource admin ID and sort by modification time and ID.
+		archive.put(Arrays.asList(Fields.REQUEST_RESOURCE_ADMINISTRATIVE_ID,
+				Fields.REQUEST_MODIFICATION, Fields.REQUEST_ID), null);
+		// find by resource ID and sort by modification time and ID.
+		archive.put(Arrays.asList(Fields.REQUEST_RESOURCE_ID, Fields.REQUEST_MODIFICATION,
+				Fields.REQUEST_ID), null);
+		INDEXES.put(COL_REQUESTS_ARCHIVE, archive);
+		
+		// notification outbox indexes
+		final Map<List<String>, IndexOptions> outbox = new HashMap<>();
+		outbox.put(Arrays.asList(Fields.OUTBOX_ID), IDX_UNIQ);
+		// find notifications ready to send, oldest first.
+		outbox.put(Arrays.asList(Fields.OUTBOX_NEXT_ATTEMPT, Fields.OUTBOX_CREATION), null);
+		// find notifications claimed by a particular claim.
+		outbox.put(Arrays.asList(Fields.OUTBOX_CLAIM), IDX_SPARSE);
+		INDEXES.put(COL_OUTBOX, outbox);
 		
 		//config indexes
 		final Map<List<String>, IndexOptions> cfg = new HashMap<>();
@@ -199,14 +278,35 @@ public class MongoGroupsStorage implements GroupsStorage {
 	}
 	
 	private static final long EXPIRATION_AGENT_FREQUENCY_SEC = 60;
+	// the expiration agent expires requests in batches with a pause between each batch to
+	// limit the write load it places on the database. It processes at most
+	// EXPIRATION_MAX_BATCHES_PER_RUN batches per run, leaving the remainder for the next run.
+	private static final int EXPIRATION_BATCH_SIZE = 100;
+	private static final long EXPIRATION_BATCH_PAUSE_MS = 100;
+	private static final int EXPIRATION_MAX_BATCHES_PER_RUN = 50;
+	// archival of closed requests runs with the expiration agent in the same manner.
+	private static final int ARCHIVE_BATCH_SIZE = 100;
+	private static final int ARCHIVE_MAX_BATCHES_PER_RUN = 50;
+	
+	// the number of documents fetched per round trip when exporting groups.
+	private static final int EXPORT_BATCH_SIZE = 500;
+	
+	/** The default maximum number of items returned when listing groups or requests. */
+	public static final int DEFAULT_MAX_LIST_SIZE = 100;
 	
 	private ScheduledExecutorService executor;
 	private boolean expirationAgentRunning = false;
+	private volatile ExpiredRequestsListener expiredRequestsListener = null;
+	private volatile Duration requestArchiveAge = null;
+	private volatile ReadPreference listReadPreference = null;
+	private GroupChangeStream groupChangeStream = null;
 	
 	private final MongoDatabase db;
+	private final int maxListSize;
 	private final Clock clock;
 	
-	/** Create MongoDB based storage for the Groups application.
+	/** Create MongoDB based storage for the Groups application. At most
+	 * {@link #DEFAULT_MAX_LIST_SIZE} items are returned when listing groups or requests.
 	 * @param db the MongoDB database the storage system will use.
 	 * @param types the resource types for which indexes will be created. Querying against
 	 * resource types not declared here will result in a table scan. Note that 3 indexes
@@ -216,28 +316,128 @@ public class MongoGroupsStorage implements GroupsStorage {
 	 */
 	public MongoGroupsStorage(final MongoDatabase db, final Collection<ResourceType> types)
 			throws StorageInitException {
-		this(db, types, Clock.systemDefaultZone());
+		this(db, types, DEFAULT_MAX_LIST_SIZE);
+	}
+	
+	/** Create MongoDB based storage for the Groups application.
+	 * @param db the MongoDB database the storage system will use.
+	 * @param types the resource types for which indexes will be created. Querying against
+	 * resource types not declared here will result in a table scan. Note that 3 indexes
+	 * are created per type and 5 indexes are created automatically, which means that at most
+	 * 19 types can be registered given MongoDBs 64 index / collection limit.
+	 * @param maxListSize the maximum number of items to return when listing groups or
+	 * requests. Limits in {@link GetGroupsParams} and {@link GetRequestsParams} greater than
+	 * this value are reduced to this value.
+	 * @throws StorageInitException if the storage system could not be initialized.
+	 */
+	public MongoGroupsStorage(
+			final MongoDatabase db,
+			final Collection<ResourceType> types,
+			final int maxListSize)
+			throws StorageInitException {
+		this(db, types, maxListSize, Clock.systemDefaultZone());
 	}
 	
 	// for tests
 	private MongoGroupsStorage(
 			final MongoDatabase db,
 			final Collection<ResourceType> types,
+			final int maxListSize,
 			final Clock clock)
 			throws StorageInitException {
 		checkNotNull(db, "db");
 		checkNoNullsInCollection(types, "types");
+		if (maxListSize < 1) {
+			throw new IllegalArgumentException("maxListSize must be > 0");
+		}
 		this.db = db;
+		this.maxListSize = maxListSize;
 		this.clock = clock;
 		ensureIndexes(INDEXES); // MUST come before check config
 		ensureIndexes(types);
 		checkConfig();
+		final List<String> problems = checkQueryPlans();
+		if (!problems.isEmpty()) {
+			// the indexes were just ensured, so the indexes or the queries need updating
+			LoggerFactory.getLogger(getClass()).warn(String.format(
+					"%s group listing queries are not fully indexed and will be slow for " +
+					"large numbers of groups: %s", problems.size(), String.join("; ", problems)));
+		}
+		addCounts();
+		dropReplacedRequestIndexes();
 		startExpirationAgent(EXPIRATION_AGENT_FREQUENCY_SEC);
 	}
 	
+	/** A listener for requests that have been expired by the storage system. */
+	public interface ExpiredRequestsListener {
+		
+		/** Called after a batch of requests has been expired.
+		 * @param requests the requests, as updated by the expiration.
+		 * @throws Exception if an error occurs. The error is logged and otherwise ignored.
+		 */
+		void expired(List<GroupRequest> requests) throws Exception;
+	}
+	
+	/** Set a listener that is called with each batch of requests expired by
+	 * {@link #expireRequests(Instant)}, {@link #expireRequests(Instant, int)}, or the
+	 * expiration agent. Requests expired before the listener is set are not passed to the
+	 * listener.
+	 * @param listener the listener, or null to remove the current listener.
+	 */
+	public void setExpiredRequestsListener(final ExpiredRequestsListener listener) {
+		expiredRequestsListener = listener;
+	}
+	
+	/** Set the age at which closed requests are moved to the archive collection by the
+	 * expiration agent. Each run of the agent archives a bounded number of requests via
+	 * {@link #archiveRequests(Instant, int)} that were closed longer ago than the given age.
+	 * Archived requests are still returned by {@link #getRequest(RequestID)} and by request
+	 * listings that include closed requests. By default requests are not archived.
+	 * @param age the age at which to archive closed requests, or null to stop archiving
+	 * requests.
+	 */
+	public void setRequestArchiveAge(final Duration age) {
+		if (age != null && (age.isNegative() || age.isZero())) {
+			throw new IllegalArgumentException("age must be positive");
+		}
+		requestArchiveAge = age;
+	}
+	
+	/** Set the read preference for methods that list groups or requests and therefore may
+	 * tolerate slightly stale data: {@link #getGroups(GetGroupsParams, boolean, UserName)},
+	 * {@link #getGroupSummaries(GetGroupsParams, boolean, UserName)},
+	 * {@link #exportGroupSummaries(GetGroupsParams, boolean, UserName, GroupSummaryConsumer)},
+	 * {@link #getGroupNames(UserName, Collection)}, {@link #getMemberGroups(UserName)},
+	 * the getRequestsBy* methods, {@link #groupHasRequest(GroupID, Instant)}, and
+	 * {@link #getLatestOpenRequestDates(Collection)}. For example, a secondary preferred
+	 * read preference with a maximum staleness moves these reads off of a replica set primary.
+	 * All other reads, including reads that must observe a preceding write like
+	 * {@link #getGroup(GroupID)} and {@link #getRequest(RequestID)}, and reads of groups by
+	 * ID via {@link #getGroups(Collection)}, which may be cached by the caller, and
+	 * {@link #getGroupSummaries(Collection, UserName)}, which may be used to check a user's
+	 * role, use the read preference of the database. By default listings also use the read preference of the
+	 * database.
+	 * @param readPreference the read preference for listings, or null to use the read
+	 * preference of the database.
+	 */
+	public void setListReadPreference(final ReadPreference readPreference) {
+		listReadPreference = readPreference;
+	}
+	
+	/** Get the read preference for methods that list groups or requests.
+	 * @return the read preference, or null if the read preference of the database is used.
+	 */
+	public ReadPreference getListReadPreference() {
+		return listReadPreference;
+	}
+	
 	/** Schedule the request expiration agent with the given period between expirations.
-	 * The agent calls {@link #expireRequests(Instant)}
-	 * every periodInSeconds with the current {@link Instant} from a {@link Clock#instant()}.
+	 * Every periodInSeconds the agent expires requests with an expiration date prior to the
+	 * current {@link Instant} from a {@link Clock#instant()} in batches via
+	 * {@link #expireRequests(Instant, int)}, pausing between batches. A single run processes a
+	 * bounded number of batches; any remaining requests are expired in subsequent runs.
+	 * Each run logs the number of requests expired, the duration of the run, and the number
+	 * of expired requests remaining.
 	 * @param periodInSeconds how often the reaper runs.
 	 * @throws IllegalArgumentException if the reaper is already running or the period is less
 	 * than or equal to zero.
@@ -271,13 +471,167 @@ public class MongoGroupsStorage implements GroupsStorage {
 		expirationAgentRunning = false;
 	}
 	
+	/** Start watching the groups collection for changes made by any client, including other
+	 * service instances, via a MongoDB change stream. See {@link GroupChangeStream}.
+	 * The stream is watched in a daemon thread.
+	 * MongoDB must be running as a replica set or sharded cluster.
+	 * @param listener the listener to which changes will be reported.
+	 * @throws IllegalArgumentException if the change stream is already being watched.
+	 * @throws StorageInitException if MongoDB is not running as a replica set or sharded
+	 * cluster, or an error occurs checking the MongoDB deployment.
+	 */
+	public synchronized void startGroupChangeStream(
+			final GroupChangeStream.GroupChangeListener listener)
+			throws StorageInitException {
+		checkNotNull(listener, "listener");
+		if (isGroupChangeStreamRunning()) {
+			throw new IllegalArgumentException("The group change stream is already running");
+		}
+		final Document hello;
+		try {
+			hello = db.runCommand(new Document("isMaster", 1));
+		} catch (MongoException e) {
+			throw new StorageInitException("Failed to determine MongoDB deployment type: " +
+					e.getMessage(), e);
+		}
+		// mongos reports isdbgrid, replica set members report the set name
+		if (hello.get("setName") == null && !"isdbgrid".equals(hello.get("msg"))) {
+			throw new StorageInitException("Watching group changes requires MongoDB to run " +
+					"as a replica set or sharded cluster");
+		}
+		groupChangeStream = new GroupChangeStream(db.getCollection(COL_GROUPS), listener);
+		final Thread t = new Thread(groupChangeStream, "group-change-stream");
+		t.setDaemon(true);
+		t.start();
+	}
+	
+	/** Returns true if the group change stream is being watched, false otherwise.
+	 * @return true if the change stream is running.
+	 */
+	public synchronized boolean isGroupChangeStreamRunning() {
+		return groupChangeStream != null && groupChangeStream.isRunning();
+	}
+	
+	/** Stop watching the group change stream.
+	 * Calling this method multiple times in succession has no effect.
+	 */
+	public synchronized void stopGroupChangeStream() {
+		if (groupChangeStream != null) {
+			groupChangeStream.stop();
+			groupChangeStream = null;
+		}
+	}
+	
+	/** Recalculate the member and resource counts stored for each group from the group member
+	 * and resource lists and correct any counts that do not match. The counts are
+	 * maintained when groups are modified, so this method should only be needed if the
+	 * database has been altered outside of this class.
+	 * Groups that are modified while the counts are being recalculated are skipped.
+	 * @return the number of groups for which the counts were corrected.
+	 * @throws GroupsStorageException if an error occurs contacting the storage system.
+	 */
+	public long reconcileCounts() throws GroupsStorageException {
+		return reconcileCounts(new Document());
+	}
+	
+	private long reconcileCounts(final Document query) throws GroupsStorageException {
+		final Document projection = new Document(Fields.GROUP_ID, 1)
+				.append(Fields.GROUP_MEMBERS + Fields.FIELD_SEP + Fields.GROUP_MEMBER_NAME, 1)
+				.append(Fields.GROUP_RESOURCES, 1)
+				.append(Fields.GROUP_MODIFICATION, 1)
+				.append(Fields.GROUP_MEMBER_COUNT, 1)
+				.append(Fields.GROUP_RESOURCE_COUNTS, 1);
+		long fixed = 0;
+		try {
+			final MongoCollection<Document> col = db.getCollection(COL_GROUPS);
+			for (final Document g: col.find(query).projection(projection)) {
+				final int memberCount = ((List<?>) g.get(Fields.GROUP_MEMBERS)).size();
+				@SuppressWarnings("unchecked")
+				final Map<String, List<?>> resources =
+						(Map<String, List<?>>) g.get(Fields.GROUP_RESOURCES);
+				final Map<String, Integer> resourceCounts = new HashMap<>();
+				for (final String type: resources.keySet()) {
+					resourceCounts.put(type, resources.get(type).size());
+				}
+				if (isCountCorrect(g, memberCount, resourceCounts)) {
+					continue;
+				}
+				// all operations that change the counts also change the modification date
+				final UpdateResult res = col.updateOne(
+						new Document(Fields.GROUP_ID, g.getString(Fields.GROUP_ID))
+								.append(Fields.GROUP_MODIFICATION,
+										g.getDate(Fields.GROUP_MODIFICATION))
+								.append(Fields.GROUP_MEMBERS,
+										new Document("$size", memberCount)),
+						new Document("$set", new Document(
+								Fields.GROUP_MEMBER_COUNT, memberCount)
+								.append(Fields.GROUP_RESOURCE_COUNTS, resourceCounts)));
+				fixed += res.getMatchedCount();
+			}
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+		if (fixed > 0) {
+			LoggerFactory.getLogger(getClass()).info(
+					"Corrected member and resource counts for {} groups", fixed);
+		}
+		return fixed;
+	}
+	
+	private boolean isCountCorrect(
+			final Document group,
+			final int memberCount,
+			final Map<String, Integer> resourceCounts) {
+		if (!((Integer) memberCount).equals(group.getInteger(Fields.GROUP_MEMBER_COUNT))) {
+			return false;
+		}
+		final Document stored = (Document) group.get(Fields.GROUP_RESOURCE_COUNTS);
+		if (stored == null) {
+			return false;
+		}
+		// removing all the resources of a type leaves a zero count or an empty list
+		final Set<String> types = new HashSet<>(stored.keySet());
+		types.addAll(resourceCounts.keySet());
+		for (final String type: types) {
+			final int expected = resourceCounts.getOrDefault(type, 0);
+			final Object count = stored.get(type);
+			if (!(count == null ? expected == 0 : count.equals(expected))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
 	private class ExpirationAgent implements Runnable {
 
 		@Override
 		public void run() {
 			try {
-				LoggerFactory.getLogger(getClass()).info("Running expiration agent");
-				expireRequests(clock.instant());
+				final Instant now = clock.instant();
+				int expired = 0;
+				int batches = 0;
+				Optional<List<GroupRequest>> batch;
+				do {
+					if (batches > 0) {
+						Thread.sleep(EXPIRATION_BATCH_PAUSE_MS);
+					}
+					batch = expireBatch(now, EXPIRATION_BATCH_SIZE);
+					expired += batch.map(b -> b.size()).orElse(0);
+					batches++;
+				} while (batch.isPresent() && batches < EXPIRATION_MAX_BATCHES_PER_RUN);
+				final long remaining = db.getCollection(COL_REQUESTS)
+						.countDocuments(getExpiredOpenRequestsQuery(now));
+				LoggerFactory.getLogger(getClass()).info(String.format(
+						"Expired %s requests in %s ms, %s expired requests remain",
+						expired, Duration.between(now, clock.instant()).toMillis(), remaining));
+				final Duration archiveAge = requestArchiveAge;
+				if (archiveAge != null) {
+					archive(now.minus(archiveAge));
+				}
+			} catch (InterruptedException e) {
+				// the executor is shutting down
+				Thread.currentThread().interrupt();
+				return;
 			} catch (Throwable e) {
 				// the only error that can really occur here is losing the connection to mongo,
 				// so we just punt, log, and retry next time.
@@ -287,6 +641,25 @@ public class MongoGroupsStorage implements GroupsStorage {
 						.error("Error expiring requests: " + e.getMessage(), e);
 			}
 		}
+		
+		private void archive(final Instant closedBefore)
+				throws GroupsStorageException, InterruptedException {
+			final Instant start = clock.instant();
+			int archived = 0;
+			int batches = 0;
+			int batchSize;
+			do {
+				if (batches > 0) {
+					Thread.sleep(EXPIRATION_BATCH_PAUSE_MS);
+				}
+				batchSize = archiveRequests(closedBefore, ARCHIVE_BATCH_SIZE);
+				archived += batchSize;
+				batches++;
+			} while (batchSize == ARCHIVE_BATCH_SIZE && batches < ARCHIVE_MAX_BATCHES_PER_RUN);
+			LoggerFactory.getLogger(getClass()).info(String.format(
+					"Archived %s requests in %s ms", archived,
+					Duration.between(start, clock.instant()).toMillis()));
+		}
 	}
 	
 	
@@ -331,6 +704,63 @@ public class MongoGroupsStorage implements GroupsStorage {
 		}
 	}
 
+	/* Adds counts to groups created before the counts were stored. This requires a scan of
+	 * the groups collection, so it's only done once per database, after which a flag is set
+	 * in the config document. If multiple instances start at once, more than one may scan the
+	 * groups, which is harmless.
+	 */
+	private void addCounts() throws StorageInitException {
+		final Document schema = new Document(Fields.DB_SCHEMA_KEY, Fields.DB_SCHEMA_VALUE);
+		try {
+			final MongoCollection<Document> col = db.getCollection(COL_CONFIG);
+			if (col.countDocuments(new Document(schema)
+					.append(Fields.DB_SCHEMA_COUNTS_ADDED, true)) > 0) {
+				return;
+			}
+			reconcileCounts(new Document(
+					Fields.GROUP_MEMBER_COUNT, new Document("$exists", false)));
+			col.updateOne(schema, new Document("$set",
+					new Document(Fields.DB_SCHEMA_COUNTS_ADDED, true)));
+		} catch (GroupsStorageException | MongoException e) {
+			throw new StorageInitException(
+					"Failed to add member and resource counts to groups: " + e.getMessage(), e);
+		}
+	}
+
+	/* Drops the request indexes that were replaced by the same indexes with the request ID
+	 * appended. Like addCounts(), this is only done once per database.
+	 */
+	private void dropReplacedRequestIndexes() throws StorageInitException {
+		final Document schema = new Document(Fields.DB_SCHEMA_KEY, Fields.DB_SCHEMA_VALUE);
+		try {
+			final MongoCollection<Document> col = db.getCollection(COL_CONFIG);
+			if (col.countDocuments(new Document(schema)
+					.append(Fields.DB_SCHEMA_REQUEST_INDEXES_REPLACED, true)) > 0) {
+				return;
+			}
+			final MongoCollection<Document> requests = db.getCollection(COL_REQUESTS);
+			for (final List<String> idx: REPLACED_REQUEST_INDEXES) {
+				final Document index = new Document();
+				for (final String field: idx) {
+					index.put(field, 1);
+				}
+				try {
+					requests.dropIndex(index);
+				} catch (MongoCommandException e) {
+					// new databases never had the index
+					if (e.getErrorCode() != INDEX_NOT_FOUND) {
+						throw e;
+					}
+				}
+			}
+			col.updateOne(schema, new Document("$set",
+					new Document(Fields.DB_SCHEMA_REQUEST_INDEXES_REPLACED, true)));
+		} catch (MongoException e) {
+			throw new StorageInitException(
+					"Failed to drop replaced request indexes: " + e.getMessage(), e);
+		}
+	}
+
 	private void ensureIndexes(Map<String, Map<List<String>, IndexOptions>> indexes)
 			throws StorageInitException {
 		for (final String col: indexes.keySet()) {
@@ -354,6 +784,99 @@ public class MongoGroupsStorage implements GroupsStorage {
 			}
 		}
 	}
+	
+	/* Logs the winning query plans for the canonical group listing queries, and reports the
+	 * queries where none of the candidate plans is fully indexed, which means an index is
+	 * missing.
+	 * A plan is not fully indexed if it scans the collection, sorts in memory, or scans the
+	 * bare ID index and filters the fetched documents. All the candidates are checked since
+	 * the planner's choice is arbitrary when the collection is small.
+	 * Only the query planner is run, so no documents are read.
+	 * Returns descriptions of the queries with problems, which are not logged.
+	 */
+	private List<String> checkQueryPlans() {
+		final UserName user;
+		try {
+			user = new UserName("queryplancheck");
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new RuntimeException("This is impossible. It didn't happen.", e);
+		}
+		final Map<String, Document> queries = new LinkedHashMap<>();
+		queries.put("list groups anonymously", getGroupsQuery(
+				GetGroupsParams.getBuilder().build(), false, null).get());
+		for (final Role r: Role.values()) {
+			queries.put("list groups with role " + r.getRepresentation(), getGroupsQuery(
+					GetGroupsParams.getBuilder().withRole(r).build(), false, user).get());
+		}
+		final Document sort = new Document(Fields.GROUP_ID, 1);
+		final String idIndex = new Document(Fields.GROUP_ID, 1).toJson();
+		final List<String> problems = new LinkedList<>();
+		final MongoCollection<Document> col = db.getCollection(COL_GROUPS);
+		for (final String name: queries.keySet()) {
+			final String winningPlan;
+			boolean indexed = false;
+			try {
+				final Document planner = (Document) col.find(queries.get(name)).sort(sort)
+						.explain(ExplainVerbosity.QUERY_PLANNER).get("queryPlanner");
+				final List<Document> plans = new LinkedList<>();
+				plans.add((Document) planner.get("winningPlan"));
+				for (final Object p: (List<?>) planner.get("rejectedPlans")) {
+					plans.add((Document) p);
+				}
+				final List<String> described = new LinkedList<>();
+				for (final Document plan: plans) {
+					final Set<String> stages = new HashSet<>();
+					final String d = describePlan(getPlanRoot(plan), stages);
+					described.add(d);
+					indexed = indexed || (!stages.contains("COLLSCAN") &&
+							!stages.contains("SORT") && !d.contains("IXSCAN" + idIndex));
+				}
+				winningPlan = described.get(0);
+			} catch (MongoException | ClassCastException | NullPointerException e) {
+				// don't prevent startup just because the explain output is unexpected
+				LoggerFactory.getLogger(getClass()).warn(String.format(
+						"Could not get the query plan for query '%s': %s", name, e.getMessage()));
+				continue;
+			}
+			if (indexed) {
+				LoggerFactory.getLogger(getClass()).info(
+						"Query plan for '{}': {}", name, winningPlan);
+			} else {
+				problems.add(String.format("Query '%s' is not fully indexed: %s",
+						name, winningPlan));
+			}
+		}
+		return problems;
+	}
+	
+	private static Document getPlanRoot(final Document plan) {
+		// the slot based execution engine nests the plan
+		return plan.containsKey("queryPlan") ? (Document) plan.get("queryPlan") : plan;
+	}
+	
+	private static String describePlan(final Document plan, final Set<String> stages) {
+		final String stage = plan.getString("stage");
+		stages.add(stage);
+		final StringBuilder sb = new StringBuilder(stage);
+		if (plan.get("keyPattern") instanceof Document) {
+			sb.append(((Document) plan.get("keyPattern")).toJson());
+		}
+		final List<Document> children = new LinkedList<>();
+		if (plan.get("inputStage") instanceof Document) {
+			children.add((Document) plan.get("inputStage"));
+		}
+		if (plan.get("inputStages") instanceof List) {
+			for (final Object child: (List<?>) plan.get("inputStages")) {
+				children.add((Document) child);
+			}
+		}
+		if (!children.isEmpty()) {
+			sb.append(children.stream().map(c -> describePlan(c, stages))
+					.collect(Collectors.joining(", ", "(", ")")));
+		}
+		return sb.toString();
+	}
+	
 	private void ensureIndexes(final Collection<ResourceType> types) throws StorageInitException {
 		final Map<List<String>, IndexOptions> groups = new HashMap<>();
 		for (final ResourceType t: types) {
@@ -446,6 +969,23 @@ public class MongoGroupsStorage implements GroupsStorage {
 	public void createGroup(final Group group)
 			throws GroupExistsException, GroupsStorageException {
 		checkNotNull(group, "group");
+		final Document u = toDocument(group);
+		try {
+			db.getCollection(COL_GROUPS).insertOne(u);
+		} catch (MongoWriteException mwe) {
+			// not happy about this, but getDetails() returns an empty map
+			if (DuplicateKeyExceptionChecker.isDuplicate(mwe)) {
+				throw new GroupExistsException(group.getGroupID().getName());
+			} else {
+				// painful to test
+				throw new GroupsStorageException("Database write failed", mwe);
+			}
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+	}
+
+	private static Document toDocument(final Group group) {
 		final Map<String, List<Document>> resources = new HashMap<>();
 		final Document u = new Document(
 				Fields.GROUP_ID, group.getGroupID().getName())
@@ -458,7 +998,11 @@ public class MongoGroupsStorage implements GroupsStorage {
 				.append(Fields.GROUP_RESOURCES, resources)
 				.append(Fields.GROUP_CREATION, Date.from(group.getCreationDate()))
 				.append(Fields.GROUP_MODIFICATION, Date.from(group.getModificationDate()))
-				.append(Fields.GROUP_CUSTOM_FIELDS, getCustomFields(group.getCustomFields()));
+				.append(Fields.GROUP_CUSTOM_FIELDS, getCustomFields(group.getCustomFields()))
+				.append(Fields.GROUP_MEMBER_COUNT, group.getAllMembers().size())
+				.append(Fields.GROUP_RESOURCE_COUNTS, group.getResourceTypes().stream()
+						.collect(Collectors.toMap(t -> t.getName(),
+								t -> group.getResources(t).size())));
 		for (final ResourceType t: group.getResourceTypes()) {
 			resources.put(t.getName(), group.getResources(t).stream()
 					.map(rd -> new Document(
@@ -469,27 +1013,15 @@ public class MongoGroupsStorage implements GroupsStorage {
 									group.getResourceAddDate(t, rd.getResourceID()).orElse(null)))
 					.collect(Collectors.toList()));
 		}
-		try {
-			db.getCollection(COL_GROUPS).insertOne(u);
-		} catch (MongoWriteException mwe) {
-			// not happy about this, but getDetails() returns an empty map
-			if (DuplicateKeyExceptionChecker.isDuplicate(mwe)) {
-				throw new GroupExistsException(group.getGroupID().getName());
-			} else {
-				// painful to test
-				throw new GroupsStorageException("Database write failed", mwe);
-			}
-		} catch (MongoException e) {
-			throw wrapMongoException(e);
-		}
+		return u;
 	}
 
-	private List<Document> toMembersDocList(final Group group) {
+	private static List<Document> toMembersDocList(final Group group) {
 		return group.getAllMembers().stream().map(u -> toDoc(group.getMember(u)))
 				.collect(Collectors.toList());
 	}
 
-	private Document toDoc(final GroupUser gu) {
+	private static Document toDoc(final GroupUser gu) {
 		return new Document(Fields.GROUP_MEMBER_NAME, gu.getName().getName())
 				.append(Fields.GROUP_MEMBER_JOIN_DATE, Date.from(gu.getJoinDate()))
 				.append(Fields.GROUP_MEMBER_VISIT_DATE, gu.getLastVisit()
@@ -503,14 +1035,14 @@ public class MongoGroupsStorage implements GroupsStorage {
 				e.getMessage(), e);
 	}
 	
-	private Map<String, String> getCustomFields(
+	private static Map<String, String> getCustomFields(
 			final Map<NumberedCustomField, String> customFields) {
 		return customFields.entrySet().stream().collect(Collectors.toMap(
 				e -> e.getKey().getField(),
 				e -> e.getValue()));
 	}
 	
-	private List<String> toStringList(final Set<UserName> users) {
+	private static List<String> toStringList(final Set<UserName> users) {
 		return users.stream().map(m -> m.getName()).collect(Collectors.toList());
 	}
 	
@@ -635,6 +1167,7 @@ public class MongoGroupsStorage implements GroupsStorage {
 		checkNoNullsInCollection(groupIDs, "groupIDs");
 		final Document query = new Document(Fields.GROUP_ID, new Document("$in", groupIDs.stream()
 				.map(g -> g.getName()).collect(Collectors.toList())));
+		// groups fetched by ID may be cached, so don't read them from a possibly stale secondary
 		final List<Group> retgrp = getList(COL_GROUPS, query, null, null, 0, d ->toGroup(d));
 		final Set<GroupID> got = retgrp.stream().map(g -> g.getGroupID())
 				.collect(Collectors.toSet());
@@ -664,8 +1197,8 @@ public class MongoGroupsStorage implements GroupsStorage {
 				groupIDs.stream().map(i -> i.getName()).collect(Collectors.toList())));
 		final Document sort = new Document(Fields.GROUP_ID, 1);
 		
-		final List<GroupIDNameMembership> ret = getList(
-				COL_GROUPS, query, projection, sort, 0, d -> toGroupIDNameMembership(d));
+		final List<GroupIDNameMembership> ret = getList(getListCollection(COL_GROUPS),
+				query, projection, sort, 0, d -> toGroupIDNameMembership(d));
 		if (ret.size() != groupIDs.size()) {
 			final Set<GroupID> got = ret.stream().map(g -> g.getID())
 					.collect(Collectors.toSet());
@@ -731,7 +1264,8 @@ public class MongoGroupsStorage implements GroupsStorage {
 				.append(Fields.MONGO_ID, 0);
 		final Document sort = new Document(Fields.GROUP_ID, 1);
 		
-		return getList(COL_GROUPS, query, projection, sort, 0, d -> toGroupIDAndName(d));
+		return getList(getListCollection(COL_GROUPS), query, projection, sort, 0,
+				d -> toGroupIDAndName(d));
 	}
 
 	@Override
@@ -762,9 +1296,20 @@ public class MongoGroupsStorage implements GroupsStorage {
 			final int limit,
 			final FnParamExcept<Document, T> docToClass)
 			throws GroupsStorageException {
+		return getList(db.getCollection(collection), query, projection, sort, limit, docToClass);
+	}
+	
+	private <T> List<T> getList(
+			final MongoCollection<Document> collection,
+			final Document query,
+			final Document projection,
+			final Document sort,
+			final int limit,
+			final FnParamExcept<Document, T> docToClass)
+			throws GroupsStorageException {
 		final List<T> ret = new LinkedList<>();
 		try {
-			final FindIterable<Document> gdocs = db.getCollection(collection)
+			final FindIterable<Document> gdocs = collection
 					.find(query)
 					.projection(projection)
 					.sort(sort)
@@ -784,11 +1329,119 @@ public class MongoGroupsStorage implements GroupsStorage {
 			final boolean resourceIsPublic,
 			final UserName user)
 			throws GroupsStorageException {
-		// ugh. This method is not pretty.
 		requireNonNull(params, "params");
+		final Optional<Document> query = getGroupsQuery(params, resourceIsPublic, user);
+		if (!query.isPresent()) {
+			return Collections.emptyList();
+		}
+		return getList(getListCollection(COL_GROUPS), query.get(), new Document(),
+				getGroupsSort(params), getLimit(params.getLimit()), d -> toGroup(d));
+	}
+	
+	@Override
+	public List<GroupSummary> getGroupSummaries(
+			final GetGroupsParams params,
+			final boolean resourceIsPublic,
+			final UserName user)
+			throws GroupsStorageException {
+		requireNonNull(params, "params");
+		final Optional<Document> query = getGroupsQuery(params, resourceIsPublic, user);
+		if (!query.isPresent()) {
+			return Collections.emptyList();
+		}
+		return getList(getListCollection(COL_GROUPS), query.get(),
+				getGroupSummaryProjection(user), getGroupsSort(params),
+				getLimit(params.getLimit()), d -> toGroupSummary(d));
+	}
+	
+	@Override
+	public void exportGroupSummaries(
+			final GetGroupsParams params,
+			final boolean resourceIsPublic,
+			final UserName user,
+			final GroupSummaryConsumer consumer)
+			throws GroupsStorageException, IOException {
+		requireNonNull(params, "params");
+		requireNonNull(consumer, "consumer");
+		final Optional<Document> query = getGroupsQuery(params, resourceIsPublic, user);
+		if (!query.isPresent()) {
+			return;
+		}
+		final FindIterable<Document> gdocs = getListCollection(COL_GROUPS)
+				.find(query.get())
+				.projection(getGroupSummaryProjection(user))
+				.sort(getGroupsSort(params))
+				.limit(params.getLimit().orElse(0))
+				.batchSize(EXPORT_BATCH_SIZE);
+		try (final MongoCursor<Document> cur = gdocs.iterator()) {
+			while (cur.hasNext()) {
+				consumer.accept(toGroupSummary(cur.next()));
+			}
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+	}
+	
+	private int getLimit(final Optional<Integer> limit) {
+		return Math.min(limit.orElse(maxListSize), maxListSize);
+	}
+	
+	@Override
+	public Set<GroupSummary> getGroupSummaries(
+			final Collection<GroupID> groupIDs,
+			final UserName user)
+			throws NoSuchGroupException, GroupsStorageException {
+		checkNoNullsInCollection(groupIDs, "groupIDs");
+		final Document query = new Document(Fields.GROUP_ID, new Document("$in",
+				groupIDs.stream().map(i -> i.getName()).collect(Collectors.toList())));
+		// not a list read, since the summaries may be used to authorize the user
+		final Set<GroupSummary> ret = new HashSet<>(getList(
+				db.getCollection(COL_GROUPS), query, getGroupSummaryProjection(user), null, 0,
+				d -> toGroupSummary(d)));
+		final Set<GroupID> got = ret.stream().map(g -> g.getGroupID())
+				.collect(Collectors.toSet());
+		for (final GroupID g: groupIDs) {
+			if (!got.contains(g)) {
+				throw new NoSuchGroupException(g.getName());
+			}
+		}
+		return ret;
+	}
+	
+	private Document getGroupSummaryProjection(final UserName user) {
+		final Document projection = new Document(Fields.GROUP_ID, 1)
+				.append(Fields.GROUP_NAME, 1)
+				.append(Fields.GROUP_OWNER, 1)
+				.append(Fields.GROUP_ADMINS, 1)
+				.append(Fields.GROUP_IS_PRIVATE, 1)
+				.append(Fields.GROUP_MEMBERS_PRIVATE, 1)
+				.append(Fields.GROUP_CREATION, 1)
+				.append(Fields.GROUP_MODIFICATION, 1)
+				.append(Fields.GROUP_CUSTOM_FIELDS, 1)
+				.append(Fields.GROUP_MEMBER_COUNT, 1)
+				.append(Fields.GROUP_RESOURCE_COUNTS, 1);
+		if (user != null) {
+			// only return the user's member record, if any
+			projection.append(Fields.GROUP_MEMBERS, new Document("$elemMatch",
+					new Document(Fields.GROUP_MEMBER_NAME, user.getName())));
+		}
+		return projection;
+	}
+	
+	private Document getGroupsSort(final GetGroupsParams params) {
+		// may want to allow alternate sorts later, will need indexes
+		return new Document(Fields.GROUP_ID, params.isSortAscending() ? 1 : -1);
+	}
+	
+	// returns empty if the query can't match any groups.
+	private Optional<Document> getGroupsQuery(
+			final GetGroupsParams params,
+			final boolean resourceIsPublic,
+			final UserName user) {
+		// ugh. This method is not pretty.
 		if (user == null && (!params.getRole().equals(Role.NONE) ||
 				(params.getResourceType().isPresent() && !resourceIsPublic))) {
-			return Collections.emptyList();
+			return Optional.empty();
 		}
 		final Document query = new Document();
 		if (params.getExcludeUpTo().isPresent()) {
@@ -820,10 +1473,7 @@ public class MongoGroupsStorage implements GroupsStorage {
 			// members array contains all members
 			query.append(memberField, user.getName());
 		}
-		// may want to allow alternate sorts later, will need indexes
-		final Document sort = new Document(Fields.GROUP_ID, params.isSortAscending() ? 1 : -1);
-		// could make limit a param (with a max), YAGNI for now
-		return getList(COL_GROUPS, query, new Document(), sort, 100, d -> toGroup(d));
+		return Optional.of(query);
 	}
 	
 	private Document appendResourceInPlace(final GetGroupsParams params, final Document query) {
@@ -836,9 +1486,9 @@ public class MongoGroupsStorage implements GroupsStorage {
 		return query;
 	}
 
-	private Group toGroup(final Document grp) throws GroupsStorageException {
+	private static Group toGroup(final Document grp) throws GroupsStorageException {
 		try {
-			final Map<UserName, GroupUser> members = getMembers(grp);
+			final Map<UserName, GroupUser> members = toGroupUsers(grp, Fields.GROUP_MEMBERS);
 			final UserName owner = new UserName(grp.getString(Fields.GROUP_OWNER));
 			final Group.Builder b = Group.getBuilder(
 					new GroupID(grp.getString(Fields.GROUP_ID)),
@@ -877,7 +1527,40 @@ public class MongoGroupsStorage implements GroupsStorage {
 		}
 	}
 	
-	private void addCustomFields(
+	private GroupSummary toGroupSummary(final Document grp) throws GroupsStorageException {
+		try {
+			final GroupSummary.Builder b = GroupSummary.getBuilder(
+					new GroupID(grp.getString(Fields.GROUP_ID)),
+					new GroupName(grp.getString(Fields.GROUP_NAME)),
+					new UserName(grp.getString(Fields.GROUP_OWNER)),
+					new CreateAndModTimes(
+							grp.getDate(Fields.GROUP_CREATION).toInstant(),
+							grp.getDate(Fields.GROUP_MODIFICATION).toInstant()))
+					.withIsPrivate(grp.getBoolean(Fields.GROUP_IS_PRIVATE))
+					.withPrivateMemberList(grp.getBoolean(Fields.GROUP_MEMBERS_PRIVATE, true))
+					.withMemberCount(grp.getInteger(Fields.GROUP_MEMBER_COUNT));
+			for (final UserName a: getUserSet(grp, Fields.GROUP_ADMINS)) {
+				b.withAdministrator(a);
+			}
+			// the projection only returns the user's member record, if present
+			if (grp.containsKey(Fields.GROUP_MEMBERS)) {
+				toGroupUsers(grp, Fields.GROUP_MEMBERS).values().stream()
+						.forEach(m -> b.withMember(m));
+			}
+			final Document rescounts = (Document) grp.get(Fields.GROUP_RESOURCE_COUNTS);
+			for (final String restype: rescounts.keySet()) {
+				b.withResourceCount(new ResourceType(restype), rescounts.getInteger(restype));
+			}
+			addCustomFields((f, v) -> b.withCustomField(f, v), Fields.GROUP_CUSTOM_FIELDS, grp);
+			return b.build();
+		} catch (MissingParameterException | IllegalParameterException | NullPointerException |
+				IllegalArgumentException e) {
+			throw new GroupsStorageException(
+					"Unexpected value in database: " + e.getMessage(), e);
+		}
+	}
+	
+	private static void addCustomFields(
 			final BiConsumer<NumberedCustomField, String> fieldConsumer,
 			final String customFieldField,
 			final Document groupDoc)
@@ -889,7 +1572,7 @@ public class MongoGroupsStorage implements GroupsStorage {
 		}
 	}
 	
-	private Set<UserName> getUserSet(final Document grp, final String field)
+	private static Set<UserName> getUserSet(final Document grp, final String field)
 			throws MissingParameterException, IllegalParameterException {
 		@SuppressWarnings("unchecked")
 		final List<String> users = (List<String>) grp.get(field);
@@ -900,10 +1583,10 @@ public class MongoGroupsStorage implements GroupsStorage {
 		return ret;
 	}
 
-	private Map<UserName, GroupUser> getMembers(final Document grp)
+	private static Map<UserName, GroupUser> toGroupUsers(final Document grp, final String field)
 			throws MissingParameterException, IllegalParameterException {
 		@SuppressWarnings("unchecked")
-		final List<Document> members = (List<Document>) grp.get(Fields.GROUP_MEMBERS);
+		final List<Document> members = (List<Document>) grp.get(field);
 		final Map<UserName, GroupUser> ret = new HashMap<>();
 		for (final Document m: members) {
 			final UserName u = new UserName(m.getString(Fields.GROUP_MEMBER_NAME));
@@ -960,6 +1643,10 @@ public class MongoGroupsStorage implements GroupsStorage {
 				new Document("$addToSet", new Document(
 						asAdmin ? Fields.GROUP_ADMINS : Fields.GROUP_MEMBERS, memberDocument))
 				.append("$set", new Document(Fields.GROUP_MODIFICATION, Date.from(modDate)));
+		if (!asAdmin) {
+			// the query ensures the user isn't already a member, so the add always happens
+			modification.append("$inc", new Document(Fields.GROUP_MEMBER_COUNT, 1));
+		}
 		
 		try {
 			final UpdateResult res = db.getCollection(COL_GROUPS).updateOne(query, modification);
@@ -1051,7 +1738,8 @@ public class MongoGroupsStorage implements GroupsStorage {
 			mod.append("$pull", new Document(Fields.GROUP_ADMINS, member.getName()));
 		} else {
 			mod.append("$pull", new Document(Fields.GROUP_MEMBERS,
-					new Document(Fields.GROUP_MEMBER_NAME, member.getName())));
+					new Document(Fields.GROUP_MEMBER_NAME, member.getName())))
+					.append("$inc", new Document(Fields.GROUP_MEMBER_COUNT, -1));
 		}
 		
 		try {
@@ -1172,9 +1860,37 @@ public class MongoGroupsStorage implements GroupsStorage {
 			final ResourceDescriptor resource,
 			final Instant modDate)
 			throws NoSuchGroupException, GroupsStorageException, ResourceExistsException {
+		addResourceAndNotification(groupID, type, resource, modDate, null);
+	}
+	
+	@Override
+	public void addResource(
+			final GroupID groupID,
+			final ResourceType type,
+			final ResourceDescriptor resource,
+			final Instant modDate,
+			final OutboxNotification notification)
+			throws NoSuchGroupException, GroupsStorageException, ResourceExistsException {
+		checkNotNull(groupID, "groupID");
+		checkNotNull(notification, "notification");
+		if (!notification.getGroupID().equals(Optional.of(groupID))) {
+			throw new IllegalArgumentException(
+					"Notification does not refer to group " + groupID.getName());
+		}
+		addResourceAndNotification(groupID, type, resource, modDate, notification);
+	}
+	
+	// notification may be null
+	private void addResourceAndNotification(
+			final GroupID groupID,
+			final ResourceType type,
+			final ResourceDescriptor resource,
+			final Instant modDate,
+			final OutboxNotification notification)
+			throws NoSuchGroupException, GroupsStorageException, ResourceExistsException {
 		checkNotNull(resource, "resource");
 		if (!modifyResourceInGroup(groupID, type, resource.getAdministrativeID(),
-				resource.getResourceID(), modDate)) {
+				resource.getResourceID(), modDate, notification)) {
 			throw new ResourceExistsException(String.format("%s %s",
 					type.getName(), resource.getResourceID().getName()));
 		}
@@ -1188,13 +1904,66 @@ public class MongoGroupsStorage implements GroupsStorage {
 			final Instant modDate)
 			throws NoSuchGroupException, GroupsStorageException, NoSuchResourceException {
 		checkNotNull(resource, "resource");
-		if (!modifyResourceInGroup(groupID, type, null, resource, modDate)) {
+		if (!modifyResourceInGroup(groupID, type, null, resource, modDate, null)) {
 			throw new NoSuchResourceException(String.format(
 					"Group %s does not include %s %s",
 					groupID.getName(), type.getName(), resource.getName()));
 		}
 	}
 	
+	@Override
+	public void removeResources(
+			final GroupID groupID,
+			final ResourceType type,
+			final Set<ResourceID> resources,
+			final Instant modDate)
+			throws NoSuchGroupException, GroupsStorageException {
+		checkNotNull(groupID, "groupID");
+		checkNotNull(type, "type");
+		checkNoNullsInCollection(resources, "resources");
+		checkNotNull(modDate, "modDate");
+		Set<ResourceID> remaining = resources;
+		// the first attempt assumes all the resources are in the group, which is the usual
+		// case when cleaning up resources that were in the group when it was read. If that
+		// fails, only the resources still in the group are removed, repeating in the unlikely
+		// case of a concurrent modification.
+		while (!remaining.isEmpty()) {
+			if (pullResources(groupID, type, remaining, modDate)) {
+				return;
+			}
+			final Group g = getGroup(groupID); // throws no such group exception
+			remaining = remaining.stream().filter(r -> g.containsResource(type, r))
+					.collect(Collectors.toSet());
+		}
+	}
+	
+	// returns true if all the resources were present and removed, false otherwise.
+	private boolean pullResources(
+			final GroupID groupID,
+			final ResourceType type,
+			final Set<ResourceID> resources,
+			final Instant modDate)
+			throws GroupsStorageException {
+		final String resourceField = Fields.GROUP_RESOURCES + Fields.FIELD_SEP + type.getName();
+		final String resourceIDField = resourceField + Fields.FIELD_SEP + Fields.GROUP_RESOURCE_ID;
+		final List<String> ids = resources.stream().map(r -> r.getName())
+				.collect(Collectors.toList());
+		// the query ensures all the resources are present, so the count is always correct
+		final Document query = new Document(Fields.GROUP_ID, groupID.getName())
+				.append(resourceIDField, new Document("$all", ids));
+		final Document update = new Document("$set",
+				new Document(Fields.GROUP_MODIFICATION, Date.from(modDate)))
+				.append("$inc", new Document(Fields.GROUP_RESOURCE_COUNTS + Fields.FIELD_SEP +
+						type.getName(), -ids.size()))
+				.append("$pull", new Document(resourceField, new Document(
+						Fields.GROUP_RESOURCE_ID, new Document("$in", ids))));
+		try {
+			return db.getCollection(COL_GROUPS).updateOne(query, update).getMatchedCount() == 1;
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+	}
+	
 	// returns true if modified, false otherwise.
 	// pass an admin ID to add, null to remove.
 	private boolean modifyResourceInGroup(
@@ -1202,7 +1971,8 @@ public class MongoGroupsStorage implements GroupsStorage {
 			final ResourceType type,
 			final ResourceAdministrativeID resourceAdminID,
 			final ResourceID resourceID,
-			final Instant modDate)
+			final Instant modDate,
+			final OutboxNotification notification) // may be null
 			throws GroupsStorageException, NoSuchGroupException {
 		checkNotNull(groupID, "groupID");
 		checkNotNull(type, "type");
@@ -1216,8 +1986,12 @@ public class MongoGroupsStorage implements GroupsStorage {
 		final Document query = new Document(Fields.GROUP_ID, groupID.getName())
 				.append(resourceIDField,
 						resourceAdminID == null ? resIDStr : new Document("$ne", resIDStr));
+		// the query ensures the resource is absent for adds and present for removes, so the
+		// count is always correct
 		final Document update = new Document("$set",
-				new Document(Fields.GROUP_MODIFICATION, Date.from(modDate)));
+				new Document(Fields.GROUP_MODIFICATION, Date.from(modDate)))
+				.append("$inc", new Document(Fields.GROUP_RESOURCE_COUNTS + Fields.FIELD_SEP +
+						type.getName(), resourceAdminID == null ? -1 : 1));
 		if (resourceAdminID != null) {
 			update.append("$addToSet", new Document(
 					resourceField, new Document(
@@ -1228,6 +2002,10 @@ public class MongoGroupsStorage implements GroupsStorage {
 			update.append("$pull", new Document(resourceField,
 					new Document(Fields.GROUP_RESOURCE_ID, resIDStr)));
 		}
+		if (notification != null) {
+			update.append("$push", new Document(
+					Fields.GROUP_PENDING_NOTIFICATIONS, toDocument(notification)));
+		}
 		try {
 			final UpdateResult res = db.getCollection(COL_GROUPS).updateOne(query, update);
 			if (res.getMatchedCount() != 1) {
@@ -1245,28 +2023,42 @@ public class MongoGroupsStorage implements GroupsStorage {
 	@Override
 	public void storeRequest(final GroupRequest request)
 			throws RequestExistsException, GroupsStorageException {
+		storeRequestAndNotification(request, null);
+	}
+	
+	@Override
+	public void storeRequest(final GroupRequest request, final OutboxNotification notification)
+			throws RequestExistsException, GroupsStorageException {
+		checkNotNull(request, "request");
+		checkNotificationRefersToRequest(notification, request.getID());
+		storeRequestAndNotification(request, notification);
+	}
+	
+	private void checkNotificationRefersToRequest(
+			final OutboxNotification notification,
+			final RequestID requestID) {
+		checkNotNull(notification, "notification");
+		if (!notification.getRequestID().equals(Optional.of(requestID))) {
+			throw new IllegalArgumentException(
+					"Notification does not refer to request " + requestID.getID());
+		}
+	}
+	
+	// notification may be null
+	private void storeRequestAndNotification(
+			final GroupRequest request,
+			final OutboxNotification notification)
+			throws RequestExistsException, GroupsStorageException {
 		checkNotNull(request, "request");
 		final String charString = getCharacteristicString(request);
-		final Document req = new Document(
-				Fields.REQUEST_ID, request.getID().getID())
-				.append(Fields.REQUEST_GROUP_ID, request.getGroupID().getName())
-				.append(Fields.REQUEST_REQUESTER, request.getRequester().getName())
-				.append(Fields.REQUEST_STATUS, request.getStatusType().name())
-				.append(Fields.REQUEST_TYPE, request.getType().name())
-				.append(Fields.REQUEST_RESOURCE_TYPE, request.getResourceType().getName())
-				.append(Fields.REQUEST_RESOURCE_ADMINISTRATIVE_ID,
-						request.getResource().getAdministrativeID().getName())
-				.append(Fields.REQUEST_RESOURCE_ID,
-						request.getResource().getResourceID().getName())
-				.append(Fields.REQUEST_CLOSED_BY, request.getClosedBy()
-						.map(cb -> cb.getName()).orElse(null))
-				.append(Fields.REQUEST_REASON_CLOSED, request.getClosedReason().orElse(null))
-				.append(Fields.REQUEST_CREATION, Date.from(request.getCreationDate()))
-				.append(Fields.REQUEST_MODIFICATION, Date.from(request.getModificationDate()))
-				.append(Fields.REQUEST_EXPIRATION, Date.from(request.getExpirationDate()));
+		final Document req = toDocument(request);
 		if (charString != null) {
 				req.append(Fields.REQUEST_CHARACTERISTIC_STRING, charString);
 		}
+		if (notification != null) {
+			req.append(Fields.REQUEST_PENDING_NOTIFICATIONS,
+					Arrays.asList(toDocument(notification)));
+		}
 		try {
 			db.getCollection(COL_REQUESTS).insertOne(req);
 		} catch (MongoWriteException mwe) {
@@ -1292,6 +2084,25 @@ public class MongoGroupsStorage implements GroupsStorage {
 		}
 	}
 	
+	private Document toDocument(final GroupRequest request) {
+		return new Document(Fields.REQUEST_ID, request.getID().getID())
+				.append(Fields.REQUEST_GROUP_ID, request.getGroupID().getName())
+				.append(Fields.REQUEST_REQUESTER, request.getRequester().getName())
+				.append(Fields.REQUEST_STATUS, request.getStatusType().name())
+				.append(Fields.REQUEST_TYPE, request.getType().name())
+				.append(Fields.REQUEST_RESOURCE_TYPE, request.getResourceType().getName())
+				.append(Fields.REQUEST_RESOURCE_ADMINISTRATIVE_ID,
+						request.getResource().getAdministrativeID().getName())
+				.append(Fields.REQUEST_RESOURCE_ID,
+						request.getResource().getResourceID().getName())
+				.append(Fields.REQUEST_CLOSED_BY, request.getClosedBy()
+						.map(cb -> cb.getName()).orElse(null))
+				.append(Fields.REQUEST_REASON_CLOSED, request.getClosedReason().orElse(null))
+				.append(Fields.REQUEST_CREATION, Date.from(request.getCreationDate()))
+				.append(Fields.REQUEST_MODIFICATION, Date.from(request.getModificationDate()))
+				.append(Fields.REQUEST_EXPIRATION, Date.from(request.getExpirationDate()));
+	}
+	
 	// this should only be called when it's known the characteristic string is in the DB.
 	private String getRequestIDFromCharacteristicString(final String charString)
 			throws GroupsStorageException {
@@ -1319,7 +2130,7 @@ public class MongoGroupsStorage implements GroupsStorage {
 	 * @param request the request to characterize.
 	 * @return the characteristic string.
 	 */
-	private String getCharacteristicString(final GroupRequest request) {
+	private static String getCharacteristicString(final GroupRequest request) {
 		if (!request.getStatusType().equals(GroupRequestStatusType.OPEN)) {
 			return null;
 		}
@@ -1349,8 +2160,11 @@ public class MongoGroupsStorage implements GroupsStorage {
 	public GroupRequest getRequest(final RequestID requestID)
 			throws NoSuchRequestException, GroupsStorageException {
 		checkNotNull(requestID, "requestID");
-		final Document req = findOne(
-				COL_REQUESTS, new Document(Fields.REQUEST_ID, requestID.getID()));
+		final Document query = new Document(Fields.REQUEST_ID, requestID.getID());
+		Document req = findOne(COL_REQUESTS, query);
+		if (req == null) {
+			req = findOne(COL_REQUESTS_ARCHIVE, query);
+		}
 		if (req == null) {
 			throw new NoSuchRequestException(requestID.getID());
 		} else {
@@ -1447,7 +2261,34 @@ public class MongoGroupsStorage implements GroupsStorage {
 		}
 		final Document projection = new Document(Fields.MONGO_ID, 1);
 		// mongo 2.6 doesn't support count with a limit
-		return findOne(COL_REQUESTS, query, projection) != null;
+		return findOne(getListCollection(COL_REQUESTS), query, projection, null) != null;
+	}
+
+	@Override
+	public Map<GroupID, Instant> getLatestOpenRequestDates(final Collection<GroupID> groupIDs)
+			throws GroupsStorageException {
+		checkNoNullsInCollection(groupIDs, "groupIDs");
+		final Document match = new Document(Fields.REQUEST_GROUP_ID, new Document("$in",
+				groupIDs.stream().map(i -> i.getName()).collect(Collectors.toList())))
+				.append(Fields.REQUEST_STATUS, GroupRequestStatusType.OPEN.name())
+				.append(Fields.REQUEST_TYPE, RequestType.REQUEST.name());
+		// as for groupHasRequest, the mod date isn't changed while the request is open
+		final Document group = new Document(Fields.MONGO_ID, "$" + Fields.REQUEST_GROUP_ID)
+				.append(Fields.REQUEST_MODIFICATION,
+						new Document("$max", "$" + Fields.REQUEST_MODIFICATION));
+		final Map<GroupID, Instant> ret = new HashMap<>();
+		try {
+			for (final Document d: getListCollection(COL_REQUESTS).aggregate(Arrays.asList(
+					new Document("$match", match), new Document("$group", group)))) {
+				ret.put(new GroupID(d.getString(Fields.MONGO_ID)),
+						d.getDate(Fields.REQUEST_MODIFICATION).toInstant());
+			}
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new GroupsStorageException("Unexpected value in database: " + e.getMessage(), e);
+		}
+		return ret;
 	}
 
 	private List<GroupRequest> findRequests(final Document query, final GetRequestsParams params)
@@ -1456,7 +2297,17 @@ public class MongoGroupsStorage implements GroupsStorage {
 		if (!params.isIncludeClosed()) {
 			query.append(Fields.REQUEST_STATUS, GroupRequestStatusType.OPEN.name());
 		}
-		if (params.getExcludeUpTo().isPresent()) {
+		if (params.getExcludeUpToID().isPresent()) {
+			// keyset on (mod, id) so requests modified at the same time aren't skipped
+			final Date excludeUpTo = Date.from(params.getExcludeUpTo().get());
+			final String inequality = params.isSortAscending() ? "$gte" : "$lte";
+			final String idInequality = params.isSortAscending() ? "$lte" : "$gte";
+			query.append(Fields.REQUEST_MODIFICATION, new Document(inequality, excludeUpTo))
+					.append("$nor", Arrays.asList(
+							new Document(Fields.REQUEST_MODIFICATION, excludeUpTo)
+									.append(Fields.REQUEST_ID, new Document(idInequality,
+											params.getExcludeUpToID().get().getID()))));
+		} else if (params.getExcludeUpTo().isPresent()) {
 			final String inequality = params.isSortAscending() ? "$gt" : "$lt";
 			query.append(Fields.REQUEST_MODIFICATION,
 					new Document(inequality, Date.from(params.getExcludeUpTo().get())));
@@ -1466,10 +2317,62 @@ public class MongoGroupsStorage implements GroupsStorage {
 				.append(Fields.REQUEST_RESOURCE_ID, params.getResourceID().get().getName());
 		}
 		// allow other sorts? can't think of any particularly useful ones
-		final Document sort = new Document(Fields.REQUEST_MODIFICATION,
-				params.isSortAscending() ? 1 : -1);
-		// could make limit a param, YAGNI for now
-		return getList(COL_REQUESTS, query, new Document(), sort, 100, d -> toRequest(d));
+		// the ID breaks ties so that paging through requests with the same mod date works
+		final int sortDir = params.isSortAscending() ? 1 : -1;
+		final Document sort = new Document(Fields.REQUEST_MODIFICATION, sortDir)
+				.append(Fields.REQUEST_ID, sortDir);
+		final int limit = getLimit(params.getLimit());
+		final List<GroupRequest> reqs = getList(getListCollection(COL_REQUESTS),
+				query, new Document(), sort, limit, d -> toRequest(d));
+		if (!params.isIncludeClosed() || !isArchiveNeeded(params, reqs, limit)) {
+			return reqs;
+		}
+		final List<GroupRequest> archived = getList(getListCollection(COL_REQUESTS_ARCHIVE),
+				query, new Document(), sort, limit, d -> toRequest(d));
+		return mergeRequests(reqs, archived, params.isSortAscending(), limit);
+	}
+	
+	/* Archived requests are closed and so are never modified after archival, so the archive
+	 * only needs to be consulted if the page may include requests modified before the newest
+	 * archived request.
+	 */
+	private boolean isArchiveNeeded(
+			final GetRequestsParams params,
+			final List<GroupRequest> reqs,
+			final int limit)
+			throws GroupsStorageException {
+		final Document newest = findOne(getListCollection(COL_REQUESTS_ARCHIVE), new Document(),
+				new Document(Fields.REQUEST_MODIFICATION, 1).append(Fields.MONGO_ID, 0),
+				new Document(Fields.REQUEST_MODIFICATION, -1).append(Fields.REQUEST_ID, -1));
+		if (newest == null) {
+			return false;
+		}
+		final Instant newestArchived = newest.getDate(Fields.REQUEST_MODIFICATION).toInstant();
+		if (params.isSortAscending()) {
+			return !params.getExcludeUpTo().isPresent() ||
+					!params.getExcludeUpTo().get().isAfter(newestArchived);
+		} else {
+			// the requests are sorted newest first, so a full page of requests newer than
+			// any archived request can't include archived requests
+			return reqs.size() < limit ||
+					!reqs.get(reqs.size() - 1).getModificationDate().isAfter(newestArchived);
+		}
+	}
+	
+	private List<GroupRequest> mergeRequests(
+			final List<GroupRequest> reqs,
+			final List<GroupRequest> archived,
+			final boolean ascending,
+			final int limit) {
+		// requests being archived may be briefly present in both collections
+		final Set<RequestID> ids = reqs.stream().map(r -> r.getID()).collect(Collectors.toSet());
+		final List<GroupRequest> merged = new ArrayList<>(reqs);
+		archived.stream().filter(r -> !ids.contains(r.getID())).forEach(r -> merged.add(r));
+		final Comparator<GroupRequest> cmp = Comparator
+				.comparing((GroupRequest r) -> r.getModificationDate())
+				.thenComparing(r -> r.getID().getID());
+		merged.sort(ascending ? cmp : cmp.reversed());
+		return merged.size() > limit ? merged.subList(0, limit) : merged;
 	}
 	
 	private GroupRequest toRequest(final Document req) throws GroupsStorageException {
@@ -1514,17 +2417,32 @@ public class MongoGroupsStorage implements GroupsStorage {
 			throws NoSuchRequestException, GroupsStorageException {
 		checkNotNull(requestID, "requestID");
 		final Document query = new Document(Fields.REQUEST_ID, requestID.getID());
-		closeRequests(query, newStatus, modificationTime, requestID);
+		closeRequests(query, newStatus, modificationTime, requestID, null);
+	}
+	
+	@Override
+	public void closeRequest(
+			final RequestID requestID,
+			final GroupRequestStatus newStatus,
+			final Instant modificationTime,
+			final OutboxNotification notification)
+			throws NoSuchRequestException, GroupsStorageException {
+		checkNotNull(requestID, "requestID");
+		checkNotificationRefersToRequest(notification, requestID);
+		final Document query = new Document(Fields.REQUEST_ID, requestID.getID());
+		closeRequests(query, newStatus, modificationTime, requestID, notification);
 	}
 
 	// pass non-null request ID if modifying a single request. That'll cause an exception
 	// if the query doesn't match.
 	// the query is appended with a doc enforcing that the status is OPEN.
+	// the notification, if not null, is added to each closed request.
 	private void closeRequests(
 			final Document query, 
 			final GroupRequestStatus newStatus,
 			final Instant modificationTime,
-			final RequestID requestID)
+			final RequestID requestID,
+			final OutboxNotification notification)
 			throws NoSuchRequestException, GroupsStorageException {
 		query.append(Fields.REQUEST_STATUS, GroupRequestStatusType.OPEN.name());
 		checkNotNull(newStatus, "newStatus");
@@ -1543,9 +2461,13 @@ public class MongoGroupsStorage implements GroupsStorage {
 			set.append(Fields.REQUEST_REASON_CLOSED, newStatus.getClosedReason().get());
 		}
 		final Document unset = new Document(Fields.REQUEST_CHARACTERISTIC_STRING, "");
+		final Document update = new Document("$set", set).append("$unset", unset);
+		if (notification != null) {
+			update.append("$push", new Document(
+					Fields.REQUEST_PENDING_NOTIFICATIONS, toDocument(notification)));
+		}
 		try {
-			final UpdateResult res = db.getCollection(COL_REQUESTS).updateMany(
-					query, new Document("$set", set).append("$unset", unset));
+			final UpdateResult res = db.getCollection(COL_REQUESTS).updateMany(query, update);
 			if (requestID != null && res.getMatchedCount() != 1) {
 				throw new NoSuchRequestException("No open request with ID " +
 						requestID.getID());
@@ -1560,29 +2482,348 @@ public class MongoGroupsStorage implements GroupsStorage {
 	 * {@link GroupRequest#getExpirationDate()} is earlier than the expire time to
 	 * {@link GroupRequestStatusType#EXPIRED}. The expire time is also used as the modification
 	 * time for the altered requests.
+	 * The requests are expired in batches via {@link #expireRequests(Instant, int)}.
 	 * @param expireTime the cutoff time for requests - any requests with an expire time prior
 	 * to this value will be expired.
 	 * @throws GroupsStorageException if an error occurred contacting the server.
 	 */
 	public void expireRequests(final Instant expireTime) throws GroupsStorageException {
-		/* there's no way to run a multi document update and see which documents were actually
-		 * updated AFAICT which sucks.
-		 * So to return the request ids that were updated we'd have to
-		 * 1) Find the docs where status = OPEN and expire < expireTime
-		 * 2) For each doc do an update where status = OPEN expire it
-		 * 3) If the update modified the doc, add it to the returned list. Otherwise,
-		 *   it was accepted/canceled/denied/expired by another thread.
-		 *
-		 * So YAGNI for now.
-		 */
 		checkNotNull(expireTime, "expireTime");
-		final Document query = new Document(Fields.REQUEST_EXPIRATION,
-				new Document("$lte", Date.from(expireTime)));
+		// a batch may be smaller than the batch size if other processes close requests while
+		// it's processed, so continue until there are no more expired requests
+		while (expireBatch(expireTime, EXPIRATION_BATCH_SIZE).isPresent());
+	}
+	
+	/** Expire a batch of requests. Identical to {@link #expireRequests(Instant)}, except that
+	 * at most limit requests are expired, starting with the requests with the earliest
+	 * expiration dates.
+	 * The expired requests are passed to the listener set in
+	 * {@link #setExpiredRequestsListener(ExpiredRequestsListener)}, if any.
+	 * @param expireTime the cutoff time for requests - any requests with an expire time prior
+	 * to this value will be expired.
+	 * @param limit the maximum number of requests to expire.
+	 * @return the expired requests. Requests closed by another process while the batch is
+	 * processed are not included.
+	 * @throws GroupsStorageException if an error occurred contacting the server.
+	 */
+	public List<GroupRequest> expireRequests(final Instant expireTime, final int limit)
+			throws GroupsStorageException {
+		checkNotNull(expireTime, "expireTime");
+		if (limit < 1) {
+			throw new IllegalArgumentException("limit must be > 0");
+		}
+		return expireBatch(expireTime, limit).orElse(Collections.emptyList());
+	}
+	
+	// returns empty if there are no requests to expire, or the expired requests otherwise,
+	// which may be an empty list if other processes closed the requests in the meantime.
+	private Optional<List<GroupRequest>> expireBatch(final Instant expireTime, final int limit)
+			throws GroupsStorageException {
+		final List<Object> ids = new LinkedList<>();
+		try {
+			final FindIterable<Document> docs = db.getCollection(COL_REQUESTS)
+					.find(getExpiredOpenRequestsQuery(expireTime))
+					.projection(new Document(Fields.MONGO_ID, 1))
+					.sort(new Document(Fields.REQUEST_EXPIRATION, 1))
+					.limit(limit);
+			for (final Document d: docs) {
+				ids.add(d.get(Fields.MONGO_ID));
+			}
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+		if (ids.isEmpty()) {
+			return Optional.empty();
+		}
+		final Document idQuery = new Document(Fields.MONGO_ID, new Document("$in", ids));
 		try {
-			closeRequests(query, GroupRequestStatus.expired(), expireTime, null);
+			closeRequests(new Document(idQuery), GroupRequestStatus.expired(), expireTime,
+					null, null);
 		} catch (NoSuchRequestException e) {
 			throw new RuntimeException("This should be impossible", e);
 		}
+		// there's no way to see which documents a multi document update modified, so
+		// check for the expired status and modification time.
+		final List<GroupRequest> expired = getList(COL_REQUESTS, idQuery
+				.append(Fields.REQUEST_STATUS, GroupRequestStatusType.EXPIRED.name())
+				.append(Fields.REQUEST_MODIFICATION, Date.from(expireTime)),
+				new Document(), new Document(Fields.REQUEST_EXPIRATION, 1), 0,
+				d -> toRequest(d));
+		final ExpiredRequestsListener listener = expiredRequestsListener;
+		if (listener != null && !expired.isEmpty()) {
+			try {
+				listener.expired(Collections.unmodifiableList(expired));
+			} catch (Exception e) {
+				LoggerFactory.getLogger(getClass()).error(
+						"Error processing expired requests: " + e.getMessage(), e);
+			}
+		}
+		return Optional.of(expired);
+	}
+	
+	private Document getExpiredOpenRequestsQuery(final Instant expireTime) {
+		return new Document(Fields.REQUEST_STATUS, GroupRequestStatusType.OPEN.name())
+				.append(Fields.REQUEST_EXPIRATION, new Document("$lte", Date.from(expireTime)));
+	}
+	
+	/** Move requests that are not in the {@link GroupRequestStatusType#OPEN} state and were
+	 * last modified before the given time from the requests collection to the archive
+	 * collection. Closed requests are never modified, so moving them does not change the
+	 * results of any method, although listing closed requests may be slower when the archive
+	 * must be consulted.
+	 * @param closedBefore requests last modified before this time will be archived.
+	 * @param limit the maximum number of requests to archive.
+	 * @return the number of requests archived.
+	 * @throws GroupsStorageException if an error occurred contacting the server.
+	 */
+	public int archiveRequests(final Instant closedBefore, final int limit)
+			throws GroupsStorageException {
+		checkNotNull(closedBefore, "closedBefore");
+		if (limit < 1) {
+			throw new IllegalArgumentException("limit must be > 0");
+		}
+		final List<String> closed = Arrays.stream(GroupRequestStatusType.values())
+				.filter(t -> !t.equals(GroupRequestStatusType.OPEN))
+				.map(t -> t.name())
+				.collect(Collectors.toList());
+		final Document query = new Document(Fields.REQUEST_STATUS, new Document("$in", closed))
+				.append(Fields.REQUEST_MODIFICATION, new Document("$lt", Date.from(closedBefore)))
+				// requests with notifications not yet moved to the outbox stay put until the
+				// notifications are moved. Matches empty arrays as well as missing fields.
+				.append(Fields.REQUEST_PENDING_NOTIFICATIONS + Fields.FIELD_SEP + "0",
+						new Document("$exists", false));
+		try {
+			final List<Document> docs = db.getCollection(COL_REQUESTS).find(query)
+					.limit(limit).into(new ArrayList<>());
+			if (docs.isEmpty()) {
+				return 0;
+			}
+			try {
+				db.getCollection(COL_REQUESTS_ARCHIVE).insertMany(
+						docs, new InsertManyOptions().ordered(false));
+			} catch (MongoBulkWriteException e) {
+				// requests copied by a previous run that failed before deleting them
+				// have the same _id and can be ignored.
+				for (final BulkWriteError err: e.getWriteErrors()) {
+					if (!ErrorCategory.DUPLICATE_KEY.equals(
+							ErrorCategory.fromErrorCode(err.getCode()))) {
+						throw e;
+					}
+				}
+			}
+			// the requests may be briefly visible in both collections; readers prefer the
+			// requests collection.
+			db.getCollection(COL_REQUESTS).deleteMany(new Document(Fields.MONGO_ID,
+					new Document("$in", docs.stream().map(d -> d.get(Fields.MONGO_ID))
+							.collect(Collectors.toList()))));
+			return docs.size();
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+	}
+	
+	@Override
+	public void storeNotification(final OutboxNotification notification)
+			throws GroupsStorageException {
+		checkNotNull(notification, "notification");
+		try {
+			db.getCollection(COL_OUTBOX).insertOne(toDocument(notification));
+		} catch (MongoWriteException mwe) {
+			if (DuplicateKeyExceptionChecker.isDuplicate(mwe)) {
+				throw new IllegalArgumentException(String.format("ID %s already exists " +
+						"in the database. The programmer is responsible for maintaining " +
+						"unique IDs.", notification.getID()));
+			}
+			throw new GroupsStorageException("Database write failed", mwe);
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+	}
+	
+	private Document toDocument(final OutboxNotification notification) {
+		return new Document(Fields.OUTBOX_ID, notification.getID().toString())
+				.append(Fields.OUTBOX_OPERATION, notification.getOperation().name())
+				.append(Fields.OUTBOX_CREATION, Date.from(notification.getCreationDate()))
+				.append(Fields.OUTBOX_TARGETS, toStringList(notification.getTargets()))
+				.append(Fields.OUTBOX_REQUEST_ID, notification.getRequestID()
+						.map(r -> r.getID()).orElse(null))
+				.append(Fields.OUTBOX_REQUEST, notification.getRequest()
+						.map(r -> toDocument(r)).orElse(null))
+				.append(Fields.OUTBOX_ACTOR, notification.getActor()
+						.map(a -> a.getName()).orElse(null))
+				.append(Fields.OUTBOX_GROUP_ID, notification.getGroupID()
+						.map(g -> g.getName()).orElse(null))
+				.append(Fields.OUTBOX_RESOURCE_TYPE, notification.getResourceType()
+						.map(t -> t.getName()).orElse(null))
+				.append(Fields.OUTBOX_RESOURCE_ID, notification.getResourceID()
+						.map(r -> r.getName()).orElse(null))
+				.append(Fields.OUTBOX_ATTEMPTS, notification.getAttempts())
+				.append(Fields.OUTBOX_NEXT_ATTEMPT, Date.from(notification.getCreationDate()));
+	}
+	
+	@Override
+	public int movePendingNotifications(final int limit) throws GroupsStorageException {
+		if (limit < 1) {
+			throw new IllegalArgumentException("limit must be > 0");
+		}
+		return movePendingNotifications(COL_REQUESTS, Fields.REQUEST_PENDING_NOTIFICATIONS, limit)
+				+ movePendingNotifications(COL_GROUPS, Fields.GROUP_PENDING_NOTIFICATIONS, limit);
+	}
+	
+	// the notifications are stored in the outbox before they're removed from the document, so
+	// if a move fails part way the next move finds some of the notifications already stored.
+	private int movePendingNotifications(
+			final String collection,
+			final String field,
+			final int limit)
+			throws GroupsStorageException {
+		final MongoCollection<Document> col = db.getCollection(collection);
+		final MongoCollection<Document> outbox = db.getCollection(COL_OUTBOX);
+		int moved = 0;
+		try {
+			final List<Document> docs = col.find(new Document(
+					field + Fields.FIELD_SEP + Fields.OUTBOX_ID, new Document("$exists", true)))
+					.projection(new Document(field, 1))
+					.limit(limit)
+					.into(new LinkedList<>());
+			for (final Document d: docs) {
+				@SuppressWarnings("unchecked")
+				final List<Document> pending = (List<Document>) d.get(field);
+				final List<String> ids = new LinkedList<>();
+				for (final Document n: pending) {
+					try {
+						outbox.insertOne(n);
+					} catch (MongoWriteException mwe) {
+						if (!DuplicateKeyExceptionChecker.isDuplicate(mwe)) {
+							throw mwe;
+						}
+						// stored by a previous move that failed before removing it
+					}
+					ids.add(n.getString(Fields.OUTBOX_ID));
+				}
+				final Object id = d.get(Fields.MONGO_ID);
+				col.updateOne(new Document(Fields.MONGO_ID, id), new Document("$pull",
+						new Document(field, new Document(
+								Fields.OUTBOX_ID, new Document("$in", ids)))));
+				// notifications may have been added since the document was read
+				col.updateOne(new Document(Fields.MONGO_ID, id)
+						.append(field, new Document("$size", 0)),
+						new Document("$unset", new Document(field, "")));
+				moved += ids.size();
+			}
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+		return moved;
+	}
+	
+	@Override
+	public List<OutboxNotification> claimNotifications(
+			final Instant now,
+			final Instant leaseExpiration,
+			final int limit)
+			throws GroupsStorageException {
+		checkNotNull(now, "now");
+		checkNotNull(leaseExpiration, "leaseExpiration");
+		if (limit < 1) {
+			throw new IllegalArgumentException("limit must be > 0");
+		}
+		final Document ready = new Document(Fields.OUTBOX_NEXT_ATTEMPT,
+				new Document("$lte", Date.from(now)));
+		final MongoCollection<Document> col = db.getCollection(COL_OUTBOX);
+		// the update only claims notifications that are still ready, so multiple service
+		// instances never claim the same notification. The claim ID identifies the
+		// notifications this call claimed.
+		final String claim = UUID.randomUUID().toString();
+		try {
+			final List<String> ids = new LinkedList<>();
+			for (final Document d: col.find(ready)
+					.projection(new Document(Fields.OUTBOX_ID, 1).append(Fields.MONGO_ID, 0))
+					.sort(new Document(Fields.OUTBOX_NEXT_ATTEMPT, 1)
+							.append(Fields.OUTBOX_CREATION, 1))
+					.limit(limit)) {
+				ids.add(d.getString(Fields.OUTBOX_ID));
+			}
+			if (ids.isEmpty()) {
+				return Collections.emptyList();
+			}
+			col.updateMany(new Document(ready).append(Fields.OUTBOX_ID, new Document("$in", ids)),
+					new Document("$set", new Document(
+							Fields.OUTBOX_NEXT_ATTEMPT, Date.from(leaseExpiration))
+							.append(Fields.OUTBOX_CLAIM, claim)));
+			final List<OutboxNotification> ret = getList(col,
+					new Document(Fields.OUTBOX_CLAIM, claim), null, null, 0,
+					d -> toOutboxNotification(d));
+			// return the notifications in the order they were selected
+			ret.sort(Comparator.comparing(n -> ids.indexOf(n.getID().toString())));
+			return ret;
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+	}
+	
+	private OutboxNotification toOutboxNotification(final Document n)
+			throws GroupsStorageException {
+		try {
+			final UUID id = UUID.fromString(n.getString(Fields.OUTBOX_ID));
+			final Operation op = Operation.valueOf(n.getString(Fields.OUTBOX_OPERATION));
+			final Instant created = n.getDate(Fields.OUTBOX_CREATION).toInstant();
+			final OutboxNotification.Builder b;
+			if (Operation.ADD_RESOURCE.equals(op)) {
+				b = OutboxNotification.getBuilder(
+						id,
+						created,
+						new UserName(n.getString(Fields.OUTBOX_ACTOR)),
+						new GroupID(n.getString(Fields.OUTBOX_GROUP_ID)),
+						new ResourceType(n.getString(Fields.OUTBOX_RESOURCE_TYPE)),
+						new ResourceID(n.getString(Fields.OUTBOX_RESOURCE_ID)));
+			} else if (Operation.CANCEL.equals(op)) {
+				b = OutboxNotification.getBuilder(id, op, created,
+						new RequestID(n.getString(Fields.OUTBOX_REQUEST_ID)));
+			} else {
+				b = OutboxNotification.getBuilder(id, op, created,
+						toRequest(n.get(Fields.OUTBOX_REQUEST, Document.class)));
+			}
+			@SuppressWarnings("unchecked")
+			final List<String> targets = (List<String>) n.get(Fields.OUTBOX_TARGETS);
+			final Set<UserName> users = new HashSet<>();
+			for (final String t: targets) {
+				users.add(new UserName(t));
+			}
+			return b.withTargets(users).withAttempts(n.getInteger(Fields.OUTBOX_ATTEMPTS))
+					.build();
+		} catch (IllegalParameterException | MissingParameterException |
+				IllegalArgumentException e) {
+			throw new GroupsStorageException(
+					"Unexpected value in database: " + e.getMessage(), e);
+		}
+	}
+	
+	@Override
+	public void removeNotification(final UUID id) throws GroupsStorageException {
+		checkNotNull(id, "id");
+		try {
+			db.getCollection(COL_OUTBOX).deleteOne(
+					new Document(Fields.OUTBOX_ID, id.toString()));
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
+	}
+	
+	@Override
+	public void retryNotification(final UUID id, final Instant nextAttempt)
+			throws GroupsStorageException {
+		checkNotNull(id, "id");
+		checkNotNull(nextAttempt, "nextAttempt");
+		try {
+			db.getCollection(COL_OUTBOX).updateOne(
+					new Document(Fields.OUTBOX_ID, id.toString()),
+					new Document("$set", new Document(
+							Fields.OUTBOX_NEXT_ATTEMPT, Date.from(nextAttempt)))
+							.append("$inc", new Document(Fields.OUTBOX_ATTEMPTS, 1)));
+		} catch (MongoException e) {
+			throw wrapMongoException(e);
+		}
 	}
 	
 	/* Use this for finding documents where indexes should force only a single
@@ -1603,10 +2844,35 @@ public class MongoGroupsStorage implements GroupsStorage {
 			final Document query,
 			final Document projection)
 			throws GroupsStorageException {
+		return findOne(collection, query, projection, null);
+	}
+	
+	private Document findOne(
+			final String collection,
+			final Document query,
+			final Document projection,
+			final Document sort)
+			throws GroupsStorageException {
+		return findOne(db.getCollection(collection), query, projection, sort);
+	}
+	
+	private Document findOne(
+			final MongoCollection<Document> collection,
+			final Document query,
+			final Document projection,
+			final Document sort)
+			throws GroupsStorageException {
 		try {
-			return db.getCollection(collection).find(query).projection(projection).first();
+			return collection.find(query).projection(projection).sort(sort).first();
 		} catch (MongoException e) {
 			throw wrapMongoException(e);
 		}
 	}
+	
+	/* Use this for reads that may tolerate stale data. See setListReadPreference. */
+	private MongoCollection<Document> getListCollection(final String collection) {
+		final MongoCollection<Document> col = db.getCollection(collection);
+		final ReadPreference rp = listReadPreference;
+		return rp == null ? col : col.withReadPreference(rp);
+	}
 }
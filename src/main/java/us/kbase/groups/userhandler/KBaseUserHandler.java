@@ -1,14 +1,26 @@
 package us.kbase.groups.userhandler;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static us.kbase.groups.util.Util.checkNoNullsInCollection;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import us.kbase.auth.AuthException;
 import us.kbase.auth.AuthToken;
 import us.kbase.auth.client.AuthClient;
@@ -16,10 +28,13 @@ import us.kbase.groups.core.Token;
 import us.kbase.groups.core.UserHandler;
 import us.kbase.groups.core.UserName;
 import us.kbase.groups.core.exceptions.AuthenticationException;
+import us.kbase.groups.core.exceptions.AuthenticationUnavailableException;
 import us.kbase.groups.core.exceptions.ErrorType;
 import us.kbase.groups.core.exceptions.IllegalParameterException;
 import us.kbase.groups.core.exceptions.InvalidTokenException;
 import us.kbase.groups.core.exceptions.MissingParameterException;
+import us.kbase.groups.util.DependencyGuard;
+import us.kbase.groups.util.DependencyGuard.Permit;
 
 /** A user handler for the KBase authentication service.
  * @author gaprice@lbl.gov
@@ -27,12 +42,23 @@ import us.kbase.groups.core.exceptions.MissingParameterException;
  */
 public class KBaseUserHandler implements UserHandler {
 
-	// note the auth client handles its own caching.
+	// user names are never reused or deleted, so valid names can be cached for a long time.
+	// invalid names are not cached since they may be created at any time.
+	private static final int VALID_USER_CACHE_SIZE = 100000;
+	private static final int VALID_USER_CACHE_TTL_HOURS = 24;
+	// keep the query string to the auth service to a reasonable length
+	private static final int MAX_USERS_PER_REQUEST = 100;
 	
 	private final AuthClient auth;
 	private final Token serviceToken;
+	private final TokenCache tokenCache;
+	private final DependencyGuard guard;
+	private final Cache<UserName, Boolean> validUsers = CacheBuilder.newBuilder()
+			.maximumSize(VALID_USER_CACHE_SIZE)
+			.expireAfterWrite(VALID_USER_CACHE_TTL_HOURS, TimeUnit.HOURS)
+			.build();
 	
-	/** Create the handler.
+	/** Create the handler with the default token cache settings.
 	 * @param rootAuthURL the root url of the KBase authentication service.
 	 * @param serviceToken a service token for the KBase authentication service. This is used
 	 * to check that user names are valid.
@@ -46,8 +72,56 @@ public class KBaseUserHandler implements UserHandler {
 			final Token serviceToken)
 			throws IOException, URISyntaxException, InvalidTokenException,
 				AuthenticationException {
+		this(rootAuthURL, serviceToken, new TokenCache(
+				TokenCache.DEFAULT_TOKEN_CACHE_SIZE,
+				TokenCache.DEFAULT_TOKEN_CACHE_TTL_SEC,
+				TokenCache.DEFAULT_INVALID_TOKEN_CACHE_TTL_SEC));
+	}
+	
+	/** Create the handler.
+	 * @param rootAuthURL the root url of the KBase authentication service.
+	 * @param serviceToken a service token for the KBase authentication service. This is used
+	 * to check that user names are valid.
+	 * @param tokenCache the cache to use for token lookups.
+	 * @throws IOException if the authentication service could not be contacted.
+	 * @throws URISyntaxException if the URL is not a valid URI.
+	 * @throws InvalidTokenException if the service token is invalid.
+	 * @throws AuthenticationException if an error occurs while validating the token.
+	 */
+	public KBaseUserHandler(
+			final URL rootAuthURL,
+			final Token serviceToken,
+			final TokenCache tokenCache)
+			throws IOException, URISyntaxException, InvalidTokenException,
+				AuthenticationException {
+		this(rootAuthURL, serviceToken, tokenCache, new DependencyGuard("authentication"));
+	}
+	
+	/** Create the handler.
+	 * @param rootAuthURL the root url of the KBase authentication service.
+	 * @param serviceToken a service token for the KBase authentication service. This is used
+	 * to check that user names are valid.
+	 * @param tokenCache the cache to use for token lookups.
+	 * @param guard the guard through which calls to the authentication service pass. Lookups
+	 * served from the caches do not pass through the guard.
+	 * @throws IOException if the authentication service could not be contacted.
+	 * @throws URISyntaxException if the URL is not a valid URI.
+	 * @throws InvalidTokenException if the service token is invalid.
+	 * @throws AuthenticationException if an error occurs while validating the token.
+	 */
+	public KBaseUserHandler(
+			final URL rootAuthURL,
+			final Token serviceToken,
+			final TokenCache tokenCache,
+			final DependencyGuard guard)
+			throws IOException, URISyntaxException, InvalidTokenException,
+				AuthenticationException {
 		checkNotNull(rootAuthURL, "rootAuthURL");
 		checkNotNull(serviceToken, "serviceToken");
+		checkNotNull(tokenCache, "tokenCache");
+		checkNotNull(guard, "guard");
+		this.tokenCache = tokenCache;
+		this.guard = guard;
 		try {
 			auth = AuthClient.from(rootAuthURL.toURI());
 		} catch (AuthException e) {
@@ -60,35 +134,98 @@ public class KBaseUserHandler implements UserHandler {
 		getUser(this.serviceToken); // check token is valid
 	}
 	
+	/** Get the token cache used by this handler.
+	 * @return the token cache.
+	 */
+	public TokenCache getTokenCache() {
+		return tokenCache;
+	}
+	
+	/** Get the guard through which calls to the authentication service pass.
+	 * @return the guard.
+	 */
+	public DependencyGuard getGuard() {
+		return guard;
+	}
+	
 	@Override
 	public UserName getUser(final Token token)
 			throws InvalidTokenException, AuthenticationException {
 		checkNotNull(token, "token");
+		return tokenCache.getUser(token, t -> validateToken(t));
+	}
+	
+	private UserName validateToken(final Token token)
+			throws InvalidTokenException, AuthenticationException {
+		final Permit permit = acquireGuard();
+		boolean success = false;
 		try {
 			final AuthToken user = auth.validateToken(token.getToken());
+			success = true;
 			return new UserName(user.getUserName());
 		} catch (IOException e) { // no good way to test this
 			throw new AuthenticationException(ErrorType.AUTHENTICATION_FAILED,
 					"Failed contacting authentication server: " + e.getMessage(), e);
 		} catch (AuthException e) {
+			success = true; // the token is bad, not the auth service
 			throw new InvalidTokenException(e.getMessage(), e);
 		} catch (MissingParameterException | IllegalParameterException e) { // can't test
 			throw new RuntimeException(
 					"The auth service is returning invalid usernames, something is very wrong", e);
+		} finally {
+			permit.release(success);
 		}
 	}
 	
+	private Permit acquireGuard() throws AuthenticationUnavailableException {
+		return guard.acquire(err -> new AuthenticationUnavailableException(err));
+	}
+	
 	@Override
 	public boolean isValidUser(final UserName userName) throws AuthenticationException {
 		checkNotNull(userName, "userName");
-		try {
-			return auth.isValidUserName(
-					Arrays.asList(userName.getName()), serviceToken.getToken())
-					.get(userName.getName());
-		} catch (IOException | AuthException e) { // no good way to test this
-			LoggerFactory.getLogger(getClass()).error("Unexpected auth service response", e);
-			throw new AuthenticationException(ErrorType.AUTHENTICATION_FAILED,
-					"Recieved unexpected response from authentication server.", e);
+		return areValidUsers(Arrays.asList(userName)).get(userName);
+	}
+	
+	@Override
+	public Map<UserName, Boolean> areValidUsers(final Collection<UserName> userNames)
+			throws AuthenticationException {
+		checkNoNullsInCollection(userNames, "userNames");
+		final Map<UserName, Boolean> ret = new HashMap<>();
+		final List<UserName> toCheck = new ArrayList<>();
+		for (final UserName n: new LinkedHashSet<>(userNames)) {
+			if (validUsers.getIfPresent(n) != null) {
+				ret.put(n, true);
+			} else {
+				toCheck.add(n);
+			}
+		}
+		for (int i = 0; i < toCheck.size(); i += MAX_USERS_PER_REQUEST) {
+			final List<UserName> names = toCheck.subList(
+					i, Math.min(i + MAX_USERS_PER_REQUEST, toCheck.size()));
+			final Map<String, Boolean> valid;
+			final Permit permit = acquireGuard();
+			boolean success = false;
+			try {
+				valid = auth.isValidUserName(
+						names.stream().map(n -> n.getName()).collect(Collectors.toList()),
+						serviceToken.getToken());
+				success = true;
+			} catch (IOException | AuthException e) { // no good way to test this
+				LoggerFactory.getLogger(getClass()).error("Unexpected auth service response", e);
+				throw new AuthenticationException(ErrorType.AUTHENTICATION_FAILED,
+						"Recieved unexpected response from authentication server.", e);
+			} finally {
+				permit.release(success);
+			}
+			for (final UserName n: names) {
+				final boolean isValid = Boolean.TRUE.equals(valid.get(n.getName()));
+				if (isValid) {
+					validUsers.put(n, true);
+				}
+				ret.put(n, isValid);
+			}
 		}
+		return ret;
 	}
 }
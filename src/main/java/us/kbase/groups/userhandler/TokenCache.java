@@ -0,0 +1,169 @@
+package us.kbase.groups.userhandler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import us.kbase.groups.core.Token;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.AuthenticationException;
+import us.kbase.groups.core.exceptions.ErrorType;
+import us.kbase.groups.core.exceptions.InvalidTokenException;
+
+/** A cache mapping tokens to user names.
+ *
+ * Tokens are not stored in the cache - the cache is keyed on a hash of the token.
+ *
+ * Valid tokens are cached for a configurable period. Invalid tokens are cached separately,
+ * normally for a much shorter period, so that repeated requests with a bad token do not
+ * each result in a request to the authentication service.
+ *
+ * Concurrent lookups of the same uncached token may each call the underlying lookup.
+ */
+public class TokenCache {
+
+	/** The default maximum number of tokens to cache. */
+	public static final int DEFAULT_TOKEN_CACHE_SIZE = 10000;
+	/** The default time, in seconds, to cache a valid token. */
+	public static final int DEFAULT_TOKEN_CACHE_TTL_SEC = 300;
+	/** The default time, in seconds, to cache an invalid token. */
+	public static final int DEFAULT_INVALID_TOKEN_CACHE_TTL_SEC = 10;
+
+	// the prefix GroupsException adds to the message of an invalid token exception
+	private static final String INVALID_TOKEN_PREFIX = ErrorType.INVALID_TOKEN.getErrorCode() +
+			" " + ErrorType.INVALID_TOKEN.getError() + ": ";
+
+	/** A lookup of a user name from a token, typically from the authentication service. */
+	public interface TokenLookup {
+
+		/** Get the user name associated with a token.
+		 * @param token the token.
+		 * @return the user name.
+		 * @throws InvalidTokenException if the token is invalid.
+		 * @throws AuthenticationException if the user name could not be retrieved.
+		 */
+		UserName getUser(Token token) throws InvalidTokenException, AuthenticationException;
+	}
+
+	private final Cache<String, UserName> valid;
+	// maps to the reason the token is invalid, or the empty string if there is no reason
+	private final Cache<String, String> invalid;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/** Create the cache.
+	 * @param maximumSize the maximum number of valid tokens to cache. The same number of
+	 * invalid tokens may be cached. 0 disables caching.
+	 * @param validTTLSec the amount of time, in seconds, to cache a valid token.
+	 * @param invalidTTLSec the amount of time, in seconds, to cache an invalid token.
+	 * 0 disables caching of invalid tokens.
+	 */
+	public TokenCache(final int maximumSize, final int validTTLSec, final int invalidTTLSec) {
+		this(maximumSize, validTTLSec, invalidTTLSec, Clock.systemDefaultZone());
+	}
+
+	// for tests
+	private TokenCache(
+			final int maximumSize,
+			final int validTTLSec,
+			final int invalidTTLSec,
+			final Clock clock) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("maximumSize must be >= 0");
+		}
+		if (validTTLSec < 1) {
+			throw new IllegalArgumentException("validTTLSec must be > 0");
+		}
+		if (invalidTTLSec < 0) {
+			throw new IllegalArgumentException("invalidTTLSec must be >= 0");
+		}
+		final Ticker ticker = new Ticker() {
+
+			@Override
+			public long read() {
+				return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+			}
+		};
+		valid = CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(validTTLSec, TimeUnit.SECONDS)
+				.ticker(ticker)
+				.build();
+		invalid = CacheBuilder.newBuilder()
+				.maximumSize(invalidTTLSec < 1 ? 0 : maximumSize)
+				.expireAfterWrite(invalidTTLSec, TimeUnit.SECONDS)
+				.ticker(ticker)
+				.build();
+	}
+
+	/** Get the user name for a token, using the provided lookup if the token is not cached.
+	 * @param token the token.
+	 * @param lookup the lookup to use on a cache miss.
+	 * @return the user name.
+	 * @throws InvalidTokenException if the token is invalid.
+	 * @throws AuthenticationException if the user name could not be retrieved.
+	 */
+	public UserName getUser(final Token token, final TokenLookup lookup)
+			throws InvalidTokenException, AuthenticationException {
+		checkNotNull(token, "token");
+		checkNotNull(lookup, "lookup");
+		final String key = Hashing.sha256()
+				.hashString(token.getToken(), StandardCharsets.UTF_8).toString();
+		final UserName user = valid.getIfPresent(key);
+		if (user != null) {
+			hits.incrementAndGet();
+			return user;
+		}
+		final String reason = invalid.getIfPresent(key);
+		if (reason != null) {
+			hits.incrementAndGet();
+			// a new exception per request so stack traces and suppressed exceptions
+			// aren't shared between threads
+			throw new InvalidTokenException(reason);
+		}
+		misses.incrementAndGet();
+		try {
+			final UserName u = lookup.getUser(token);
+			valid.put(key, u);
+			return u;
+		} catch (InvalidTokenException e) {
+			invalid.put(key, getReason(e));
+			throw e;
+		}
+	}
+
+	private static String getReason(final InvalidTokenException e) {
+		final String msg = e.getMessage();
+		return msg.startsWith(INVALID_TOKEN_PREFIX) ?
+				msg.substring(INVALID_TOKEN_PREFIX.length()) : "";
+	}
+
+	/** Get the number of lookups, valid or invalid, that were served from the cache.
+	 * @return the number of cache hits.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/** Get the number of lookups that were not served from the cache.
+	 * @return the number of cache misses.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/** Get the approximate number of valid and invalid tokens in the cache.
+	 * @return the size of the cache.
+	 */
+	public long size() {
+		return valid.size() + invalid.size();
+	}
+}
@@ -0,0 +1,231 @@
+package us.kbase.groups.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Clock;
+import java.util.function.Function;
+
+import org.slf4j.LoggerFactory;
+
+/** Protects the service from a slow or failing dependency, such as a resource service or the
+ * authentication service.
+ *
+ * The guard limits the number of concurrent calls to the dependency, so that a slow
+ * dependency cannot tie up every request thread, and acts as a circuit breaker. After a
+ * number of consecutive failed calls the circuit opens and calls are rejected immediately
+ * rather than waiting on the dependency. Once the circuit has been open for a set time, a
+ * single trial call is allowed. If the trial call succeeds the circuit closes, otherwise it
+ * opens again.
+ *
+ * Callers must call {@link #acquire(Function)} before calling the dependency and
+ * {@link Permit#release(boolean)} on the returned permit afterwards, including when the call
+ * fails. Only the outcome of the trial call changes the state of a half open circuit, and
+ * the outcomes of calls started before the circuit last changed state are ignored.
+ */
+public class DependencyGuard {
+
+	/** The state of the circuit breaker. */
+	public static enum State {
+		/** Calls to the dependency are allowed. */
+		CLOSED,
+		/** Calls to the dependency are rejected. */
+		OPEN,
+		/** A single trial call to the dependency is allowed. */
+		HALF_OPEN;
+	}
+
+	private final String name;
+	private final int maxConcurrentCalls;
+	private final int failureThreshold;
+	private final long openMillis;
+	private final Clock clock;
+
+	// all guarded by this
+	private State state = State.CLOSED;
+	private int inFlight = 0;
+	private int consecutiveFailures = 0;
+	private long openedAt = 0;
+	private boolean trialInFlight = false;
+	private long generation = 0; // incremented on every state change
+	private long rejected = 0;
+
+	/** Create a guard that never rejects calls.
+	 * @param name the name of the dependency, used in error messages.
+	 */
+	public DependencyGuard(final String name) {
+		this(name, 0, 0, 1);
+	}
+
+	/** Create the guard.
+	 * @param name the name of the dependency, used in error messages.
+	 * @param maxConcurrentCalls the maximum number of concurrent calls to the dependency, or 0
+	 * for no limit.
+	 * @param failureThreshold the number of consecutive failed calls after which the circuit
+	 * opens, or 0 if the circuit never opens.
+	 * @param openMillis the time, in milliseconds, the circuit stays open before a trial call
+	 * is allowed.
+	 */
+	public DependencyGuard(
+			final String name,
+			final int maxConcurrentCalls,
+			final int failureThreshold,
+			final long openMillis) {
+		this(name, maxConcurrentCalls, failureThreshold, openMillis, Clock.systemDefaultZone());
+	}
+
+	// for tests
+	private DependencyGuard(
+			final String name,
+			final int maxConcurrentCalls,
+			final int failureThreshold,
+			final long openMillis,
+			final Clock clock) {
+		checkNotNull(name, "name");
+		if (maxConcurrentCalls < 0) {
+			throw new IllegalArgumentException("maxConcurrentCalls must be >= 0");
+		}
+		if (failureThreshold < 0) {
+			throw new IllegalArgumentException("failureThreshold must be >= 0");
+		}
+		if (openMillis < 1) {
+			throw new IllegalArgumentException("openMillis must be > 0");
+		}
+		this.name = name;
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.failureThreshold = failureThreshold;
+		this.openMillis = openMillis;
+		this.clock = clock;
+	}
+
+	/** Get the name of the dependency.
+	 * @return the name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/** Permission to make a single call to the dependency. */
+	public class Permit {
+
+		private final boolean trial;
+		private final long generation;
+		private boolean released = false; // guarded by the guard
+
+		private Permit(final boolean trial, final long generation) {
+			this.trial = trial;
+			this.generation = generation;
+		}
+
+		/** Returns true if this permit is for the trial call of a half open circuit.
+		 * @return true if this is the trial call.
+		 */
+		public boolean isTrial() {
+			return trial;
+		}
+
+		/** Record the end of the call to the dependency. Calling this method more than once
+		 * has no effect.
+		 * @param success false if the call failed because the dependency is unavailable or
+		 * malfunctioning, true otherwise. Errors that are the caller's fault, like an invalid
+		 * token, should be considered successful calls.
+		 */
+		public void release(final boolean success) {
+			DependencyGuard.this.release(this, success);
+		}
+	}
+
+	/** Get permission to call the dependency.
+	 * @param <E> the type of the exception thrown if the call is rejected.
+	 * @param unavailable a function that creates the exception to throw if the call is
+	 * rejected, given an error message.
+	 * @return the permit for the call, which must be released when the call completes.
+	 * @throws E if there are too many concurrent calls to the dependency or the circuit
+	 * is open.
+	 */
+	public synchronized <E extends Exception> Permit acquire(
+			final Function<String, E> unavailable)
+			throws E {
+		checkNotNull(unavailable, "unavailable");
+		if (state.equals(State.OPEN)) {
+			if (clock.millis() - openedAt < openMillis) {
+				rejected++;
+				throw unavailable.apply(String.format("The %s service is unavailable", name));
+			}
+			setState(State.HALF_OPEN);
+		}
+		if (state.equals(State.HALF_OPEN) && trialInFlight) {
+			rejected++;
+			throw unavailable.apply(String.format("The %s service is unavailable", name));
+		}
+		if (maxConcurrentCalls > 0 && inFlight >= maxConcurrentCalls) {
+			rejected++;
+			throw unavailable.apply(String.format(
+					"Too many concurrent calls to the %s service", name));
+		}
+		final boolean trial = state.equals(State.HALF_OPEN);
+		trialInFlight = trial;
+		inFlight++;
+		return new Permit(trial, generation);
+	}
+
+	private synchronized void release(final Permit permit, final boolean success) {
+		if (permit.released) {
+			return;
+		}
+		permit.released = true;
+		inFlight--;
+		if (permit.trial) {
+			trialInFlight = false;
+			if (success) {
+				setState(State.CLOSED);
+			} else {
+				open();
+			}
+		} else if (state.equals(State.CLOSED) && permit.generation == generation) {
+			if (success) {
+				consecutiveFailures = 0;
+			} else {
+				consecutiveFailures++;
+				if (failureThreshold > 0 && consecutiveFailures >= failureThreshold) {
+					open();
+				}
+			}
+		}
+		// otherwise the call started before the circuit last changed state, so ignore it
+	}
+
+	private void open() {
+		openedAt = clock.millis();
+		consecutiveFailures = 0;
+		setState(State.OPEN);
+	}
+
+	private void setState(final State newState) {
+		LoggerFactory.getLogger(getClass()).warn(String.format(
+				"Circuit for the %s service changed from %s to %s", name, state, newState));
+		state = newState;
+		generation++;
+	}
+
+	/** Get the state of the circuit breaker.
+	 * @return the state.
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/** Get the number of calls to the dependency currently in progress.
+	 * @return the number of calls.
+	 */
+	public synchronized int getInFlightCount() {
+		return inFlight;
+	}
+
+	/** Get the number of calls rejected because there were too many concurrent calls or the
+	 * circuit was open.
+	 * @return the number of rejected calls.
+	 */
+	public synchronized long getRejectedCount() {
+		return rejected;
+	}
+}
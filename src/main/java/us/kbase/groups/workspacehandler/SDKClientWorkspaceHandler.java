@@ -7,6 +7,7 @@ import static us.kbase.groups.util.Util.checkNoNullsInCollection;
 import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -14,6 +15,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -21,6 +26,7 @@ import java.util.stream.Collectors;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.github.zafarkhaja.semver.Version;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import us.kbase.common.service.JsonClientException;
 import us.kbase.common.service.ServerException;
@@ -67,8 +73,11 @@ public class SDKClientWorkspaceHandler implements ResourceHandler {
 			"yyyy'-'MM'-'dd'T'HH':'mm':'ssX");
 	
 	private final WorkspaceClient client;
+	private final int batchSize;
+	private final ExecutorService infoExecutor; // null if resolving one workspace at a time
 	
-	/** Create the handler.
+	/** Create the handler. The handler will resolve resource information one workspace at a
+	 * time.
 	 * @param client the workspace client to use to communicate with the workspace. The
 	 * client must be initialized with a token with administrative write privileges.
 	 * @throws ResourceHandlerException if an error occurs contacting the workspace or
@@ -76,8 +85,40 @@ public class SDKClientWorkspaceHandler implements ResourceHandler {
 	 */
 	public SDKClientWorkspaceHandler(final WorkspaceClient client)
 			throws ResourceHandlerException {
+		this(client, 1, 1);
+	}
+	
+	/** Create the handler.
+	 * 
+	 * If the batch size is greater than one, {@link #getResourceInformation(UserName, Set,
+	 * ResourceAccess)} fetches workspace permissions for up to batchSize workspaces per call
+	 * to the workspace, splitting a batch only when the workspace reports that a workspace in
+	 * the batch is deleted or missing. Workspace and narrative information is then fetched
+	 * concurrently on a pool of infoThreads threads. Otherwise the handler resolves resource
+	 * information one workspace at a time.
+	 * @param client the workspace client to use to communicate with the workspace. The
+	 * client must be initialized with a token with administrative write privileges.
+	 * @param batchSize the maximum number of workspaces for which permissions will be
+	 * requested in a single call to the workspace.
+	 * @param infoThreads the maximum number of concurrent workspace information requests
+	 * made when the batch size is greater than one.
+	 * @throws ResourceHandlerException if an error occurs contacting the workspace or
+	 * the workspace version is less than 0.8.0.
+	 */
+	public SDKClientWorkspaceHandler(
+			final WorkspaceClient client,
+			final int batchSize,
+			final int infoThreads)
+			throws ResourceHandlerException {
 		checkNotNull(client, "client");
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be > 0");
+		}
+		if (infoThreads < 1) {
+			throw new IllegalArgumentException("infoThreads must be > 0");
+		}
 		this.client = client;
+		this.batchSize = batchSize;
 		final String ver;
 		try {
 			ver = client.ver();
@@ -92,6 +133,24 @@ public class SDKClientWorkspaceHandler implements ResourceHandler {
 		if (Version.valueOf(ver).lessThan(Version.forIntegers(0, 8, 2))) {
 			throw new ResourceHandlerException("Workspace version 0.8.2 or greater is required");
 		}
+		if (batchSize > 1) {
+			infoExecutor = Executors.newFixedThreadPool(infoThreads, new ThreadFactoryBuilder()
+					.setDaemon(true)
+					.setNameFormat("workspace-handler-%d")
+					.build());
+		} else {
+			infoExecutor = null;
+		}
+	}
+
+	/** Stop the threads used to fetch workspace information concurrently. Requests already
+	 * in progress complete, but the handler cannot be used to fetch resource information
+	 * afterwards if it was created with a batch size greater than one.
+	 */
+	public void close() {
+		if (infoExecutor != null) {
+			infoExecutor.shutdown();
+		}
 	}
 
 	private ResourceHandlerException getGeneralWSException(final Exception e) {
@@ -140,7 +199,6 @@ public class SDKClientWorkspaceHandler implements ResourceHandler {
 	}
 
 	private static class Perms {
-		@SuppressWarnings("unused")
 		private final Integer errorWSID;
 		private final List<Map<String, String>> perms;
 		
@@ -209,6 +267,18 @@ public class SDKClientWorkspaceHandler implements ResourceHandler {
 		requireNonNull(access, "access");
 		//TODO WS make a bulk ws method for getwsinfo that returns error code (DELETED, MISSING, INACCESSIBLE, etc.) for inaccessible workspaces
 		//TODO WS for get perms mass make ignore error option that returns error state (DELETED, MISSING, INACCESSIBLE etc.) and use here instead of going one at a time
+		if (infoExecutor == null) {
+			return getResourceInformationSerial(user, resources, access);
+		} else {
+			return getResourceInformationBatched(user, resources, access);
+		}
+	}
+	
+	private ResourceInformationSet getResourceInformationSerial(
+			final UserName user,
+			final Set<ResourceID> resources,
+			final ResourceAccess access)
+			throws ResourceHandlerException, IllegalResourceIDException {
 		final ResourceInformationSet.Builder b = ResourceInformationSet.getBuilder(user);
 		for (final ResourceID rid: resources) {
 			final long wsid = getWSID(rid);
@@ -229,23 +299,138 @@ public class SDKClientWorkspaceHandler implements ResourceHandler {
 					} catch (NoSuchResourceException e) {
 						throw new RuntimeException("Shouldn't be possible", e);
 					}
-					if (wi == null) {
-						// should almost never happen since we checked for inaccessible ws above
-						b.withNonexistentResource(rid);
-					} else {
-						if (user != null && wi.owner.equals(user.getName())) {
-							wi.wi.put("perm", WorkspacePermission.OWN.getRepresentation());
-						} else {
-							wi.wi.put("perm", perm.perm.getRepresentation());
-						}
-						wi.wi.keySet().stream()
-								.forEach(s -> b.withResourceField(rid, s, wi.wi.get(s)));
-					}
+					addWorkspaceInfo(b, rid, user, perm, wi);
 				}
 			}
 		}
 		return b.build();
 	}
+	
+	private ResourceInformationSet getResourceInformationBatched(
+			final UserName user,
+			final Set<ResourceID> resources,
+			final ResourceAccess access)
+			throws ResourceHandlerException, IllegalResourceIDException {
+		final Map<ResourceID, Long> wsids = new HashMap<>();
+		for (final ResourceID rid: resources) {
+			wsids.put(rid, getWSID(rid)); // check all the IDs before contacting the workspace
+		}
+		final ResourceInformationSet.Builder b = ResourceInformationSet.getBuilder(user);
+		final Map<ResourceID, Map<String, String>> perms = new HashMap<>();
+		final List<ResourceID> rids = new ArrayList<>(resources);
+		for (int i = 0; i < rids.size(); i += batchSize) {
+			getPermissions(rids.subList(i, Math.min(i + batchSize, rids.size())), wsids, perms, b);
+		}
+		final Map<ResourceID, Perm> accessible = new HashMap<>();
+		final Map<ResourceID, Future<WSInfoOwner>> infos = new HashMap<>();
+		try {
+			for (final ResourceID rid: perms.keySet()) {
+				final Perm perm = new Perm(user, perms.get(rid));
+				if (hasAccess(perm, access)) {
+					accessible.put(rid, perm);
+					final long wsid = wsids.get(rid);
+					infos.put(rid, infoExecutor.submit(() -> getWSInfo(wsid, true, false)));
+				}
+			}
+			for (final ResourceID rid: infos.keySet()) {
+				addWorkspaceInfo(b, rid, user, accessible.get(rid), getWSInfo(infos.get(rid)));
+			}
+		} finally {
+			// no-op for completed calls, stops any outstanding calls if an error occurred
+			infos.values().stream().forEach(f -> f.cancel(true));
+		}
+		return b.build();
+	}
+	
+	/* Get the permissions for a set of workspaces in one call. If the workspace reports one of
+	 * the workspaces is missing or deleted, that workspace is recorded as nonexistent and the
+	 * remainder is split in two and retried, so the number of calls made depends only on
+	 * the number of missing workspaces rather than the number of workspaces.
+	 */
+	private void getPermissions(
+			final List<ResourceID> rids,
+			final Map<ResourceID, Long> wsids,
+			final Map<ResourceID, Map<String, String>> perms,
+			final ResourceInformationSet.Builder b)
+			throws ResourceHandlerException {
+		if (rids.isEmpty()) {
+			return;
+		}
+		final Perms p;
+		try {
+			p = getPermissions(rids.stream().map(r -> wsids.get(r)).collect(Collectors.toList()),
+					false);
+		} catch (NoSuchResourceException e) {
+			throw new RuntimeException("This should be impossible", e);
+		}
+		if (p.perms != null) {
+			for (int i = 0; i < rids.size(); i++) {
+				perms.put(rids.get(i), p.perms.get(i));
+			}
+			return;
+		}
+		final List<ResourceID> remaining = new ArrayList<>();
+		for (final ResourceID rid: rids) {
+			if (wsids.get(rid) == p.errorWSID.longValue()) {
+				b.withNonexistentResource(rid);
+			} else {
+				remaining.add(rid);
+			}
+		}
+		if (remaining.size() == rids.size()) {
+			// the workspace reported a workspace we didn't ask about. Should never happen, but
+			// bisect until the bad workspace is isolated rather than looping forever
+			if (rids.size() == 1) {
+				b.withNonexistentResource(rids.get(0));
+				return;
+			}
+		}
+		final int mid = remaining.size() / 2;
+		getPermissions(remaining.subList(0, mid), wsids, perms, b);
+		getPermissions(remaining.subList(mid, remaining.size()), wsids, perms, b);
+	}
+	
+	private WSInfoOwner getWSInfo(final Future<WSInfoOwner> info)
+			throws ResourceHandlerException {
+		try {
+			return info.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceHandlerException(String.format(
+					"Interrupted while contacting workspace at %s", client.getURL()), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ResourceHandlerException) {
+				throw (ResourceHandlerException) e.getCause();
+			} else if (e.getCause() instanceof NoSuchResourceException) {
+				throw new RuntimeException("Shouldn't be possible", e.getCause());
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new RuntimeException("Unexpected error: " + e.getCause().getMessage(),
+						e.getCause());
+			}
+		}
+	}
+	
+	private void addWorkspaceInfo(
+			final ResourceInformationSet.Builder b,
+			final ResourceID rid,
+			final UserName user,
+			final Perm perm,
+			final WSInfoOwner wi) {
+		if (wi == null) {
+			// should almost never happen since we checked for inaccessible ws above
+			b.withNonexistentResource(rid);
+		} else {
+			if (user != null && wi.owner.equals(user.getName())) {
+				wi.wi.put("perm", WorkspacePermission.OWN.getRepresentation());
+			} else {
+				wi.wi.put("perm", perm.perm.getRepresentation());
+			}
+			wi.wi.keySet().stream()
+					.forEach(s -> b.withResourceField(rid, s, wi.wi.get(s)));
+		}
+	}
 
 	// hm. This seems nasty, but the ResourceAccess class makes sense to me...
 	// For now I'll keep the nasty implementation and more readable, IMO, API.
@@ -83,8 +83,9 @@ public class MongoStorageTestManager {
 		TestCommon.destroyDB(db);
 		clockMock = mock(Clock.class);
 		final Constructor<MongoGroupsStorage> con = MongoGroupsStorage.class.
-				getDeclaredConstructor(MongoDatabase.class, Collection.class, Clock.class);
+				getDeclaredConstructor(
+						MongoDatabase.class, Collection.class, int.class, Clock.class);
 		con.setAccessible(true);
-		storage = con.newInstance(db, types, clockMock);
+		storage = con.newInstance(db, types, MongoGroupsStorage.DEFAULT_MAX_LIST_SIZE, clockMock);
 	}
 }
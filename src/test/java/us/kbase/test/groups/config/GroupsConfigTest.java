@@ -16,12 +16,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.mongodb.ReadPreference;
 
 import us.kbase.groups.config.GroupsConfig;
 import us.kbase.groups.config.GroupsConfigurationException;
@@ -90,15 +93,61 @@ public class GroupsConfigTest {
 		assertThat("incorrect mongo user", cfg.getMongoUser(), is(Optional.absent()));
 		assertThat("incorrect mongo pwd", cfg.getMongoPwd(), is(Optional.absent()));
 		assertThat("incorrect retry writes", cfg.getMongoRetryWrites(), is(false));
+		assertThat("incorrect group cache size", cfg.getGroupCacheSizeMB(), is(0));
+		assertThat("incorrect group cache ttl", cfg.getGroupCacheTTLSec(), is(60));
+		assertThat("incorrect group cache change stream", cfg.isGroupCacheChangeStream(),
+				is(false));
+		assertThat("incorrect resource cache size", cfg.getResourceCacheSize(), is(10000));
+		assertThat("incorrect resource cache ttl", cfg.getResourceCacheTTLSec(), is(300));
+		assertThat("incorrect resource cache admin ttl", cfg.getResourceCacheAdminTTLSec(),
+				is(0));
+		assertThat("incorrect resource reaper queue size", cfg.getResourceReaperQueueSize(),
+				is(1000));
+		assertThat("incorrect resource handler threads", cfg.getResourceHandlerThreads(),
+				is(20));
+		assertThat("incorrect resource handler timeout", cfg.getResourceHandlerTimeoutMS(),
+				is(30000));
+		assertThat("incorrect dependency timeout", cfg.getDependencyTimeoutMS(), is(30000));
+		assertThat("incorrect dependency max calls", cfg.getDependencyMaxConcurrentCalls(),
+				is(50));
+		assertThat("incorrect dependency failure threshold",
+				cfg.getDependencyFailureThreshold(), is(5));
+		assertThat("incorrect dependency open", cfg.getDependencyOpenSec(), is(30));
+		assertThat("incorrect mongo hosts", cfg.getMongoHosts(), is(Arrays.asList("mongo")));
+		assertThat("incorrect mongo replica set", cfg.getMongoReplicaSet(), is(Optional.absent()));
+		assertThat("incorrect mongo pool min", cfg.getMongoPoolMinSize(), is(0));
+		assertThat("incorrect mongo pool max", cfg.getMongoPoolMaxSize(), is(100));
+		assertThat("incorrect mongo pool wait", cfg.getMongoPoolMaxWaitMS(), is(120000));
+		assertThat("incorrect mongo pool slow checkout", cfg.getMongoPoolSlowCheckOutMS(),
+				is(1000));
+		assertThat("incorrect mongo idle", cfg.getMongoMaxConnectionIdleMS(), is(0));
+		assertThat("incorrect mongo connect timeout", cfg.getMongoConnectTimeoutMS(), is(10000));
+		assertThat("incorrect mongo socket timeout", cfg.getMongoSocketTimeoutMS(), is(0));
+		assertThat("incorrect mongo list read pref", cfg.getMongoListReadPreference(),
+				is(Optional.absent()));
 		assertThat("incorrect auth url", cfg.getAuthURL(), is(new URL("http://auth.com")));
 		assertThat("incorrect catalog url", cfg.getCatalogURL(), is(new URL("http://cat.com")));
 		assertThat("incorrect ws url", cfg.getWorkspaceURL(), is(new URL("http://ws.com")));
 		assertThat("incorrect ws token", cfg.getWorkspaceAdminToken(), is(new Token("wstoken")));
+		assertThat("incorrect token cache size", cfg.getTokenCacheSize(), is(10000));
+		assertThat("incorrect token cache ttl", cfg.getTokenCacheTTLSec(), is(300));
+		assertThat("incorrect invalid token cache ttl", cfg.getInvalidTokenCacheTTLSec(),
+				is(10));
+		assertThat("incorrect ws batch size", cfg.getWorkspaceBatchSize(), is(100));
+		assertThat("incorrect notifier outbox", cfg.isNotifierOutbox(), is(false));
+		assertThat("incorrect notifier queue size", cfg.getNotifierQueueSize(), is(10000));
+		assertThat("incorrect notifier threads", cfg.getNotifierThreads(), is(2));
+		assertThat("incorrect notifier batch size", cfg.getNotifierBatchSize(), is(100));
+		assertThat("incorrect ws info threads", cfg.getWorkspaceInfoThreads(), is(10));
 		assertThat("incorrect notfac", cfg.getNotifierFactory(), is("factoryclass"));
 		assertThat("incorrect fac params", cfg.getNotifierParameters(),
 				is(Collections.emptyMap()));
 		assertThat("incorrect allow insecure", cfg.isAllowInsecureURLs(), is(false));
 		assertThat("incorrect ignore ip headers", cfg.isIgnoreIPHeaders(), is(false));
+		assertThat("incorrect json indent", cfg.isJSONIndent(), is(false));
+		assertThat("incorrect gzip min size", cfg.getGzipMinSizeBytes(), is(1024));
+		assertThat("incorrect max list size", cfg.getMaxListSize(), is(100));
+		assertThat("incorrect archive age", cfg.getRequestArchiveAgeDays(), is(0));
 		assertThat("incorrect fields", cfg.getFieldConfigurations(), is(set()));
 		assertThat("incorrect user fields", cfg.getUserFieldConfigurations(), is(set()));
 		testLogger(cfg.getLogger(), false);
@@ -155,7 +204,8 @@ public class GroupsConfigTest {
 					 "field-user-baz-show-in-list  =   true  \n" +
 					 "field-user-baz-is-user-settable  =   true  \n" +
 					 "allow-insecure-urls=true1\n" +
-					 "dont-trust-x-ip-headers=true1\n")
+					 "dont-trust-x-ip-headers=true1\n" +
+					 "json-indent=true1\n")
 					.getBytes()));
 			cfg = getConfig(fo);
 		} finally {
@@ -168,6 +218,38 @@ public class GroupsConfigTest {
 		assertThat("incorrect mongo user", cfg.getMongoUser(), is(Optional.absent()));
 		assertThat("incorrect mongo pwd", cfg.getMongoPwd(), is(Optional.absent()));
 		assertThat("incorrect retry writes", cfg.getMongoRetryWrites(), is(false));
+		assertThat("incorrect group cache size", cfg.getGroupCacheSizeMB(), is(0));
+		assertThat("incorrect group cache ttl", cfg.getGroupCacheTTLSec(), is(60));
+		assertThat("incorrect group cache change stream", cfg.isGroupCacheChangeStream(),
+				is(false));
+		assertThat("incorrect resource cache size", cfg.getResourceCacheSize(), is(10000));
+		assertThat("incorrect resource cache ttl", cfg.getResourceCacheTTLSec(), is(300));
+		assertThat("incorrect resource cache admin ttl", cfg.getResourceCacheAdminTTLSec(),
+				is(0));
+		assertThat("incorrect resource reaper queue size", cfg.getResourceReaperQueueSize(),
+				is(1000));
+		assertThat("incorrect resource handler threads", cfg.getResourceHandlerThreads(),
+				is(20));
+		assertThat("incorrect resource handler timeout", cfg.getResourceHandlerTimeoutMS(),
+				is(30000));
+		assertThat("incorrect dependency timeout", cfg.getDependencyTimeoutMS(), is(30000));
+		assertThat("incorrect dependency max calls", cfg.getDependencyMaxConcurrentCalls(),
+				is(50));
+		assertThat("incorrect dependency failure threshold",
+				cfg.getDependencyFailureThreshold(), is(5));
+		assertThat("incorrect dependency open", cfg.getDependencyOpenSec(), is(30));
+		assertThat("incorrect mongo hosts", cfg.getMongoHosts(), is(Arrays.asList("mongo")));
+		assertThat("incorrect mongo replica set", cfg.getMongoReplicaSet(), is(Optional.absent()));
+		assertThat("incorrect mongo pool min", cfg.getMongoPoolMinSize(), is(0));
+		assertThat("incorrect mongo pool max", cfg.getMongoPoolMaxSize(), is(100));
+		assertThat("incorrect mongo pool wait", cfg.getMongoPoolMaxWaitMS(), is(120000));
+		assertThat("incorrect mongo pool slow checkout", cfg.getMongoPoolSlowCheckOutMS(),
+				is(1000));
+		assertThat("incorrect mongo idle", cfg.getMongoMaxConnectionIdleMS(), is(0));
+		assertThat("incorrect mongo connect timeout", cfg.getMongoConnectTimeoutMS(), is(10000));
+		assertThat("incorrect mongo socket timeout", cfg.getMongoSocketTimeoutMS(), is(0));
+		assertThat("incorrect mongo list read pref", cfg.getMongoListReadPreference(),
+				is(Optional.absent()));
 		assertThat("incorrect auth url", cfg.getAuthURL(), is(new URL("http://auth.com")));
 		assertThat("incorrect catalog url", cfg.getCatalogURL(), is(new URL("http://cat.com")));
 		assertThat("incorrect ws url", cfg.getWorkspaceURL(), is(new URL("http://ws.com")));
@@ -177,6 +259,10 @@ public class GroupsConfigTest {
 				is(ImmutableMap.of("p1", "np1", "p2", "np2")));
 		assertThat("incorrect allow insecure", cfg.isAllowInsecureURLs(), is(false));
 		assertThat("incorrect ignore ip headers", cfg.isIgnoreIPHeaders(), is(false));
+		assertThat("incorrect json indent", cfg.isJSONIndent(), is(false));
+		assertThat("incorrect gzip min size", cfg.getGzipMinSizeBytes(), is(1024));
+		assertThat("incorrect max list size", cfg.getMaxListSize(), is(100));
+		assertThat("incorrect archive age", cfg.getRequestArchiveAgeDays(), is(0));
 		assertThat("incorrect fields", cfg.getFieldConfigurations(), is(set(
 				FieldValidatorConfiguration.getBuilder(new CustomField("foo"), "foovalclass")
 						.build(),
@@ -240,18 +326,54 @@ public class GroupsConfigTest {
 			TestCommon.getenv().put(GroupsConfig.ENV_VAR_KB_DEP, "some file");
 			when(fo.open(Paths.get("some file"))).thenReturn(new ByteArrayInputStream(
 					("[groups]\n" +
-					 "mongo-host=mongo\n" +
+					 "mongo-host=mongo1:27017, , mongo2  ,\n" +
 					 "mongo-db=database\n" +
 					 "mongo-user=userfoo\n" +
 					 "mongo-pwd=somepwd\n" +
 					 "mongo-retrywrites=true    \n" +
+					 "mongo-replica-set=   rs0   \n" +
+					 "mongo-pool-min-size=10\n" +
+					 "mongo-pool-max-size=10\n" +
+					 "mongo-pool-max-wait-ms=0\n" +
+					 "mongo-pool-slow-checkout-ms=0\n" +
+					 "mongo-max-connection-idle-ms=60000\n" +
+					 "mongo-connect-timeout-ms=0\n" +
+					 "mongo-socket-timeout-ms=5000\n" +
+					 "mongo-list-read-preference=  SecondaryPreferred  \n" +
+					 "mongo-list-max-staleness-sec=90\n" +
+					 "group-cache-size-mb=100\n" +
+					 "group-cache-ttl-sec=30\n" +
+					 "group-cache-change-stream=true\n" +
 					 "notifier-factory=     factoryclass   \n" + 
 					 "auth-url=https://auth.com\n" +
+					 "token-cache-size=0\n" +
+					 "token-cache-ttl-sec=60\n" +
+					 "invalid-token-cache-ttl-sec=0\n" +
 					 "catalog-url=     http://cat.com       \n" +
 					 "workspace-url=https://ws.com\n" +
 					 "workspace-admin-token=wstoken      \n" +
+					 "workspace-batch-size=   20   \n" +
+					 "workspace-info-threads=4\n" +
+					 "resource-cache-size=0\n" +
+					 "resource-cache-ttl-sec=20\n" +
+					 "resource-cache-admin-ttl-sec=5\n" +
+					 "resource-reaper-queue-size=0\n" +
+					 "resource-handler-threads=0\n" +
+					 "resource-handler-timeout-ms=500\n" +
+					 "dependency-timeout-ms=2000\n" +
+					 "dependency-max-concurrent-calls=0\n" +
+					 "dependency-failure-threshold=0\n" +
+					 "dependency-open-sec=7\n" +
+					 "notifier-outbox=true\n" +
+					 "notifier-queue-size=0\n" +
+					 "notifier-threads=6\n" +
+					 "notifier-batch-size=1\n" +
 					 "allow-insecure-urls=true\n" +
-					 "dont-trust-x-ip-headers=true\n")
+					 "dont-trust-x-ip-headers=true\n" +
+					 "json-indent=true\n" +
+					 "gzip-min-size-bytes=0\n" +
+					 "max-list-size=   1   \n" +
+					 "request-archive-age-days=30\n")
 					.getBytes()));
 			cfg = getConfig(fo);
 		} finally {
@@ -261,6 +383,40 @@ public class GroupsConfigTest {
 		assertThat("incorrect mongo host", cfg.getMongoHost(), is("mongo"));
 		assertThat("incorrect mongo db", cfg.getMongoDatabase(), is("database"));
 		assertThat("incorrect retry writes", cfg.getMongoRetryWrites(), is(true));
+		assertThat("incorrect group cache size", cfg.getGroupCacheSizeMB(), is(100));
+		assertThat("incorrect group cache ttl", cfg.getGroupCacheTTLSec(), is(30));
+		assertThat("incorrect group cache change stream", cfg.isGroupCacheChangeStream(),
+				is(true));
+		assertThat("incorrect resource cache size", cfg.getResourceCacheSize(), is(0));
+		assertThat("incorrect resource cache ttl", cfg.getResourceCacheTTLSec(), is(20));
+		assertThat("incorrect resource cache admin ttl", cfg.getResourceCacheAdminTTLSec(),
+				is(5));
+		assertThat("incorrect resource reaper queue size", cfg.getResourceReaperQueueSize(),
+				is(0));
+		assertThat("incorrect resource handler threads", cfg.getResourceHandlerThreads(),
+				is(0));
+		assertThat("incorrect resource handler timeout", cfg.getResourceHandlerTimeoutMS(),
+				is(500));
+		assertThat("incorrect dependency timeout", cfg.getDependencyTimeoutMS(), is(2000));
+		assertThat("incorrect dependency max calls", cfg.getDependencyMaxConcurrentCalls(),
+				is(0));
+		assertThat("incorrect dependency failure threshold",
+				cfg.getDependencyFailureThreshold(), is(0));
+		assertThat("incorrect dependency open", cfg.getDependencyOpenSec(), is(7));
+		assertThat("incorrect mongo hosts", cfg.getMongoHosts(),
+				is(Arrays.asList("mongo1:27017", "mongo2")));
+		assertThat("incorrect mongo replica set", cfg.getMongoReplicaSet(),
+				is(Optional.of("rs0")));
+		assertThat("incorrect mongo pool min", cfg.getMongoPoolMinSize(), is(10));
+		assertThat("incorrect mongo pool max", cfg.getMongoPoolMaxSize(), is(10));
+		assertThat("incorrect mongo pool wait", cfg.getMongoPoolMaxWaitMS(), is(0));
+		assertThat("incorrect mongo pool slow checkout", cfg.getMongoPoolSlowCheckOutMS(),
+				is(0));
+		assertThat("incorrect mongo idle", cfg.getMongoMaxConnectionIdleMS(), is(60000));
+		assertThat("incorrect mongo connect timeout", cfg.getMongoConnectTimeoutMS(), is(0));
+		assertThat("incorrect mongo socket timeout", cfg.getMongoSocketTimeoutMS(), is(5000));
+		assertThat("incorrect mongo list read pref", cfg.getMongoListReadPreference(),
+				is(Optional.of(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS))));
 		assertThat("incorrect mongo user", cfg.getMongoUser(), is(Optional.of("userfoo")));
 		assertThat("incorrect mongo pwd", cfg.getMongoPwd().get(),
 				equalTo("somepwd".toCharArray()));
@@ -268,11 +424,25 @@ public class GroupsConfigTest {
 		assertThat("incorrect catalog url", cfg.getCatalogURL(), is(new URL("http://cat.com")));
 		assertThat("incorrect ws url", cfg.getWorkspaceURL(), is(new URL("https://ws.com")));
 		assertThat("incorrect ws token", cfg.getWorkspaceAdminToken(), is(new Token("wstoken")));
+		assertThat("incorrect token cache size", cfg.getTokenCacheSize(), is(0));
+		assertThat("incorrect token cache ttl", cfg.getTokenCacheTTLSec(), is(60));
+		assertThat("incorrect invalid token cache ttl", cfg.getInvalidTokenCacheTTLSec(),
+				is(0));
+		assertThat("incorrect ws batch size", cfg.getWorkspaceBatchSize(), is(20));
+		assertThat("incorrect notifier outbox", cfg.isNotifierOutbox(), is(true));
+		assertThat("incorrect notifier queue size", cfg.getNotifierQueueSize(), is(0));
+		assertThat("incorrect notifier threads", cfg.getNotifierThreads(), is(6));
+		assertThat("incorrect notifier batch size", cfg.getNotifierBatchSize(), is(1));
+		assertThat("incorrect ws info threads", cfg.getWorkspaceInfoThreads(), is(4));
 		assertThat("incorrect notfac", cfg.getNotifierFactory(), is("factoryclass"));
 		assertThat("incorrect fac params", cfg.getNotifierParameters(),
 				is(Collections.emptyMap()));
 		assertThat("incorrect allow insecure", cfg.isAllowInsecureURLs(), is(true));
 		assertThat("incorrect ignore ip headers", cfg.isIgnoreIPHeaders(), is(true));
+		assertThat("incorrect json indent", cfg.isJSONIndent(), is(true));
+		assertThat("incorrect gzip min size", cfg.getGzipMinSizeBytes(), is(0));
+		assertThat("incorrect max list size", cfg.getMaxListSize(), is(1));
+		assertThat("incorrect archive age", cfg.getRequestArchiveAgeDays(), is(30));
 		assertThat("incorrect fields", cfg.getFieldConfigurations(), is(set()));
 		assertThat("incorrect user fields", cfg.getUserFieldConfigurations(), is(set()));
 		testLogger(cfg.getLogger(), false);
@@ -298,6 +468,38 @@ public class GroupsConfigTest {
 		assertThat("incorrect mongo user", cfg.getMongoUser(), is(Optional.absent()));
 		assertThat("incorrect mongo pwd", cfg.getMongoPwd(), is(Optional.absent()));
 		assertThat("incorrect retry writes", cfg.getMongoRetryWrites(), is(false));
+		assertThat("incorrect group cache size", cfg.getGroupCacheSizeMB(), is(0));
+		assertThat("incorrect group cache ttl", cfg.getGroupCacheTTLSec(), is(60));
+		assertThat("incorrect group cache change stream", cfg.isGroupCacheChangeStream(),
+				is(false));
+		assertThat("incorrect resource cache size", cfg.getResourceCacheSize(), is(10000));
+		assertThat("incorrect resource cache ttl", cfg.getResourceCacheTTLSec(), is(300));
+		assertThat("incorrect resource cache admin ttl", cfg.getResourceCacheAdminTTLSec(),
+				is(0));
+		assertThat("incorrect resource reaper queue size", cfg.getResourceReaperQueueSize(),
+				is(1000));
+		assertThat("incorrect resource handler threads", cfg.getResourceHandlerThreads(),
+				is(20));
+		assertThat("incorrect resource handler timeout", cfg.getResourceHandlerTimeoutMS(),
+				is(30000));
+		assertThat("incorrect dependency timeout", cfg.getDependencyTimeoutMS(), is(30000));
+		assertThat("incorrect dependency max calls", cfg.getDependencyMaxConcurrentCalls(),
+				is(50));
+		assertThat("incorrect dependency failure threshold",
+				cfg.getDependencyFailureThreshold(), is(5));
+		assertThat("incorrect dependency open", cfg.getDependencyOpenSec(), is(30));
+		assertThat("incorrect mongo hosts", cfg.getMongoHosts(), is(Arrays.asList("mongo")));
+		assertThat("incorrect mongo replica set", cfg.getMongoReplicaSet(), is(Optional.absent()));
+		assertThat("incorrect mongo pool min", cfg.getMongoPoolMinSize(), is(0));
+		assertThat("incorrect mongo pool max", cfg.getMongoPoolMaxSize(), is(100));
+		assertThat("incorrect mongo pool wait", cfg.getMongoPoolMaxWaitMS(), is(120000));
+		assertThat("incorrect mongo pool slow checkout", cfg.getMongoPoolSlowCheckOutMS(),
+				is(1000));
+		assertThat("incorrect mongo idle", cfg.getMongoMaxConnectionIdleMS(), is(0));
+		assertThat("incorrect mongo connect timeout", cfg.getMongoConnectTimeoutMS(), is(10000));
+		assertThat("incorrect mongo socket timeout", cfg.getMongoSocketTimeoutMS(), is(0));
+		assertThat("incorrect mongo list read pref", cfg.getMongoListReadPreference(),
+				is(Optional.absent()));
 		assertThat("incorrect auth url", cfg.getAuthURL(), is(new URL("https://auth.com")));
 		assertThat("incorrect catalog url", cfg.getCatalogURL(), is(new URL("http://cat.com")));
 		assertThat("incorrect ws url", cfg.getWorkspaceURL(), is(new URL("https://ws.com")));
@@ -307,6 +509,10 @@ public class GroupsConfigTest {
 				is(Collections.emptyMap()));
 		assertThat("incorrect allow insecure", cfg.isAllowInsecureURLs(), is(false));
 		assertThat("incorrect ignore ip headers", cfg.isIgnoreIPHeaders(), is(false));
+		assertThat("incorrect json indent", cfg.isJSONIndent(), is(false));
+		assertThat("incorrect gzip min size", cfg.getGzipMinSizeBytes(), is(1024));
+		assertThat("incorrect max list size", cfg.getMaxListSize(), is(100));
+		assertThat("incorrect archive age", cfg.getRequestArchiveAgeDays(), is(0));
 		assertThat("incorrect fields", cfg.getFieldConfigurations(), is(set()));
 		assertThat("incorrect user fields", cfg.getUserFieldConfigurations(), is(set()));
 		testLogger(cfg.getLogger(), false);
@@ -328,13 +534,46 @@ public class GroupsConfigTest {
 				 "workspace-url=https://ws.com\n" +
 				 "workspace-admin-token=wstoken      \n" +
 				 "allow-insecure-urls=true\n" +
-				 "dont-trust-x-ip-headers=true\n")
+				 "dont-trust-x-ip-headers=true\n" +
+				 "json-indent=true\n")
 				.getBytes()));
 		final GroupsConfig cfg = getConfig(Paths.get("some file2"), true, fo);
 		
 		assertThat("incorrect mongo host", cfg.getMongoHost(), is("mongo"));
 		assertThat("incorrect mongo db", cfg.getMongoDatabase(), is("database"));
 		assertThat("incorrect retry writes", cfg.getMongoRetryWrites(), is(true));
+		assertThat("incorrect group cache size", cfg.getGroupCacheSizeMB(), is(0));
+		assertThat("incorrect group cache ttl", cfg.getGroupCacheTTLSec(), is(60));
+		assertThat("incorrect group cache change stream", cfg.isGroupCacheChangeStream(),
+				is(false));
+		assertThat("incorrect resource cache size", cfg.getResourceCacheSize(), is(10000));
+		assertThat("incorrect resource cache ttl", cfg.getResourceCacheTTLSec(), is(300));
+		assertThat("incorrect resource cache admin ttl", cfg.getResourceCacheAdminTTLSec(),
+				is(0));
+		assertThat("incorrect resource reaper queue size", cfg.getResourceReaperQueueSize(),
+				is(1000));
+		assertThat("incorrect resource handler threads", cfg.getResourceHandlerThreads(),
+				is(20));
+		assertThat("incorrect resource handler timeout", cfg.getResourceHandlerTimeoutMS(),
+				is(30000));
+		assertThat("incorrect dependency timeout", cfg.getDependencyTimeoutMS(), is(30000));
+		assertThat("incorrect dependency max calls", cfg.getDependencyMaxConcurrentCalls(),
+				is(50));
+		assertThat("incorrect dependency failure threshold",
+				cfg.getDependencyFailureThreshold(), is(5));
+		assertThat("incorrect dependency open", cfg.getDependencyOpenSec(), is(30));
+		assertThat("incorrect mongo hosts", cfg.getMongoHosts(), is(Arrays.asList("mongo")));
+		assertThat("incorrect mongo replica set", cfg.getMongoReplicaSet(), is(Optional.absent()));
+		assertThat("incorrect mongo pool min", cfg.getMongoPoolMinSize(), is(0));
+		assertThat("incorrect mongo pool max", cfg.getMongoPoolMaxSize(), is(100));
+		assertThat("incorrect mongo pool wait", cfg.getMongoPoolMaxWaitMS(), is(120000));
+		assertThat("incorrect mongo pool slow checkout", cfg.getMongoPoolSlowCheckOutMS(),
+				is(1000));
+		assertThat("incorrect mongo idle", cfg.getMongoMaxConnectionIdleMS(), is(0));
+		assertThat("incorrect mongo connect timeout", cfg.getMongoConnectTimeoutMS(), is(10000));
+		assertThat("incorrect mongo socket timeout", cfg.getMongoSocketTimeoutMS(), is(0));
+		assertThat("incorrect mongo list read pref", cfg.getMongoListReadPreference(),
+				is(Optional.absent()));
 		assertThat("incorrect mongo user", cfg.getMongoUser(), is(Optional.of("userfoo")));
 		assertThat("incorrect mongo pwd", cfg.getMongoPwd().get(),
 				equalTo("somepwd".toCharArray()));
@@ -347,6 +586,10 @@ public class GroupsConfigTest {
 				is(Collections.emptyMap()));
 		assertThat("incorrect allow insecure", cfg.isAllowInsecureURLs(), is(true));
 		assertThat("incorrect ignore ip headers", cfg.isIgnoreIPHeaders(), is(true));
+		assertThat("incorrect json indent", cfg.isJSONIndent(), is(true));
+		assertThat("incorrect gzip min size", cfg.getGzipMinSizeBytes(), is(1024));
+		assertThat("incorrect max list size", cfg.getMaxListSize(), is(100));
+		assertThat("incorrect archive age", cfg.getRequestArchiveAgeDays(), is(0));
 		assertThat("incorrect fields", cfg.getFieldConfigurations(), is(set()));
 		assertThat("incorrect user fields", cfg.getUserFieldConfigurations(), is(set()));
 		testLogger(cfg.getLogger(), true);
@@ -658,6 +901,550 @@ public class GroupsConfigTest {
 						"valid URL"));
 	}
 	
+	@Test
+	public void configFailBadTokenCache() throws Throwable {
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"token-cache-size=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"token-cache-size in section groups of config file some file " +
+						"must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"token-cache-ttl-sec=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"token-cache-ttl-sec in section groups of config file some file " +
+						"must be at least 1"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"invalid-token-cache-ttl-sec=ten\n",
+				new GroupsConfigurationException("Value ten of parameter " +
+						"invalid-token-cache-ttl-sec in section groups of config file some " +
+						"file is not an integer"));
+	}
+	
+	@Test
+	public void configFailBadGroupCache() throws Throwable {
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"group-cache-size-mb=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"group-cache-size-mb in section groups of config file some file " +
+						"must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"group-cache-ttl-sec=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"group-cache-ttl-sec in section groups of config file some file " +
+						"must be at least 1"));
+	}
+	
+	@Test
+	public void configFailBadResourceCache() throws Throwable {
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"resource-cache-size=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"resource-cache-size in section groups of config file some file " +
+						"must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"resource-cache-ttl-sec=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"resource-cache-ttl-sec in section groups of config file some file " +
+						"must be at least 1"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"resource-cache-admin-ttl-sec=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"resource-cache-admin-ttl-sec in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"resource-reaper-queue-size=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"resource-reaper-queue-size in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"resource-handler-threads=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"resource-handler-threads in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"resource-handler-timeout-ms=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"resource-handler-timeout-ms in section groups of config file some " +
+						"file must be at least 1"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"dependency-timeout-ms=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"dependency-timeout-ms in section groups of config file some " +
+						"file must be at least 1"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"dependency-max-concurrent-calls=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"dependency-max-concurrent-calls in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"dependency-failure-threshold=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"dependency-failure-threshold in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"dependency-open-sec=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"dependency-open-sec in section groups of config file some " +
+						"file must be at least 1"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host= , ,\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n",
+				new GroupsConfigurationException("Parameter mongo-host in config file some " +
+						"file section groups contains no hosts"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-pool-min-size=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"mongo-pool-min-size in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-pool-max-size=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"mongo-pool-max-size in section groups of config file some " +
+						"file must be at least 1"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-pool-max-wait-ms=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"mongo-pool-max-wait-ms in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-pool-slow-checkout-ms=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"mongo-pool-slow-checkout-ms in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-max-connection-idle-ms=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"mongo-max-connection-idle-ms in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-connect-timeout-ms=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"mongo-connect-timeout-ms in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-socket-timeout-ms=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"mongo-socket-timeout-ms in section groups of config file some " +
+						"file must be at least 0"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-pool-min-size=11\n" +
+				"mongo-pool-max-size=10\n",
+				new GroupsConfigurationException("Parameter mongo-pool-min-size must not be " +
+						"greater than mongo-pool-max-size in config file some file " +
+						"section groups"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-list-max-staleness-sec=90\n",
+				new GroupsConfigurationException("Parameter mongo-list-max-staleness-sec " +
+						"requires parameter mongo-list-read-preference in config file some " +
+						"file section groups"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-list-read-preference=secondary\n" +
+				"mongo-list-max-staleness-sec=89\n",
+				new GroupsConfigurationException("Value 89 of parameter " +
+						"mongo-list-max-staleness-sec in section groups of config file some " +
+						"file must be at least 90"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-list-read-preference=secondaryish\n",
+				new GroupsConfigurationException("Illegal read preference in parameter " +
+						"mongo-list-read-preference in section groups of config file some " +
+						"file: No match for read preference of secondaryish"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"mongo-list-read-preference=primary\n" +
+				"mongo-list-max-staleness-sec=90\n",
+				new GroupsConfigurationException("Illegal read preference in parameter " +
+						"mongo-list-read-preference in section groups of config file some " +
+						"file: Primary read preference can not also specify tag sets, max " +
+						"staleness or hedge"));
+	}
+	
+	@Test
+	public void configFailBadNotifierQueue() throws Throwable {
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"notifier-threads=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"notifier-threads in section groups of config file some file " +
+						"must be at least 1"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"notifier-batch-size=x\n",
+				new GroupsConfigurationException("Value x of parameter " +
+						"notifier-batch-size in section groups of config file some file " +
+						"is not an integer"));
+	}
+	
+	@Test
+	public void configFailBadWSBatchSize() throws Throwable {
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"workspace-batch-size=1.5\n",
+				new GroupsConfigurationException("Value 1.5 of parameter " +
+						"workspace-batch-size in section groups of config file some file is " +
+						"not an integer"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"workspace-info-threads=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"workspace-info-threads in section groups of config file some file " +
+						"must be at least 1"));
+	}
+	
+	@Test
+	public void configFailBadGzipMinSize() throws Throwable {
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"gzip-min-size-bytes=big\n",
+				new GroupsConfigurationException("Value big of parameter " +
+						"gzip-min-size-bytes in section groups of config file some file " +
+						"is not an integer"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"gzip-min-size-bytes=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"gzip-min-size-bytes in section groups of config file some file " +
+						"must be at least 0"));
+	}
+	
+	@Test
+	public void configFailBadMaxListSize() throws Throwable {
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"max-list-size=big\n",
+				new GroupsConfigurationException("Value big of parameter " +
+						"max-list-size in section groups of config file some file " +
+						"is not an integer"));
+		
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"max-list-size=0\n",
+				new GroupsConfigurationException("Value 0 of parameter " +
+						"max-list-size in section groups of config file some file " +
+						"must be at least 1"));
+	}
+	
+	@Test
+	public void configFailBadRequestArchiveAge() throws Throwable {
+		failConfigBoth(
+				"[groups]\n" +
+				"mongo-host=foo\n" +
+				"mongo-db=bar\n" +
+				"notifier-factory=     factoryclass   \n" + 
+				"auth-url=https://auth.com\n" +
+				"catalog-url=     http://cat.com       \n" +
+				"workspace-admin-token=wstoken      \n" +
+				"workspace-url=https://ws.com\n" +
+				"request-archive-age-days=-1\n",
+				new GroupsConfigurationException("Value -1 of parameter " +
+						"request-archive-age-days in section groups of config file some file " +
+						"must be at least 0"));
+	}
+	
 	@Test
 	public void configFailNoWSToken() throws Throwable {
 		failConfigBoth(
@@ -31,6 +31,7 @@ public class GetGroupsParamsTest {
 		assertThat("incorrect role", p.getRole(), is(Role.NONE));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.empty()));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.empty()));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.empty()));
 	}
 	
 	@Test
@@ -38,6 +39,7 @@ public class GetGroupsParamsTest {
 		final GetGroupsParams p = GetGroupsParams.getBuilder()
 				.withNullableExcludeUpTo(null)
 				.withNullableSortAscending(null)
+				.withNullableLimit(null)
 				.build();
 		
 		assertThat("incorrect exclude", p.getExcludeUpTo(), is(Optional.empty()));
@@ -45,6 +47,7 @@ public class GetGroupsParamsTest {
 		assertThat("incorrect role", p.getRole(), is(Role.NONE));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.empty()));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.empty()));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.empty()));
 	}
 	
 	@Test
@@ -60,6 +63,7 @@ public class GetGroupsParamsTest {
 		assertThat("incorrect role", p.getRole(), is(Role.NONE));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.empty()));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.empty()));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.empty()));
 	}
 	
 	@Test
@@ -74,6 +78,7 @@ public class GetGroupsParamsTest {
 		assertThat("incorrect role", p.getRole(), is(Role.NONE));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.empty()));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.empty()));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.empty()));
 	}
 	
 	@Test
@@ -83,6 +88,7 @@ public class GetGroupsParamsTest {
 				.withNullableSortAscending(false)
 				.withRole(Role.ADMIN)
 				.withResource(new ResourceType("t"), new ResourceID("id"))
+				.withNullableLimit(1)
 				.build();
 		
 		assertThat("incorrect exclude", p.getExcludeUpTo(), is(Optional.of("foo")));
@@ -90,6 +96,7 @@ public class GetGroupsParamsTest {
 		assertThat("incorrect role", p.getRole(), is(Role.ADMIN));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.of(new ResourceType("t"))));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.of(new ResourceID("id"))));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.of(1)));
 	}
 	
 	@Test
@@ -102,6 +109,22 @@ public class GetGroupsParamsTest {
 		}
 	}
 	
+	@Test
+	public void withLimitFail() throws Exception {
+		withLimitFail(0);
+		withLimitFail(-1);
+	}
+	
+	private void withLimitFail(final int limit) {
+		try {
+			GetGroupsParams.getBuilder().withNullableLimit(limit);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalArgumentException(
+					"limit must be > 0"));
+		}
+	}
+	
 	@Test
 	public void withResourceFailNulls() throws Exception {
 		withResourceFail(null, new ResourceID("i"), new NullPointerException("type"));
@@ -11,11 +11,14 @@ import org.junit.Test;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
 import us.kbase.groups.core.GetRequestsParams;
+import us.kbase.groups.core.request.RequestID;
 import us.kbase.groups.core.resource.ResourceID;
 import us.kbase.groups.core.resource.ResourceType;
 import us.kbase.test.groups.TestCommon;
 
 public class GetRequestParamsTest {
+	
+	private static final String ID = "f5bd78c2-f5d3-4b1b-8e49-2b2b8c4c4bd5";
 
 	@Test
 	public void equals() throws Exception {
@@ -27,10 +30,12 @@ public class GetRequestParamsTest {
 		final GetRequestsParams p = GetRequestsParams.getBuilder().build();
 		
 		assertThat("incorrect exclude", p.getExcludeUpTo(), is(Optional.empty()));
+		assertThat("incorrect exclude id", p.getExcludeUpToID(), is(Optional.empty()));
 		assertThat("incorrect closed", p.isIncludeClosed(), is(false));
 		assertThat("incorrect sort", p.isSortAscending(), is(true));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.empty()));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.empty()));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.empty()));
 	}
 	
 	@Test
@@ -39,13 +44,16 @@ public class GetRequestParamsTest {
 				.withNullableExcludeUpTo(null)
 				.withNullableIncludeClosed(null)
 				.withNullableSortAscending(null)
+				.withNullableLimit(null)
 				.build();
 		
 		assertThat("incorrect exclude", p.getExcludeUpTo(), is(Optional.empty()));
+		assertThat("incorrect exclude id", p.getExcludeUpToID(), is(Optional.empty()));
 		assertThat("incorrect closed", p.isIncludeClosed(), is(false));
 		assertThat("incorrect sort", p.isSortAscending(), is(true));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.empty()));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.empty()));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.empty()));
 	}
 	
 	@Test
@@ -57,26 +65,78 @@ public class GetRequestParamsTest {
 				.build();
 		
 		assertThat("incorrect exclude", p.getExcludeUpTo(), is(Optional.empty()));
+		assertThat("incorrect exclude id", p.getExcludeUpToID(), is(Optional.empty()));
 		assertThat("incorrect closed", p.isIncludeClosed(), is(false));
 		assertThat("incorrect sort", p.isSortAscending(), is(true));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.empty()));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.empty()));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.empty()));
 	}
 	
 	@Test
 	public void buildMaximal() throws Exception {
 		final GetRequestsParams p = GetRequestsParams.getBuilder()
-				.withNullableExcludeUpTo(inst(10000))
+				.withNullableExcludeUpTo(inst(10000), new RequestID(ID))
 				.withNullableIncludeClosed(true)
 				.withNullableSortAscending(false)
 				.withResource(new ResourceType("t"), new ResourceID("id"))
+				.withNullableLimit(1)
 				.build();
 		
 		assertThat("incorrect exclude", p.getExcludeUpTo(), is(Optional.of(inst(10000))));
+		assertThat("incorrect exclude id", p.getExcludeUpToID(),
+				is(Optional.of(new RequestID(ID))));
 		assertThat("incorrect closed", p.isIncludeClosed(), is(true));
 		assertThat("incorrect sort", p.isSortAscending(), is(false));
 		assertThat("incorrect type", p.getResourceType(), is(Optional.of(new ResourceType("t"))));
 		assertThat("incorrect type", p.getResourceID(), is(Optional.of(new ResourceID("id"))));
+		assertThat("incorrect limit", p.getLimit(), is(Optional.of(1)));
+	}
+	
+	@Test
+	public void buildExcludeUpToOverwrite() throws Exception {
+		final GetRequestsParams p = GetRequestsParams.getBuilder()
+				.withNullableExcludeUpTo(inst(10000), new RequestID(ID))
+				.withNullableExcludeUpTo(inst(20000))
+				.build();
+		
+		assertThat("incorrect exclude", p.getExcludeUpTo(), is(Optional.of(inst(20000))));
+		assertThat("incorrect exclude id", p.getExcludeUpToID(), is(Optional.empty()));
+		
+		final GetRequestsParams p2 = GetRequestsParams.getBuilder()
+				.withNullableExcludeUpTo(inst(10000), new RequestID(ID))
+				.withNullableExcludeUpTo(null, null)
+				.build();
+		
+		assertThat("incorrect exclude", p2.getExcludeUpTo(), is(Optional.empty()));
+		assertThat("incorrect exclude id", p2.getExcludeUpToID(), is(Optional.empty()));
+	}
+	
+	@Test
+	public void withExcludeUpToFail() throws Exception {
+		try {
+			GetRequestsParams.getBuilder().withNullableExcludeUpTo(null, new RequestID(ID));
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalArgumentException(
+					"excludeUpToID cannot be provided without excludeUpTo"));
+		}
+	}
+	
+	@Test
+	public void withLimitFail() throws Exception {
+		withLimitFail(0);
+		withLimitFail(-1);
+	}
+	
+	private void withLimitFail(final int limit) {
+		try {
+			GetRequestsParams.getBuilder().withNullableLimit(limit);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalArgumentException(
+					"limit must be > 0"));
+		}
 	}
 	
 	@Test
@@ -0,0 +1,249 @@
+package us.kbase.test.groups.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static us.kbase.test.groups.TestCommon.inst;
+import static us.kbase.test.groups.TestCommon.set;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import us.kbase.groups.core.CreateAndModTimes;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.Group.Role;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupSummary;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.test.groups.TestCommon;
+
+public class GroupSummaryTest {
+
+	private static final CreateAndModTimes TIMES = new CreateAndModTimes(
+			inst(10000), inst(20000));
+
+	private static GroupSummary.Builder getBuilder() throws Exception {
+		return GroupSummary.getBuilder(
+				new GroupID("id"), new GroupName("name"), new UserName("own"), TIMES);
+	}
+
+	@Test
+	public void equals() throws Exception {
+		EqualsVerifier.forClass(GroupSummary.class).usingGetClass().verify();
+	}
+
+	@Test
+	public void buildMinimal() throws Exception {
+		final GroupSummary s = getBuilder().build();
+
+		assertThat("incorrect id", s.getGroupID(), is(new GroupID("id")));
+		assertThat("incorrect name", s.getGroupName(), is(new GroupName("name")));
+		assertThat("incorrect owner", s.getOwner(), is(new UserName("own")));
+		assertThat("incorrect priv", s.isPrivate(), is(false));
+		assertThat("incorrect privmem", s.isPrivateMemberList(), is(true));
+		assertThat("incorrect admins", s.getAdministrators(), is(set()));
+		assertThat("incorrect member", s.getMember(), is(Optional.empty()));
+		assertThat("incorrect count", s.getMemberCount(), is(1));
+		assertThat("incorrect rescount", s.getResourceCounts(), is(Collections.emptyMap()));
+		assertThat("incorrect create", s.getCreationDate(), is(inst(10000)));
+		assertThat("incorrect mod", s.getModificationDate(), is(inst(20000)));
+		assertThat("incorrect custom", s.getCustomFields(), is(Collections.emptyMap()));
+	}
+
+	@Test
+	public void buildMaximal() throws Exception {
+		final GroupUser m = GroupUser.getBuilder(new UserName("m"), inst(30000)).build();
+		final GroupSummary s = getBuilder()
+				.withIsPrivate(true)
+				.withPrivateMemberList(false)
+				.withAdministrator(new UserName("a1"))
+				.withAdministrator(new UserName("a2"))
+				.withMember(m)
+				.withMemberCount(4)
+				.withResourceCount(new ResourceType("ws"), 3)
+				.withResourceCount(new ResourceType("cat"), 1)
+				.withResourceCount(new ResourceType("gone"), 1)
+				.withResourceCount(new ResourceType("gone"), 0)
+				.withCustomField(new NumberedCustomField("f-1"), "v")
+				.build();
+
+		assertThat("incorrect priv", s.isPrivate(), is(true));
+		assertThat("incorrect privmem", s.isPrivateMemberList(), is(false));
+		assertThat("incorrect admins", s.getAdministrators(),
+				is(set(new UserName("a1"), new UserName("a2"))));
+		assertThat("incorrect member", s.getMember(), is(Optional.of(m)));
+		assertThat("incorrect count", s.getMemberCount(), is(4));
+		assertThat("incorrect rescount", s.getResourceCounts(), is(ImmutableMap.of(
+				new ResourceType("ws"), 3, new ResourceType("cat"), 1)));
+		assertThat("incorrect custom", s.getCustomFields(), is(ImmutableMap.of(
+				new NumberedCustomField("f-1"), "v")));
+
+		assertThat("incorrect role", s.getRole(new UserName("own")), is(Role.OWNER));
+		assertThat("incorrect role", s.getRole(new UserName("a2")), is(Role.ADMIN));
+		assertThat("incorrect role", s.getRole(new UserName("m")), is(Role.MEMBER));
+		assertThat("incorrect role", s.getRole(new UserName("x")), is(Role.NONE));
+		assertThat("incorrect admin", s.isAdministrator(new UserName("own")), is(true));
+		assertThat("incorrect admin", s.isAdministrator(new UserName("a1")), is(true));
+		assertThat("incorrect admin", s.isAdministrator(new UserName("m")), is(false));
+	}
+
+	@Test
+	public void immutable() throws Exception {
+		final GroupSummary s = getBuilder()
+				.withAdministrator(new UserName("a1"))
+				.withMemberCount(2)
+				.withResourceCount(new ResourceType("ws"), 3)
+				.withCustomField(new NumberedCustomField("f-1"), "v")
+				.build();
+		try {
+			s.getAdministrators().add(new UserName("a2"));
+			fail("expected exception");
+		} catch (UnsupportedOperationException e) {
+			// test passed
+		}
+		try {
+			s.getResourceCounts().put(new ResourceType("cat"), 1);
+			fail("expected exception");
+		} catch (UnsupportedOperationException e) {
+			// test passed
+		}
+		try {
+			s.getCustomFields().put(new NumberedCustomField("f-2"), "v");
+			fail("expected exception");
+		} catch (UnsupportedOperationException e) {
+			// test passed
+		}
+	}
+
+	@Test
+	public void from() throws Exception {
+		final ResourceType ws = new ResourceType("ws");
+		final GroupUser m = GroupUser.getBuilder(new UserName("m"), inst(30000))
+				.withNullableLastVisit(inst(40000))
+				.build();
+		final Group g = Group.getBuilder(new GroupID("id"), new GroupName("name"),
+				GroupUser.getBuilder(new UserName("own"), inst(10000)).build(), TIMES)
+				.withIsPrivate(true)
+				.withAdministrator(GroupUser.getBuilder(new UserName("a"), inst(10000)).build())
+				.withMember(m)
+				.withMember(GroupUser.getBuilder(new UserName("m2"), inst(10000)).build())
+				.withResource(ws, new ResourceDescriptor(new ResourceID("1")))
+				.withResource(ws, new ResourceDescriptor(new ResourceID("2")))
+				.withCustomField(new NumberedCustomField("f"), "v")
+				.build();
+
+		final GroupSummary.Builder b = getBuilder()
+				.withIsPrivate(true)
+				.withAdministrator(new UserName("a"))
+				.withMemberCount(4)
+				.withResourceCount(ws, 2)
+				.withCustomField(new NumberedCustomField("f"), "v");
+
+		assertThat("incorrect summary", GroupSummary.from(g, null), is(b.build()));
+		assertThat("incorrect summary", GroupSummary.from(g, new UserName("x")),
+				is(b.build()));
+		assertThat("incorrect summary", GroupSummary.from(g, new UserName("m")),
+				is(b.withMember(m).build()));
+	}
+
+	@Test
+	public void fromFail() throws Exception {
+		try {
+			GroupSummary.from(null, null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("group"));
+		}
+	}
+
+	@Test
+	public void getBuilderFail() throws Exception {
+		final GroupID i = new GroupID("i");
+		final GroupName n = new GroupName("n");
+		final UserName o = new UserName("o");
+		failGetBuilder(null, n, o, TIMES, new NullPointerException("id"));
+		failGetBuilder(i, null, o, TIMES, new NullPointerException("name"));
+		failGetBuilder(i, n, null, TIMES, new NullPointerException("owner"));
+		failGetBuilder(i, n, o, null, new NullPointerException("times"));
+	}
+
+	private void failGetBuilder(
+			final GroupID id,
+			final GroupName name,
+			final UserName owner,
+			final CreateAndModTimes times,
+			final Exception expected) {
+		try {
+			GroupSummary.getBuilder(id, name, owner, times);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void builderFail() throws Exception {
+		final NumberedCustomField f = new NumberedCustomField("f");
+		failBuild(() -> getBuilder().withAdministrator(null),
+				new NullPointerException("admin"));
+		failBuild(() -> getBuilder().withAdministrator(new UserName("own")),
+				new IllegalArgumentException("The owner cannot be an administrator"));
+		failBuild(() -> getBuilder().withMember(null), new NullPointerException("member"));
+		failBuild(() -> getBuilder().withMemberCount(0),
+				new IllegalArgumentException("memberCount must be > 0"));
+		failBuild(() -> getBuilder().withResourceCount(null, 1),
+				new NullPointerException("type"));
+		failBuild(() -> getBuilder().withResourceCount(new ResourceType("t"), -1),
+				new IllegalArgumentException("count must be >= 0"));
+		failBuild(() -> getBuilder().withCustomField(null, "v"),
+				new NullPointerException("field"));
+		failBuild(() -> getBuilder().withCustomField(f, null),
+				new IllegalArgumentException("value cannot be null or whitespace only"));
+		failBuild(() -> getBuilder().withCustomField(f, "   \t  "),
+				new IllegalArgumentException("value cannot be null or whitespace only"));
+		failBuild(() -> getBuilder().withAdministrator(new UserName("a")).build(),
+				new IllegalArgumentException(
+						"memberCount must include the owner and administrators"));
+	}
+
+	private interface FailOp {
+
+		void run() throws Exception;
+	}
+
+	private void failBuild(final FailOp op, final Exception expected) {
+		try {
+			op.run();
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void getRoleFail() throws Exception {
+		try {
+			getBuilder().build().getRole(null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("userName"));
+		}
+		try {
+			getBuilder().build().isAdministrator(null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("user"));
+		}
+	}
+}
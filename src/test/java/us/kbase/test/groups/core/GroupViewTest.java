@@ -8,9 +8,11 @@ import static us.kbase.test.groups.TestCommon.set;
 
 import java.lang.reflect.Constructor;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -24,6 +26,7 @@ import us.kbase.groups.core.Group;
 import us.kbase.groups.core.Group.Builder;
 import us.kbase.groups.core.GroupID;
 import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupSummary;
 import us.kbase.groups.core.GroupUser;
 import us.kbase.groups.core.GroupView;
 import us.kbase.groups.core.GroupView.GroupUserView;
@@ -203,6 +206,26 @@ public class GroupViewTest {
 		assertImmutable(gv.getResourceCounts(), new ResourceType("t"), 7);
 	}
 	
+	@Test
+	public void minimalViewFromSummary() throws Exception {
+		// views built from a summary should be identical to views built from the group
+		final Map<NumberedCustomField, Boolean> fields = ImmutableMap.of(
+				new NumberedCustomField("field"), true);
+		for (final Group g: Arrays.asList(GROUP, PRIVGROUP, PUBMEMBERGROUP)) {
+			for (final UserName u: Arrays.asList(null, new UserName("user"),
+					new UserName("a1"), new UserName("m1"), new UserName("nonmember"))) {
+				assertThat("incorrect view", GroupView.getBuilder(GroupSummary.from(g, u), u)
+						.withMinimalViewFieldDeterminer(f -> fields.containsKey(f))
+						.withPublicFieldDeterminer(f -> fields.containsKey(f))
+						.build(),
+						is(GroupView.getBuilder(g, u)
+								.withMinimalViewFieldDeterminer(f -> fields.containsKey(f))
+								.withPublicFieldDeterminer(f -> fields.containsKey(f))
+								.build()));
+			}
+		}
+	}
+	
 	@Test
 	public void privateMinimalView() throws Exception {
 		final GroupView gv = GroupView.getBuilder(PRIVGROUP, null)
@@ -748,14 +771,187 @@ public class GroupViewTest {
 								new NumberedCustomField("field2"), "val2"))));
 	}
 
+	private Group getVersionTagGroup(final long modDate, final Instant memberVisit)
+			throws Exception {
+		return Group.getBuilder(new GroupID("id"), new GroupName("name"),
+				GroupUser.getBuilder(new UserName("own"), inst(10000)).build(),
+				new CreateAndModTimes(inst(10000), inst(modDate)))
+				.withAdministrator(GroupUser.getBuilder(new UserName("a"), inst(10000))
+						.build())
+				.withMember(GroupUser.getBuilder(new UserName("m1"), inst(10000))
+						.withNullableLastVisit(memberVisit)
+						.build())
+				.withMember(GroupUser.getBuilder(new UserName("m2"), inst(10000)).build())
+				.build();
+	}
+	
+	private Optional<String> tag(final Group g, final String user, final boolean standard)
+			throws Exception {
+		return GroupView.getBuilder(g, user == null ? null : new UserName(user))
+				.withStandardView(standard).build().getVersionTag();
+	}
+	
+	@Test
+	public void versionTag() throws Exception {
+		final Group g = getVersionTagGroup(20000, null);
+		final Group visited = getVersionTagGroup(20000, inst(30000));
+		final Group visited2 = getVersionTagGroup(20000, inst(40000));
+		final Group modded = getVersionTagGroup(20001, null);
+		
+		assertThat("incorrect tag", tag(g, "m1", true).isPresent(), is(true));
+		assertThat("incorrect tag", tag(g, "m1", true), is(tag(g, "m1", true)));
+		assertThat("incorrect tag", tag(g, "m1", true), is(tag(g, "m2", true)));
+		assertThat("incorrect tag", tag(g, null, true), is(tag(g, "x", true)));
+		
+		// modification date
+		assertThat("incorrect tag", tag(g, "m1", true).equals(tag(modded, "m1", true)),
+				is(false));
+		// view type
+		assertThat("incorrect tag", tag(g, "m1", true).equals(tag(g, "m1", false)), is(false));
+		// role
+		assertThat("incorrect tag", tag(g, "m1", true).equals(tag(g, "x", true)), is(false));
+		assertThat("incorrect tag", tag(g, "m1", true).equals(tag(g, "a", true)), is(false));
+		// the user's visit date
+		assertThat("incorrect tag", tag(g, "m1", true).equals(tag(visited, "m1", true)),
+				is(false));
+		// other users' visit dates are only visible to admins
+		assertThat("incorrect tag", tag(g, "m2", true), is(tag(visited, "m2", true)));
+		assertThat("incorrect tag", tag(g, "a", true).equals(tag(visited, "a", true)),
+				is(false));
+		assertThat("incorrect tag", tag(visited, "own", true).equals(
+				tag(visited2, "own", true)), is(false));
+	}
+	
+	private Optional<String> tag(final String memberField, final Object resourceField)
+			throws Exception {
+		final Group g = Group.getBuilder(new GroupID("id"), new GroupName("name"),
+				GroupUser.getBuilder(new UserName("own"), inst(10000)).build(),
+				new CreateAndModTimes(inst(10000), inst(20000)))
+				.withMember(GroupUser.getBuilder(new UserName("m1"), inst(10000))
+						.withCustomField(new NumberedCustomField("f"), memberField)
+						.build())
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("45")))
+				.build();
+		return GroupView.getBuilder(g, new UserName("m1"))
+				.withStandardView(true)
+				.withResource(new ResourceType("workspace"), ResourceInformationSet
+						.getBuilder(new UserName("m1"))
+						.withResourceField(new ResourceID("45"), "f", resourceField)
+						.build())
+				.build().getVersionTag();
+	}
+	
+	@Test
+	public void versionTagUserAndResourceFields() throws Exception {
+		final Map<String, Object> m1 = new LinkedHashMap<>();
+		m1.put("a", 1);
+		m1.put("b", Arrays.asList("x", "y"));
+		final Map<String, Object> m2 = new LinkedHashMap<>();
+		m2.put("b", Arrays.asList("x", "y"));
+		m2.put("a", 1);
+		
+		assertThat("incorrect tag", tag("v", "r").isPresent(), is(true));
+		assertThat("incorrect tag", tag("v", "r"), is(tag("v", "r")));
+		// field ordering in maps is ignored
+		assertThat("incorrect tag", tag("v", m1), is(tag("v", m2)));
+		
+		// member custom fields
+		assertThat("incorrect tag", tag("v", "r").equals(tag("v2", "r")), is(false));
+		// resource information
+		assertThat("incorrect tag", tag("v", "r").equals(tag("v", "r2")), is(false));
+		assertThat("incorrect tag", tag("v", m1).equals(tag("v", ImmutableMap.of("a", 1))),
+				is(false));
+		assertThat("incorrect tag", tag("v", m1).equals(tag("v", ImmutableMap.of(
+				"a", 1, "b", Arrays.asList("y", "x")))), is(false));
+		
+		// values that serialize identically without escaping or types
+		assertThat("incorrect tag", tag("v", ImmutableMap.of("a", "1, b=2")).equals(
+				tag("v", ImmutableMap.of("a", "1", "b", "2"))), is(false));
+		assertThat("incorrect tag", tag("v", Arrays.asList("x, y")).equals(
+				tag("v", Arrays.asList("x", "y"))), is(false));
+		assertThat("incorrect tag", tag("v", 1).equals(tag("v", "1")), is(false));
+		assertThat("incorrect tag", tag("v", null).equals(tag("v", "null")), is(false));
+	}
+	
+	@Test
+	public void versionTagPrivate() throws Exception {
+		assertThat("incorrect tag", tag(PRIVGROUP, "x", true), is(Optional.empty()));
+		assertThat("incorrect tag", tag(PRIVGROUP, null, false), is(Optional.empty()));
+		assertThat("incorrect tag", tag(PRIVGROUP, "m1", true).isPresent(), is(true));
+		assertThat("incorrect tag", GroupView.getBuilder(PRIVGROUP, null)
+				.withOverridePrivateView(true).build().getVersionTag().isPresent(), is(true));
+	}
+	
+	@Test
+	public void unavailableResourceTypes() throws Exception {
+		final ResourceType ws = new ResourceType("workspace");
+		final ResourceType cat = new ResourceType("catalogmethod");
+		final GroupView.Builder b = GroupView.getBuilder(GROUP, new UserName("m1"))
+				.withStandardView(true)
+				.withResource(ws, ResourceInformationSet.getBuilder(new UserName("m1"))
+						.withResource(new ResourceID("45")).build())
+				.withUnavailableResourceType(cat)
+				.withUnavailableResourceType(new ResourceType("bar"));
+		final GroupView gv = b.build();
+		
+		assertThat("incorrect types", gv.getResourceTypes(),
+				is(set(ws, cat, new ResourceType("bar"))));
+		assertThat("incorrect unavailable", gv.getUnavailableResourceTypes(),
+				is(set(cat, new ResourceType("bar"))));
+		assertThat("incorrect info", gv.getResourceInformation(cat),
+				is(ResourceInformationSet.getBuilder(new UserName("m1")).build()));
+		assertThat("incorrect tag", gv.getVersionTag(), is(Optional.empty()));
+		assertImmutable(gv.getUnavailableResourceTypes(), ws);
+		
+		// later calls for a type make it available again
+		final GroupView gv2 = b.withResourceType(new ResourceType("bar"))
+				.withResource(cat, ResourceInformationSet.getBuilder(new UserName("m1")).build())
+				.build();
+		assertThat("incorrect unavailable", gv2.getUnavailableResourceTypes(), is(set()));
+		assertThat("incorrect tag", gv2.getVersionTag().isPresent(), is(true));
+		// previously built views are unaffected
+		assertThat("incorrect unavailable", gv.getUnavailableResourceTypes(),
+				is(set(cat, new ResourceType("bar"))));
+	}
+	
 	@Test
 	public void getBuilderFail() throws Exception {
 		try {
-			GroupView.getBuilder(null, null);
+			GroupView.getBuilder((Group) null, null);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, new NullPointerException("group"));
 		}
+		try {
+			GroupView.getBuilder((GroupSummary) null, null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("summary"));
+		}
+	}
+	
+	@Test
+	public void summaryBuilderFail() throws Exception {
+		final UserName u = new UserName("m1");
+		final GroupView.Builder b = GroupView.getBuilder(GroupSummary.from(GROUP, u), u);
+		final Exception expected = new IllegalArgumentException(
+				"A full group is required for standard views and resource information");
+		try {
+			b.withStandardView(true);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+		try {
+			b.withResource(new ResourceType("workspace"), ResourceInformationSet.getBuilder(u)
+					.withResource(new ResourceID("45")).build());
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+		// minimal views are fine
+		b.withStandardView(false);
 	}
 	
 	@Test
@@ -821,6 +1017,16 @@ public class GroupViewTest {
 		}
 	}
 	
+	@Test
+	public void withUnavailableResourceTypeFail() throws Exception {
+		try {
+			GroupView.getBuilder(GROUP, null).withUnavailableResourceType(null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("type"));
+		}
+	}
+	
 	@Test
 	public void withPublicFieldDeterminerFail() throws Exception {
 		try {
@@ -4,6 +4,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
@@ -21,12 +22,15 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -41,10 +45,12 @@ import us.kbase.groups.core.GetRequestsParams;
 import us.kbase.groups.core.Group;
 import us.kbase.groups.core.GroupCreationParams;
 import us.kbase.groups.core.GroupHasRequests;
+import us.kbase.groups.core.GroupExport;
 import us.kbase.groups.core.GroupID;
 import us.kbase.groups.core.GroupIDAndName;
 import us.kbase.groups.core.GroupIDNameMembership;
 import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupSummary;
 import us.kbase.groups.core.GroupUpdateParams;
 import us.kbase.groups.core.GroupUser;
 import us.kbase.groups.core.GroupView;
@@ -55,6 +61,7 @@ import us.kbase.groups.core.Token;
 import us.kbase.groups.core.UUIDGenerator;
 import us.kbase.groups.core.UserHandler;
 import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.VersionedGroupView;
 import us.kbase.groups.core.Group.Role;
 import us.kbase.groups.core.exceptions.AuthenticationException;
 import us.kbase.groups.core.exceptions.ClosedRequestException;
@@ -80,6 +87,8 @@ import us.kbase.groups.core.fieldvalidation.FieldConfiguration;
 import us.kbase.groups.core.fieldvalidation.FieldValidators;
 import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
 import us.kbase.groups.core.notifications.Notifications;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.notifications.OutboxNotification.Operation;
 import us.kbase.groups.core.request.GroupRequest;
 import us.kbase.groups.core.request.GroupRequestStatus;
 import us.kbase.groups.core.request.GroupRequestUserAction;
@@ -90,11 +99,14 @@ import us.kbase.groups.core.resource.ResourceAccess;
 import us.kbase.groups.core.resource.ResourceAdministrativeID;
 import us.kbase.groups.core.resource.ResourceDescriptor;
 import us.kbase.groups.core.resource.ResourceHandler;
+import us.kbase.groups.core.resource.ResourceHandlerExecutor;
 import us.kbase.groups.core.resource.ResourceID;
 import us.kbase.groups.core.resource.ResourceInformation;
 import us.kbase.groups.core.resource.ResourceInformationSet;
 import us.kbase.groups.core.resource.ResourceType;
 import us.kbase.groups.storage.GroupsStorage;
+import us.kbase.groups.storage.GroupsStorage.GroupSummaryConsumer;
+import us.kbase.groups.storage.ResourceReaper;
 import us.kbase.test.groups.TestCommon;
 
 public class GroupsTest {
@@ -117,6 +129,34 @@ public class GroupsTest {
 	}
 	
 	private static TestMocks initTestMocks() throws Exception {
+		return initTestMocks(null, new ResourceHandlerExecutor());
+	}
+	
+	private static TestMocks initTestMocks(final ResourceReaper reaper) throws Exception {
+		return initTestMocks(reaper, new ResourceHandlerExecutor());
+	}
+	
+	private static TestMocks initTestMocks(final ResourceHandlerExecutor executor)
+			throws Exception {
+		return initTestMocks(null, executor);
+	}
+	
+	private static TestMocks initTestMocks(
+			final ResourceReaper reaper,
+			final ResourceHandlerExecutor executor)
+			throws Exception {
+		return initTestMocks(reaper, executor, false);
+	}
+	
+	private static TestMocks initOutboxTestMocks() throws Exception {
+		return initTestMocks(null, new ResourceHandlerExecutor(), true);
+	}
+	
+	private static TestMocks initTestMocks(
+			final ResourceReaper reaper,
+			final ResourceHandlerExecutor executor,
+			final boolean notificationOutbox)
+			throws Exception {
 		final GroupsStorage storage = mock(GroupsStorage.class);
 		final UserHandler uh = mock(UserHandler.class);
 		final ResourceHandler wh = mock(ResourceHandler.class);
@@ -129,7 +169,8 @@ public class GroupsTest {
 		
 		final Constructor<Groups> c = Groups.class.getDeclaredConstructor(
 				GroupsStorage.class, UserHandler.class, Map.class, FieldValidators.class,
-				Notifications.class, UUIDGenerator.class, Clock.class);
+				Notifications.class, boolean.class, ResourceReaper.class,
+				ResourceHandlerExecutor.class, UUIDGenerator.class, Clock.class);
 		c.setAccessible(true);
 		final Groups instance = c.newInstance(
 				storage,
@@ -139,6 +180,9 @@ public class GroupsTest {
 						new ResourceType("catalogmethod"), ch),
 				val,
 				notis,
+				notificationOutbox,
+				reaper,
+				executor,
 				uuidGen,
 				clock);
 		return new TestMocks(instance, storage, uh, wh, ch, val, notis, uuidGen, clock);
@@ -201,6 +245,18 @@ public class GroupsTest {
 						"resourceHandlers cannot contain built in type user"));
 	}
 	
+	@Test
+	public void constructFailNullHandlerExecutor() throws Exception {
+		try {
+			new Groups(mock(GroupsStorage.class), mock(UserHandler.class),
+					Collections.emptyMap(), mock(FieldValidators.class),
+					mock(Notifications.class), false, null, null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("handlerExecutor"));
+		}
+	}
+	
 	private void failConstruct(
 			final GroupsStorage storage,
 			final UserHandler userHandler,
@@ -1069,6 +1125,123 @@ public class GroupsTest {
 				.build()));
 	}
 	
+	@Test
+	public void getGroupWithNonexistentResourcesAndReaper() throws Exception {
+		final ResourceReaper reaper = mock(ResourceReaper.class);
+		final TestMocks mocks = initTestMocks(reaper);
+		
+		when(mocks.storage.getGroup(new GroupID("bar"))).thenReturn(Group.getBuilder(
+				new GroupID("bar"), new GroupName("name"), toGUser("foo"),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("92")))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("6")))
+				.build());
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("foo"));
+		when(mocks.wsHandler.getResourceInformation(new UserName("foo"),
+				set(new ResourceID("92"), new ResourceID("6")), ResourceAccess.ALL))
+				.thenReturn(ResourceInformationSet.getBuilder(new UserName("foo"))
+						.withResourceField(new ResourceID("92"), "name", "my ws")
+						.withNonexistentResource(new ResourceID("6"))
+						.build());
+		
+		final GroupView g = mocks.groups.getGroup(new Token("token"), new GroupID("bar"));
+		
+		verify(reaper).reap(new GroupID("bar"), new ResourceType("workspace"),
+				set(new ResourceID("6")));
+		verify(mocks.storage, never()).removeResources(any(), any(), any(), any());
+		
+		assertThat("incorrect group", g, is(GroupView.getBuilder(Group.getBuilder(
+				new GroupID("bar"), new GroupName("name"), toGUser("foo"),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("92")))
+				.build(),
+				new UserName("foo"))
+						.withStandardView(true)
+						.withResourceType(new ResourceType("workspace"))
+						.withResourceType(new ResourceType("catalogmethod"))
+						.withResource(new ResourceType("workspace"), ResourceInformationSet
+								.getBuilder(new UserName("foo"))
+								.withResourceField(new ResourceID("92"), "name", "my ws")
+								.build())
+						.build()));
+	}
+	
+	private Group getGroupForUnavailableResources() throws Exception {
+		return Group.getBuilder(
+				new GroupID("bar"), new GroupName("name"), toGUser("foo"),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("92")))
+				.withResource(new ResourceType("catalogmethod"),
+						new ResourceDescriptor(new ResourceID("mod.meth")))
+				.build();
+	}
+	
+	private GroupView getUnavailableWorkspaceView() throws Exception {
+		return GroupView.getBuilder(getGroupForUnavailableResources(), new UserName("foo"))
+				.withStandardView(true)
+				.withUnavailableResourceType(new ResourceType("workspace"))
+				.withResource(new ResourceType("catalogmethod"), ResourceInformationSet
+						.getBuilder(new UserName("foo"))
+						.withResourceField(new ResourceID("mod.meth"), "name", "my meth")
+						.build())
+				.build();
+	}
+	
+	@Test
+	public void getGroupWithUnavailableResources() throws Exception {
+		final ResourceReaper reaper = mock(ResourceReaper.class);
+		final TestMocks mocks = initTestMocks(reaper);
+		
+		when(mocks.storage.getGroup(new GroupID("bar")))
+				.thenReturn(getGroupForUnavailableResources());
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("foo"));
+		when(mocks.wsHandler.getResourceInformation(new UserName("foo"),
+				set(new ResourceID("92")), ResourceAccess.ALL))
+				.thenThrow(new ResourceHandlerException("The workspace service is unavailable"));
+		when(mocks.catHandler.getResourceInformation(new UserName("foo"),
+				set(new ResourceID("mod.meth")), ResourceAccess.ALL))
+				.thenReturn(ResourceInformationSet.getBuilder(new UserName("foo"))
+						.withResourceField(new ResourceID("mod.meth"), "name", "my meth")
+						.build());
+		
+		final GroupView g = mocks.groups.getGroup(new Token("token"), new GroupID("bar"));
+		
+		assertThat("incorrect group", g, is(getUnavailableWorkspaceView()));
+		assertThat("incorrect unavailable", g.getUnavailableResourceTypes(),
+				is(set(new ResourceType("workspace"))));
+		verifyZeroInteractions(reaper);
+	}
+	
+	@Test
+	public void getGroupWithUnavailableResourcesTimeout() throws Exception {
+		final ResourceHandlerExecutor exec = new ResourceHandlerExecutor(2, 100);
+		final TestMocks mocks = initTestMocks(exec);
+		
+		when(mocks.storage.getGroup(new GroupID("bar")))
+				.thenReturn(getGroupForUnavailableResources());
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("foo"));
+		when(mocks.wsHandler.getResourceInformation(new UserName("foo"),
+				set(new ResourceID("92")), ResourceAccess.ALL))
+				.thenAnswer(inv -> {
+					Thread.sleep(5000);
+					return ResourceInformationSet.getBuilder(new UserName("foo")).build();
+				});
+		when(mocks.catHandler.getResourceInformation(new UserName("foo"),
+				set(new ResourceID("mod.meth")), ResourceAccess.ALL))
+				.thenReturn(ResourceInformationSet.getBuilder(new UserName("foo"))
+						.withResourceField(new ResourceID("mod.meth"), "name", "my meth")
+						.build());
+		
+		final GroupView g = mocks.groups.getGroup(new Token("token"), new GroupID("bar"));
+		
+		assertThat("incorrect group", g, is(getUnavailableWorkspaceView()));
+		exec.shutdown(5000);
+	}
+	
 	@Test
 	public void getGroupMemberTokenWithNonexistentResources() throws Exception {
 		// tests non existent resource code
@@ -1124,7 +1297,6 @@ public class GroupsTest {
 						.withResourceField(new ResourceID("6"), "name", "my other ws")
 						.withResourceField(new ResourceID("57"), "name", "my ws2")
 						.withNonexistentResource(new ResourceID("34"))
-						// will throw error, should ignore
 						.withNonexistentResource(new ResourceID("86"))
 						.build());
 		when(mocks.catHandler.getResourceInformation(
@@ -1134,15 +1306,12 @@ public class GroupsTest {
 						.withResource(new ResourceID("mod2.meth2"))
 						.build());
 		when(mocks.clock.instant()).thenReturn(inst(5600));
-		doThrow(new NoSuchResourceException("86")).when(mocks.storage)
-				.removeResource(new GroupID("bar"), new ResourceType("workspace"),
-						new ResourceID("86"), inst(5600));
 		// no config returns needed since user is member GroupView won't check
 		
 		final GroupView g = mocks.groups.getGroup(new Token("token"), new GroupID("bar"));
 		
-		verify(mocks.storage).removeResource(new GroupID("bar"), new ResourceType("workspace"),
-				new ResourceID("34"), inst(5600));
+		verify(mocks.storage).removeResources(new GroupID("bar"), new ResourceType("workspace"),
+				set(new ResourceID("34"), new ResourceID("86")), inst(5600));
 		
 		assertThat("incorrect group", g, is(GroupView.getBuilder(Group.getBuilder(
 				new GroupID("bar"), new GroupName("name"),
@@ -1270,6 +1439,109 @@ public class GroupsTest {
 		}
 	}
 	
+	private Group getGroupForVersionTag() throws Exception {
+		return Group.getBuilder(
+				new GroupID("bar"), new GroupName("name"), toGUser("foo"),
+				new CreateAndModTimes(inst(10000), inst(20000)))
+				.withMember(toGUser("baz"))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("92")))
+				.build();
+	}
+	
+	private String getVersionTag(final Group grp, final String wsName) throws Exception {
+		return GroupView.getBuilder(grp, new UserName("baz"))
+				.withStandardView(true)
+				.withResourceType(new ResourceType("catalogmethod"))
+				.withResource(new ResourceType("workspace"), ResourceInformationSet
+						.getBuilder(new UserName("baz"))
+						.withResourceField(new ResourceID("92"), "name", wsName)
+						.build())
+				.build().getVersionTag().get();
+	}
+	
+	@Test
+	public void getGroupIfChangedMatch() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		final Group grp = getGroupForVersionTag();
+		final String tag = getVersionTag(grp, "my ws");
+		
+		when(mocks.storage.getGroup(new GroupID("bar"))).thenReturn(grp);
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("baz"));
+		when(mocks.wsHandler.getResourceInformation(
+				new UserName("baz"), set(new ResourceID("92")), ResourceAccess.ALL))
+				.thenReturn(ResourceInformationSet.getBuilder(new UserName("baz"))
+						.withResourceField(new ResourceID("92"), "name", "my ws")
+						.build());
+		
+		assertThat("incorrect view", mocks.groups.getGroupIfChanged(
+				new Token("token"), new GroupID("bar"), set("whee", tag)),
+				is(Optional.empty()));
+	}
+	
+	@Test
+	public void getGroupIfChangedResourceChanged() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		final Group grp = getGroupForVersionTag();
+		// the workspace was renamed without changing the group
+		final String tag = getVersionTag(grp, "old ws");
+		
+		when(mocks.storage.getGroup(new GroupID("bar"))).thenReturn(grp);
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("baz"));
+		when(mocks.wsHandler.getResourceInformation(
+				new UserName("baz"), set(new ResourceID("92")), ResourceAccess.ALL))
+				.thenReturn(ResourceInformationSet.getBuilder(new UserName("baz"))
+						.withResourceField(new ResourceID("92"), "name", "my ws")
+						.build());
+		
+		final Optional<VersionedGroupView> view = mocks.groups.getGroupIfChanged(
+				new Token("token"), new GroupID("bar"), set(tag));
+		
+		assertThat("incorrect tag", view.get().getVersionTag().get(),
+				is(getVersionTag(grp, "my ws")));
+	}
+	
+	@Test
+	public void getGroupIfChangedNoMatch() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		final Group grp = getGroupForVersionTag();
+		// different user, so a different tag
+		final String tag = GroupView.getBuilder(grp, new UserName("foo"))
+				.withStandardView(true).build().getVersionTag().get();
+		
+		when(mocks.storage.getGroup(new GroupID("bar"))).thenReturn(grp);
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("baz"));
+		when(mocks.wsHandler.getResourceInformation(
+				new UserName("baz"), set(new ResourceID("92")), ResourceAccess.ALL))
+				.thenReturn(ResourceInformationSet.getBuilder(new UserName("baz"))
+						.withResourceField(new ResourceID("92"), "name", "my ws")
+						.build());
+		
+		final Optional<VersionedGroupView> view = mocks.groups.getGroupIfChanged(
+				new Token("token"), new GroupID("bar"), set(tag));
+		
+		assertThat("incorrect view", view, is(Optional.of(VersionedGroupView.of(
+				GroupView.getBuilder(grp, new UserName("baz"))
+						.withStandardView(true)
+						.withResourceType(new ResourceType("catalogmethod"))
+						.withResource(new ResourceType("workspace"), ResourceInformationSet
+								.getBuilder(new UserName("baz"))
+								.withResourceField(new ResourceID("92"), "name", "my ws")
+								.build())
+						.build()))));
+		assertThat("incorrect tag", view.get().getVersionTag().get().equals(tag), is(false));
+	}
+	
+	@Test
+	public void getGroupIfChangedFailNull() throws Exception {
+		try {
+			initTestMocks().groups.getGroupIfChanged(null, new GroupID("bar"), null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("versionTags"));
+		}
+	}
+	
 	@Test
 	public void getGroupExists() throws Exception {
 		final TestMocks mocks = initTestMocks();
@@ -1422,10 +1694,11 @@ public class GroupsTest {
 		final TestMocks mocks = initTestMocks();
 		
 		when(mocks.userHandler.getUser(new Token("tok"))).thenReturn(new UserName("u"));
-		when(mocks.storage.getGroup(new GroupID("id1"))).thenReturn(groupWithAdmin("id1", "u"));
-		when(mocks.storage.getGroup(new GroupID("id2"))).thenReturn(groupWithAdmin("id2", "u"));
-		when(mocks.storage.groupHasRequest(new GroupID("id1"), null)).thenReturn(false);
-		when(mocks.storage.groupHasRequest(new GroupID("id2"), null)).thenReturn(true);
+		final Set<GroupID> ids = set(new GroupID("id1"), new GroupID("id2"));
+		when(mocks.storage.getGroupSummaries(ids, new UserName("u"))).thenReturn(set(
+				adminSummary("id1", "u", null), adminSummary("id2", "u", null)));
+		when(mocks.storage.getLatestOpenRequestDates(ids)).thenReturn(ImmutableMap.of(
+				new GroupID("id2"), inst(10000)));
 		
 		assertThat("incorrect request state", mocks.groups.groupsHaveRequests(
 				new Token("tok"), set(new GroupID("id1"), new GroupID("id2"))),
@@ -1439,40 +1712,39 @@ public class GroupsTest {
 		final TestMocks mocks = initTestMocks();
 		
 		when(mocks.userHandler.getUser(new Token("tok"))).thenReturn(new UserName("u"));
-		when(mocks.storage.getGroup(new GroupID("id1"))).thenReturn(
-				groupWithAdmin("id1", "u", inst(25000)));
-		when(mocks.storage.getGroup(new GroupID("id2"))).thenReturn(
-				groupWithAdmin("id2", "u", inst(56000)));
-		when(mocks.storage.getGroup(new GroupID("id3"))).thenReturn(
-				groupWithAdmin("id3", "u", inst(35000)));
-		when(mocks.storage.groupHasRequest(new GroupID("id1"), inst(25000))).thenReturn(false);
-		when(mocks.storage.groupHasRequest(new GroupID("id1"), null)).thenReturn(true);
-		when(mocks.storage.groupHasRequest(new GroupID("id2"), inst(56000))).thenReturn(true);
-		when(mocks.storage.groupHasRequest(new GroupID("id3"), inst(35000))).thenReturn(false);
-		when(mocks.storage.groupHasRequest(new GroupID("id3"), null)).thenReturn(false);
+		final Set<GroupID> ids = set(new GroupID("id1"), new GroupID("id2"), new GroupID("id3"),
+				new GroupID("id4"));
+		when(mocks.storage.getGroupSummaries(ids, new UserName("u"))).thenReturn(set(
+				adminSummary("id1", "u", inst(25000)),
+				adminSummary("id2", "u", inst(56000)),
+				adminSummary("id3", "u", inst(35000)),
+				adminSummary("id4", "u", inst(35000))));
+		when(mocks.storage.getLatestOpenRequestDates(ids)).thenReturn(ImmutableMap.of(
+				new GroupID("id1"), inst(20000),
+				new GroupID("id2"), inst(56001),
+				new GroupID("id4"), inst(35000)));
 		
 		assertThat("incorrect request state", mocks.groups.groupsHaveRequests(
-				new Token("tok"), set(new GroupID("id1"), new GroupID("id2"), new GroupID("id3"))),
+				new Token("tok"), ids),
 				is(ImmutableMap.of(
 						new GroupID("id1"), GroupHasRequests.OLD,
 						new GroupID("id2"), GroupHasRequests.NEW,
-						new GroupID("id3"), GroupHasRequests.NONE)));
-	}
-	
-	private Group groupWithAdmin(final String id, final String adminName) throws Exception {
-		return groupWithAdmin(id, adminName, null);
+						new GroupID("id3"), GroupHasRequests.NONE,
+						new GroupID("id4"), GroupHasRequests.OLD)));
 	}
 	
-	private Group groupWithAdmin(
+	private GroupSummary adminSummary(
 			final String id,
 			final String adminName,
 			final Instant lastVisit) throws Exception {
-		return Group.getBuilder(new GroupID(id), new GroupName("n"), toGUser("o"),
-				new CreateAndModTimes(inst(1000)))
-				.withAdministrator(GroupUser.getBuilder(new UserName(adminName), inst(10000))
+		final UserName admin = new UserName(adminName);
+		return GroupSummary.from(Group.getBuilder(new GroupID(id), new GroupName("n"),
+				toGUser("o"), new CreateAndModTimes(inst(1000)))
+				.withAdministrator(GroupUser.getBuilder(admin, inst(10000))
 						.withNullableLastVisit(lastVisit)
 						.build())
-				.build();
+				.build(),
+				new UserName("u"));
 	}
 	
 	@Test
@@ -1494,9 +1766,11 @@ public class GroupsTest {
 				.collect(Collectors.toSet());
 
 		when(mocks.userHandler.getUser(new Token("tok"))).thenReturn(new UserName("u"));
+		final Set<GroupSummary> summaries = new HashSet<>();
 		for (final GroupID g: ids) {
-			when(mocks.storage.getGroup(g)).thenReturn(groupWithAdmin(g.getName(), "u"));
+			summaries.add(adminSummary(g.getName(), "u", null));
 		}
+		when(mocks.storage.getGroupSummaries(ids, new UserName("u"))).thenReturn(summaries);
 		
 		mocks.groups.groupsHaveRequests(new Token("tok"), ids);
 		
@@ -1510,13 +1784,15 @@ public class GroupsTest {
 		final TestMocks mocks = initTestMocks();
 		
 		when(mocks.userHandler.getUser(new Token("tok"))).thenReturn(new UserName("u"));
-		when(mocks.storage.getGroup(new GroupID("id1"))).thenReturn(groupWithAdmin("id1", "u"));
-		when(mocks.storage.getGroup(new GroupID("id2"))).thenReturn(groupWithAdmin("id2", "u2"));
-		when(mocks.storage.getGroup(new GroupID("id3"))).thenReturn(groupWithAdmin("id3", "u"));
+		final Set<GroupID> ids = set(new GroupID("id1"), new GroupID("id2"), new GroupID("id3"));
+		when(mocks.storage.getGroupSummaries(ids, new UserName("u"))).thenReturn(set(
+				adminSummary("id1", "u", null),
+				adminSummary("id2", "u2", null),
+				adminSummary("id3", "u", null)));
 		
-		failGroupsHaveRequests(mocks.groups, new Token("tok"),
-				set(new GroupID("id1"), new GroupID("id2"), new GroupID("id3")),
+		failGroupsHaveRequests(mocks.groups, new Token("tok"), ids,
 				new UnauthorizedException("User u may not administrate group id2"));
+		verify(mocks.storage, never()).getLatestOpenRequestDates(any());
 	}
 	
 	private void failGroupsHaveRequests(
@@ -1532,11 +1808,16 @@ public class GroupsTest {
 		}
 	}
 
+	private List<GroupSummary> summaries(final UserName user, final Group... groups) {
+		return Arrays.stream(groups).map(g -> GroupSummary.from(g, user))
+				.collect(Collectors.toList());
+	}
+	
 	@Test
 	public void getGroupsEmpty() throws Exception {
 		final TestMocks mocks = initTestMocks();
 		
-		when(mocks.storage.getGroups(GetGroupsParams.getBuilder()
+		when(mocks.storage.getGroupSummaries(GetGroupsParams.getBuilder()
 				.withNullableExcludeUpTo("ex")
 				.withNullableSortAscending(false)
 				.build(),
@@ -1555,12 +1836,12 @@ public class GroupsTest {
 	public void getGroups() throws Exception {
 		final TestMocks mocks = initTestMocks();
 		
-		when(mocks.storage.getGroups(GetGroupsParams.getBuilder()
+		when(mocks.storage.getGroupSummaries(GetGroupsParams.getBuilder()
 				.withNullableExcludeUpTo("someex")
 				.build(),
 				false,
 				null))
-				.thenReturn(Arrays.asList(
+				.thenReturn(summaries(null,
 						Group.getBuilder(
 								new GroupID("id1"), new GroupName("name1"), toGUser("u1"),
 								new CreateAndModTimes(
@@ -1639,8 +1920,12 @@ public class GroupsTest {
 				.withCustomField(new NumberedCustomField("missingmin"), "missingonmin")
 				.withCustomField(new NumberedCustomField("missingpub"), "missingonpub")
 				.build();
-		when(mocks.storage.getGroups(eq(mtparams), eq(false), any()))
-				.thenReturn(Arrays.asList(grp));
+		when(mocks.storage.getGroupSummaries(mtparams, false, null))
+				.thenReturn(summaries(null, grp));
+		when(mocks.storage.getGroupSummaries(mtparams, false, new UserName("m1")))
+				.thenReturn(summaries(new UserName("m1"), grp));
+		when(mocks.storage.getGroupSummaries(mtparams, false, new UserName("m2")))
+				.thenReturn(summaries(new UserName("m2"), grp));
 		when(mocks.storage.getGroups(Arrays.asList(new GroupID("id1")))).thenReturn(set(grp));
 		
 		when(mocks.validators.getConfigOrEmpty(new CustomField("minpub"))).thenReturn(
@@ -1775,9 +2060,9 @@ public class GroupsTest {
 				.build();
 		
 		when(mocks.userHandler.getUser(new Token("t1"))).thenReturn(new UserName("m1"));
-		when(mocks.storage.getGroups(ggp, false, null)).thenReturn(Arrays.asList(g1, g3));
-		when(mocks.storage.getGroups(ggp, false, new UserName("m1")))
-				.thenReturn(Arrays.asList(g1, g2, g3));
+		when(mocks.storage.getGroupSummaries(ggp, false, null)).thenReturn(summaries(null, g1, g3));
+		when(mocks.storage.getGroupSummaries(ggp, false, new UserName("m1")))
+				.thenReturn(summaries(new UserName("m1"), g1, g2, g3));
 		
 		assertThat("incorrect groups", mocks.groups.getGroups(null, ggp),
 				is(Arrays.asList(GroupView.getBuilder(g1, null).build(),
@@ -1800,8 +2085,8 @@ public class GroupsTest {
 				.build();
 		
 		when(mocks.userHandler.getUser(new Token("t1"))).thenReturn(new UserName("m1"));
-		when(mocks.storage.getGroups(any(), eq(false), eq(new UserName("m1"))))
-				.thenReturn(Arrays.asList(g1));
+		when(mocks.storage.getGroupSummaries(any(), eq(false), eq(new UserName("m1"))))
+				.thenReturn(summaries(new UserName("m1"), g1));
 		
 		for (final Role r: Role.values()) {
 			assertThat("incorrect groups", mocks.groups.getGroups(
@@ -1833,8 +2118,9 @@ public class GroupsTest {
 		when(mocks.userHandler.getUser(new Token("t1"))).thenReturn(new UserName("m1"));
 		when(mocks.wsHandler.isPublic(new ResourceID("86"))).thenReturn(resourceIsPublic);
 		
-		when(mocks.storage.getGroups(any(), eq(resourceIsPublic), eq(new UserName("m1"))))
-				.thenReturn(Arrays.asList(g1));
+		when(mocks.storage.getGroupSummaries(
+				any(), eq(resourceIsPublic), eq(new UserName("m1"))))
+				.thenReturn(summaries(new UserName("m1"), g1));
 		
 		assertThat("incorrect groups", mocks.groups.getGroups(
 				new Token("t1"), GetGroupsParams.getBuilder()
@@ -1869,6 +2155,142 @@ public class GroupsTest {
 		}
 	}
 	
+	private void mockExport(
+			final TestMocks mocks,
+			final GetGroupsParams params,
+			final boolean resourceIsPublic,
+			final UserName user,
+			final List<GroupSummary> summaries)
+			throws Exception {
+		doAnswer(inv -> {
+			final GroupSummaryConsumer c = inv.getArgument(3);
+			for (final GroupSummary s: summaries) {
+				c.accept(s);
+			}
+			return null;
+		}).when(mocks.storage).exportGroupSummaries(
+				eq(params), eq(resourceIsPublic), eq(user), any());
+	}
+	
+	private List<GroupView> export(final GroupExport export) throws Exception {
+		final List<GroupView> ret = new LinkedList<>();
+		export.writeTo(g -> ret.add(g));
+		return ret;
+	}
+	
+	@Test
+	public void exportGroupsEmpty() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		final GetGroupsParams ggp = GetGroupsParams.getBuilder()
+				.withNullableExcludeUpTo("ex")
+				.withNullableSortAscending(false)
+				.build();
+		
+		mockExport(mocks, ggp, false, null, Collections.emptyList());
+		
+		assertThat("incorrect groups", export(mocks.groups.exportGroups(null, ggp)),
+				is(Collections.emptyList()));
+	}
+	
+	@Test
+	public void exportGroups() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		
+		final GetGroupsParams ggp = GetGroupsParams.getBuilder().withNullableLimit(3).build();
+		
+		final Group g1 = Group.getBuilder(new GroupID("g1"), new GroupName("n1"),
+				GroupUser.getBuilder(new UserName("o1"), inst(10000)).build(),
+				new CreateAndModTimes(inst(1000)))
+				.build();
+		final Group g2 = Group.getBuilder(new GroupID("g2"), new GroupName("n2"),
+				GroupUser.getBuilder(new UserName("o2"), inst(10000)).build(),
+				new CreateAndModTimes(inst(1000)))
+				.withIsPrivate(true)
+				.withMember(GroupUser.getBuilder(new UserName("m1"), inst(20000)).build())
+				.build();
+		
+		when(mocks.userHandler.getUser(new Token("t1"))).thenReturn(new UserName("m1"));
+		mockExport(mocks, ggp, false, new UserName("m1"), summaries(new UserName("m1"), g1, g2));
+		
+		final GroupExport export = mocks.groups.exportGroups(new Token("t1"), ggp);
+		
+		// nothing is read from storage until the export is written
+		verify(mocks.storage, never()).exportGroupSummaries(any(), eq(false), any(), any());
+		
+		assertThat("incorrect groups", export(export),
+				is(Arrays.asList(GroupView.getBuilder(g1, new UserName("m1")).build(),
+						GroupView.getBuilder(g2, new UserName("m1")).build())));
+	}
+	
+	@Test
+	public void exportGroupsWithResourceTrue() throws Exception {
+		exportGroupsWithResource(true);
+	}
+
+	@Test
+	public void exportGroupsWithResourceFalse() throws Exception {
+		exportGroupsWithResource(false);
+	}
+	
+	private void exportGroupsWithResource(final boolean resourceIsPublic) throws Exception {
+		final TestMocks mocks = initTestMocks();
+		
+		final Group g1 = Group.getBuilder(new GroupID("g1"), new GroupName("n1"),
+				GroupUser.getBuilder(new UserName("o1"), inst(10000)).build(),
+				new CreateAndModTimes(inst(1000)))
+				.build();
+		final GetGroupsParams ggp = GetGroupsParams.getBuilder()
+				.withResource(new ResourceType("workspace"), new ResourceID("86"))
+				.build();
+		
+		when(mocks.wsHandler.isPublic(new ResourceID("86"))).thenReturn(resourceIsPublic);
+		mockExport(mocks, ggp, resourceIsPublic, null, summaries(null, g1));
+		
+		assertThat("incorrect groups", export(mocks.groups.exportGroups(null, ggp)),
+				is(Arrays.asList(GroupView.getBuilder(g1, null).build())));
+	}
+	
+	@Test
+	public void exportGroupsFailBadArgs() throws Exception {
+		exportGroupsFail(new Token("t"), null, new NullPointerException("params"));
+		for (final Role r: set(Role.MEMBER, Role.ADMIN, Role.OWNER)) {
+				exportGroupsFail(null, GetGroupsParams.getBuilder().withRole(r).build(),
+						new UnauthorizedException(
+								"A token is required when filtering groups by role"));
+		}
+	}
+	
+	@Test
+	public void exportGroupsFailNoResourceType() throws Exception {
+		exportGroupsFail(null, GetGroupsParams.getBuilder()
+				.withResource(new ResourceType("t"), new ResourceID("i")).build(),
+				new NoSuchResourceTypeException("t"));
+	}
+	
+	@Test
+	public void exportGroupsFailNullConsumer() throws Exception {
+		final GroupExport export = initTestMocks().groups.exportGroups(
+				null, GetGroupsParams.getBuilder().build());
+		try {
+			export.writeTo(null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("consumer"));
+		}
+	}
+	
+	private void exportGroupsFail(
+			final Token t,
+			final GetGroupsParams p,
+			final Exception expected) {
+		try {
+			initTestMocks().groups.exportGroups(t, p);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
 	@Test
 	public void getGroupsByIDsEmpty() throws Exception {
 		assertThat("incorrect groups",
@@ -1982,6 +2404,41 @@ public class GroupsTest {
 		
 	}
 	
+	@Test
+	public void requestGroupMembershipOutbox() throws Exception {
+		final TestMocks mocks = initOutboxTestMocks();
+		final UUID id = UUID.randomUUID();
+		final UUID nid = UUID.randomUUID();
+		
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("foo"));
+		when(mocks.storage.getGroup(new GroupID("bar"))).thenReturn(Group.getBuilder(
+				new GroupID("bar"), new GroupName("name"), toGUser("own"),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withMember(toGUser("u1"))
+				.build());
+		when(mocks.clock.instant()).thenReturn(Instant.ofEpochMilli(10000));
+		when(mocks.uuidGen.randomUUID()).thenReturn(id, nid);
+		
+		final GroupRequest req = mocks.groups.requestGroupMembership(
+				new Token("token"), new GroupID("bar"));
+		
+		final GroupRequest expected = GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("bar"), new UserName("foo"),
+				CreateModAndExpireTimes.getBuilder(
+						Instant.ofEpochMilli(10000), Instant.ofEpochMilli(1209610000))
+						.build())
+				.build();
+		// the notification is stored with the request
+		verify(mocks.storage).storeRequest(expected, OutboxNotification.getBuilder(
+				nid, Operation.NOTIFY, Instant.ofEpochMilli(10000), expected)
+				.withTargets(set(new UserName("own")))
+				.build());
+		verify(mocks.storage, never()).storeRequest(any());
+		verifyZeroInteractions(mocks.notifs);
+		
+		assertThat("incorrect request", req, is(expected));
+	}
+	
 	@Test
 	public void requestGroupMembership() throws Exception {
 		final TestMocks mocks = initTestMocks();
@@ -3578,6 +4035,81 @@ public class GroupsTest {
 						)));
 	}
 	
+	@Test
+	public void getRequestsForTargetConcurrentHandlers() throws Exception {
+		final ResourceHandlerExecutor exec = new ResourceHandlerExecutor(2, 5000);
+		final TestMocks mocks = initTestMocks(exec);
+		// each handler waits for the other to start, so fails unless they run concurrently
+		final CountDownLatch started = new CountDownLatch(2);
+		
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("user"));
+		when(mocks.wsHandler.getAdministratedResources(new UserName("user")))
+				.thenAnswer(inv -> {
+					started.countDown();
+					assertThat("handlers not concurrent",
+							started.await(5, TimeUnit.SECONDS), is(true));
+					return set(ResourceAdministrativeID.from(96));
+				});
+		when(mocks.catHandler.getAdministratedResources(new UserName("user")))
+				.thenAnswer(inv -> {
+					started.countDown();
+					assertThat("handlers not concurrent",
+							started.await(5, TimeUnit.SECONDS), is(true));
+					return set(new ResourceAdministrativeID("mod"));
+				});
+		when(mocks.storage.getRequestsByTarget(
+				new UserName("user"), ImmutableMap.of(
+						new ResourceType("workspace"), set(ResourceAdministrativeID.from(96)),
+						new ResourceType("catalogmethod"),
+								set(new ResourceAdministrativeID("mod"))),
+				GetRequestsParams.getBuilder().build()))
+				.thenReturn(Collections.emptyList());
+		
+		assertThat("incorrect requests", mocks.groups.getRequestsForTarget(
+				new Token("token"), GetRequestsParams.getBuilder().build()),
+				is(Collections.emptyList()));
+		exec.shutdown(5000);
+	}
+	
+	@Test
+	public void getRequestsForTargetFailHandlerTimeout() throws Exception {
+		final ResourceHandlerExecutor exec = new ResourceHandlerExecutor(2, 100);
+		final TestMocks mocks = initTestMocks(exec);
+		
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("user"));
+		when(mocks.wsHandler.getAdministratedResources(new UserName("user")))
+				.thenReturn(set(ResourceAdministrativeID.from(96)));
+		when(mocks.catHandler.getAdministratedResources(new UserName("user")))
+				.thenAnswer(inv -> {
+					Thread.sleep(5000);
+					return set();
+				});
+		
+		failGetRequestsForTarget(mocks.groups, new Token("token"),
+				GetRequestsParams.getBuilder().build(),
+				new ResourceHandlerException(
+						"Timed out after 100 ms waiting for the catalogmethod resource handler"));
+		verify(mocks.storage, never()).getRequestsByTarget(any(), any(), any());
+		exec.shutdown(5000);
+	}
+	
+	@Test
+	public void getRequestsForTargetFailConcurrentHandler() throws Exception {
+		final ResourceHandlerExecutor exec = new ResourceHandlerExecutor(2, 5000);
+		final TestMocks mocks = initTestMocks(exec);
+		
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("user"));
+		when(mocks.wsHandler.getAdministratedResources(new UserName("user")))
+				.thenThrow(new ResourceHandlerException("ws down"));
+		when(mocks.catHandler.getAdministratedResources(new UserName("user")))
+				.thenReturn(set(new ResourceAdministrativeID("mod")));
+		
+		failGetRequestsForTarget(mocks.groups, new Token("token"),
+				GetRequestsParams.getBuilder().build(),
+				new ResourceHandlerException("ws down"));
+		exec.shutdown(5000);
+	}
+	
 	@Test
 	public void getRequestsForTargetFailNulls() throws Exception {
 		final Groups g = initTestMocks().groups;
@@ -3924,6 +4456,34 @@ public class GroupsTest {
 		}
 	}
 	
+	@Test
+	public void cancelRequestOutbox() throws Exception {
+		final TestMocks mocks = initOutboxTestMocks();
+		final UUID id = UUID.randomUUID();
+		final UUID nid = UUID.randomUUID();
+		
+		final GroupRequest.Builder b = GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("gid"), new UserName("user"),
+				CreateModAndExpireTimes.getBuilder(
+						Instant.ofEpochMilli(10000), Instant.ofEpochMilli(20000)).build());
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("user"));
+		when(mocks.storage.getRequest(new RequestID(id))).thenReturn(b.build(),
+				b.withStatus(GroupRequestStatus.canceled()).build());
+		when(mocks.clock.instant()).thenReturn(Instant.ofEpochMilli(15000));
+		when(mocks.uuidGen.randomUUID()).thenReturn(nid);
+		
+		final GroupRequest req = mocks.groups.cancelRequest(new Token("token"), new RequestID(id));
+		
+		verify(mocks.storage).closeRequest(new RequestID(id), GroupRequestStatus.canceled(),
+				Instant.ofEpochMilli(15000), OutboxNotification.getBuilder(
+						nid, Operation.CANCEL, Instant.ofEpochMilli(15000), new RequestID(id))
+						.build());
+		verify(mocks.storage, never()).closeRequest(any(), any(), any());
+		verifyZeroInteractions(mocks.notifs);
+		
+		assertThat("incorrect request", req, is(b.build()));
+	}
+	
 	@Test
 	public void cancelRequest() throws Exception {
 		final TestMocks mocks = initTestMocks();
@@ -4073,6 +4633,51 @@ public class GroupsTest {
 								new ResourceDescriptor(new ResourceID("86"))));
 	}
 	
+	@Test
+	public void denyRequestOutbox() throws Exception {
+		final TestMocks mocks = initOutboxTestMocks();
+		final UUID id = UUID.randomUUID();
+		final UUID nid = UUID.randomUUID();
+		
+		final GroupRequest open = GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("gid"), new UserName("user"),
+				CreateModAndExpireTimes.getBuilder(
+						Instant.ofEpochMilli(10000), Instant.ofEpochMilli(20000)).build())
+				.build();
+		final GroupRequest denied = GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("gid"), new UserName("user"),
+				CreateModAndExpireTimes.getBuilder(
+						Instant.ofEpochMilli(10000), Instant.ofEpochMilli(20000))
+						.withModificationTime(Instant.ofEpochMilli(15000))
+						.build())
+				.withStatus(GroupRequestStatus.denied(new UserName("admin"), "nope"))
+				.build();
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("admin"));
+		when(mocks.storage.getRequest(new RequestID(id))).thenReturn(open, denied);
+		when(mocks.storage.getGroup(new GroupID("gid"))).thenReturn(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name"), toGUser("own"),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withAdministrator(toGUser("admin"))
+				.build());
+		when(mocks.clock.instant()).thenReturn(Instant.ofEpochMilli(15000));
+		when(mocks.uuidGen.randomUUID()).thenReturn(nid);
+		
+		final GroupRequest req = mocks.groups.denyRequest(
+				new Token("token"), new RequestID(id), "nope");
+		
+		// the notification carries the request as the close will store it
+		verify(mocks.storage).closeRequest(
+				new RequestID(id),
+				GroupRequestStatus.denied(new UserName("admin"), "nope"),
+				Instant.ofEpochMilli(15000),
+				OutboxNotification.getBuilder(
+						nid, Operation.DENY, Instant.ofEpochMilli(15000), denied).build());
+		verify(mocks.storage, never()).closeRequest(any(), any(), any());
+		verifyZeroInteractions(mocks.notifs);
+		
+		assertThat("incorrect request", req, is(denied));
+	}
+	
 	private void denyRequestAdmin(
 			final String reason,
 			final String admin,
@@ -4559,6 +5164,57 @@ public class GroupsTest {
 				inst(12000));
 	}
 
+	@Test
+	public void acceptRequestOutbox() throws Exception {
+		final TestMocks mocks = initOutboxTestMocks();
+		final UUID id = UUID.randomUUID();
+		final UUID nid = UUID.randomUUID();
+		
+		final GroupRequest open = GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("gid"), new UserName("user"),
+				CreateModAndExpireTimes.getBuilder(
+						Instant.ofEpochMilli(10000), Instant.ofEpochMilli(20000)).build())
+				.build();
+		final GroupRequest accepted = GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("gid"), new UserName("user"),
+				CreateModAndExpireTimes.getBuilder(
+						Instant.ofEpochMilli(10000), Instant.ofEpochMilli(20000))
+						.withModificationTime(Instant.ofEpochMilli(15000))
+						.build())
+				.withStatus(GroupRequestStatus.accepted(new UserName("admin")))
+				.build();
+		when(mocks.userHandler.getUser(new Token("token"))).thenReturn(new UserName("admin"));
+		when(mocks.storage.getRequest(new RequestID(id))).thenReturn(open, accepted);
+		when(mocks.storage.getGroup(new GroupID("gid"))).thenReturn(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name"), toGUser("own"),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withMember(toGUser("u1"))
+				.withAdministrator(toGUser("admin"))
+				.withAdministrator(toGUser("a3"))
+				.build());
+		when(mocks.clock.instant()).thenReturn(inst(12000), inst(15000));
+		when(mocks.uuidGen.randomUUID()).thenReturn(nid);
+		
+		final GroupRequest req = mocks.groups.acceptRequest(
+				new Token("token"), new RequestID(id));
+		
+		verify(mocks.storage).addMember(new GroupID("gid"),
+				GroupUser.getBuilder(new UserName("user"), inst(12000)).build(), inst(12000));
+		verify(mocks.storage).closeRequest(
+				new RequestID(id),
+				GroupRequestStatus.accepted(new UserName("admin")),
+				Instant.ofEpochMilli(15000),
+				OutboxNotification.getBuilder(
+						nid, Operation.ACCEPT, Instant.ofEpochMilli(15000), accepted)
+						.withTargets(set(new UserName("user"), new UserName("own"),
+								new UserName("a3")))
+						.build());
+		verify(mocks.storage, never()).closeRequest(any(), any(), any());
+		verifyZeroInteractions(mocks.notifs);
+		
+		assertThat("incorrect request", req, is(accepted));
+	}
+	
 	private void acceptRequest(
 			final TestMocks mocks,
 			final UserName tokenUser,
@@ -5087,6 +5743,110 @@ public class GroupsTest {
 		}
 	}
 	
+	@Test
+	public void notifyExpiredRequests() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		final UUID id1 = UUID.randomUUID();
+		final UUID id2 = UUID.randomUUID();
+		final UUID id3 = UUID.randomUUID();
+		final UUID id4 = UUID.randomUUID();
+		final UUID id5 = UUID.randomUUID();
+		final GroupRequest request = GroupRequest.getBuilder(
+				new RequestID(id1), new GroupID("gid"), new UserName("user"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+				.build();
+		final GroupRequest userInvite = GroupRequest.getBuilder(
+				new RequestID(id2), new GroupID("gid"), new UserName("admin"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+				.withType(RequestType.INVITE)
+				.withResource(GroupRequest.USER_TYPE, ResourceDescriptor.from(new UserName("u")))
+				.build();
+		final GroupRequest wsInvite = GroupRequest.getBuilder(
+				new RequestID(id3), new GroupID("gid"), new UserName("admin"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+				.withType(RequestType.INVITE)
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("34")))
+				.build();
+		final GroupRequest deletedWSInvite = GroupRequest.getBuilder(
+				new RequestID(id4), new GroupID("gid"), new UserName("admin"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+				.withType(RequestType.INVITE)
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("35")))
+				.build();
+		final GroupRequest deletedGroupRequest = GroupRequest.getBuilder(
+				new RequestID(id5), new GroupID("gid2"), new UserName("user"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+				.build();
+		final GroupRequest wsDownInvite = GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("gid"), new UserName("admin"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+				.withType(RequestType.INVITE)
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("36")))
+				.build();
+		
+		when(mocks.storage.getGroup(new GroupID("gid"))).thenReturn(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name"), toGUser("own"),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withMember(toGUser("u1"))
+				.withAdministrator(toGUser("admin"))
+				.build());
+		when(mocks.storage.getGroup(new GroupID("gid2"))).thenThrow(
+				new NoSuchGroupException("gid2"));
+		when(mocks.wsHandler.getAdministrators(new ResourceID("34"))).thenReturn(
+				set(new UserName("ws1"), new UserName("ws2")));
+		when(mocks.wsHandler.getAdministrators(new ResourceID("35"))).thenThrow(
+				new NoSuchResourceException("35"));
+		when(mocks.wsHandler.getAdministrators(new ResourceID("36"))).thenThrow(
+				new ResourceHandlerException("ws down"));
+		
+		// a failing resource service doesn't prevent the other notifications
+		mocks.groups.notifyExpiredRequests(Arrays.asList(request, userInvite, wsDownInvite,
+				wsInvite, deletedWSInvite, deletedGroupRequest));
+		
+		verify(mocks.notifs).expire(set(new UserName("own"), new UserName("admin")), request);
+		verify(mocks.notifs).expire(set(new UserName("u")), userInvite);
+		verify(mocks.notifs).expire(set(new UserName("ws1"), new UserName("ws2")), wsInvite);
+		verify(mocks.notifs).expire(set(), deletedWSInvite);
+		verify(mocks.notifs).expire(set(), deletedGroupRequest);
+		verify(mocks.notifs).expire(set(), wsDownInvite);
+	}
+	
+	@Test
+	public void notifyExpiredRequestsFail() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		failNotifyExpiredRequests(mocks.groups, null, new NullPointerException("requests"));
+		failNotifyExpiredRequests(mocks.groups, Arrays.asList((GroupRequest) null),
+				new NullPointerException("Null item in collection requests"));
+		
+		final UUID id = UUID.randomUUID();
+		when(mocks.wsHandler.getAdministrators(new ResourceID("34"))).thenThrow(
+				new IllegalResourceIDException("34"));
+		failNotifyExpiredRequests(mocks.groups, Arrays.asList(GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("gid"), new UserName("admin"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+				.withType(RequestType.INVITE)
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("34")))
+				.build()),
+				new RuntimeException(String.format(
+						"Illegal value stored in request %s: 30030 Illegal resource ID: 34", id)));
+	}
+	
+	private void failNotifyExpiredRequests(
+			final Groups g,
+			final List<GroupRequest> requests,
+			final Exception expected) {
+		try {
+			g.notifyExpiredRequests(requests);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
 	@Test
 	public void removeMemberSelf() throws Exception {
 		removeMember(new UserName("user"));
@@ -5391,6 +6151,45 @@ public class GroupsTest {
 	}
 	
 	
+	@Test
+	public void addResourceOutbox() throws Exception {
+		final TestMocks mocks = initOutboxTestMocks();
+		final UUID nid = UUID.randomUUID();
+		
+		when(mocks.userHandler.getUser(new Token("t"))).thenReturn(new UserName("admin"));
+		when(mocks.storage.getGroup(new GroupID("gid"))).thenReturn(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name"), toGUser("own"),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withMember(toGUser("u1"))
+				.withAdministrator(toGUser("admin"))
+				.build());
+		when(mocks.wsHandler.getDescriptor(new ResourceID("34")))
+				.thenReturn(new ResourceDescriptor(new ResourceID("34")));
+		when(mocks.wsHandler.getAdministrators(new ResourceID("34"))).thenReturn(
+				set(new UserName("admin"), new UserName("ws2")));
+		when(mocks.clock.instant()).thenReturn(inst(3400));
+		when(mocks.uuidGen.randomUUID()).thenReturn(nid);
+		
+		final Optional<GroupRequest> ret = mocks.groups.addResource(
+				new Token("t"), new GroupID("gid"), new ResourceType("workspace"),
+				new ResourceID("34"));
+		
+		verify(mocks.storage).addResource(
+				new GroupID("gid"),
+				new ResourceType("workspace"),
+				new ResourceDescriptor(new ResourceID("34")),
+				inst(3400),
+				OutboxNotification.getBuilder(nid, inst(3400), new UserName("admin"),
+						new GroupID("gid"), new ResourceType("workspace"), new ResourceID("34"))
+						.withTargets(set(new UserName("own"), new UserName("ws2"),
+								new UserName("u1")))
+						.build());
+		verify(mocks.storage, never()).addResource(any(), any(), any(), any());
+		verifyZeroInteractions(mocks.notifs);
+		
+		assertThat("incorrect request", ret, is(Optional.empty()));
+	}
+	
 	@Test
 	public void addResource() throws Exception {
 		final TestMocks mocks = initTestMocks();
@@ -0,0 +1,75 @@
+package us.kbase.test.groups.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import us.kbase.groups.core.CreateAndModTimes;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.GroupView;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.VersionedGroupView;
+import us.kbase.test.groups.TestCommon;
+
+public class VersionedGroupViewTest {
+	
+	private static final Group GROUP;
+	static {
+		try {
+			GROUP = Group.getBuilder(new GroupID("id"), new GroupName("name"),
+					GroupUser.getBuilder(new UserName("own"), Instant.ofEpochMilli(10000))
+							.build(),
+					new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+					.withIsPrivate(true)
+					.build();
+		} catch (Exception e) {
+			throw new RuntimeException("Fix yer tests newb", e);
+		}
+	}
+	
+	@Test
+	public void equals() throws Exception {
+		EqualsVerifier.forClass(VersionedGroupView.class).usingGetClass().verify();
+	}
+	
+	@Test
+	public void of() throws Exception {
+		final GroupView gv = GroupView.getBuilder(GROUP, new UserName("own"))
+				.withStandardView(true).build();
+		final VersionedGroupView vgv = VersionedGroupView.of(gv);
+		
+		assertThat("incorrect view", vgv.getView(), is(gv));
+		assertThat("incorrect tag", vgv.getVersionTag(), is(gv.getVersionTag()));
+		assertThat("incorrect tag", vgv.getVersionTag().isPresent(), is(true));
+	}
+	
+	@Test
+	public void ofPrivate() throws Exception {
+		final GroupView gv = GroupView.getBuilder(GROUP, new UserName("nonmember"))
+				.withStandardView(true).build();
+		final VersionedGroupView vgv = VersionedGroupView.of(gv);
+		
+		assertThat("incorrect view", vgv.getView(), is(gv));
+		assertThat("incorrect tag", vgv.getVersionTag(), is(Optional.empty()));
+	}
+	
+	@Test
+	public void ofFail() throws Exception {
+		try {
+			VersionedGroupView.of(null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("view"));
+		}
+	}
+
+}
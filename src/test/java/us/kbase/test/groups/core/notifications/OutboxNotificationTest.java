@@ -0,0 +1,242 @@
+package us.kbase.test.groups.core.notifications;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static us.kbase.test.groups.TestCommon.inst;
+import static us.kbase.test.groups.TestCommon.set;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.CreateModAndExpireTimes;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.notifications.OutboxNotification.Operation;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.test.groups.TestCommon;
+
+public class OutboxNotificationTest {
+	
+	private static final UUID ID = UUID.fromString("21389fc3-10f0-4d84-b187-87d327de3b48");
+	private static final RequestID RID = new RequestID(
+			UUID.fromString("9e7c7cc4-3d52-4b43-bd57-a0e1c3f4e8bf"));
+	private static final GroupRequest REQ;
+	static {
+		try {
+			REQ = GroupRequest.getBuilder(RID, new GroupID("g"), new UserName("u"),
+					CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+					.build();
+		} catch (Exception e) {
+			throw new RuntimeException("Fix yer tests newb", e);
+		}
+	}
+	
+	@Test
+	public void equals() throws Exception {
+		EqualsVerifier.forClass(OutboxNotification.class).usingGetClass().verify();
+	}
+	
+	@Test
+	public void buildRequestMinimal() throws Exception {
+		final OutboxNotification n = OutboxNotification.getBuilder(
+				ID, Operation.CANCEL, inst(10000), RID).build();
+		
+		assertThat("incorrect id", n.getID(), is(ID));
+		assertThat("incorrect op", n.getOperation(), is(Operation.CANCEL));
+		assertThat("incorrect create", n.getCreationDate(), is(inst(10000)));
+		assertThat("incorrect targets", n.getTargets(), is(Collections.emptySet()));
+		assertThat("incorrect request", n.getRequestID(), is(Optional.of(RID)));
+		assertThat("incorrect request", n.getRequest(), is(Optional.empty()));
+		assertThat("incorrect actor", n.getActor(), is(Optional.empty()));
+		assertThat("incorrect group", n.getGroupID(), is(Optional.empty()));
+		assertThat("incorrect type", n.getResourceType(), is(Optional.empty()));
+		assertThat("incorrect resource", n.getResourceID(), is(Optional.empty()));
+		assertThat("incorrect attempts", n.getAttempts(), is(0));
+	}
+	
+	@Test
+	public void buildRequestMaximal() throws Exception {
+		final OutboxNotification n = OutboxNotification.getBuilder(
+				ID, Operation.NOTIFY, inst(10000), REQ)
+				.withTargets(Arrays.asList(new UserName("u1"), new UserName("u2")))
+				.withTargets(set(new UserName("u3")))
+				.withAttempts(3)
+				.build();
+		
+		assertThat("incorrect id", n.getID(), is(ID));
+		assertThat("incorrect op", n.getOperation(), is(Operation.NOTIFY));
+		assertThat("incorrect create", n.getCreationDate(), is(inst(10000)));
+		assertThat("incorrect targets", n.getTargets(), is(set(
+				new UserName("u1"), new UserName("u2"), new UserName("u3"))));
+		assertThat("incorrect request", n.getRequestID(), is(Optional.of(RID)));
+		assertThat("incorrect request", n.getRequest(), is(Optional.of(REQ)));
+		assertThat("incorrect actor", n.getActor(), is(Optional.empty()));
+		assertThat("incorrect attempts", n.getAttempts(), is(3));
+	}
+	
+	@Test
+	public void buildResource() throws Exception {
+		final OutboxNotification n = OutboxNotification.getBuilder(
+				ID, inst(10000), new UserName("a"), new GroupID("g"), new ResourceType("t"),
+				new ResourceID("r"))
+				.withTargets(set(new UserName("u1")))
+				.build();
+		
+		assertThat("incorrect id", n.getID(), is(ID));
+		assertThat("incorrect op", n.getOperation(), is(Operation.ADD_RESOURCE));
+		assertThat("incorrect create", n.getCreationDate(), is(inst(10000)));
+		assertThat("incorrect targets", n.getTargets(), is(set(new UserName("u1"))));
+		assertThat("incorrect request", n.getRequestID(), is(Optional.empty()));
+		assertThat("incorrect request", n.getRequest(), is(Optional.empty()));
+		assertThat("incorrect actor", n.getActor(), is(Optional.of(new UserName("a"))));
+		assertThat("incorrect group", n.getGroupID(), is(Optional.of(new GroupID("g"))));
+		assertThat("incorrect type", n.getResourceType(),
+				is(Optional.of(new ResourceType("t"))));
+		assertThat("incorrect resource", n.getResourceID(),
+				is(Optional.of(new ResourceID("r"))));
+		assertThat("incorrect attempts", n.getAttempts(), is(0));
+	}
+	
+	@Test
+	public void immutable() throws Exception {
+		final OutboxNotification n = OutboxNotification.getBuilder(
+				ID, Operation.NOTIFY, inst(10000), REQ)
+				.withTargets(set(new UserName("u1")))
+				.build();
+		try {
+			n.getTargets().add(new UserName("u2"));
+			fail("expected exception");
+		} catch (UnsupportedOperationException e) {
+			// test passed
+		}
+	}
+	
+	@Test
+	public void getBuilderRequestIDFail() throws Exception {
+		failGetBuilder(null, Operation.CANCEL, inst(1), RID, new NullPointerException("id"));
+		failGetBuilder(ID, null, inst(1), RID, new NullPointerException("operation"));
+		failGetBuilder(ID, Operation.CANCEL, null, RID,
+				new NullPointerException("creationDate"));
+		failGetBuilder(ID, Operation.CANCEL, inst(1), (RequestID) null,
+				new NullPointerException("requestID"));
+		failGetBuilder(ID, Operation.ADD_RESOURCE, inst(1), RID,
+				new IllegalArgumentException("Operation requires a resource"));
+		failGetBuilder(ID, Operation.NOTIFY, inst(1), RID,
+				new IllegalArgumentException("Operation requires a request"));
+		failGetBuilder(ID, Operation.ACCEPT, inst(1), RID,
+				new IllegalArgumentException("Operation requires a request"));
+	}
+	
+	@Test
+	public void getBuilderRequestFail() throws Exception {
+		failGetBuilder(null, Operation.NOTIFY, inst(1), REQ, new NullPointerException("id"));
+		failGetBuilder(ID, null, inst(1), REQ, new NullPointerException("operation"));
+		failGetBuilder(ID, Operation.NOTIFY, null, REQ,
+				new NullPointerException("creationDate"));
+		failGetBuilder(ID, Operation.NOTIFY, inst(1), (GroupRequest) null,
+				new NullPointerException("request"));
+		failGetBuilder(ID, Operation.ADD_RESOURCE, inst(1), REQ,
+				new IllegalArgumentException("Operation requires a resource"));
+		failGetBuilder(ID, Operation.CANCEL, inst(1), REQ,
+				new IllegalArgumentException("Operation requires a request ID"));
+	}
+	
+	private void failGetBuilder(
+			final UUID id,
+			final Operation op,
+			final Instant create,
+			final GroupRequest request,
+			final Exception expected) {
+		try {
+			OutboxNotification.getBuilder(id, op, create, request);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	private void failGetBuilder(
+			final UUID id,
+			final Operation op,
+			final Instant create,
+			final RequestID rid,
+			final Exception expected) {
+		try {
+			OutboxNotification.getBuilder(id, op, create, rid);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	@Test
+	public void getBuilderResourceFail() throws Exception {
+		final UserName u = new UserName("u");
+		final GroupID g = new GroupID("g");
+		final ResourceType t = new ResourceType("t");
+		final ResourceID r = new ResourceID("r");
+		
+		failGetBuilder(null, inst(1), u, g, t, r, new NullPointerException("id"));
+		failGetBuilder(ID, null, u, g, t, r, new NullPointerException("creationDate"));
+		failGetBuilder(ID, inst(1), null, g, t, r, new NullPointerException("actor"));
+		failGetBuilder(ID, inst(1), u, null, t, r, new NullPointerException("groupID"));
+		failGetBuilder(ID, inst(1), u, g, null, r, new NullPointerException("resourceType"));
+		failGetBuilder(ID, inst(1), u, g, t, null, new NullPointerException("resourceID"));
+	}
+	
+	private void failGetBuilder(
+			final UUID id,
+			final Instant create,
+			final UserName actor,
+			final GroupID gid,
+			final ResourceType type,
+			final ResourceID rid,
+			final Exception expected) {
+		try {
+			OutboxNotification.getBuilder(id, create, actor, gid, type, rid);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	@Test
+	public void withTargetsFail() throws Exception {
+		failWithTargets(null, new NullPointerException("targets"));
+		failWithTargets(set(new UserName("u"), null),
+				new NullPointerException("Null item in collection targets"));
+	}
+	
+	private void failWithTargets(final Set<UserName> targets, final Exception expected) {
+		try {
+			OutboxNotification.getBuilder(ID, Operation.NOTIFY, inst(1), REQ)
+					.withTargets(targets);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	@Test
+	public void withAttemptsFail() throws Exception {
+		try {
+			OutboxNotification.getBuilder(ID, Operation.NOTIFY, inst(1), REQ).withAttempts(-1);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("attempts must be >= 0"));
+		}
+	}
+}
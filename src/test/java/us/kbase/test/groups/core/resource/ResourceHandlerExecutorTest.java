@@ -0,0 +1,348 @@
+package us.kbase.test.groups.core.resource;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import us.kbase.groups.core.exceptions.ResourceHandlerException;
+import us.kbase.groups.core.resource.ResourceHandlerExecutor;
+import us.kbase.groups.core.resource.ResourceHandlerExecutor.HandlerCall;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.test.groups.TestCommon;
+
+public class ResourceHandlerExecutorTest {
+
+	private static final ResourceType T1;
+	private static final ResourceType T2;
+	private static final ResourceType T3;
+	static {
+		try {
+			T1 = new ResourceType("t1");
+			T2 = new ResourceType("t2");
+			T3 = new ResourceType("t3");
+		} catch (Exception e) {
+			throw new RuntimeException("Fix your tests newb", e);
+		}
+	}
+
+	private static Map<ResourceType, HandlerCall<String>> calls(
+			final HandlerCall<String> call1,
+			final HandlerCall<String> call2,
+			final HandlerCall<String> call3) {
+		final Map<ResourceType, HandlerCall<String>> calls = new LinkedHashMap<>();
+		calls.put(T1, call1);
+		calls.put(T2, call2);
+		calls.put(T3, call3);
+		return calls;
+	}
+
+	@Test
+	public void callAllSerial() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor();
+		final Thread caller = Thread.currentThread();
+
+		final Map<ResourceType, String> res = e.callAll(calls(
+				() -> "1",
+				() -> Thread.currentThread() == caller ? "2" : "wrong thread",
+				() -> "3"));
+
+		assertThat("incorrect order", Arrays.asList(res.keySet().toArray()),
+				is(Arrays.asList(T1, T2, T3)));
+		assertThat("incorrect results", Arrays.asList(res.values().toArray()),
+				is(Arrays.asList("1", "2", "3")));
+
+		assertThat("incorrect results", e.callAll(Collections.emptyMap()),
+				is(Collections.emptyMap()));
+		e.shutdown(1000);
+	}
+
+	@Test
+	public void callAllConcurrent() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor(3, 5000);
+		// each call waits for the others to start, so fails unless they run concurrently
+		final CountDownLatch started = new CountDownLatch(3);
+		final HandlerCall<String> wait = () -> {
+			started.countDown();
+			try {
+				return started.await(5, TimeUnit.SECONDS) ? "ok" : "not concurrent";
+			} catch (InterruptedException ie) {
+				throw new ResourceHandlerException("interrupted", ie);
+			}
+		};
+
+		final Map<ResourceType, String> res = e.callAll(calls(wait, wait, wait));
+
+		assertThat("incorrect order", Arrays.asList(res.keySet().toArray()),
+				is(Arrays.asList(T1, T2, T3)));
+		assertThat("incorrect results", Arrays.asList(res.values().toArray()),
+				is(Arrays.asList("ok", "ok", "ok")));
+		e.shutdown(1000);
+	}
+
+	@Test
+	public void callAllConcurrentCallerRuns() throws Exception {
+		// one thread, so the other calls run on the calling thread
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor(1, 5000);
+		final CountDownLatch block = new CountDownLatch(1);
+
+		final Map<ResourceType, String> res = e.callAll(calls(
+				() -> {
+					try {
+						block.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException ie) {
+						throw new ResourceHandlerException("interrupted", ie);
+					}
+					return "1";
+				},
+				() -> "2",
+				() -> {
+					block.countDown();
+					return "3";
+				}));
+
+		assertThat("incorrect results", Arrays.asList(res.values().toArray()),
+				is(Arrays.asList("1", "2", "3")));
+		e.shutdown(1000);
+	}
+
+	@Test
+	public void callAllFailSerial() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor();
+		final AtomicBoolean called = new AtomicBoolean();
+
+		failCallAll(e, calls(
+				() -> "1",
+				() -> {
+					throw new ResourceHandlerException("whoops");
+				},
+				() -> {
+					called.set(true);
+					return "3";
+				}),
+				new ResourceHandlerException("whoops"));
+		assertThat("later call made", called.get(), is(false));
+	}
+
+	@Test
+	public void callAllFailConcurrent() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor(3, 5000);
+
+		failCallAll(e, calls(
+				() -> "1",
+				() -> {
+					throw new ResourceHandlerException("whoops");
+				},
+				() -> {
+					try {
+						Thread.sleep(200);
+					} catch (InterruptedException ie) {
+						// the call has been cancelled
+					}
+					throw new IllegalStateException("oh dear");
+				}),
+				new ResourceHandlerException("whoops"));
+
+		failCallAll(e, calls(
+				() -> "1",
+				() -> {
+					throw new IllegalStateException("oh dear");
+				},
+				() -> "3"),
+				new IllegalStateException("oh dear"));
+		e.shutdown(1000);
+	}
+
+	@Test
+	public void callAllFailFast() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor(3, 10000);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+
+		final long start = System.nanoTime();
+		// the first call is slow, but the failure of a later call is seen immediately
+		failCallAll(e, calls(
+				() -> {
+					try {
+						Thread.sleep(5000);
+					} catch (InterruptedException ie) {
+						interrupted.countDown();
+					}
+					return "1";
+				},
+				() -> "2",
+				() -> {
+					throw new ResourceHandlerException("whoops");
+				}),
+				new ResourceHandlerException("whoops"));
+		final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertThat("failure not seen promptly: " + elapsed, elapsed < 2000, is(true));
+		assertThat("call not cancelled", interrupted.await(5, TimeUnit.SECONDS), is(true));
+		e.shutdown(1000);
+	}
+
+	@Test
+	public void callAllFailTimeout() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor(3, 100);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+
+		failCallAll(e, calls(
+				() -> "1",
+				() -> {
+					try {
+						Thread.sleep(5000);
+					} catch (InterruptedException ie) {
+						interrupted.countDown();
+					}
+					return "2";
+				},
+				() -> "3"),
+				new ResourceHandlerException(
+						"Timed out after 100 ms waiting for the t2 resource handler"));
+		assertThat("call not cancelled", interrupted.await(5, TimeUnit.SECONDS), is(true));
+		e.shutdown(1000);
+	}
+
+	@Test
+	public void callAllFailNull() throws Exception {
+		failCallAll(new ResourceHandlerExecutor(), null, new NullPointerException("calls"));
+	}
+
+	private void failCallAll(
+			final ResourceHandlerExecutor e,
+			final Map<ResourceType, HandlerCall<String>> calls,
+			final Exception expected) {
+		try {
+			e.callAll(calls);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void callAllAvailableSerial() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor();
+
+		final Map<ResourceType, Optional<String>> res = e.callAllAvailable(calls(
+				() -> "1",
+				() -> {
+					throw new ResourceHandlerException("whoops");
+				},
+				() -> "3"));
+
+		assertThat("incorrect order", Arrays.asList(res.keySet().toArray()),
+				is(Arrays.asList(T1, T2, T3)));
+		assertThat("incorrect results", Arrays.asList(res.values().toArray()),
+				is(Arrays.asList(Optional.of("1"), Optional.empty(), Optional.of("3"))));
+	}
+
+	@Test
+	public void callAllAvailableConcurrent() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor(3, 100);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+
+		final Map<ResourceType, Optional<String>> res = e.callAllAvailable(calls(
+				() -> {
+					throw new ResourceHandlerException("whoops");
+				},
+				() -> {
+					try {
+						Thread.sleep(5000);
+					} catch (InterruptedException ie) {
+						interrupted.countDown();
+					}
+					return "2";
+				},
+				() -> "3"));
+
+		assertThat("incorrect order", Arrays.asList(res.keySet().toArray()),
+				is(Arrays.asList(T1, T2, T3)));
+		assertThat("incorrect results", Arrays.asList(res.values().toArray()),
+				is(Arrays.asList(Optional.empty(), Optional.empty(), Optional.of("3"))));
+		assertThat("call not cancelled", interrupted.await(5, TimeUnit.SECONDS), is(true));
+		e.shutdown(1000);
+	}
+
+	@Test
+	public void callAllAvailableWithOtherKeys() throws Exception {
+		final ResourceHandlerExecutor e = new ResourceHandlerExecutor(2, 5000);
+		final CountDownLatch latch = new CountDownLatch(2);
+		final Map<String, HandlerCall<String>> calls = new LinkedHashMap<>();
+		// the calls for the same resource type only complete if they run concurrently
+		for (final String key: Arrays.asList("r1", "r2")) {
+			calls.put(key, () -> {
+				latch.countDown();
+				try {
+					return latch.await(5, TimeUnit.SECONDS) ? key : "serial";
+				} catch (InterruptedException ie) {
+					throw new ResourceHandlerException("interrupted");
+				}
+			});
+		}
+		calls.put("r3", () -> {
+			throw new ResourceHandlerException("whoops");
+		});
+
+		final Map<String, Optional<String>> res = e.callAllAvailable(calls);
+
+		assertThat("incorrect order", Arrays.asList(res.keySet().toArray()),
+				is(Arrays.asList("r1", "r2", "r3")));
+		assertThat("incorrect results", Arrays.asList(res.values().toArray()),
+				is(Arrays.asList(Optional.of("r1"), Optional.of("r2"), Optional.empty())));
+		e.shutdown(1000);
+	}
+
+	@Test
+	public void callAllAvailableFail() throws Exception {
+		final ResourceHandlerExecutor serial = new ResourceHandlerExecutor();
+		final ResourceHandlerExecutor concurrent = new ResourceHandlerExecutor(3, 5000);
+		for (final ResourceHandlerExecutor e: Arrays.asList(serial, concurrent)) {
+			failCallAllAvailable(e, calls(
+					() -> "1",
+					() -> {
+						throw new IllegalStateException("oh dear");
+					},
+					() -> "3"),
+					new IllegalStateException("oh dear"));
+			failCallAllAvailable(e, null, new NullPointerException("calls"));
+		}
+		concurrent.shutdown(1000);
+	}
+
+	private void failCallAllAvailable(
+			final ResourceHandlerExecutor e,
+			final Map<ResourceType, HandlerCall<String>> calls,
+			final Exception expected) {
+		try {
+			e.callAllAvailable(calls);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		failConstruct(0, 1, new IllegalArgumentException("threads must be > 0"));
+		failConstruct(1, 0, new IllegalArgumentException("timeoutMillis must be > 0"));
+	}
+
+	private void failConstruct(final int threads, final long timeout, final Exception expected) {
+		try {
+			new ResourceHandlerExecutor(threads, timeout);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package us.kbase.test.groups.load;
+
+import java.util.Collections;
+import java.util.Set;
+
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.IllegalParameterException;
+import us.kbase.groups.core.exceptions.IllegalResourceIDException;
+import us.kbase.groups.core.exceptions.MissingParameterException;
+import us.kbase.groups.core.exceptions.ResourceHandlerException;
+import us.kbase.groups.core.resource.ResourceAccess;
+import us.kbase.groups.core.resource.ResourceAdministrativeID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceHandler;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceInformationSet;
+
+/** An in process resource handler for load tests. Resource IDs have the form
+ * &lt;user name&gt;.&lt;suffix&gt;, and the resource is administrated by the user in the ID.
+ * The administrative ID of a resource is the user name. All resources exist and are private.
+ * Each call to the handler sleeps for a fixed time to simulate calls to the resource service.
+ */
+public class FakeResourceHandler implements ResourceHandler {
+
+	private final long latencyMS;
+
+	/** Create the handler.
+	 * @param latencyMS the time to sleep, in milliseconds, for each call to the handler.
+	 */
+	public FakeResourceHandler(final long latencyMS) {
+		this.latencyMS = latencyMS;
+	}
+
+	/** Get the ID of a resource administrated by a user.
+	 * @param admin the administrator of the resource.
+	 * @param suffix a suffix distinguishing the resource from other resources administrated by
+	 * the same user.
+	 * @return the resource ID.
+	 */
+	public static ResourceID getResourceID(final UserName admin, final String suffix) {
+		try {
+			return new ResourceID(admin.getName() + "." + suffix);
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	private UserName getAdmin(final ResourceID resource) throws IllegalResourceIDException {
+		final int dot = resource.getName().indexOf('.');
+		try {
+			if (dot < 0) {
+				throw new IllegalParameterException("No user in resource ID");
+			}
+			return new UserName(resource.getName().substring(0, dot));
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new IllegalResourceIDException(resource.getName(), e);
+		}
+	}
+
+	@Override
+	public ResourceDescriptor getDescriptor(final ResourceID resource)
+			throws IllegalResourceIDException, ResourceHandlerException {
+		sleep();
+		try {
+			return new ResourceDescriptor(
+					new ResourceAdministrativeID(getAdmin(resource).getName()), resource);
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new RuntimeException("This should be impossible", e);
+		}
+	}
+
+	@Override
+	public boolean isAdministrator(final ResourceID resource, final UserName user)
+			throws IllegalResourceIDException, ResourceHandlerException {
+		sleep();
+		return getAdmin(resource).equals(user);
+	}
+
+	@Override
+	public boolean isPublic(final ResourceID resource)
+			throws IllegalResourceIDException, ResourceHandlerException {
+		sleep();
+		getAdmin(resource);
+		return false;
+	}
+
+	@Override
+	public Set<UserName> getAdministrators(final ResourceID resource)
+			throws IllegalResourceIDException, ResourceHandlerException {
+		sleep();
+		return Collections.singleton(getAdmin(resource));
+	}
+
+	@Override
+	public Set<ResourceAdministrativeID> getAdministratedResources(final UserName user)
+			throws ResourceHandlerException {
+		sleep();
+		try {
+			return Collections.singleton(new ResourceAdministrativeID(user.getName()));
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new RuntimeException("This should be impossible", e);
+		}
+	}
+
+	@Override
+	public ResourceInformationSet getResourceInformation(
+			final UserName user,
+			final Set<ResourceID> resources,
+			final ResourceAccess access)
+			throws IllegalResourceIDException, ResourceHandlerException {
+		sleep();
+		final ResourceInformationSet.Builder b = ResourceInformationSet.getBuilder(user);
+		if (user == null) {
+			// only public resources are returned for anonymous users, and there are none
+			return b.build();
+		}
+		for (final ResourceID r: resources) {
+			b.withResourceField(r, "name", "resource " + r.getName())
+					.withResourceField(r, "admin", getAdmin(r).getName());
+		}
+		return b.build();
+	}
+
+	@Override
+	public void setReadPermission(final ResourceID resource, final UserName user)
+			throws IllegalResourceIDException, ResourceHandlerException {
+		sleep();
+		getAdmin(resource);
+	}
+
+	private void sleep() throws ResourceHandlerException {
+		if (latencyMS > 0) {
+			try {
+				Thread.sleep(latencyMS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ResourceHandlerException("Interrupted", e);
+			}
+		}
+	}
+}
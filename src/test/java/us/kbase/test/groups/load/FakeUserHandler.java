@@ -0,0 +1,82 @@
+package us.kbase.test.groups.load;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import us.kbase.groups.core.Token;
+import us.kbase.groups.core.UserHandler;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.AuthenticationException;
+import us.kbase.groups.core.exceptions.ErrorType;
+import us.kbase.groups.core.exceptions.IllegalParameterException;
+import us.kbase.groups.core.exceptions.InvalidTokenException;
+import us.kbase.groups.core.exceptions.MissingParameterException;
+
+/** An in process user handler for load tests. A token is the user name with the prefix
+ * {@link #TOKEN_PREFIX}, and all user names are valid. Each call to the handler sleeps for a
+ * fixed time to simulate calls to the authentication service.
+ */
+public class FakeUserHandler implements UserHandler {
+
+	/** The prefix of a user name that makes up a token. */
+	public static final String TOKEN_PREFIX = "token_";
+
+	private final long latencyMS;
+
+	/** Create the handler.
+	 * @param latencyMS the time to sleep, in milliseconds, for each call to the handler.
+	 */
+	public FakeUserHandler(final long latencyMS) {
+		this.latencyMS = latencyMS;
+	}
+
+	/** Get the token for a user.
+	 * @param user the user.
+	 * @return the token.
+	 */
+	public static String getToken(final UserName user) {
+		return TOKEN_PREFIX + user.getName();
+	}
+
+	@Override
+	public UserName getUser(final Token token)
+			throws InvalidTokenException, AuthenticationException {
+		sleep(latencyMS);
+		if (!token.getToken().startsWith(TOKEN_PREFIX)) {
+			throw new InvalidTokenException();
+		}
+		try {
+			return new UserName(token.getToken().substring(TOKEN_PREFIX.length()));
+		} catch (MissingParameterException | IllegalParameterException e) {
+			throw new InvalidTokenException(e.getMessage());
+		}
+	}
+
+	@Override
+	public boolean isValidUser(final UserName userName) throws AuthenticationException {
+		sleep(latencyMS);
+		return true;
+	}
+
+	@Override
+	public Map<UserName, Boolean> areValidUsers(final Collection<UserName> userNames)
+			throws AuthenticationException {
+		sleep(latencyMS);
+		return userNames.stream().distinct().collect(Collectors.toMap(
+				Function.identity(), u -> true));
+	}
+
+	private static void sleep(final long latencyMS) throws AuthenticationException {
+		if (latencyMS > 0) {
+			try {
+				Thread.sleep(latencyMS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new AuthenticationException(ErrorType.AUTHENTICATION_FAILED,
+						"Interrupted", e);
+			}
+		}
+	}
+}
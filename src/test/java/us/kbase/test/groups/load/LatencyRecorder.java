@@ -0,0 +1,84 @@
+package us.kbase.test.groups.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Records request latencies and errors per endpoint and summarizes them. */
+public class LatencyRecorder {
+
+	private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+	/** Record a successful request.
+	 * @param endpoint the name of the endpoint.
+	 * @param latencyNS the latency of the request in nanoseconds.
+	 */
+	public void record(final String endpoint, final long latencyNS) {
+		latencies.computeIfAbsent(endpoint, k -> Collections.synchronizedList(new ArrayList<>()))
+				.add(latencyNS);
+	}
+
+	/** Record a failed request.
+	 * @param endpoint the name of the endpoint.
+	 */
+	public void recordError(final String endpoint) {
+		errors.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+	}
+
+	/** Summarize the recorded requests. Each endpoint's summary contains the count of
+	 * successful requests, the count of failed requests, the throughput of successful
+	 * requests per second, and the 50th and 99th percentile and maximum latencies in
+	 * milliseconds.
+	 * @param durationSec the duration over which the requests were recorded, in seconds.
+	 * @return a mapping of endpoint name to summary, sorted by endpoint.
+	 */
+	public Map<String, Map<String, Object>> summarize(final double durationSec) {
+		final Map<String, Map<String, Object>> ret = new TreeMap<>();
+		for (final String endpoint: endpoints()) {
+			final List<Long> lats;
+			final List<Long> recorded = latencies.getOrDefault(endpoint, Collections.emptyList());
+			synchronized (recorded) {
+				lats = new ArrayList<>(recorded);
+			}
+			Collections.sort(lats);
+			final Map<String, Object> s = new LinkedHashMap<>();
+			s.put("count", lats.size());
+			s.put("errors", errors.getOrDefault(endpoint, new AtomicLong()).get());
+			s.put("throughput_per_sec", round(lats.size() / durationSec));
+			s.put("p50_ms", toMS(percentile(lats, 0.5)));
+			s.put("p99_ms", toMS(percentile(lats, 0.99)));
+			s.put("max_ms", toMS(lats.isEmpty() ? 0 : lats.get(lats.size() - 1)));
+			ret.put(endpoint, s);
+		}
+		return ret;
+	}
+
+	private List<String> endpoints() {
+		final List<String> ret = new ArrayList<>(latencies.keySet());
+		errors.keySet().stream().filter(e -> !ret.contains(e)).forEach(e -> ret.add(e));
+		return ret;
+	}
+
+	// nearest rank method. Expects a sorted list.
+	private static long percentile(final List<Long> sorted, final double percentile) {
+		if (sorted.isEmpty()) {
+			return 0;
+		}
+		final int rank = (int) Math.ceil(percentile * sorted.size());
+		return sorted.get(Math.max(rank, 1) - 1);
+	}
+
+	private static double toMS(final long nanos) {
+		return round(nanos / 1000000.0);
+	}
+
+	private static double round(final double d) {
+		return Math.round(d * 100) / 100.0;
+	}
+}
@@ -0,0 +1,413 @@
+package us.kbase.test.groups.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.ini4j.Ini;
+import org.ini4j.Profile.Section;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+
+import us.kbase.groups.config.GroupsConfig;
+import us.kbase.groups.core.CreateAndModTimes;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.Groups;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.fieldvalidation.FieldValidators;
+import us.kbase.groups.core.notifications.Notifications;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.notifications.SLF4JNotifierFactory;
+import us.kbase.groups.service.GroupsService;
+import us.kbase.groups.service.api.APIConstants;
+import us.kbase.groups.storage.mongo.MongoGroupsStorage;
+import us.kbase.test.groups.TestCommon;
+import us.kbase.testutils.controllers.mongo.MongoController;
+
+/** A load test for the groups service. Starts the service in process against a temporary
+ * MongoDB instance, or an existing instance if {@link #MONGO_HOST} is set, with the user and
+ * resource handlers replaced by {@link FakeUserHandler} and {@link FakeResourceHandler}.
+ * The database is seeded with groups, and then each endpoint in the workload is called at a
+ * fixed rate for the duration of the test. Latency is measured from the time each call was
+ * scheduled rather than when it was sent, so client side queuing when the service cannot keep
+ * up with the arrival rate is included in the latency.
+ *
+ * The test is configured with system properties - see the constants in this class, and
+ * README.md for how to run the test via Gradle. The temporary MongoDB instance is configured
+ * by the test configuration file, as for the unit tests.
+ *
+ * Endpoints:
+ * <ul>
+ * <li>get-group - a member of a group gets the group.</li>
+ * <li>list-groups - a user lists groups.</li>
+ * <li>list-requests - a group owner lists the requests they created.</li>
+ * <li>invite - a group owner invites a new user to the group.</li>
+ * <li>accept - the invited user accepts the invitation. Sent immediately after each
+ * successful invite.</li>
+ * </ul>
+ */
+public class LoadTest {
+
+	/** The time to run the workload, in seconds, after the warmup. */
+	public static final String DURATION_SEC = "load.duration-sec";
+	/** The time to run the workload, in seconds, before recording latencies. */
+	public static final String WARMUP_SEC = "load.warmup-sec";
+	/** The rate, in calls per second, for each endpoint, e.g. get-group=40,invite=5. Endpoints
+	 * that are not listed are not called.
+	 */
+	public static final String RATES = "load.rates";
+	/** The number of client threads. */
+	public static final String THREADS = "load.threads";
+	/** The latency, in milliseconds, of each call to the fake user and resource handlers. */
+	public static final String HANDLER_LATENCY_MS = "load.handler-latency-ms";
+	/** The number of groups to seed. */
+	public static final String GROUPS = "load.groups";
+	/** The number of members, including the owner, in each seeded group. */
+	public static final String MEMBERS = "load.members";
+	/** The number of resources in each seeded group. */
+	public static final String RESOURCES = "load.resources";
+	/** The number of distinct users that are members of the seeded groups. */
+	public static final String USERS = "load.users";
+	/** The host and port of an existing MongoDB instance to use. The load test database is
+	 * dropped at the start of the test.
+	 */
+	public static final String MONGO_HOST = "load.mongo-host";
+	/** The file to which results will be written as JSON. */
+	public static final String RESULTS_FILE = "load.results-file";
+
+	private static final String DB_NAME = "load_test_groups";
+	private static final ResourceType WORKSPACE = type("workspace");
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Map<String, Object> config = new LinkedHashMap<>();
+	private final LatencyRecorder recorder = new LatencyRecorder();
+	private final AtomicLong inviteCounter = new AtomicLong();
+	private final Client client;
+	private final URI host;
+	private final int groupCount;
+	private final int memberCount;
+	private final int userCount;
+	private volatile long recordFromNS = Long.MAX_VALUE;
+
+	private LoadTest(final URI host, final Client client) {
+		this.host = host;
+		this.client = client;
+		groupCount = getInt(GROUPS, 100);
+		memberCount = getInt(MEMBERS, 20);
+		userCount = getInt(USERS, 500);
+		if (groupCount < 1 || memberCount < 2 || userCount < memberCount) {
+			throw new IllegalArgumentException(String.format(
+					"%s must be at least 1, %s at least 2, and %s at least %s",
+					GROUPS, MEMBERS, USERS, MEMBERS));
+		}
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final int threads = getInt(THREADS, 64);
+		// the default connection pool only keeps 5 connections alive
+		System.setProperty("http.maxConnections", Integer.toString(threads));
+		MongoController mongo = null;
+		final String mongoHost;
+		if (System.getProperty(MONGO_HOST) != null) {
+			mongoHost = System.getProperty(MONGO_HOST);
+		} else {
+			TestCommon.stfuLoggers();
+			mongo = new MongoController(TestCommon.getMongoExe().toString(),
+					TestCommon.getTempDir(), TestCommon.useWiredTigerEngine());
+			mongoHost = "localhost:" + mongo.getServerPort();
+		}
+		final MongoClient mc = MongoClients.create("mongodb://" + mongoHost);
+		Server server = null;
+		try {
+			final MongoDatabase db = mc.getDatabase(DB_NAME);
+			db.drop();
+			final long latency = getInt(HANDLER_LATENCY_MS, 20);
+			final MongoGroupsStorage storage = new MongoGroupsStorage(
+					db, Arrays.asList(WORKSPACE));
+			final Notifications notifier = new SLF4JNotifierFactory()
+					.getNotifier(ImmutableMap.of());
+			final Groups groups = new Groups(
+					storage,
+					new FakeUserHandler(latency),
+					ImmutableMap.of(WORKSPACE, new FakeResourceHandler(latency)),
+					FieldValidators.getBuilder(5000).build(),
+					notifier);
+			server = startServer(mongoHost, groups);
+			final URI host = URI.create("http://localhost:" +
+					((ServerConnector) server.getConnectors()[0]).getLocalPort());
+			// the service sets the log level when it starts
+			TestCommon.stfuLoggers();
+			final LoadTest lt = new LoadTest(host, ClientBuilder.newClient());
+			lt.config.put(HANDLER_LATENCY_MS, latency);
+			lt.config.put(THREADS, threads);
+			lt.config.put("mongo-host", mongoHost);
+			lt.seed(storage, getInt(RESOURCES, 10));
+			lt.run(threads);
+		} finally {
+			if (server != null) {
+				server.stop();
+			}
+			mc.close();
+			if (mongo != null) {
+				mongo.destroy(TestCommon.isDeleteTempFiles());
+			}
+		}
+		// the storage system's background threads are not daemon threads
+		System.exit(0);
+	}
+
+	private static Server startServer(final String mongoHost, final Groups groups)
+			throws Exception {
+		final Ini ini = new Ini();
+		final Section sec = ini.add("groups");
+		// the service only uses the service level settings in the config, but the config
+		// requires the other settings to be present
+		sec.add("mongo-host", mongoHost);
+		sec.add("mongo-db", DB_NAME);
+		sec.add("auth-url", "http://localhost/fake/auth");
+		sec.add("workspace-admin-token", "fake");
+		sec.add("workspace-url", "http://localhost/fake/ws");
+		sec.add("catalog-url", "http://localhost/fake/catalog");
+		sec.add("notifier-factory", SLF4JNotifierFactory.class.getName());
+		final Path cfgfile = Files.createTempFile("load_test_deploy", ".cfg");
+		ini.store(cfgfile.toFile());
+		cfgfile.toFile().deleteOnExit();
+		final GroupsConfig cfg = new GroupsConfig(cfgfile, true);
+
+		final Server server = new Server(0);
+		final ServletContextHandler context = new ServletContextHandler();
+		context.setContextPath("/");
+		server.setHandler(context);
+		context.addServlet(new ServletHolder(
+				new ServletContainer(new GroupsService(cfg, groups))), "/*");
+		server.start();
+		return server;
+	}
+
+	private static UserName owner(final int group) {
+		return user("owner" + group);
+	}
+
+	private static GroupID groupID(final int group) {
+		try {
+			return new GroupID("loadgroup" + group);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// the members of a group other than the owner. Users are spread evenly over the groups.
+	private UserName member(final int group, final int member) {
+		return user("user" + ((group * (memberCount - 1) + member) % userCount));
+	}
+
+	private void seed(final MongoGroupsStorage storage, final int resourceCount)
+			throws Exception {
+		config.put(GROUPS, groupCount);
+		config.put(MEMBERS, memberCount);
+		config.put(RESOURCES, resourceCount);
+		config.put(USERS, userCount);
+		final Instant now = Instant.now();
+		System.out.println(String.format("Seeding %s groups", groupCount));
+		for (int g = 0; g < groupCount; g++) {
+			final Group.Builder b = Group.getBuilder(
+					groupID(g), new GroupName("Load test group " + g),
+					GroupUser.getBuilder(owner(g), now).build(),
+					new CreateAndModTimes(now));
+			for (int m = 0; m < memberCount - 1; m++) {
+				b.withMember(GroupUser.getBuilder(member(g, m), now).build());
+			}
+			for (int r = 0; r < resourceCount; r++) {
+				b.withResource(WORKSPACE, new ResourceDescriptor(
+						FakeResourceHandler.getResourceID(owner(g), "" + r)), now);
+			}
+			storage.createGroup(b.build());
+		}
+	}
+
+	private void run(final int threads) throws Exception {
+		final int warmup = getInt(WARMUP_SEC, 10);
+		final int duration = getInt(DURATION_SEC, 60);
+		final Map<String, Integer> rates = getRates();
+		config.put(WARMUP_SEC, warmup);
+		config.put(DURATION_SEC, duration);
+		config.put(RATES, rates);
+		System.out.println(String.format("Running %s for %s s after a %s s warmup",
+				rates, duration, warmup));
+
+		final ExecutorService workers = Executors.newFixedThreadPool(threads);
+		final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		recordFromNS = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+		for (final String endpoint: rates.keySet()) {
+			scheduler.scheduleAtFixedRate(() -> {
+				final long scheduled = System.nanoTime();
+				workers.execute(() -> call(endpoint, scheduled));
+			}, 0, 1000000000L / rates.get(endpoint), TimeUnit.NANOSECONDS);
+		}
+		Thread.sleep(TimeUnit.SECONDS.toMillis(warmup + duration));
+		scheduler.shutdownNow();
+		workers.shutdown();
+		if (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+			System.out.println("Calls were still running 60 s after the test ended");
+			workers.shutdownNow();
+		}
+		report(recorder.summarize(duration));
+	}
+
+	private Map<String, Integer> getRates() {
+		final Map<String, Integer> ret = new LinkedHashMap<>();
+		final String rates = System.getProperty(
+				RATES, "get-group=40,list-groups=20,list-requests=10,invite=5");
+		for (final String rate: rates.split(",")) {
+			final String[] r = rate.split("=");
+			if (r.length != 2) {
+				throw new IllegalArgumentException("Illegal rate: " + rate);
+			}
+			final String endpoint = r[0].trim();
+			if (!Arrays.asList("get-group", "list-groups", "list-requests", "invite")
+					.contains(endpoint)) {
+				throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+			}
+			final int rps = Integer.parseInt(r[1].trim());
+			if (rps > 0) {
+				ret.put(endpoint, rps);
+			}
+		}
+		return ret;
+	}
+
+	private void call(final String endpoint, final long scheduledNS) {
+		final ThreadLocalRandom rand = ThreadLocalRandom.current();
+		final int group = rand.nextInt(groupCount);
+		try {
+			switch (endpoint) {
+				case "get-group":
+					request(endpoint, scheduledNS,
+							member(group, rand.nextInt(memberCount - 1)),
+							"group/" + groupID(group).getName(), "GET");
+					break;
+				case "list-groups":
+					request(endpoint, scheduledNS, user("user" + rand.nextInt(userCount)),
+							"group", "GET");
+					break;
+				case "list-requests":
+					request(endpoint, scheduledNS, owner(group), "request/created", "GET");
+					break;
+				case "invite":
+					final UserName invitee = user("invitee" + inviteCounter.incrementAndGet());
+					final Map<?, ?> req = request(endpoint, scheduledNS, owner(group),
+							"group/" + groupID(group).getName() + "/user/" + invitee.getName(),
+							"POST");
+					if (req != null) {
+						request("accept", System.nanoTime(), invitee,
+								"request/id/" + req.get("id") + "/accept", "PUT");
+					}
+					break;
+				default:
+					throw new IllegalStateException("Unknown endpoint: " + endpoint);
+			}
+		} catch (RuntimeException | IOException e) {
+			if (scheduledNS >= recordFromNS) {
+				recorder.recordError(endpoint);
+			}
+		}
+	}
+
+	// returns null on error
+	private Map<?, ?> request(
+			final String endpoint,
+			final long scheduledNS,
+			final UserName user,
+			final String path,
+			final String method)
+			throws IOException {
+		final Response res = client.target(UriBuilder.fromUri(host).path(path).build())
+				.request()
+				.header(APIConstants.HEADER_TOKEN, FakeUserHandler.getToken(user))
+				.method(method, method.equals("GET") ? null : Entity.json("{}"));
+		final String body = res.readEntity(String.class);
+		final long end = System.nanoTime();
+		final boolean record = scheduledNS >= recordFromNS;
+		if (res.getStatus() >= 300) {
+			if (record) {
+				recorder.recordError(endpoint);
+			}
+			return null;
+		}
+		if (record) {
+			recorder.record(endpoint, end - scheduledNS);
+		}
+		return body.isEmpty() ? null : MAPPER.readValue(body, Map.class);
+	}
+
+	private void report(final Map<String, Map<String, Object>> summary) throws IOException {
+		System.out.println(String.format("%-15s %8s %8s %10s %10s %10s %10s",
+				"endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "max ms"));
+		for (final String endpoint: summary.keySet()) {
+			final Map<String, Object> s = summary.get(endpoint);
+			System.out.println(String.format("%-15s %8s %8s %10s %10s %10s %10s",
+					endpoint, s.get("count"), s.get("errors"), s.get("throughput_per_sec"),
+					s.get("p50_ms"), s.get("p99_ms"), s.get("max_ms")));
+		}
+		final Path results = Paths.get(System.getProperty(
+				RESULTS_FILE, "build/reports/loadtest/results.json"));
+		if (results.getParent() != null) {
+			Files.createDirectories(results.getParent());
+		}
+		MAPPER.writerWithDefaultPrettyPrinter().writeValue(results.toFile(),
+				ImmutableMap.of("config", config, "results", summary));
+		System.out.println("Wrote results to " + results.toAbsolutePath());
+	}
+
+	private static int getInt(final String key, final int defaultValue) {
+		final String val = System.getProperty(key);
+		return val == null ? defaultValue : Integer.parseInt(val.trim());
+	}
+
+	private static UserName user(final String name) {
+		try {
+			return new UserName(name);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static ResourceType type(final String type) {
+		try {
+			return new ResourceType(type);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
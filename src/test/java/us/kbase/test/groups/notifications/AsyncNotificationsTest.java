@@ -0,0 +1,168 @@
+package us.kbase.test.groups.notifications;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import us.kbase.groups.core.CreateModAndExpireTimes;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.notifications.Notifications;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.notifications.AsyncNotifications;
+import us.kbase.test.groups.TestCommon;
+
+public class AsyncNotificationsTest {
+
+	private static final long WAIT = 5000;
+
+	private static GroupRequest getRequest() throws Exception {
+		return GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("i"), new UserName("n"),
+				CreateModAndExpireTimes.getBuilder(
+						Instant.ofEpochMilli(10000), Instant.ofEpochMilli(20000)).build())
+				.build();
+	}
+
+	@Test
+	public void sendAll() throws Exception {
+		final Notifications n = mock(Notifications.class);
+		final AsyncNotifications an = new AsyncNotifications(n, 10, 2, 3);
+		final GroupRequest r = getRequest();
+
+		an.notify(Arrays.asList(new UserName("u1")), r);
+		an.cancel(r.getID());
+		an.deny(Arrays.asList(new UserName("u2")), r);
+		an.accept(Arrays.asList(new UserName("u3")), r);
+		an.expire(Arrays.asList(new UserName("u6")), r);
+		an.addResource(new UserName("u4"), ImmutableSet.of(new UserName("u5")),
+				new GroupID("g"), new ResourceType("t"), new ResourceID("r"));
+
+		verify(n, timeout(WAIT)).notify(Arrays.asList(new UserName("u1")), r);
+		verify(n, timeout(WAIT)).cancel(r.getID());
+		verify(n, timeout(WAIT)).deny(Arrays.asList(new UserName("u2")), r);
+		verify(n, timeout(WAIT)).accept(Arrays.asList(new UserName("u3")), r);
+		verify(n, timeout(WAIT)).expire(Arrays.asList(new UserName("u6")), r);
+		verify(n, timeout(WAIT)).addResource(new UserName("u4"),
+				ImmutableSet.of(new UserName("u5")),
+				new GroupID("g"), new ResourceType("t"), new ResourceID("r"));
+
+		waitForSent(an, 6);
+		assertThat("incorrect failed", an.getFailedCount(), is(0L));
+		assertThat("incorrect dropped", an.getDroppedCount(), is(0L));
+		assertThat("incorrect queue", an.getQueueSize(), is(0));
+		an.shutdown(WAIT);
+	}
+
+	@Test
+	public void sendFail() throws Exception {
+		final Notifications n = mock(Notifications.class);
+		final AsyncNotifications an = new AsyncNotifications(n, 10, 1, 10);
+		final GroupRequest r = getRequest();
+		doThrow(new RuntimeException("whoops")).when(n).cancel(r.getID());
+
+		an.cancel(r.getID());
+		an.notify(Arrays.asList(new UserName("u1")), r);
+
+		verify(n, timeout(WAIT)).notify(Arrays.asList(new UserName("u1")), r);
+		waitForSent(an, 1);
+		assertThat("incorrect failed", an.getFailedCount(), is(1L));
+		an.shutdown(WAIT);
+	}
+
+	@Test
+	public void dropWhenFull() throws Exception {
+		final Notifications n = mock(Notifications.class);
+		final AsyncNotifications an = new AsyncNotifications(n, 1, 1, 1);
+		final GroupRequest r = getRequest();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch block = new CountDownLatch(1);
+		doAnswer(inv -> {
+			started.countDown();
+			block.await();
+			return null;
+		}).when(n).cancel(r.getID());
+
+		an.cancel(r.getID()); // blocks the sender thread
+		started.await();
+		an.notify(Arrays.asList(new UserName("u1")), r); // fills the queue
+		an.notify(Arrays.asList(new UserName("u2")), r); // dropped
+
+		assertThat("incorrect dropped", an.getDroppedCount(), is(1L));
+		assertThat("incorrect queue", an.getQueueSize(), is(1));
+		block.countDown();
+
+		verify(n, timeout(WAIT)).notify(Arrays.asList(new UserName("u1")), r);
+		waitForSent(an, 2);
+		an.shutdown(WAIT);
+	}
+
+	private void waitForSent(final AsyncNotifications an, final long count)
+			throws InterruptedException {
+		final long end = System.currentTimeMillis() + WAIT;
+		while (an.getSentCount() < count && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		assertThat("incorrect sent", an.getSentCount(), is(count));
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final Notifications n = mock(Notifications.class);
+		failConstruct(null, 1, 1, 1, new NullPointerException("notifier"));
+		failConstruct(n, 0, 1, 1, new IllegalArgumentException("queueSize must be > 0"));
+		failConstruct(n, 1, 0, 1, new IllegalArgumentException("senderThreads must be > 0"));
+		failConstruct(n, 1, 1, 0, new IllegalArgumentException("batchSize must be > 0"));
+	}
+
+	private void failConstruct(
+			final Notifications n,
+			final int queueSize,
+			final int threads,
+			final int batchSize,
+			final Exception expected) {
+		try {
+			new AsyncNotifications(n, queueSize, threads, batchSize);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void notifyFailNulls() throws Exception {
+		final AsyncNotifications an = new AsyncNotifications(
+				mock(Notifications.class), 1, 1, 1);
+		try {
+			an.notify(null, getRequest());
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("targets"));
+		}
+		try {
+			an.notify(Collections.emptyList(), null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("request"));
+		}
+		an.shutdown(WAIT);
+	}
+}
@@ -217,6 +217,51 @@ public class KafkaFeedsNotifierFactoryTest {
 		}
 	}
 	
+	@Test
+	public void expire() throws Exception {
+		final TestMocks mocks = initTestMocks("mytopic2", "localhost:9081");
+		final GroupRequest r = GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("i"), new UserName("n"),
+				CreateModAndExpireTimes.getBuilder(inst(1), inst(2)).build())
+				.build();
+		
+		@SuppressWarnings("unchecked")
+		final Future<RecordMetadata> fut = mock(Future.class);
+		
+		when(mocks.client.send(new ProducerRecord<String, Map<String,Object>>("mytopic2",
+				MapBuilder.<String, Object>newHashMap()
+				.with("operation", "expire")
+				.with("external_ids", Arrays.asList(r.getID().getID()))
+				.with("source", "groupsservice")
+				.build())))
+				.thenReturn(fut);
+		
+		mocks.notis.expire(set(new UserName("a")), r);
+		
+		verify(mocks.client).partitionsFor("mytopic2");
+		verify(fut).get(35000, TimeUnit.MILLISECONDS);
+	}
+	
+	@Test
+	public void expireFailNulls() throws Exception {
+		expireFail(null, REQUEST, new NullPointerException("targets"));
+		expireFail(set(new UserName("n"), null), REQUEST, new NullPointerException(
+				"Null item in collection targets"));
+		expireFail(set(), null, new NullPointerException("request"));
+	}
+	
+	private void expireFail(
+			final Set<UserName> targets,
+			final GroupRequest g,
+			final Exception expected) {
+		try {
+			initTestMocks("t", "s").notis.expire(targets, g);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
 	@Test
 	public void notifyNoTargets() throws Exception {
 		final TestMocks mocks = initTestMocks("mytopic", "localhost:9081");
@@ -0,0 +1,283 @@
+package us.kbase.test.groups.notifications;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static us.kbase.test.groups.TestCommon.inst;
+import static us.kbase.test.groups.TestCommon.set;
+
+import java.lang.reflect.Constructor;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import us.kbase.groups.core.CreateModAndExpireTimes;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.notifications.Notifications;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.notifications.OutboxNotification.Operation;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.notifications.OutboxNotifications;
+import us.kbase.groups.storage.GroupsStorage;
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+import us.kbase.test.groups.TestCommon;
+
+public class OutboxNotificationsTest {
+
+	private static final UUID ID1 = UUID.fromString("21389fc3-10f0-4d84-b187-87d327de3b48");
+	private static final UUID ID2 = UUID.fromString("9e7c7cc4-3d52-4b43-bd57-a0e1c3f4e8bf");
+	private static final UUID ID3 = UUID.fromString("5c8f4cb5-03fd-4c4b-91de-6d1e2e6b5a2a");
+	private static final UUID ID4 = UUID.fromString("e0b2a1d7-6c3f-4f8e-9a54-3b7d2c1f0e96");
+
+	private static class Mocks {
+		private final GroupsStorage storage = mock(GroupsStorage.class);
+		private final Notifications notifier = mock(Notifications.class);
+		private final Clock clock = mock(Clock.class);
+		private final OutboxNotifications outbox;
+
+		private Mocks(final int batchSize) throws Exception {
+			final Constructor<OutboxNotifications> con = OutboxNotifications.class
+					.getDeclaredConstructor(GroupsStorage.class, Notifications.class, int.class,
+							Clock.class);
+			con.setAccessible(true);
+			outbox = con.newInstance(storage, notifier, batchSize, clock);
+			outbox.stopRelay();
+		}
+	}
+
+	private static GroupRequest getRequest(final UUID id) throws Exception {
+		return GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("g"), new UserName("n"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000)).build())
+				.build();
+	}
+
+	@Test
+	public void relayState() throws Exception {
+		final Mocks m = new Mocks(10);
+		assertThat("incorrect running", m.outbox.isRelayRunning(), is(false));
+		m.outbox.startRelay(1000);
+		assertThat("incorrect running", m.outbox.isRelayRunning(), is(true));
+		failStartRelay(m.outbox, 1000, new IllegalArgumentException(
+				"The outbox relay is already running"));
+		m.outbox.stopRelay();
+		m.outbox.stopRelay();
+		assertThat("incorrect running", m.outbox.isRelayRunning(), is(false));
+		failStartRelay(m.outbox, 0, new IllegalArgumentException(
+				"periodInSeconds must be > 0"));
+	}
+
+	private void failStartRelay(
+			final OutboxNotifications o,
+			final long period,
+			final Exception expected) {
+		try {
+			o.startRelay(period);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void store() throws Exception {
+		final Mocks m = new Mocks(10);
+		final GroupRequest r = getRequest(ID2);
+		when(m.clock.instant()).thenReturn(inst(5000));
+
+		m.outbox.notify(Arrays.asList(new UserName("u1")), r);
+		m.outbox.cancel(r.getID());
+		m.outbox.deny(Collections.emptyList(), r);
+		m.outbox.accept(Arrays.asList(new UserName("u2")), r);
+		m.outbox.expire(Arrays.asList(new UserName("u4")), r);
+		m.outbox.addResource(new UserName("a"), set(new UserName("u3")), new GroupID("g"),
+				new ResourceType("t"), new ResourceID("r"));
+
+		final ArgumentCaptor<OutboxNotification> cap =
+				ArgumentCaptor.forClass(OutboxNotification.class);
+		verify(m.storage, times(6)).storeNotification(cap.capture());
+
+		final OutboxNotification n1 = cap.getAllValues().get(0);
+		assertThat("incorrect notification", n1, is(OutboxNotification.getBuilder(
+				n1.getID(), Operation.NOTIFY, inst(5000), r)
+				.withTargets(set(new UserName("u1"))).build()));
+		final OutboxNotification n2 = cap.getAllValues().get(1);
+		assertThat("incorrect notification", n2, is(OutboxNotification.getBuilder(
+				n2.getID(), Operation.CANCEL, inst(5000), r.getID()).build()));
+		final OutboxNotification n3 = cap.getAllValues().get(2);
+		assertThat("incorrect notification", n3, is(OutboxNotification.getBuilder(
+				n3.getID(), Operation.DENY, inst(5000), r).build()));
+		final OutboxNotification n4 = cap.getAllValues().get(3);
+		assertThat("incorrect notification", n4, is(OutboxNotification.getBuilder(
+				n4.getID(), Operation.ACCEPT, inst(5000), r)
+				.withTargets(set(new UserName("u2"))).build()));
+		final OutboxNotification n5 = cap.getAllValues().get(4);
+		assertThat("incorrect notification", n5, is(OutboxNotification.getBuilder(
+				n5.getID(), Operation.EXPIRE, inst(5000), r)
+				.withTargets(set(new UserName("u4"))).build()));
+		final OutboxNotification n6 = cap.getAllValues().get(5);
+		assertThat("incorrect notification", n6, is(OutboxNotification.getBuilder(
+				n6.getID(), inst(5000), new UserName("a"), new GroupID("g"),
+				new ResourceType("t"), new ResourceID("r"))
+				.withTargets(set(new UserName("u3"))).build()));
+
+		verifyZeroInteractions(m.notifier);
+	}
+
+	@Test
+	public void storeFail() throws Exception {
+		final Mocks m = new Mocks(10);
+		final GroupRequest r = getRequest(ID2);
+		when(m.clock.instant()).thenReturn(inst(5000));
+		doThrow(new GroupsStorageException("oh dear")).when(m.storage)
+				.storeNotification(any());
+
+		try {
+			m.outbox.notify(Arrays.asList(new UserName("u1")), r);
+			fail("expected exception");
+		} catch (RuntimeException got) {
+			assertThat("incorrect message", got.getMessage().startsWith(
+					"Failed storing NOTIFY notification "), is(true));
+			assertThat("incorrect message", got.getMessage().endsWith(
+					" in the outbox: oh dear"), is(true));
+			TestCommon.assertExceptionCorrect(
+					got.getCause(), new GroupsStorageException("oh dear"));
+		}
+
+		// nothing is held for the relay to retry
+		when(m.clock.instant()).thenReturn(inst(100000));
+		when(m.storage.claimNotifications(inst(100000), inst(400000), 10))
+				.thenReturn(Collections.emptyList());
+
+		m.outbox.relay();
+
+		verify(m.storage).storeNotification(any());
+		verify(m.storage).movePendingNotifications(10);
+		verify(m.storage).claimNotifications(inst(100000), inst(400000), 10);
+		verifyNoMoreInteractions(m.storage);
+		verifyZeroInteractions(m.notifier);
+	}
+
+	@Test
+	public void relayMovesPendingNotifications() throws Exception {
+		final Mocks m = new Mocks(2);
+		final GroupRequest r = getRequest(ID2);
+		when(m.clock.instant()).thenReturn(inst(100000));
+		when(m.storage.movePendingNotifications(2)).thenReturn(3, 1, 0);
+		when(m.storage.claimNotifications(inst(100000), inst(400000), 2)).thenReturn(
+				Arrays.asList(OutboxNotification.getBuilder(ID1, Operation.NOTIFY, inst(1), r)
+						.withTargets(set(new UserName("u1"))).build()));
+
+		m.outbox.relay();
+
+		// the notifications are moved to the outbox before any are claimed
+		final InOrder order = inOrder(m.storage);
+		order.verify(m.storage, times(3)).movePendingNotifications(2);
+		order.verify(m.storage).claimNotifications(inst(100000), inst(400000), 2);
+		order.verify(m.storage).removeNotification(ID1);
+		verifyNoMoreInteractions(m.storage);
+		verify(m.notifier).notify(set(new UserName("u1")), r);
+		assertThat("incorrect sent", m.outbox.getSentCount(), is(1L));
+	}
+
+	@Test
+	public void relay() throws Exception {
+		final Mocks m = new Mocks(2);
+		final GroupRequest r = getRequest(ID2);
+		when(m.clock.instant()).thenReturn(inst(100000));
+		when(m.storage.claimNotifications(inst(100000), inst(400000), 2)).thenReturn(
+				Arrays.asList(
+						OutboxNotification.getBuilder(ID1, Operation.NOTIFY, inst(1), r)
+								.withTargets(set(new UserName("u1"))).build(),
+						OutboxNotification.getBuilder(ID2, inst(1), new UserName("a"),
+								new GroupID("g"), new ResourceType("t"),
+								new ResourceID("r"))
+								.withTargets(set(new UserName("u2"))).build()),
+				Arrays.asList(
+						OutboxNotification.getBuilder(ID3, Operation.ACCEPT, inst(1), r)
+								.build(),
+						OutboxNotification.getBuilder(ID4, Operation.EXPIRE, inst(1), r)
+								.withTargets(set(new UserName("u3"))).build()),
+				Collections.emptyList());
+
+		m.outbox.relay();
+
+		verify(m.notifier).notify(set(new UserName("u1")), r);
+		verify(m.notifier).addResource(new UserName("a"), set(new UserName("u2")),
+				new GroupID("g"), new ResourceType("t"), new ResourceID("r"));
+		verify(m.notifier).accept(Collections.emptySet(), r);
+		verify(m.notifier).expire(set(new UserName("u3")), r);
+		verify(m.storage).removeNotification(ID1);
+		verify(m.storage).removeNotification(ID2);
+		verify(m.storage).removeNotification(ID3);
+		verify(m.storage).removeNotification(ID4);
+		assertThat("incorrect sent", m.outbox.getSentCount(), is(4L));
+		assertThat("incorrect failed", m.outbox.getFailedCount(), is(0L));
+	}
+
+	@Test
+	public void relayRetry() throws Exception {
+		final Mocks m = new Mocks(10);
+		final GroupRequest r = getRequest(ID2);
+		when(m.clock.instant()).thenReturn(inst(100000));
+		when(m.storage.claimNotifications(inst(100000), inst(400000), 10)).thenReturn(
+				Arrays.asList(
+						OutboxNotification.getBuilder(ID1, Operation.CANCEL, inst(1), r.getID())
+								.withAttempts(2).build(),
+						OutboxNotification.getBuilder(ID3, Operation.DENY, inst(1), r)
+								.build(),
+						OutboxNotification.getBuilder(ID2, Operation.CANCEL, inst(1),
+								new RequestID(ID2)).withAttempts(30).build()));
+		doThrow(new RuntimeException("feeds down")).when(m.notifier).cancel(any());
+
+		m.outbox.relay();
+
+		// backoff is 10 * 2^attempts seconds, capped at an hour
+		verify(m.storage).retryNotification(ID1, inst(140000));
+		verify(m.storage).retryNotification(ID2, inst(3700000));
+		verify(m.notifier).deny(Collections.emptySet(), r);
+		verify(m.storage).removeNotification(ID3);
+		assertThat("incorrect sent", m.outbox.getSentCount(), is(1L));
+		assertThat("incorrect failed", m.outbox.getFailedCount(), is(2L));
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final Notifications n = mock(Notifications.class);
+		failConstruct(null, n, 1, new NullPointerException("storage"));
+		failConstruct(s, null, 1, new NullPointerException("notifier"));
+		failConstruct(s, n, 0, new IllegalArgumentException("batchSize must be > 0"));
+	}
+
+	private void failConstruct(
+			final GroupsStorage s,
+			final Notifications n,
+			final int batchSize,
+			final Exception expected) {
+		try {
+			new OutboxNotifications(s, n, batchSize);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
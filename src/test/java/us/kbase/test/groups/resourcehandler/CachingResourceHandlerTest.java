@@ -0,0 +1,190 @@
+package us.kbase.test.groups.resourcehandler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static us.kbase.test.groups.TestCommon.set;
+
+import java.lang.reflect.Constructor;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.NoSuchResourceException;
+import us.kbase.groups.core.resource.ResourceAccess;
+import us.kbase.groups.core.resource.ResourceAdministrativeID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceHandler;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.resourcehandler.CachingResourceHandler;
+import us.kbase.groups.resourcehandler.CachingResourceHandler.CachedMethod;
+import us.kbase.test.groups.TestCommon;
+
+public class CachingResourceHandlerTest {
+
+	private static final Map<CachedMethod, Integer> ALL = ImmutableMap.of(
+			CachedMethod.GET_DESCRIPTOR, 300,
+			CachedMethod.IS_PUBLIC, 300,
+			CachedMethod.IS_ADMINISTRATOR, 30,
+			CachedMethod.GET_ADMINISTRATORS, 30,
+			CachedMethod.GET_ADMINISTRATED_RESOURCES, 30);
+
+	private static CachingResourceHandler getCache(
+			final ResourceHandler handler,
+			final int size,
+			final Map<CachedMethod, Integer> ttls,
+			final Clock clock)
+			throws Exception {
+		final Constructor<CachingResourceHandler> con = CachingResourceHandler.class
+				.getDeclaredConstructor(ResourceHandler.class, int.class, Map.class, Clock.class);
+		con.setAccessible(true);
+		return con.newInstance(handler, size, ttls, clock);
+	}
+
+	@Test
+	public void cacheWithTTLs() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final Clock clock = mock(Clock.class);
+		final CachingResourceHandler c = getCache(h, 10, ALL, clock);
+		final ResourceID r = new ResourceID("r");
+		final UserName u = new UserName("u");
+
+		when(h.isPublic(r)).thenReturn(true, false);
+		when(h.isAdministrator(r, u)).thenReturn(false, true);
+
+		when(clock.millis()).thenReturn(10000L);
+		assertThat("incorrect public", c.isPublic(r), is(true));
+		assertThat("incorrect admin", c.isAdministrator(r, u), is(false));
+		when(clock.millis()).thenReturn(39999L);
+		assertThat("incorrect public", c.isPublic(r), is(true));
+		assertThat("incorrect admin", c.isAdministrator(r, u), is(false));
+		when(clock.millis()).thenReturn(40000L);
+		assertThat("incorrect public", c.isPublic(r), is(true));
+		assertThat("incorrect admin", c.isAdministrator(r, u), is(true));
+		when(clock.millis()).thenReturn(310000L);
+		assertThat("incorrect public", c.isPublic(r), is(false));
+
+		verify(h, times(2)).isPublic(r);
+		verify(h, times(2)).isAdministrator(r, u);
+		assertThat("incorrect hits", c.getHitCount(CachedMethod.IS_PUBLIC), is(2L));
+		assertThat("incorrect misses", c.getMissCount(CachedMethod.IS_PUBLIC), is(2L));
+		assertThat("incorrect hits", c.getHitCount(CachedMethod.IS_ADMINISTRATOR), is(1L));
+		assertThat("incorrect misses", c.getMissCount(CachedMethod.IS_ADMINISTRATOR), is(2L));
+		assertThat("incorrect rate", c.getHitRate(), is(3.0 / 7.0));
+	}
+
+	@Test
+	public void cacheLookups() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final CachingResourceHandler c = getCache(h, 10, ALL, mock(Clock.class));
+		final ResourceID r = new ResourceID("r");
+		final UserName u = new UserName("u");
+		final ResourceDescriptor d = new ResourceDescriptor(
+				new ResourceAdministrativeID("a"), r);
+
+		when(h.getDescriptor(r)).thenReturn(d);
+		when(h.getAdministrators(r)).thenReturn(set(u));
+		when(h.getAdministratedResources(u)).thenReturn(set(new ResourceAdministrativeID("a")));
+
+		for (int i = 0; i < 2; i++) {
+			assertThat("incorrect desc", c.getDescriptor(r), is(d));
+			assertThat("incorrect admins", c.getAdministrators(r), is(set(u)));
+			assertThat("incorrect resources", c.getAdministratedResources(u),
+					is(set(new ResourceAdministrativeID("a"))));
+		}
+
+		verify(h).getDescriptor(r);
+		verify(h).getAdministrators(r);
+		verify(h).getAdministratedResources(u);
+		try {
+			c.getAdministrators(r).add(new UserName("x"));
+			fail("expected exception");
+		} catch (UnsupportedOperationException e) {
+			// test passed
+		}
+	}
+
+	@Test
+	public void noCacheForMissingMethods() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final CachingResourceHandler c = getCache(h, 10, ImmutableMap.of(
+				CachedMethod.IS_PUBLIC, 300), mock(Clock.class));
+		final ResourceID r = new ResourceID("r");
+		when(h.getAdministrators(r)).thenReturn(set(new UserName("u")));
+
+		c.getAdministrators(r);
+		c.getAdministrators(r);
+
+		verify(h, times(2)).getAdministrators(r);
+		assertThat("incorrect hits", c.getHitCount(CachedMethod.GET_ADMINISTRATORS), is(0L));
+		assertThat("incorrect misses", c.getMissCount(CachedMethod.GET_ADMINISTRATORS), is(0L));
+		assertThat("incorrect rate", c.getHitRate(), is(1.0));
+	}
+
+	@Test
+	public void noCacheForErrors() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final CachingResourceHandler c = getCache(h, 10, ALL, mock(Clock.class));
+		final ResourceID r = new ResourceID("r");
+		when(h.isPublic(r)).thenThrow(new NoSuchResourceException("r")).thenReturn(true);
+
+		try {
+			c.isPublic(r);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NoSuchResourceException("r"));
+		}
+		assertThat("incorrect public", c.isPublic(r), is(true));
+		assertThat("incorrect public", c.isPublic(r), is(true));
+
+		verify(h, times(2)).isPublic(r);
+	}
+
+	@Test
+	public void passThrough() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final CachingResourceHandler c = getCache(h, 10, ALL, mock(Clock.class));
+		final ResourceID r = new ResourceID("r");
+		final UserName u = new UserName("u");
+
+		c.getResourceInformation(u, Collections.emptySet(), ResourceAccess.ALL);
+		c.getResourceInformation(u, Collections.emptySet(), ResourceAccess.ALL);
+		c.setReadPermission(r, u);
+		c.setReadPermission(r, u);
+
+		verify(h, times(2)).getResourceInformation(u, Collections.emptySet(), ResourceAccess.ALL);
+		verify(h, times(2)).setReadPermission(r, u);
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		failConstruct(null, 1, ALL, new NullPointerException("handler"));
+		failConstruct(h, 1, null, new NullPointerException("ttlSec"));
+		failConstruct(h, 0, ALL, new IllegalArgumentException("maximumSize must be > 0"));
+		failConstruct(h, 1, ImmutableMap.of(CachedMethod.IS_PUBLIC, 0),
+				new IllegalArgumentException("ttlSec for IS_PUBLIC must be > 0"));
+	}
+
+	private void failConstruct(
+			final ResourceHandler h,
+			final int size,
+			final Map<CachedMethod, Integer> ttls,
+			final Exception expected) {
+		try {
+			new CachingResourceHandler(h, size, ttls);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package us.kbase.test.groups.resourcehandler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static us.kbase.test.groups.TestCommon.set;
+
+import org.junit.Test;
+
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.IllegalResourceIDException;
+import us.kbase.groups.core.exceptions.NoSuchResourceException;
+import us.kbase.groups.core.exceptions.ResourceHandlerException;
+import us.kbase.groups.core.resource.ResourceAccess;
+import us.kbase.groups.core.resource.ResourceAdministrativeID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceHandler;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceInformationSet;
+import us.kbase.groups.resourcehandler.GuardedResourceHandler;
+import us.kbase.groups.util.DependencyGuard;
+import us.kbase.groups.util.DependencyGuard.State;
+import us.kbase.test.groups.TestCommon;
+
+public class GuardedResourceHandlerTest {
+
+	@Test
+	public void delegate() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final DependencyGuard guard = new DependencyGuard("ws", 1, 1, 100000);
+		final GuardedResourceHandler g = new GuardedResourceHandler(h, guard);
+		final ResourceID r = new ResourceID("r");
+		final UserName u = new UserName("u");
+		final ResourceDescriptor d = new ResourceDescriptor(
+				new ResourceAdministrativeID("a"), r);
+		final ResourceInformationSet info = ResourceInformationSet.getBuilder(u)
+				.withResource(r).build();
+
+		when(h.getDescriptor(r)).thenReturn(d);
+		when(h.isAdministrator(r, u)).thenReturn(true);
+		when(h.isPublic(r)).thenReturn(true);
+		when(h.getAdministrators(r)).thenReturn(set(u));
+		when(h.getAdministratedResources(u)).thenReturn(set(new ResourceAdministrativeID("a")));
+		when(h.getResourceInformation(u, set(r), ResourceAccess.ALL)).thenReturn(info);
+
+		assertThat("incorrect guard", g.getGuard(), is(guard));
+		assertThat("incorrect desc", g.getDescriptor(r), is(d));
+		assertThat("incorrect admin", g.isAdministrator(r, u), is(true));
+		assertThat("incorrect public", g.isPublic(r), is(true));
+		assertThat("incorrect admins", g.getAdministrators(r), is(set(u)));
+		assertThat("incorrect resources", g.getAdministratedResources(u),
+				is(set(new ResourceAdministrativeID("a"))));
+		assertThat("incorrect info", g.getResourceInformation(u, set(r), ResourceAccess.ALL),
+				is(info));
+		g.setReadPermission(r, u);
+
+		verify(h).setReadPermission(r, u);
+		// the concurrency limit of 1 means each call released the guard
+		assertThat("incorrect in flight", guard.getInFlightCount(), is(0));
+		assertThat("incorrect state", guard.getState(), is(State.CLOSED));
+	}
+
+	@Test
+	public void callerErrorsDontOpenCircuit() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final DependencyGuard guard = new DependencyGuard("ws", 0, 1, 100000);
+		final GuardedResourceHandler g = new GuardedResourceHandler(h, guard);
+		final ResourceID r = new ResourceID("r");
+
+		when(h.getDescriptor(r)).thenThrow(new IllegalResourceIDException("r"));
+		when(h.isPublic(r)).thenThrow(new NoSuchResourceException("r"));
+
+		failCall(() -> g.getDescriptor(r), new IllegalResourceIDException("r"));
+		failCall(() -> g.isPublic(r), new NoSuchResourceException("r"));
+
+		assertThat("incorrect in flight", guard.getInFlightCount(), is(0));
+		assertThat("incorrect state", guard.getState(), is(State.CLOSED));
+	}
+
+	@Test
+	public void handlerErrorOpensCircuit() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final DependencyGuard guard = new DependencyGuard("ws", 0, 1, 100000);
+		final GuardedResourceHandler g = new GuardedResourceHandler(h, guard);
+		final ResourceID r = new ResourceID("r");
+		final UserName u = new UserName("u");
+
+		doThrow(new ResourceHandlerException("ws down")).when(h).setReadPermission(r, u);
+
+		failCall(() -> {
+			g.setReadPermission(r, u);
+			return null;
+		}, new ResourceHandlerException("ws down"));
+		assertThat("incorrect state", guard.getState(), is(State.OPEN));
+
+		final ResourceHandlerException expected = new ResourceHandlerException(
+				"The ws service is unavailable");
+		failCall(() -> g.getDescriptor(r), expected);
+		failCall(() -> g.isAdministrator(r, u), expected);
+		failCall(() -> g.isPublic(r), expected);
+		failCall(() -> g.getAdministrators(r), expected);
+		failCall(() -> g.getAdministratedResources(u), expected);
+		failCall(() -> g.getResourceInformation(u, set(r), ResourceAccess.ALL), expected);
+		failCall(() -> {
+			g.setReadPermission(r, u);
+			return null;
+		}, expected);
+
+		verify(h).setReadPermission(r, u);
+		verifyNoMoreInteractions(h);
+		assertThat("incorrect rejected", guard.getRejectedCount(), is(7L));
+	}
+
+	@Test
+	public void runtimeErrorOpensCircuit() throws Exception {
+		final ResourceHandler h = mock(ResourceHandler.class);
+		final DependencyGuard guard = new DependencyGuard("ws", 0, 1, 100000);
+		final GuardedResourceHandler g = new GuardedResourceHandler(h, guard);
+		final UserName u = new UserName("u");
+
+		when(h.getAdministratedResources(u)).thenThrow(new IllegalStateException("whoops"));
+
+		failCall(() -> g.getAdministratedResources(u), new IllegalStateException("whoops"));
+		assertThat("incorrect in flight", guard.getInFlightCount(), is(0));
+		assertThat("incorrect state", guard.getState(), is(State.OPEN));
+	}
+
+	private interface Call {
+		Object call() throws Exception;
+	}
+
+	private void failCall(final Call call, final Exception expected) {
+		try {
+			call.call();
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		failConstruct(null, new DependencyGuard("ws"), new NullPointerException("handler"));
+		failConstruct(mock(ResourceHandler.class), null, new NullPointerException("guard"));
+	}
+
+	private void failConstruct(
+			final ResourceHandler handler,
+			final DependencyGuard guard,
+			final Exception expected) {
+		try {
+			new GuardedResourceHandler(handler, guard);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package us.kbase.test.groups.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static us.kbase.test.groups.TestCommon.inst;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Test;
+
+import us.kbase.groups.config.GroupsConfig;
+import us.kbase.groups.core.CreateAndModTimes;
+import us.kbase.groups.core.CreateModAndExpireTimes;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.GroupView;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.service.ContinuationCursorFilter;
+import us.kbase.groups.service.KeysetPaged;
+
+public class ContinuationCursorFilterTest {
+
+	private static GroupView getGroup(final String id) throws Exception {
+		return GroupView.getBuilder(Group.getBuilder(
+				new GroupID(id), new GroupName("name"),
+				GroupUser.getBuilder(new UserName("u"), inst(10000)).build(),
+				new CreateAndModTimes(inst(10000)))
+				.build(),
+				new UserName("u"))
+				.build();
+	}
+
+	private static GroupRequest getRequest() throws Exception {
+		return GroupRequest.getBuilder(
+				new RequestID("f5bd78c2-f5d3-4b1b-8e49-2b2b8c4c4bd5"), new GroupID("gid"),
+				new UserName("n"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000))
+						.withModificationTime(inst(25000))
+						.build())
+				.withResource(GroupRequest.USER_TYPE, ResourceDescriptor.from(new UserName("n")))
+				.build();
+	}
+
+	// resource methods for the filter to inspect
+	@SuppressWarnings("unused")
+	private static class Resource {
+
+		@KeysetPaged(unpagedWith = "ids")
+		public void paged() {}
+
+		@KeysetPaged(limitParam = "max")
+		public void pagedMax() {}
+
+		public void notPaged() {}
+	}
+
+	private MultivaluedMap<String, Object> filter(final Object entity) throws Exception {
+		return filter("paged", new MultivaluedHashMap<>(), entity);
+	}
+
+	private MultivaluedMap<String, Object> filter(
+			final String method,
+			final MultivaluedMap<String, String> queryParams,
+			final Object entity)
+			throws Exception {
+		final ResourceInfo info = mock(ResourceInfo.class);
+		final GroupsConfig cfg = mock(GroupsConfig.class);
+		final ContainerRequestContext reqcon = mock(ContainerRequestContext.class);
+		final UriInfo uriInfo = mock(UriInfo.class);
+		final ContainerResponseContext rescon = mock(ContainerResponseContext.class);
+		final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+		final Method m = method == null ? null : Resource.class.getDeclaredMethod(method);
+		when(info.getResourceMethod()).thenReturn(m);
+		when(cfg.getMaxListSize()).thenReturn(3);
+		when(reqcon.getUriInfo()).thenReturn(uriInfo);
+		when(uriInfo.getQueryParameters()).thenReturn(queryParams);
+		when(rescon.getEntity()).thenReturn(entity);
+		when(rescon.getHeaders()).thenReturn(headers);
+
+		new ContinuationCursorFilter(info, cfg).filter(reqcon, rescon);
+		return headers;
+	}
+
+	private static MultivaluedMap<String, String> params(final String... keyValues) {
+		final MultivaluedMap<String, String> ret = new MultivaluedHashMap<>();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			ret.add(keyValues[i], keyValues[i + 1]);
+		}
+		return ret;
+	}
+
+	private static List<GroupView> groups(final int count) throws Exception {
+		final List<GroupView> ret = new LinkedList<>();
+		for (int i = 0; i < count; i++) {
+			ret.add(getGroup("id" + i));
+		}
+		return ret;
+	}
+
+	@Test
+	public void groups() throws Exception {
+		final MultivaluedMap<String, Object> headers = filter(
+				Arrays.asList(getGroup("foo"), getGroup("bar"), getGroup("id2")));
+
+		assertThat("incorrect cursor", headers.get("X-Continuation-Cursor"),
+				is(Arrays.asList("ZzppZDI")));
+	}
+
+	@Test
+	public void requests() throws Exception {
+		final MultivaluedMap<String, Object> headers = filter("paged", params("limit", "1"),
+				Arrays.asList(getRequest()));
+
+		assertThat("incorrect cursor", headers.get("X-Continuation-Cursor"), is(Arrays.asList(
+				"cjoyNTAwMDpmNWJkNzhjMi1mNWQzLTRiMWItOGU0OS0yYjJiOGM0YzRiZDU")));
+	}
+
+	@Test
+	public void limits() throws Exception {
+		final String cursor2 = "ZzppZDI";
+		assertCursor(filter("paged", params("limit", " 2 "), groups(2)), "ZzppZDE");
+		assertCursor(filter("paged", params("limit", "4"), groups(3)), cursor2);
+		assertCursor(filter("paged", params("limit", "   "), groups(3)), cursor2);
+		// bad limits are rejected by the endpoint, but in case they're not
+		assertCursor(filter("paged", params("limit", "foo"), groups(3)), cursor2);
+		assertCursor(filter("paged", params("max", "1"), groups(1)), null);
+		assertCursor(filter("pagedMax", params("max", "1"), groups(1)), "ZzppZDA");
+		assertCursor(filter("pagedMax", params("limit", "1"), groups(2)), null);
+		assertCursor(filter("pagedMax", params("limit", "1"), groups(3)), cursor2);
+	}
+
+	private void assertCursor(final MultivaluedMap<String, Object> headers, final String cursor) {
+		assertThat("incorrect cursor", headers.get("X-Continuation-Cursor"),
+				is(cursor == null ? null : Arrays.asList(cursor)));
+	}
+
+	@Test
+	public void noCursor() throws Exception {
+		noCursor("paged", params(), null);
+		noCursor("paged", params(), Collections.emptyList());
+		noCursor("paged", params(), Arrays.asList("foo", "bar", "baz"));
+		noCursor("paged", params(), getGroup("foo"));
+		noCursor("paged", params(), Collections.singletonMap("id", getGroup("foo")));
+		// partial pages
+		noCursor("paged", params(), groups(2));
+		noCursor("paged", params("limit", "2"), groups(1));
+		noCursor("paged", params("limit", "1"), Collections.emptyList());
+		// unpaged requests and endpoints
+		noCursor("paged", params("ids", "id0,id1,id2"), groups(3));
+		noCursor("notPaged", params(), groups(3));
+		noCursor(null, params(), groups(3));
+	}
+
+	private void noCursor(
+			final String method,
+			final MultivaluedMap<String, String> queryParams,
+			final Object entity)
+			throws Exception {
+		assertThat("incorrect headers", filter(method, queryParams, entity).isEmpty(), is(true));
+	}
+}
@@ -0,0 +1,163 @@
+package us.kbase.test.groups.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.junit.Test;
+
+import us.kbase.groups.config.GroupsConfig;
+import us.kbase.groups.service.GzipWriterInterceptor;
+
+public class GzipWriterInterceptorTest {
+
+	private static final String BODY = "{\"id\": \"somegroup\", \"name\": \"my group\"}";
+
+	private static class Result {
+		private final MultivaluedMap<String, Object> headers;
+		private final byte[] body;
+
+		private Result(final MultivaluedMap<String, Object> headers, final byte[] body) {
+			this.headers = headers;
+			this.body = body;
+		}
+	}
+
+	private Result write(
+			final int minSize,
+			final List<String> acceptEncoding,
+			final String body)
+			throws Exception {
+		final HttpHeaders reqHeaders = mock(HttpHeaders.class);
+		final MultivaluedMap<String, String> reqHeaderMap = new MultivaluedHashMap<>();
+		if (acceptEncoding != null) {
+			reqHeaderMap.put("Accept-Encoding", acceptEncoding);
+		}
+		when(reqHeaders.getRequestHeaders()).thenReturn(reqHeaderMap);
+		final GroupsConfig cfg = mock(GroupsConfig.class);
+		when(cfg.getGzipMinSizeBytes()).thenReturn(minSize);
+
+		final WriterInterceptorContext context = mock(WriterInterceptorContext.class);
+		final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+		final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		final OutputStream[] out = new OutputStream[] {sink};
+		when(context.getHeaders()).thenReturn(headers);
+		when(context.getOutputStream()).thenReturn(sink);
+		doAnswer(inv -> {
+			out[0] = inv.getArgument(0);
+			return null;
+		}).when(context).setOutputStream(any());
+		doAnswer(inv -> {
+			// write in pieces to test crossing the threshold mid write
+			final byte[] b = body.getBytes(StandardCharsets.UTF_8);
+			out[0].write(b[0]);
+			out[0].write(b, 1, b.length / 2);
+			out[0].flush();
+			out[0].write(b, b.length / 2 + 1, b.length - b.length / 2 - 1);
+			return null;
+		}).when(context).proceed();
+
+		new GzipWriterInterceptor(reqHeaders, cfg).aroundWriteTo(context);
+		return new Result(headers, sink.toByteArray());
+	}
+
+	private String gunzip(final byte[] body) throws Exception {
+		final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buf = new byte[100];
+		int read;
+		while ((read = in.read(buf)) > 0) {
+			out.write(buf, 0, read);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void compress() throws Exception {
+		compress(Arrays.asList("gzip"));
+		compress(Arrays.asList("deflate, GZip;q=0.5"));
+		compress(Arrays.asList("deflate", " br , gzip "));
+	}
+
+	private void compress(final List<String> acceptEncoding) throws Exception {
+		final Result r = write(10, acceptEncoding, BODY);
+
+		assertThat("incorrect encoding", r.headers.get("Content-Encoding"),
+				is(Arrays.asList("gzip")));
+		assertThat("incorrect vary", r.headers.get("Vary"),
+				is(Arrays.asList("Accept-Encoding")));
+		assertThat("incorrect body", gunzip(r.body), is(BODY));
+	}
+
+	@Test
+	public void compressAtThreshold() throws Exception {
+		final Result r = write(BODY.length(), Arrays.asList("gzip"), BODY);
+
+		assertThat("incorrect encoding", r.headers.get("Content-Encoding"),
+				is(Arrays.asList("gzip")));
+		assertThat("incorrect body", gunzip(r.body), is(BODY));
+	}
+
+	@Test
+	public void noCompressBelowThreshold() throws Exception {
+		final Result r = write(BODY.length() + 1, Arrays.asList("gzip"), BODY);
+
+		assertThat("incorrect encoding", r.headers.get("Content-Encoding"), is((Object) null));
+		assertThat("incorrect vary", r.headers.get("Vary"),
+				is(Arrays.asList("Accept-Encoding")));
+		assertThat("incorrect body", new String(r.body, StandardCharsets.UTF_8), is(BODY));
+	}
+
+	@Test
+	public void noCompressNotAccepted() throws Exception {
+		noCompressNotAccepted(null);
+		noCompressNotAccepted(Collections.emptyList());
+		noCompressNotAccepted(Arrays.asList("deflate, br"));
+		noCompressNotAccepted(Arrays.asList("gzip;q=0"));
+		noCompressNotAccepted(Arrays.asList("gzip; q=0.0, deflate"));
+		noCompressNotAccepted(Arrays.asList("gzip;q=foo"));
+		noCompressNotAccepted(Arrays.asList("x-gzip"));
+	}
+
+	private void noCompressNotAccepted(final List<String> acceptEncoding) throws Exception {
+		final Result r = write(1, acceptEncoding, BODY);
+
+		assertThat("incorrect encoding", r.headers.get("Content-Encoding"), is((Object) null));
+		assertThat("incorrect vary", r.headers.get("Vary"),
+				is(Arrays.asList("Accept-Encoding")));
+		assertThat("incorrect body", new String(r.body, StandardCharsets.UTF_8), is(BODY));
+	}
+
+	@Test
+	public void disabled() throws Exception {
+		final HttpHeaders reqHeaders = mock(HttpHeaders.class);
+		final GroupsConfig cfg = mock(GroupsConfig.class);
+		when(cfg.getGzipMinSizeBytes()).thenReturn(0);
+		final WriterInterceptorContext context = mock(WriterInterceptorContext.class);
+
+		new GzipWriterInterceptor(reqHeaders, cfg).aroundWriteTo(context);
+
+		verify(context).proceed();
+		verify(context, never()).getHeaders();
+		verify(context, never()).setOutputStream(any());
+	}
+}
@@ -5,7 +5,9 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static us.kbase.test.groups.TestCommon.inst;
+import static us.kbase.test.groups.TestCommon.set;
 
+import java.io.StringWriter;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
@@ -14,6 +16,9 @@ import java.util.UUID;
 
 import org.junit.Test;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 
 import us.kbase.groups.core.CreateAndModTimes;
@@ -101,6 +106,7 @@ public class APICommonTest {
 				.with("moddate", 10000L)
 				.with("expiredate", 20000L)
 				.build()));
+		assertStreamedJSONCorrect(r);
 	}
 	
 	@Test
@@ -129,6 +135,7 @@ public class APICommonTest {
 				.with("moddate", 25000L)
 				.with("expiredate", 20000L)
 				.build()));
+		assertStreamedJSONCorrect(r);
 	}
 	
 	@Test
@@ -158,6 +165,7 @@ public class APICommonTest {
 				.with("moddate", 25000L)
 				.with("expiredate", 20000L)
 				.build()));
+		assertStreamedJSONCorrect(r);
 	}
 	
 	@Test
@@ -187,6 +195,7 @@ public class APICommonTest {
 				.with("moddate", 25000L)
 				.with("expiredate", 20000L)
 				.build()));
+		assertStreamedJSONCorrect(r);
 	}
 	
 	@Test
@@ -216,6 +225,7 @@ public class APICommonTest {
 				.with("moddate", 25000L)
 				.with("expiredate", 20000L)
 				.build()));
+		assertStreamedJSONCorrect(r);
 	}
 	
 	@Test
@@ -331,6 +341,7 @@ public class APICommonTest {
 		
 		assertThat("incorrect JSON", APICommon.toGroupJSON(gv), is(ImmutableMap.of(
 				"id", "id2", "private", true, "role", "None")));
+		assertStreamedJSONCorrect(gv);
 	}
 	
 	@Test
@@ -340,7 +351,7 @@ public class APICommonTest {
 	}
 
 	private void toGroupJSONMinimalView(final String user, final Long lastVisit, final String role)
-			throws MissingParameterException, IllegalParameterException {
+			throws Exception {
 		final GroupView gv = GroupView.getBuilder(
 				getGroupMaxBuilder().build(),
 				new UserName(user))
@@ -362,6 +373,7 @@ public class APICommonTest {
 				.with("moddate", 30000L)
 				.with("rescount", ImmutableMap.of("ws", 2, "cat", 1))
 				.build()));
+		assertStreamedJSONCorrect(gv);
 	}
 	
 	@Test
@@ -453,6 +465,7 @@ public class APICommonTest {
 										.build()),
 						"cat", Collections.emptyList()))
 				.build()));
+		assertStreamedJSONCorrect(gv);
 	}
 	
 	@Test
@@ -509,6 +522,7 @@ public class APICommonTest {
 										.with("f1", "x")
 										.build())))
 				.build()));
+		assertStreamedJSONCorrect(gv);
 	}
 	
 	@Test
@@ -538,6 +552,42 @@ public class APICommonTest {
 										.with("f1", "x")
 										.build())))
 				.build()));
+		assertStreamedJSONCorrect(gv);
+	}
+	
+	@Test
+	public void toGroupJSONStandardViewUnavailableResources() throws Exception {
+		final UserName userName = new UserName("non");
+		final GroupView gv = GroupView.getBuilder(
+				getGroupMaxBuilder()
+				.withIsPrivate(true)
+				.build(),
+				userName)
+				.withResource(new ResourceType("ws"), ResourceInformationSet
+						.getBuilder(userName)
+						.withResourceField(new ResourceID("a"), "f1", "x")
+						.build())
+				.withUnavailableResourceType(new ResourceType("cat"))
+				.withUnavailableResourceType(new ResourceType("bar"))
+				.withStandardView(true)
+				.build();
+		
+		assertThat("incorrect JSON", APICommon.toGroupJSON(gv), is(MapBuilder.newHashMap()
+				.with("id", "id2")
+				.with("private", true)
+				.with("role", "None")
+				.with("resources", ImmutableMap.of(
+						"ws", Arrays.asList(
+								MapBuilder.newHashMap()
+										.with("rid", "a")
+										.with("added", null)
+										.with("f1", "x")
+										.build()),
+						"cat", Collections.emptyList(),
+						"bar", Collections.emptyList()))
+				.with("resunavailable", Arrays.asList("bar", "cat"))
+				.build()));
+		assertStreamedJSONCorrect(gv);
 	}
 	
 	@Test
@@ -550,6 +600,91 @@ public class APICommonTest {
 		}
 	}
 	
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	
+	private interface JSONWriter {
+		
+		void write(JsonGenerator gen) throws Exception;
+	}
+	
+	private static JsonNode stream(final JSONWriter writer) throws Exception {
+		final StringWriter sw = new StringWriter();
+		final JsonGenerator gen = MAPPER.getFactory().createGenerator(sw);
+		writer.write(gen);
+		gen.close();
+		return MAPPER.readTree(sw.toString());
+	}
+	
+	private static JsonNode toJsonNode(final Object o) throws Exception {
+		return MAPPER.readTree(MAPPER.writeValueAsString(o));
+	}
+	
+	private void assertStreamedJSONCorrect(final GroupRequest r) throws Exception {
+		assertThat("incorrect streamed JSON", stream(g -> APICommon.writeGroupRequestJSON(g, r)),
+				is(toJsonNode(APICommon.toGroupRequestJSON(r))));
+	}
+	
+	private void assertStreamedJSONCorrect(final GroupView gv) throws Exception {
+		assertThat("incorrect streamed JSON", stream(g -> APICommon.writeGroupJSON(g, gv)),
+				is(toJsonNode(APICommon.toGroupJSON(gv))));
+	}
+	
+	@Test
+	public void writeGroupJSONResourceFieldOverridden() throws Exception {
+		final UserName userName = new UserName("u2");
+		final GroupView gv = GroupView.getBuilder(getGroupMaxBuilder().build(), userName)
+				.withResource(new ResourceType("ws"), ResourceInformationSet
+						.getBuilder(userName)
+						.withResourceField(new ResourceID("a"), "rid", "x")
+						.withResourceField(new ResourceID("a"), "added", 1)
+						.withResourceField(new ResourceID("a"), "f1", Arrays.asList(1, 2))
+						.build())
+				.withStandardView(true)
+				.build();
+		
+		assertStreamedJSONCorrect(gv);
+	}
+	
+	@Test
+	public void writeJSONFail() throws Exception {
+		final JsonGenerator gen = MAPPER.getFactory().createGenerator(new StringWriter());
+		final GroupView gv = GroupView.getBuilder(getGroupMaxBuilder().build(), null).build();
+		try {
+			APICommon.writeGroupJSON(null, gv);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("gen"));
+		}
+		try {
+			APICommon.writeGroupJSON(gen, null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("group"));
+		}
+		try {
+			APICommon.writeGroupRequestJSON(null, null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("gen"));
+		}
+		try {
+			APICommon.writeGroupRequestJSON(gen, null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("request"));
+		}
+	}
+	
+	@Test
+	public void getEntityTags() throws Exception {
+		assertThat("incorrect tags", APICommon.getEntityTags(null), is(set()));
+		assertThat("incorrect tags", APICommon.getEntityTags("   "), is(set()));
+		assertThat("incorrect tags", APICommon.getEntityTags("\"foo\""), is(set("foo")));
+		assertThat("incorrect tags", APICommon.getEntityTags(
+				"  W/\"foo\"  ,\"bar\", *, \"\", baz, \"b\"az\", W/\"bat\"  "),
+				is(set("foo", "bar", "bat")));
+	}
+	
 	@Test
 	public void getToken() throws Exception {
 		assertThat("incorrect token", APICommon.getToken(null, false), is(nullValue()));
@@ -580,12 +715,12 @@ public class APICommonTest {
 	@Test
 	public void getRequestParamsNulls() throws Exception {
 		final GetRequestsParams p = APICommon.getRequestsParams(
-				null, null, null, null, null, true);
+				null, null, null, null, null, null, null, true);
 		
 		assertThat("incorrect params", p, is(GetRequestsParams.getBuilder().build()));
 		
 		final GetRequestsParams p2 = APICommon.getRequestsParams(
-				null, null, null, null, null, false);
+				null, null, null, null, null, null, null, false);
 		
 		assertThat("incorrect params", p2, is(GetRequestsParams.getBuilder()
 				.withNullableSortAscending(false)
@@ -595,13 +730,15 @@ public class APICommonTest {
 	@Test
 	public void getRequestParamsWhitespace() throws Exception {
 		final String ws = "    \t    ";
-		final GetRequestsParams p = APICommon.getRequestsParams(ws, ws, ws, ws, ws, true);
+		final GetRequestsParams p = APICommon.getRequestsParams(
+				ws, ws, ws, ws, ws, null, null, true);
 		
 		assertThat("incorrect params", p, is(GetRequestsParams.getBuilder()
 				.withNullableIncludeClosed(true)
 				.build()));
 		
-		final GetRequestsParams p2 = APICommon.getRequestsParams(ws, ws, ws, ws, ws, false);
+		final GetRequestsParams p2 = APICommon.getRequestsParams(
+				ws, ws, ws, ws, ws, null, null, false);
 		
 		assertThat("incorrect params", p2, is(GetRequestsParams.getBuilder()
 				.withNullableSortAscending(false)
@@ -612,7 +749,7 @@ public class APICommonTest {
 	@Test
 	public void getRequestParamsValues() throws Exception {
 		final GetRequestsParams p = APICommon.getRequestsParams(
-				"   \t   12000   ", " yes ", "  asc  ", "type", "res", false);
+				"   \t   12000   ", " yes ", "  asc  ", "type", "res", null, null, false);
 		
 		assertThat("incorrect params", p, is(GetRequestsParams.getBuilder()
 				.withNullableExcludeUpTo(inst(12000))
@@ -621,7 +758,8 @@ public class APICommonTest {
 				.build()));
 		
 		final GetRequestsParams p2 = APICommon.getRequestsParams(
-				"   \t   " + Long.MAX_VALUE + "   ", " no ", "  desc  ", null, "  \t ", true);
+				"   \t   " + Long.MAX_VALUE + "   ", " no ", "  desc  ", null, "  \t ", null, null,
+				true);
 		
 		assertThat("incorrect params", p2, is(GetRequestsParams.getBuilder()
 				.withNullableExcludeUpTo(inst(Long.MAX_VALUE))
@@ -630,7 +768,7 @@ public class APICommonTest {
 				.build()));
 		
 		final GetRequestsParams p3 = APICommon.getRequestsParams(
-				"   \t   " + Long.MIN_VALUE + "   ", null, null, "t", "r", true);
+				"   \t   " + Long.MIN_VALUE + "   ", null, null, "t", "r", null, null, true);
 		
 		assertThat("incorrect params", p3, is(GetRequestsParams.getBuilder()
 				.withNullableExcludeUpTo(inst(Long.MIN_VALUE))
@@ -658,7 +796,82 @@ public class APICommonTest {
 			final String res,
 			final Exception expected) {
 		try {
-			APICommon.getRequestsParams(excludeUpTo, null, sortDirection, resType, res, true);
+			APICommon.getRequestsParams(
+					excludeUpTo, null, sortDirection, resType, res, null, null, true);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	private static final String REQ_ID = "f5bd78c2-f5d3-4b1b-8e49-2b2b8c4c4bd5";
+	
+	private GroupRequest getCursorRequest() throws Exception {
+		return GroupRequest.getBuilder(
+				new RequestID(REQ_ID), new GroupID("gid"), new UserName("n"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(20000))
+						.withModificationTime(inst(25000))
+						.build())
+				.withType(RequestType.REQUEST)
+				.withResource(GroupRequest.USER_TYPE, ResourceDescriptor.from(new UserName("n")))
+				.build();
+	}
+	
+	@Test
+	public void getRequestContinuationCursor() throws Exception {
+		assertThat("incorrect cursor", APICommon.getContinuationCursor(getCursorRequest()),
+				is("cjoyNTAwMDpmNWJkNzhjMi1mNWQzLTRiMWItOGU0OS0yYjJiOGM0YzRiZDU"));
+	}
+	
+	@Test
+	public void getRequestParamsLimitAndCursor() throws Exception {
+		final String cursor = APICommon.getContinuationCursor(getCursorRequest());
+		final GetRequestsParams p = APICommon.getRequestsParams(
+				null, null, "desc", null, null, "   7  \t ", "  " + cursor + "  ", true);
+		
+		assertThat("incorrect params", p, is(GetRequestsParams.getBuilder()
+				.withNullableExcludeUpTo(inst(25000), new RequestID(REQ_ID))
+				.withNullableSortAscending(false)
+				.withNullableLimit(7)
+				.build()));
+		
+		final String ws = "    \t    ";
+		final GetRequestsParams p2 = APICommon.getRequestsParams(
+				"10000", null, null, null, null, "1", ws, true);
+		
+		assertThat("incorrect params", p2, is(GetRequestsParams.getBuilder()
+				.withNullableExcludeUpTo(inst(10000))
+				.withNullableLimit(1)
+				.build()));
+	}
+	
+	@Test
+	public void getRequestParamsFailLimitAndCursor() throws Exception {
+		final String cursor = "cjoyNTAwMDpmNWJkNzhjMi1mNWQzLTRiMWItOGU0OS0yYjJiOGM0YzRiZDU";
+		failGetRequestParams(null, "  foo  ", null, new IllegalParameterException(
+				"Invalid limit: foo"));
+		failGetRequestParams(null, "0", null, new IllegalParameterException(
+				"limit must be > 0"));
+		failGetRequestParams(null, "-1", null, new IllegalParameterException(
+				"limit must be > 0"));
+		failGetRequestParams("10000", null, cursor, new IllegalParameterException(
+				"Only one of excludeupto and cursor may be provided"));
+		final Exception invalid = new IllegalParameterException("Invalid cursor");
+		failGetRequestParams(null, null, "  cj*oy  ", invalid);
+		failGetRequestParams(null, null, "Zzpmb28", invalid); // g:foo
+		failGetRequestParams(null, null, "cjoyNTAwMA", invalid); // r:25000
+		failGetRequestParams(null, null, "cjoyNTAwMDpub3RhdXVpZA", invalid); // r:25000:notauuid
+		failGetRequestParams(null, null, // r:foo:<uuid>
+				"cjpmb286ZjViZDc4YzItZjVkMy00YjFiLThlNDktMmIyYjhjNGM0YmQ1", invalid);
+	}
+	
+	private void failGetRequestParams(
+			final String excludeUpTo,
+			final String limit,
+			final String cursor,
+			final Exception expected) {
+		try {
+			APICommon.getRequestsParams(excludeUpTo, null, null, null, null, limit, cursor, true);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
@@ -691,11 +904,13 @@ public class APICommonTest {
 	
 	@Test
 	public void getGroupParamsNulls() throws Exception {
-		final GetGroupsParams p = APICommon.getGroupsParams(null, null, null, null, null, true);
+		final GetGroupsParams p = APICommon.getGroupsParams(
+				null, null, null, null, null, null, null, true);
 		
 		assertThat("incorrect params", p, is(GetGroupsParams.getBuilder().build()));
 		
-		final GetGroupsParams p2 = APICommon.getGroupsParams(null, null, null, null, null, false);
+		final GetGroupsParams p2 = APICommon.getGroupsParams(
+				null, null, null, null, null, null, null, false);
 		
 		assertThat("incorrect params", p2, is(GetGroupsParams.getBuilder()
 				.withNullableSortAscending(false).build()));
@@ -704,11 +919,12 @@ public class APICommonTest {
 	@Test
 	public void getGroupParamsWhitespace() throws Exception {
 		final String ws = "    \t  ";
-		final GetGroupsParams p = APICommon.getGroupsParams(ws, ws, ws, ws, ws, true);
+		final GetGroupsParams p = APICommon.getGroupsParams(ws, ws, ws, ws, ws, null, null, true);
 		
 		assertThat("incorrect params", p, is(GetGroupsParams.getBuilder().build()));
 		
-		final GetGroupsParams p2 = APICommon.getGroupsParams(ws, ws, ws, ws, ws, false);
+		final GetGroupsParams p2 = APICommon.getGroupsParams(
+				ws, ws, ws, ws, ws, null, null, false);
 		
 		assertThat("incorrect params", p2, is(GetGroupsParams.getBuilder()
 				.withNullableSortAscending(false).build()));
@@ -717,7 +933,7 @@ public class APICommonTest {
 	@Test
 	public void getGroupParamsValues() throws Exception {
 		final GetGroupsParams p = APICommon.getGroupsParams(
-				"   foo   ", "asc", "Member", "type", "id", false);
+				"   foo   ", "asc", "Member", "type", "id", null, null, false);
 		
 		assertThat("incorrect params", p, is(GetGroupsParams.getBuilder()
 				.withRole(Role.MEMBER)
@@ -726,7 +942,7 @@ public class APICommonTest {
 				.build()));
 		
 		final GetGroupsParams p2 = APICommon.getGroupsParams(
-				"  \t  bar  ", "desc", "Admin", null, null, true);
+				"  \t  bar  ", "desc", "Admin", null, null, null, null, true);
 		
 		assertThat("incorrect params", p2, is(GetGroupsParams.getBuilder()
 				.withRole(Role.ADMIN)
@@ -735,7 +951,7 @@ public class APICommonTest {
 				.build()));
 		
 		final GetGroupsParams p3 = APICommon.getGroupsParams(
-				"   foo   ", "asc", "Owner", null, null, false);
+				"   foo   ", "asc", "Owner", null, null, null, null, false);
 		
 		assertThat("incorrect params", p3, is(GetGroupsParams.getBuilder()
 				.withRole(Role.OWNER)
@@ -743,7 +959,7 @@ public class APICommonTest {
 				.build()));
 		
 		final GetGroupsParams p4 = APICommon.getGroupsParams(
-				"   foo   ", "asc", "None", null, null, false);
+				"   foo   ", "asc", "None", null, null, null, null, false);
 		
 		assertThat("incorrect params", p4, is(GetGroupsParams.getBuilder()
 				.withRole(Role.NONE)
@@ -770,7 +986,66 @@ public class APICommonTest {
 			final String resource,
 			final Exception expected) {
 		try {
-			APICommon.getGroupsParams(null, sort, role, resType, resource, false);
+			APICommon.getGroupsParams(null, sort, role, resType, resource, null, null, false);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	private GroupView getCursorGroup() throws Exception {
+		return GroupView.getBuilder(getGroupMaxBuilder().build(), new UserName("u2")).build();
+	}
+	
+	@Test
+	public void getGroupContinuationCursor() throws Exception {
+		assertThat("incorrect cursor", APICommon.getContinuationCursor(getCursorGroup()),
+				is("ZzppZDI"));
+	}
+	
+	@Test
+	public void getGroupParamsLimitAndCursor() throws Exception {
+		final String cursor = APICommon.getContinuationCursor(getCursorGroup());
+		final GetGroupsParams p = APICommon.getGroupsParams(
+				null, "desc", null, null, null, "   7  \t ", "  " + cursor + "  ", true);
+		
+		assertThat("incorrect params", p, is(GetGroupsParams.getBuilder()
+				.withNullableExcludeUpTo("id2")
+				.withNullableSortAscending(false)
+				.withNullableLimit(7)
+				.build()));
+		
+		final String ws = "    \t    ";
+		final GetGroupsParams p2 = APICommon.getGroupsParams(
+				"foo", null, null, null, null, "1", ws, true);
+		
+		assertThat("incorrect params", p2, is(GetGroupsParams.getBuilder()
+				.withNullableExcludeUpTo("foo")
+				.withNullableLimit(1)
+				.build()));
+	}
+	
+	@Test
+	public void getGroupParamsFailLimitAndCursor() throws Exception {
+		getGroupParamsFail(null, "  foo  ", null, new IllegalParameterException(
+				"Invalid limit: foo"));
+		getGroupParamsFail(null, "0", null, new IllegalParameterException(
+				"limit must be > 0"));
+		getGroupParamsFail("foo", null, "ZzppZDI", new IllegalParameterException(
+				"Only one of excludeupto and cursor may be provided"));
+		final Exception invalid = new IllegalParameterException("Invalid cursor");
+		getGroupParamsFail(null, null, "  Zz*pp  ", invalid);
+		getGroupParamsFail(null, null, "eDpmb28", invalid); // x:foo
+		getGroupParamsFail(null, null, "cjoyNTAwMA", invalid); // r:25000
+	}
+	
+	private void getGroupParamsFail(
+			final String excludeUpTo,
+			final String limit,
+			final String cursor,
+			final Exception expected) {
+		try {
+			APICommon.getGroupsParams(excludeUpTo, null, null, null, null, limit, cursor, true);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
@@ -0,0 +1,180 @@
+package us.kbase.test.groups.service.api;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static us.kbase.test.groups.TestCommon.inst;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import us.kbase.groups.core.CreateAndModTimes;
+import us.kbase.groups.core.GetGroupsParams;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupExport;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.GroupView;
+import us.kbase.groups.core.Groups;
+import us.kbase.groups.core.Token;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.Group.Role;
+import us.kbase.groups.core.exceptions.IllegalParameterException;
+import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.service.api.APICommon;
+import us.kbase.groups.service.api.ExportAPI;
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+import us.kbase.test.groups.TestCommon;
+
+public class ExportAPITest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static GroupView getGroup(final String id, final UserName user) throws Exception {
+		return GroupView.getBuilder(Group.getBuilder(
+				new GroupID(id), new GroupName("name " + id),
+				GroupUser.getBuilder(new UserName("u"), inst(10000)).build(),
+				new CreateAndModTimes(inst(10000), inst(20000)))
+				.withCustomField(new NumberedCustomField("field-1"), "val\nwith newline")
+				.build(),
+				user)
+				.withMinimalViewFieldDeterminer(f -> true)
+				.withPublicFieldDeterminer(f -> true)
+				.build();
+	}
+
+	private static String write(final StreamingOutput so) throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		so.write(out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> toJSON(final GroupView g) throws Exception {
+		// round trip through Jackson so the numeric types match the parsed output
+		return MAPPER.readValue(MAPPER.writeValueAsString(APICommon.toGroupJSON(g)), Map.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Object>> parseLines(final String ndjson) throws Exception {
+		assertThat("missing trailing newline", ndjson.endsWith("\n"), is(true));
+		final List<Map<String, Object>> ret = new LinkedList<>();
+		for (final String line: ndjson.split("\n")) {
+			ret.add(MAPPER.readValue(line, Map.class));
+		}
+		return ret;
+	}
+
+	@Test
+	public void exportGroupsNulls() throws Exception {
+		exportGroups(null, null, null, null, null, null, null,
+				GetGroupsParams.getBuilder().build());
+	}
+
+	@Test
+	public void exportGroupsWhitespace() throws Exception {
+		final String ws = "   \t   ";
+		exportGroups(ws, ws, ws, ws, ws, ws, null, GetGroupsParams.getBuilder().build());
+	}
+
+	@Test
+	public void exportGroupsValues() throws Exception {
+		exportGroups("    tok \t   ", "   foo  \t  ", "  desc  \t ", "Member",
+				"t", "r", new Token("    tok \t   "),
+				GetGroupsParams.getBuilder()
+						.withRole(Role.MEMBER)
+						.withNullableExcludeUpTo("foo")
+						.withNullableSortAscending(false)
+						.withResource(new ResourceType("t"), new ResourceID("r"))
+						.build());
+	}
+
+	private void exportGroups(
+			final String token,
+			final String excludeUpTo,
+			final String order,
+			final String role,
+			final String resType,
+			final String resource,
+			final Token expectedToken,
+			final GetGroupsParams expected)
+			throws Exception {
+		final Groups g = mock(Groups.class);
+		final GroupView g1 = getGroup("id1", new UserName("u"));
+		final GroupView g2 = getGroup("id2", new UserName("u"));
+		when(g.exportGroups(expectedToken, expected)).thenReturn(c -> {
+			c.accept(g1);
+			c.accept(g2);
+		});
+
+		final String ret = write(new ExportAPI(g).exportGroups(
+				token, excludeUpTo, order, role, resType, resource));
+
+		assertThat("incorrect groups", parseLines(ret), is(Arrays.asList(toJSON(g1), toJSON(g2))));
+	}
+
+	@Test
+	public void exportGroupsEmpty() throws Exception {
+		final Groups g = mock(Groups.class);
+		when(g.exportGroups(null, GetGroupsParams.getBuilder().build())).thenReturn(c -> {});
+
+		assertThat("incorrect output",
+				write(new ExportAPI(g).exportGroups(null, null, null, null, null, null)),
+				is(""));
+	}
+
+	@Test
+	public void exportGroupsFailBadParams() throws Exception {
+		final Groups g = mock(Groups.class);
+		final ExportAPI api = new ExportAPI(g);
+		try {
+			api.exportGroups(null, null, "foo", null, null, null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalParameterException("Invalid sort direction: foo"));
+		}
+	}
+
+	@Test
+	public void exportGroupsFailStorage() throws Exception {
+		final Groups g = mock(Groups.class);
+		final GroupView g1 = getGroup("id1", null);
+		final GroupExport export = c -> {
+			c.accept(g1);
+			throw new GroupsStorageException("oh dear");
+		};
+		when(g.exportGroups(null, GetGroupsParams.getBuilder().build())).thenReturn(export);
+
+		final StreamingOutput so = new ExportAPI(g).exportGroups(
+				null, null, null, null, null, null);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			so.write(out);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IOException("Error exporting groups: oh dear"));
+		}
+		// the groups written before the failure are flushed
+		assertThat("incorrect groups",
+				parseLines(new String(out.toByteArray(), StandardCharsets.UTF_8)),
+				is(Arrays.asList(toJSON(g1))));
+	}
+}
@@ -1,6 +1,7 @@
 package us.kbase.test.groups.service.api;
 
 import static us.kbase.test.groups.TestCommon.inst;
+import static us.kbase.test.groups.TestCommon.set;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -18,6 +19,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
 
 import org.junit.Test;
 
@@ -41,6 +46,7 @@ import us.kbase.groups.core.OptionalGroupFields;
 import us.kbase.groups.core.OptionalString;
 import us.kbase.groups.core.Token;
 import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.VersionedGroupView;
 import us.kbase.groups.core.exceptions.ErrorType;
 import us.kbase.groups.core.exceptions.GroupExistsException;
 import us.kbase.groups.core.exceptions.IllegalParameterException;
@@ -63,6 +69,7 @@ import us.kbase.groups.core.resource.ResourceDescriptor;
 import us.kbase.groups.core.resource.ResourceID;
 import us.kbase.groups.core.resource.ResourceInformationSet;
 import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.service.api.APICommon;
 import us.kbase.groups.service.api.GroupsAPI;
 import us.kbase.groups.service.api.GroupsAPI.CreateOrUpdateGroupJSON;
 import us.kbase.groups.service.api.GroupsAPI.UpdateUserJSON;
@@ -265,6 +272,10 @@ public class GroupsAPITest {
 			.with("role", "None")
 			.with("resources", Collections.emptyMap())
 			.build();
+	
+	private static List<Map<String, Object>> toGroupJSON(final List<GroupView> groups) {
+		return groups.stream().map(g -> APICommon.toGroupJSON(g)).collect(Collectors.toList());
+	}
 
 	@Test
 	public void getGroupsNulls() throws Exception {
@@ -317,13 +328,32 @@ public class GroupsAPITest {
 				GroupView.getBuilder(GROUP_MIN, new UserName("u2"))
 						.withPublicUserFieldDeterminer(f -> f.getField().equals("something"))
 						.build()));
-		final List<Map<String, Object>> ret = new GroupsAPI(g)
-				.getGroups(token, excludeUpTo, order, role, resType, resource, ids);
+		final List<Map<String, Object>> ret = toGroupJSON(new GroupsAPI(g)
+				.getGroups(token, excludeUpTo, order, role, resType, resource, ids, null, null));
 		
 		assertThat("incorrect groups", ret,
 				is(Arrays.asList(GROUP_MAX_JSON_MIN, GROUP_MIN_JSON_MIN)));
 	}
 	
+	@Test
+	public void getGroupsLimitAndCursor() throws Exception {
+		final Groups g = mock(Groups.class);
+		when(g.getGroups(new Token("t"), GetGroupsParams.getBuilder()
+				.withNullableExcludeUpTo("id")
+				.withNullableLimit(1)
+				.build()))
+				.thenReturn(Arrays.asList(GroupView.getBuilder(GROUP_MAX, new UserName("u2"))
+						.withMinimalViewFieldDeterminer(f -> f.getField().equals("field-1"))
+						.build()));
+		final String cursor = APICommon.getContinuationCursor(
+				GroupView.getBuilder(GROUP_MIN, new UserName("u2")).build());
+		
+		final List<Map<String, Object>> ret = toGroupJSON(new GroupsAPI(g)
+				.getGroups("t", null, null, null, null, null, null, "1", cursor));
+		
+		assertThat("incorrect groups", ret, is(Arrays.asList(GROUP_MAX_JSON_MIN)));
+	}
+	
 	@Test
 	public void getGroupsWithIDs() throws Exception {
 		getGroupsWithIDs(null, null);
@@ -356,8 +386,9 @@ public class GroupsAPITest {
 										f -> f.getField().equals("something"))
 								.build()));
 		
-		final List<Map<String, Object>> ret = new GroupsAPI(g)
-				.getGroups(token, "id", "asc", "Owner", null, null, "id2   , priv,  id   ");
+		final List<Map<String, Object>> ret = toGroupJSON(new GroupsAPI(g)
+				.getGroups(token, "id", "asc", "Owner", null, null, "id2   , priv,  id   ",
+						null, null));
 		
 		assertThat("incorrect groups", ret,
 				is(Arrays.asList(
@@ -394,7 +425,8 @@ public class GroupsAPITest {
 			final String ids,
 			final Exception expected) {
 		try {
-			new GroupsAPI(g).getGroups(token, excludeUpTo, order, role, resType, resource, ids);
+			new GroupsAPI(g).getGroups(
+					token, excludeUpTo, order, role, resType, resource, ids, null, null);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
@@ -707,6 +739,16 @@ public class GroupsAPITest {
 		}
 	}
 	
+	private static void mockGetGroup(
+			final Groups g,
+			final Token token,
+			final GroupID id,
+			final GroupView view)
+			throws Exception {
+		when(g.getGroupIfChanged(token, id, set()))
+				.thenReturn(Optional.of(VersionedGroupView.of(view)));
+	}
+	
 	@Test
 	public void getGroupNoTokenNull() throws Exception {
 		getGroup(null, null);
@@ -725,11 +767,12 @@ public class GroupsAPITest {
 	private void getGroup(final String token, final Token expectedToken) throws Exception {
 		final Groups g = mock(Groups.class);
 		
-		when(g.getGroup(expectedToken, new GroupID("id")))
-				.thenReturn(GroupView.getBuilder(GROUP_MAX, new UserName("bar"))
+		mockGetGroup(g, expectedToken, new GroupID("id"),
+				GroupView.getBuilder(GROUP_MAX, new UserName("bar"))
 						.withStandardView(true).build());
 		
-		final Map<String, Object> ret = new GroupsAPI(g).getGroup(token, "id");
+		final Map<String, Object> ret = APICommon.toGroupJSON(
+				(GroupView) new GroupsAPI(g).getGroup(token, null, "id").getEntity());
 		final Map<String, Object> expected = new HashMap<>(GROUP_MAX_JSON_STD);
 		expected.put("role", "Member");
 		
@@ -740,14 +783,15 @@ public class GroupsAPITest {
 	public void getGroupNonMember() throws Exception {
 		final Groups g = mock(Groups.class);
 		
-		when(g.getGroup(new Token("toke"), new GroupID("id")))
-				.thenReturn(GroupView.getBuilder(GROUP_MAX, new UserName("nonmember"))
+		mockGetGroup(g, new Token("toke"), new GroupID("id"),
+				GroupView.getBuilder(GROUP_MAX, new UserName("nonmember"))
 						.withStandardView(true)
 						.withPublicFieldDeterminer(f -> f.getField().equals("otherfield"))
 						.withPublicUserFieldDeterminer(f -> f.getField().equals("yay-6"))
 						.build());
 		
-		final Map<String, Object> ret = new GroupsAPI(g).getGroup("toke", "id");
+		final Map<String, Object> ret = APICommon.toGroupJSON(
+				(GroupView) new GroupsAPI(g).getGroup("toke", null, "id").getEntity());
 		
 		assertThat("incorrect group", ret, is(GROUP_MAX_JSON_NON));
 	}
@@ -756,14 +800,15 @@ public class GroupsAPITest {
 	public void getGroupNonMemberPublicMembers() throws Exception {
 		final Groups g = mock(Groups.class);
 		
-		when(g.getGroup(new Token("toke"), new GroupID("id")))
-				.thenReturn(GroupView.getBuilder(GROUP_PUB_MEMB, new UserName("nonmember"))
+		mockGetGroup(g, new Token("toke"), new GroupID("id"),
+				GroupView.getBuilder(GROUP_PUB_MEMB, new UserName("nonmember"))
 						.withStandardView(true)
 						.withPublicFieldDeterminer(f -> f.getField().equals("otherfield"))
 						.withPublicUserFieldDeterminer(f -> f.getField().equals("yay-6"))
 						.build());
 		
-		final Map<String, Object> ret = new GroupsAPI(g).getGroup("toke", "id");
+		final Map<String, Object> ret = APICommon.toGroupJSON(
+				(GroupView) new GroupsAPI(g).getGroup("toke", null, "id").getEntity());
 		
 		final Map<String, Object> expected = MapBuilder.<String, Object>newHashMap()
 				.with("id", "id2")
@@ -821,12 +866,13 @@ public class GroupsAPITest {
 	public void getGroupPrivate() throws Exception {
 		final Groups g = mock(Groups.class);
 		
-		when(g.getGroup(new Token("t"), new GroupID("id"))).thenReturn(
+		mockGetGroup(g, new Token("t"), new GroupID("id"),
 				GroupView.getBuilder(GROUP_PRIV, new UserName("nonmember"))
 						.withStandardView(true)
 						.build());
 		
-		final Map<String, Object> ret = new GroupsAPI(g).getGroup("t", "id");
+		final Map<String, Object> ret = APICommon.toGroupJSON(
+				(GroupView) new GroupsAPI(g).getGroup("t", null, "id").getEntity());
 		
 		assertThat("incorrect group", ret, is(GROUP_MAX_JSON_PRIV));
 	}
@@ -835,12 +881,13 @@ public class GroupsAPITest {
 	public void getGroupPrivateMember() throws Exception {
 		final Groups g = mock(Groups.class);
 		
-		when(g.getGroup(new Token("t"), new GroupID("id"))).thenReturn(
+		mockGetGroup(g, new Token("t"), new GroupID("id"),
 				GroupView.getBuilder(GROUP_PRIV, new UserName("bar"))
 						.withStandardView(true)
 						.build());
 		
-		final Map<String, Object> ret = new GroupsAPI(g).getGroup("t", "id");
+		final Map<String, Object> ret = APICommon.toGroupJSON(
+				(GroupView) new GroupsAPI(g).getGroup("t", null, "id").getEntity());
 		
 		final Map<String, Object> expected = new HashMap<>(GROUP_MAX_JSON_STD);
 		expected.put("private", true);
@@ -853,12 +900,13 @@ public class GroupsAPITest {
 	public void getGroupMemberPublicMembers() throws Exception {
 		final Groups g = mock(Groups.class);
 		
-		when(g.getGroup(new Token("toke"), new GroupID("id")))
-				.thenReturn(GroupView.getBuilder(GROUP_PUB_MEMB, new UserName("foo"))
+		mockGetGroup(g, new Token("toke"), new GroupID("id"),
+				GroupView.getBuilder(GROUP_PUB_MEMB, new UserName("foo"))
 						.withStandardView(true)
 						.build());
 		
-		final Map<String, Object> ret = new GroupsAPI(g).getGroup("toke", "id");
+		final Map<String, Object> ret = APICommon.toGroupJSON(
+				(GroupView) new GroupsAPI(g).getGroup("toke", null, "id").getEntity());
 		
 		final Map<String, Object> expected = new HashMap<>(GROUP_MAX_JSON_STD);
 		expected.put("role", "Member");
@@ -903,9 +951,10 @@ public class GroupsAPITest {
 								.withResource(c1)
 								.build());
 		
-		when(g.getGroup(new Token("toke"), new GroupID("id"))).thenReturn(gv.build());
+		mockGetGroup(g, new Token("toke"), new GroupID("id"), gv.build());
 		
-		final Map<String, Object> ret = new GroupsAPI(g).getGroup("toke", "id");
+		final Map<String, Object> ret = APICommon.toGroupJSON(
+				(GroupView) new GroupsAPI(g).getGroup("toke", null, "id").getEntity());
 		final Map<String, Object> expected = new HashMap<>();
 		expected.putAll(GROUP_MAX_JSON_STD);
 		expected.put("resources", ImmutableMap.of(
@@ -941,8 +990,8 @@ public class GroupsAPITest {
 		when(g.getGroups(new Token("toke2"), GetGroupsParams.getBuilder().build()))
 				.thenReturn(Arrays.asList(gv.withStandardView(false).build()));
 		
-		final Map<String, Object> retmin = new GroupsAPI(g)
-				.getGroups("toke2", null, null, null, null, null, null).get(0);
+		final Map<String, Object> retmin = APICommon.toGroupJSON(new GroupsAPI(g)
+				.getGroups("toke2", null, null, null, null, null, null, null, null).get(0));
 		final Map<String, Object> expectedmin = new HashMap<>();
 		expectedmin.putAll(GROUP_MAX_JSON_MIN);
 		expectedmin.put("role", "Admin");
@@ -975,7 +1024,7 @@ public class GroupsAPITest {
 								.withResourceField(d1, "perm", "Admin")
 								.build());
 		
-		when(g.getGroup(new Token("toke"), new GroupID("id"))).thenReturn(gv.build());
+		mockGetGroup(g, new Token("toke"), new GroupID("id"), gv.build());
 		
 		final Map<String, Object> expected = MapBuilder
 				.<String, Object>newHashMap()
@@ -1025,11 +1074,73 @@ public class GroupsAPITest {
 				.with("custom", Collections.emptyMap())
 				.build();
 		
-		final Map<String, Object> ret = new GroupsAPI(g).getGroup("toke", "id");
+		final Map<String, Object> ret = APICommon.toGroupJSON(
+				(GroupView) new GroupsAPI(g).getGroup("toke", null, "id").getEntity());
 		
 		assertThat("incorrect group", ret, is(expected));
 	}
 	
+	@Test
+	public void getGroupVersionTag() throws Exception {
+		final Groups g = mock(Groups.class);
+		final GroupView gv = GroupView.getBuilder(GROUP_MAX, new UserName("bar"))
+				.withStandardView(true).build();
+		
+		when(g.getGroupIfChanged(new Token("t"), new GroupID("id"), set("foo", "bar")))
+				.thenReturn(Optional.of(VersionedGroupView.of(gv)));
+		
+		final Response r = new GroupsAPI(g).getGroup("t", "\"foo\", W/\"bar\"", "id");
+		
+		assertThat("incorrect status", r.getStatus(), is(200));
+		assertThat("incorrect tag", r.getEntityTag(),
+				is(new EntityTag(gv.getVersionTag().get(), true)));
+		assertThat("incorrect vary", r.getHeaderString("Vary"), is("authorization"));
+		assertThat("incorrect entity", r.getEntity(), is(gv));
+	}
+	
+	@Test
+	public void getGroupVersionTagPrivate() throws Exception {
+		final Groups g = mock(Groups.class);
+		final GroupView gv = GroupView.getBuilder(GROUP_PRIV, new UserName("nonmember"))
+				.withStandardView(true).build();
+		
+		mockGetGroup(g, new Token("t"), new GroupID("id"), gv);
+		
+		final Response r = new GroupsAPI(g).getGroup("t", null, "id");
+		
+		assertThat("incorrect status", r.getStatus(), is(200));
+		assertThat("incorrect tag", r.getEntityTag(), is((EntityTag) null));
+		assertThat("incorrect entity", r.getEntity(), is(gv));
+	}
+	
+	@Test
+	public void getGroupNotModified() throws Exception {
+		final Groups g = mock(Groups.class);
+		
+		when(g.getGroupIfChanged(null, new GroupID("id"), set("foo")))
+				.thenReturn(Optional.empty());
+		
+		final Response r = new GroupsAPI(g).getGroup(null, "W/\"foo\"", "id");
+		
+		assertThat("incorrect status", r.getStatus(), is(304));
+		assertThat("incorrect tag", r.getEntityTag(), is(new EntityTag("foo", true)));
+		assertThat("incorrect vary", r.getHeaderString("Vary"), is("authorization"));
+		assertThat("incorrect entity", r.getEntity(), is((Object) null));
+	}
+	
+	@Test
+	public void getGroupNotModifiedMultipleTags() throws Exception {
+		final Groups g = mock(Groups.class);
+		
+		when(g.getGroupIfChanged(new Token("t"), new GroupID("id"), set("foo", "bar")))
+				.thenReturn(Optional.empty());
+		
+		final Response r = new GroupsAPI(g).getGroup("t", "W/\"foo\", \"bar\"", "id");
+		
+		assertThat("incorrect status", r.getStatus(), is(304));
+		assertThat("incorrect tag", r.getEntityTag(), is((EntityTag) null));
+	}
+	
 	@Test
 	public void getGroupFailMissingID() {
 		final Groups g = mock(Groups.class);
@@ -1042,7 +1153,8 @@ public class GroupsAPITest {
 	public void getGroupFailInvalidToken() throws Exception {
 		final Groups g = mock(Groups.class);
 		
-		when(g.getGroup(new Token("t"), new GroupID("i"))).thenThrow(new InvalidTokenException());
+		when(g.getGroupIfChanged(new Token("t"), new GroupID("i"), set()))
+				.thenThrow(new InvalidTokenException());
 		
 		failGetGroup(g, "t", "i", new InvalidTokenException());
 	}
@@ -1053,7 +1165,7 @@ public class GroupsAPITest {
 			final String groupid,
 			final Exception expected) {
 		try {
-			new GroupsAPI(g).getGroup(token, groupid);
+			new GroupsAPI(g).getGroup(token, null, groupid);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
@@ -1366,8 +1478,9 @@ public class GroupsAPITest {
 								.build()
 						));
 		
-		final List<Map<String, Object>> ret = new GroupsAPI(g).getRequestsForGroup(
-				"t", "id", excludeUpTo, closed, sortOrder, resType, resource);
+		final List<Map<String, Object>> ret = APICommon.toGroupRequestJSON(
+				new GroupsAPI(g).getRequestsForGroup(
+						"t", "id", excludeUpTo, closed, sortOrder, resType, resource, null, null));
 		
 		assertThat("incorrect requests", ret, is(Arrays.asList(
 				MapBuilder.newHashMap()
@@ -1450,7 +1563,7 @@ public class GroupsAPITest {
 			final Exception expected) {
 		try {
 			new GroupsAPI(g).getRequestsForGroup(
-					token, groupid, excludeUpTo, null, sortOrder, resType, resource);
+					token, groupid, excludeUpTo, null, sortOrder, resType, resource, null, null);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
@@ -52,6 +52,7 @@ import us.kbase.groups.core.resource.ResourceDescriptor;
 import us.kbase.groups.core.resource.ResourceID;
 import us.kbase.groups.core.resource.ResourceInformation;
 import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.service.api.APICommon;
 import us.kbase.groups.service.api.RequestAPI;
 import us.kbase.groups.service.api.RequestAPI.DenyRequestJSON;
 import us.kbase.test.groups.MapBuilder;
@@ -256,7 +257,8 @@ public class RequestAPITest {
 						.withPublicFieldDeterminer(f -> true)
 						.build());
 		
-		assertThat("incorrect group", new RequestAPI(g).getGroupForRequest("t", id.toString()),
+		assertThat("incorrect group", APICommon.toGroupJSON(
+				new RequestAPI(g).getGroupForRequest("t", id.toString())),
 				is(MapBuilder.newHashMap()
 						.with("id", "id")
 						.with("private", false)
@@ -471,13 +473,31 @@ public class RequestAPITest {
 		when(g.getRequestsForRequester(new Token("t"), params))
 				.thenReturn(Arrays.asList(REQ_DENIED, REQ_MIN, REQ_TARG));
 		
-		final List<Map<String, Object>> ret = new RequestAPI(g).getCreatedRequests(
-				"t", excludeUpTo, closed, order, resType, res);
+		final List<Map<String, Object>> ret = APICommon.toGroupRequestJSON(
+				new RequestAPI(g).getCreatedRequests(
+						"t", excludeUpTo, closed, order, resType, res, null, null));
 		
 		assertThat("incorrect reqs", ret, is(Arrays.asList(
 				REQ_DENIED_JSON, REQ_MIN_JSON, REQ_TARG_JSON)));
 	}
 	
+	@Test
+	public void getCreatedRequestsLimitAndCursor() throws Exception {
+		final Groups g = mock(Groups.class);
+		
+		when(g.getRequestsForRequester(new Token("t"), GetRequestsParams.getBuilder()
+				.withNullableExcludeUpTo(inst(10000), new RequestID(ID1))
+				.withNullableLimit(2)
+				.build()))
+				.thenReturn(Arrays.asList(REQ_DENIED, REQ_TARG));
+		
+		final List<Map<String, Object>> ret = APICommon.toGroupRequestJSON(
+				new RequestAPI(g).getCreatedRequests("t", null, null, null, null, null, " 2 ",
+						APICommon.getContinuationCursor(REQ_MIN)));
+		
+		assertThat("incorrect reqs", ret, is(Arrays.asList(REQ_DENIED_JSON, REQ_TARG_JSON)));
+	}
+	
 	@Test
 	public void getCreatedRequestsMissingInput() throws Exception {
 		final Groups g = mock(Groups.class);
@@ -524,7 +544,7 @@ public class RequestAPITest {
 			final Exception expected) {
 		try {
 			new RequestAPI(g).getCreatedRequests(
-					token, excludeUpTo, null, sortOrder, resType, res);
+					token, excludeUpTo, null, sortOrder, resType, res, null, null);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
@@ -601,8 +621,9 @@ public class RequestAPITest {
 		when(g.getRequestsForTarget(new Token("t"), params))
 				.thenReturn(Arrays.asList(REQ_MIN, REQ_DENIED, REQ_TARG));
 		
-		final List<Map<String, Object>> ret = new RequestAPI(g).getTargetedRequests(
-				"t", excludeUpTo, closed, order, resType, res);
+		final List<Map<String, Object>> ret = APICommon.toGroupRequestJSON(
+				new RequestAPI(g).getTargetedRequests(
+						"t", excludeUpTo, closed, order, resType, res, null, null));
 		
 		assertThat("incorrect reqs", ret, is(Arrays.asList(
 				REQ_MIN_JSON, REQ_DENIED_JSON, REQ_TARG_JSON)));
@@ -654,7 +675,8 @@ public class RequestAPITest {
 			final String res,
 			final Exception expected) {
 		try {
-			new RequestAPI(g).getTargetedRequests(token, excludeUpTo, null, order, resType, res);
+			new RequestAPI(g).getTargetedRequests(
+					token, excludeUpTo, null, order, resType, res, null, null);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
@@ -731,8 +753,9 @@ public class RequestAPITest {
 		when(g.getRequestsForGroups(new Token("t"), params))
 				.thenReturn(Arrays.asList(REQ_MIN, REQ_DENIED, REQ_TARG));
 		
-		final List<Map<String, Object>> ret = new RequestAPI(g).getRequestsForAdministratedGroups(
-				"t", excludeUpTo, closed, order, resType, res);
+		final List<Map<String, Object>> ret = APICommon.toGroupRequestJSON(
+				new RequestAPI(g).getRequestsForAdministratedGroups(
+						"t", excludeUpTo, closed, order, resType, res, null, null));
 		
 		assertThat("incorrect reqs", ret, is(Arrays.asList(
 				REQ_MIN_JSON, REQ_DENIED_JSON, REQ_TARG_JSON)));
@@ -785,7 +808,7 @@ public class RequestAPITest {
 			final Exception expected) {
 		try {
 			new RequestAPI(g).getRequestsForAdministratedGroups(
-					token, excludeUpTo, null, order, resType, res);
+					token, excludeUpTo, null, order, resType, res, null, null);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
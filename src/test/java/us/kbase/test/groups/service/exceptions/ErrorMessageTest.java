@@ -16,6 +16,7 @@ import org.junit.Test;
 import com.fasterxml.jackson.databind.JsonMappingException;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
+import us.kbase.groups.core.exceptions.AuthenticationUnavailableException;
 import us.kbase.groups.core.exceptions.IllegalParameterException;
 import us.kbase.groups.core.exceptions.NoSuchGroupException;
 import us.kbase.groups.core.exceptions.NoTokenProvidedException;
@@ -64,6 +65,24 @@ public class ErrorMessageTest {
 		assertThat("incorrect time", em.getTime(), is(20000L));
 	}
 	
+	@Test
+	public void constructWithAuthenticationUnavailableException() {
+		final ErrorMessage em = new ErrorMessage(
+				new AuthenticationUnavailableException("auth down"),
+				"id",
+				Instant.ofEpochMilli(20000));
+		
+		assertThat("incorrect app code", em.getAppcode(), is(10030));
+		assertThat("incorrect app err", em.getApperror(),
+				is("Authentication service unavailable"));
+		assertThat("incorrect call id", em.getCallid(), is("id"));
+		assertThat("incorrect http code", em.getHttpcode(), is(503));
+		assertThat("incorrect http status", em.getHttpstatus(), is("Service Unavailable"));
+		assertThat("incorrect message", em.getMessage(),
+				is("10030 Authentication service unavailable: auth down"));
+		assertThat("incorrect time", em.getTime(), is(20000L));
+	}
+	
 	@Test
 	public void constructWithUnauthorizedExceptionNoCallID() {
 		final ErrorMessage em = new ErrorMessage(
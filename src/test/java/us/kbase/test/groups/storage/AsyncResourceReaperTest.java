@@ -0,0 +1,188 @@
+package us.kbase.test.groups.storage;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static us.kbase.test.groups.TestCommon.inst;
+import static us.kbase.test.groups.TestCommon.set;
+
+import java.lang.reflect.Constructor;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.exceptions.NoSuchGroupException;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.storage.AsyncResourceReaper;
+import us.kbase.groups.storage.GroupsStorage;
+import us.kbase.groups.storage.exceptions.GroupsStorageException;
+import us.kbase.test.groups.TestCommon;
+
+public class AsyncResourceReaperTest {
+
+	private static final long WAIT = 5000;
+
+	private static AsyncResourceReaper getReaper(
+			final GroupsStorage storage,
+			final int maxPending,
+			final Clock clock)
+			throws Exception {
+		final Constructor<AsyncResourceReaper> con = AsyncResourceReaper.class
+				.getDeclaredConstructor(GroupsStorage.class, int.class, Clock.class);
+		con.setAccessible(true);
+		return con.newInstance(storage, maxPending, clock);
+	}
+
+	@Test
+	public void reap() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final Clock clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(inst(10000), inst(20000));
+		final AsyncResourceReaper r = getReaper(s, 10, clock);
+
+		r.reap(new GroupID("g1"), new ResourceType("ws"), set(new ResourceID("1")));
+		r.reap(new GroupID("g2"), new ResourceType("ws"), Collections.emptySet()); // ignored
+		verify(s, timeout(WAIT)).removeResources(new GroupID("g1"), new ResourceType("ws"),
+				set(new ResourceID("1")), inst(10000));
+		r.reap(new GroupID("g1"), new ResourceType("cat"),
+				set(new ResourceID("m.1"), new ResourceID("m.2")));
+		verify(s, timeout(WAIT)).removeResources(new GroupID("g1"), new ResourceType("cat"),
+				set(new ResourceID("m.1"), new ResourceID("m.2")), inst(20000));
+
+		waitForReaped(r, 2);
+		assertThat("incorrect failed", r.getFailedCount(), is(0L));
+		assertThat("incorrect dropped", r.getDroppedCount(), is(0L));
+		assertThat("incorrect pending", r.getPendingCount(), is(0));
+		r.shutdown(WAIT);
+	}
+
+	@Test
+	public void mergeAndDropWhenFull() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final Clock clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(inst(10000));
+		final AsyncResourceReaper r = getReaper(s, 2, clock);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch block = new CountDownLatch(1);
+		doAnswer(inv -> {
+			started.countDown();
+			block.await();
+			return null;
+		}).when(s).removeResources(new GroupID("g"), new ResourceType("ws"),
+				set(new ResourceID("1")), inst(10000));
+
+		final ResourceType t = new ResourceType("ws");
+		r.reap(new GroupID("g"), t, set(new ResourceID("1"))); // blocks the reaper thread
+		started.await();
+		r.reap(new GroupID("g"), t, set(new ResourceID("2")));
+		r.reap(new GroupID("g"), t, set(new ResourceID("2"), new ResourceID("3"))); // merged
+		r.reap(new GroupID("g2"), t, set(new ResourceID("4")));
+		r.reap(new GroupID("g3"), t, set(new ResourceID("5"))); // dropped
+		r.reap(new GroupID("g2"), t, set(new ResourceID("6"))); // merged
+
+		assertThat("incorrect dropped", r.getDroppedCount(), is(1L));
+		assertThat("incorrect pending", r.getPendingCount(), is(2));
+		block.countDown();
+
+		verify(s, timeout(WAIT)).removeResources(new GroupID("g"), t,
+				set(new ResourceID("2"), new ResourceID("3")), inst(10000));
+		verify(s, timeout(WAIT)).removeResources(new GroupID("g2"), t,
+				set(new ResourceID("4"), new ResourceID("6")), inst(10000));
+		waitForReaped(r, 3);
+		r.shutdown(WAIT);
+	}
+
+	@Test
+	public void reapFail() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final Clock clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(inst(10000));
+		final AsyncResourceReaper r = getReaper(s, 10, clock);
+		final ResourceType t = new ResourceType("ws");
+		final Set<ResourceID> rs = set(new ResourceID("1"));
+		doThrow(new GroupsStorageException("whoops")).when(s)
+				.removeResources(new GroupID("g1"), t, rs, inst(10000));
+		doThrow(new RuntimeException("oh dear")).when(s)
+				.removeResources(new GroupID("g2"), t, rs, inst(10000));
+		doThrow(new NoSuchGroupException("g3")).when(s)
+				.removeResources(new GroupID("g3"), t, rs, inst(10000));
+
+		r.reap(new GroupID("g1"), t, rs);
+		r.reap(new GroupID("g2"), t, rs);
+		r.reap(new GroupID("g3"), t, rs);
+		r.reap(new GroupID("g4"), t, rs);
+
+		verify(s, timeout(WAIT)).removeResources(new GroupID("g4"), t, rs, inst(10000));
+		waitForReaped(r, 2);
+		assertThat("incorrect failed", r.getFailedCount(), is(2L));
+		r.shutdown(WAIT);
+	}
+
+	private void waitForReaped(final AsyncResourceReaper r, final long count)
+			throws InterruptedException {
+		final long end = System.currentTimeMillis() + WAIT;
+		while (r.getReapedCount() < count && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		assertThat("incorrect reaped", r.getReapedCount(), is(count));
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		failConstruct(null, 1, new NullPointerException("storage"));
+		failConstruct(mock(GroupsStorage.class), 0,
+				new IllegalArgumentException("maxPending must be > 0"));
+	}
+
+	private void failConstruct(
+			final GroupsStorage storage,
+			final int maxPending,
+			final Exception expected) {
+		try {
+			new AsyncResourceReaper(storage, maxPending);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void reapFailNulls() throws Exception {
+		final AsyncResourceReaper r = new AsyncResourceReaper(mock(GroupsStorage.class), 1);
+		final GroupID g = new GroupID("g");
+		final ResourceType t = new ResourceType("t");
+		final Set<ResourceID> rs = set(new ResourceID("r"));
+
+		failReap(r, null, t, rs, new NullPointerException("groupID"));
+		failReap(r, g, null, rs, new NullPointerException("type"));
+		failReap(r, g, t, null, new NullPointerException("resources"));
+		failReap(r, g, t, set(new ResourceID("r"), null),
+				new NullPointerException("Null item in collection resources"));
+		r.shutdown(WAIT);
+	}
+
+	private void failReap(
+			final AsyncResourceReaper r,
+			final GroupID groupID,
+			final ResourceType type,
+			final Set<ResourceID> resources,
+			final Exception expected) {
+		try {
+			r.reap(groupID, type, resources);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
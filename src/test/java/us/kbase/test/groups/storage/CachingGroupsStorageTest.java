@@ -0,0 +1,326 @@
+package us.kbase.test.groups.storage;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static us.kbase.test.groups.TestCommon.inst;
+import static us.kbase.test.groups.TestCommon.set;
+
+import java.lang.reflect.Constructor;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import us.kbase.groups.core.CreateAndModTimes;
+import us.kbase.groups.core.CreateModAndExpireTimes;
+import us.kbase.groups.core.GetRequestsParams;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupUpdateParams;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.NoSuchGroupException;
+import us.kbase.groups.core.exceptions.NoSuchUserException;
+import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.notifications.OutboxNotification.Operation;
+import us.kbase.groups.core.request.GroupRequest;
+import us.kbase.groups.core.request.GroupRequestStatus;
+import us.kbase.groups.core.request.RequestID;
+import us.kbase.groups.core.resource.ResourceAdministrativeID;
+import us.kbase.groups.core.resource.ResourceDescriptor;
+import us.kbase.groups.core.resource.ResourceID;
+import us.kbase.groups.core.resource.ResourceType;
+import us.kbase.groups.storage.CachingGroupsStorage;
+import us.kbase.groups.storage.GroupsStorage;
+import us.kbase.test.groups.TestCommon;
+
+public class CachingGroupsStorageTest {
+
+	private static final long MB = 1024 * 1024;
+
+	private static CachingGroupsStorage getCache(
+			final GroupsStorage storage,
+			final long size,
+			final int ttl,
+			final Clock clock)
+			throws Exception {
+		final Constructor<CachingGroupsStorage> con = CachingGroupsStorage.class
+				.getDeclaredConstructor(GroupsStorage.class, long.class, int.class, Clock.class);
+		con.setAccessible(true);
+		return con.newInstance(storage, size, ttl, clock);
+	}
+
+	private static GroupUser toGUser(final String user) throws Exception {
+		return GroupUser.getBuilder(new UserName(user), inst(10000)).build();
+	}
+
+	private static Group getGroup(final String id, final String name) throws Exception {
+		return Group.getBuilder(new GroupID(id), new GroupName(name), toGUser("own"),
+				new CreateAndModTimes(inst(10000)))
+				.build();
+	}
+
+	@Test
+	public void getGroupCached() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final Clock clock = mock(Clock.class);
+		final CachingGroupsStorage c = getCache(s, MB, 60, clock);
+
+		when(s.getGroup(new GroupID("g"))).thenReturn(getGroup("g", "n1"), getGroup("g", "n2"));
+
+		when(clock.millis()).thenReturn(10000L);
+		assertThat("incorrect group", c.getGroup(new GroupID("g")), is(getGroup("g", "n1")));
+		when(clock.millis()).thenReturn(69999L);
+		assertThat("incorrect group", c.getGroup(new GroupID("g")), is(getGroup("g", "n1")));
+		when(clock.millis()).thenReturn(70000L);
+		assertThat("incorrect group", c.getGroup(new GroupID("g")), is(getGroup("g", "n2")));
+
+		verify(s, times(2)).getGroup(new GroupID("g"));
+		assertThat("incorrect hits", c.getHitCount(), is(1L));
+		assertThat("incorrect misses", c.getMissCount(), is(2L));
+		assertThat("incorrect size", c.size(), is(1L));
+	}
+
+	@Test
+	public void getGroupNotCachedOnError() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final CachingGroupsStorage c = getCache(s, MB, 60, mock(Clock.class));
+
+		when(s.getGroup(new GroupID("g"))).thenThrow(new NoSuchGroupException("g"))
+				.thenReturn(getGroup("g", "n"));
+
+		try {
+			c.getGroup(new GroupID("g"));
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NoSuchGroupException("g"));
+		}
+		assertThat("incorrect group", c.getGroup(new GroupID("g")), is(getGroup("g", "n")));
+		assertThat("incorrect size", c.size(), is(1L));
+	}
+
+	@Test
+	public void getGroups() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final CachingGroupsStorage c = getCache(s, MB, 60, mock(Clock.class));
+
+		when(s.getGroup(new GroupID("g1"))).thenReturn(getGroup("g1", "n1"));
+		when(s.getGroups(Arrays.asList(new GroupID("g2"), new GroupID("g3"))))
+				.thenReturn(set(getGroup("g2", "n2"), getGroup("g3", "n3")));
+
+		c.getGroup(new GroupID("g1"));
+		assertThat("incorrect groups", c.getGroups(Arrays.asList(
+				new GroupID("g1"), new GroupID("g2"), new GroupID("g3"))),
+				is(set(getGroup("g1", "n1"), getGroup("g2", "n2"), getGroup("g3", "n3"))));
+		assertThat("incorrect groups", c.getGroups(Arrays.asList(
+				new GroupID("g3"), new GroupID("g1"))),
+				is(set(getGroup("g1", "n1"), getGroup("g3", "n3"))));
+
+		verify(s).getGroups(Arrays.asList(new GroupID("g2"), new GroupID("g3")));
+		assertThat("incorrect size", c.size(), is(3L));
+	}
+
+	@Test
+	public void invalidateDuringRead() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final CachingGroupsStorage c = getCache(s, MB, 60, mock(Clock.class));
+
+		// the group is modified while it is read, so it may be stale and is not cached
+		when(s.getGroup(new GroupID("g1"))).thenAnswer(i -> {
+			c.invalidate(new GroupID("g1"));
+			return getGroup("g1", "n1");
+		});
+		// modifications to other groups don't affect the read
+		when(s.getGroup(new GroupID("g2"))).thenAnswer(i -> {
+			c.invalidate(new GroupID("g1"));
+			return getGroup("g2", "n2");
+		});
+		when(s.getGroup(new GroupID("g3"))).thenAnswer(i -> {
+			c.invalidateAll();
+			return getGroup("g3", "n3");
+		});
+
+		c.getGroup(new GroupID("g3"));
+		c.getGroup(new GroupID("g1"));
+		c.getGroup(new GroupID("g2"));
+		assertThat("incorrect size", c.size(), is(1L));
+		assertThat("incorrect group", c.getGroup(new GroupID("g2")), is(getGroup("g2", "n2")));
+		verify(s).getGroup(new GroupID("g2"));
+
+		when(s.getGroups(Arrays.asList(new GroupID("g4"), new GroupID("g5")))).thenAnswer(i -> {
+			c.invalidate(new GroupID("g4"));
+			return set(getGroup("g4", "n4"), getGroup("g5", "n5"));
+		});
+		assertThat("incorrect groups", c.getGroups(Arrays.asList(
+				new GroupID("g4"), new GroupID("g5"))),
+				is(set(getGroup("g4", "n4"), getGroup("g5", "n5"))));
+		assertThat("incorrect size", c.size(), is(2L));
+		c.getGroup(new GroupID("g5"));
+		verify(s, never()).getGroup(new GroupID("g5"));
+	}
+
+	@Test
+	public void invalidateOnModification() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final CachingGroupsStorage c = getCache(s, MB, 60, mock(Clock.class));
+		final GroupID g = new GroupID("g");
+		when(s.getGroup(g)).thenReturn(getGroup("g", "n"));
+		final ResourceType t = new ResourceType("t");
+		final Instant i = inst(20000);
+		final OutboxNotification n = OutboxNotification.getBuilder(UUID.randomUUID(), i,
+				new UserName("u"), g, t, new ResourceID("r")).build();
+
+		c.getGroup(g);
+		c.createGroup(getGroup("g", "n"));
+		c.getGroup(g);
+		c.updateGroup(GroupUpdateParams.getBuilder(g).build(), i);
+		c.getGroup(g);
+		c.addMember(g, toGUser("u"), i);
+		c.getGroup(g);
+		c.removeMember(g, new UserName("u"), i);
+		c.getGroup(g);
+		c.addAdmin(g, new UserName("u"), i);
+		c.getGroup(g);
+		c.demoteAdmin(g, new UserName("u"), i);
+		c.getGroup(g);
+		c.updateUser(g, new UserName("u"), Collections.emptyMap(), i);
+		c.getGroup(g);
+		c.updateUser(g, new UserName("u"), i);
+		c.getGroup(g);
+		c.addResource(g, t, new ResourceDescriptor(new ResourceID("r")), i);
+		c.getGroup(g);
+		c.addResource(g, t, new ResourceDescriptor(new ResourceID("r")), i, n);
+		c.getGroup(g);
+		c.removeResource(g, t, new ResourceID("r"), i);
+		c.getGroup(g);
+		c.removeResources(g, t, set(new ResourceID("r")), i);
+		c.getGroup(g);
+		c.invalidate(g);
+		c.getGroup(g);
+		c.invalidateAll();
+		c.getGroup(g);
+		c.getGroup(g);
+
+		verify(s).removeResources(g, t, set(new ResourceID("r")), i);
+		verify(s).addResource(g, t, new ResourceDescriptor(new ResourceID("r")), i, n);
+		verify(s, times(15)).getGroup(g);
+		assertThat("incorrect hits", c.getHitCount(), is(1L));
+		assertThat("incorrect misses", c.getMissCount(), is(15L));
+	}
+
+	@Test
+	public void invalidateOnModificationError() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final CachingGroupsStorage c = getCache(s, MB, 60, mock(Clock.class));
+		final GroupID g = new GroupID("g");
+		when(s.getGroup(g)).thenReturn(getGroup("g", "n"));
+		doThrow(new NoSuchUserException("u")).when(s)
+				.removeMember(g, new UserName("u"), inst(20000));
+
+		c.getGroup(g);
+		try {
+			c.removeMember(g, new UserName("u"), inst(20000));
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NoSuchUserException("u"));
+		}
+		assertThat("incorrect size", c.size(), is(0L));
+	}
+
+	@Test
+	public void sizeBound() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final CachingGroupsStorage c = getCache(s, 500, 60, mock(Clock.class));
+		final GroupID g = new GroupID("g");
+		when(s.getGroup(g)).thenReturn(getGroup("g", "n"));
+
+		c.getGroup(g);
+		c.getGroup(g);
+
+		verify(s, times(2)).getGroup(g);
+		assertThat("incorrect size", c.size(), is(0L));
+		assertThat("incorrect evictions", c.getEvictionCount(), is(2L));
+	}
+
+	@Test
+	public void estimateSize() throws Exception {
+		assertThat("incorrect size", CachingGroupsStorage.estimateSize(getGroup("g", "n")),
+				is(1206));
+
+		final Group g = Group.getBuilder(new GroupID("g"), new GroupName("n"), toGUser("own"),
+				new CreateAndModTimes(inst(10000)))
+				.withMember(GroupUser.getBuilder(new UserName("user"), inst(10000))
+						.withCustomField(new NumberedCustomField("f"), "val").build())
+				.withResource(new ResourceType("t"), new ResourceDescriptor(
+						new ResourceAdministrativeID("ad"), new ResourceID("res")))
+				.withCustomField(new NumberedCustomField("field"), "value")
+				.build();
+		// base 1000 + members (200 + 6) and (200 + 8 + field 100 + 8) + resource (150 + 10) +
+		// field (100 + 20)
+		assertThat("incorrect size", CachingGroupsStorage.estimateSize(g), is(1802));
+	}
+
+	@Test
+	public void passThrough() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		final CachingGroupsStorage c = getCache(s, MB, 60, mock(Clock.class));
+		final GetRequestsParams p = GetRequestsParams.getBuilder().build();
+		final GroupRequest r = GroupRequest.getBuilder(new RequestID(UUID.randomUUID()),
+				new GroupID("g"), new UserName("u"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(30000)).build())
+				.build();
+		final OutboxNotification n = OutboxNotification.getBuilder(
+				UUID.randomUUID(), Operation.NOTIFY, inst(10000), r).build();
+		when(s.getGroupExists(new GroupID("g"))).thenReturn(true);
+		when(s.getAdministratedGroups(new UserName("u"))).thenReturn(set(new GroupID("g")));
+		when(s.groupHasRequest(new GroupID("g"), inst(10000))).thenReturn(true);
+		when(s.movePendingNotifications(10)).thenReturn(3);
+
+		assertThat("incorrect exists", c.getGroupExists(new GroupID("g")), is(true));
+		assertThat("incorrect groups", c.getAdministratedGroups(new UserName("u")),
+				is(set(new GroupID("g"))));
+		assertThat("incorrect has request", c.groupHasRequest(new GroupID("g"), inst(10000)),
+				is(true));
+		assertThat("incorrect moved", c.movePendingNotifications(10), is(3));
+		c.getRequestsByGroup(new GroupID("g"), p);
+		c.storeRequest(r, n);
+		c.closeRequest(r.getID(), GroupRequestStatus.canceled(), inst(20000), n);
+
+		verify(s).getRequestsByGroup(new GroupID("g"), p);
+		verify(s).storeRequest(r, n);
+		verify(s).closeRequest(r.getID(), GroupRequestStatus.canceled(), inst(20000), n);
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final GroupsStorage s = mock(GroupsStorage.class);
+		failConstruct(null, 1, 1, new NullPointerException("storage"));
+		failConstruct(s, 0, 1, new IllegalArgumentException("maximumSizeBytes must be > 0"));
+		failConstruct(s, 1, 0, new IllegalArgumentException("ttlSec must be > 0"));
+	}
+
+	private void failConstruct(
+			final GroupsStorage s,
+			final long size,
+			final int ttl,
+			final Exception expected) {
+		try {
+			new CachingGroupsStorage(s, size, ttl);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
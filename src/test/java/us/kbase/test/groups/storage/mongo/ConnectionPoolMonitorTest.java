@@ -0,0 +1,138 @@
+package us.kbase.test.groups.storage.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Constructor;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent.Reason;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+
+import us.kbase.groups.storage.mongo.ConnectionPoolMonitor;
+import us.kbase.test.groups.TestCommon;
+import us.kbase.test.groups.TestCommon.LogEvent;
+
+public class ConnectionPoolMonitorTest {
+
+	private static final ServerId SERVER = new ServerId(
+			new ClusterId(), new ServerAddress("localhost", 27017));
+
+	private static ConnectionCheckedOutEvent checkedOut(final ConnectionId id, final long ms) {
+		return new ConnectionCheckedOutEvent(id, 1, TimeUnit.MILLISECONDS.toNanos(ms));
+	}
+
+	private static void assertMonitorCorrect(
+			final ConnectionPoolMonitor m,
+			final long checkOuts,
+			final long slow,
+			final long failed,
+			final double mean,
+			final double max,
+			final long checkedOut) {
+		assertThat("incorrect check outs", m.getCheckOutCount(), is(checkOuts));
+		assertThat("incorrect slow check outs", m.getSlowCheckOutCount(), is(slow));
+		assertThat("incorrect failed check outs", m.getFailedCheckOutCount(), is(failed));
+		assertThat("incorrect mean", m.getMeanWaitMillis(), is(mean));
+		assertThat("incorrect max", m.getMaxWaitMillis(), is(max));
+		assertThat("incorrect checked out", m.getCheckedOutCount(), is(checkedOut));
+	}
+
+	@Test
+	public void noEvents() throws Exception {
+		assertMonitorCorrect(new ConnectionPoolMonitor(100), 0, 0, 0, 0.0, 0.0, 0);
+	}
+
+	@Test
+	public void checkOuts() throws Exception {
+		final ConnectionPoolMonitor m = new ConnectionPoolMonitor(100);
+		final ConnectionId c1 = new ConnectionId(SERVER);
+		final ConnectionId c2 = new ConnectionId(SERVER);
+
+		m.connectionCheckedOut(checkedOut(c1, 10));
+		m.connectionCheckedOut(checkedOut(c2, 99));
+		assertMonitorCorrect(m, 2, 0, 0, 54.5, 99.0, 2);
+
+		m.connectionCheckedIn(new ConnectionCheckedInEvent(c1, 1));
+		m.connectionCheckedOut(checkedOut(c1, 100));
+		m.connectionCheckedIn(new ConnectionCheckedInEvent(c2, 1));
+		m.connectionCheckedOut(checkedOut(c2, 31));
+		assertMonitorCorrect(m, 4, 1, 0, 60.0, 100.0, 2);
+
+		m.connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(
+				SERVER, 1, Reason.TIMEOUT, TimeUnit.MILLISECONDS.toNanos(2000)));
+		m.connectionCheckedIn(new ConnectionCheckedInEvent(c1, 1));
+		// failed check outs don't affect the wait times
+		assertMonitorCorrect(m, 4, 1, 1, 60.0, 100.0, 1);
+	}
+
+	@Test
+	public void slowCheckOutWarnings() throws Exception {
+		final List<ILoggingEvent> logEvents = TestCommon.setUpSLF4JTestLoggerAppender(
+				"us.kbase.groups.storage.mongo");
+		final Clock clock = mock(Clock.class);
+		final Constructor<ConnectionPoolMonitor> con = ConnectionPoolMonitor.class
+				.getDeclaredConstructor(long.class, Clock.class);
+		con.setAccessible(true);
+		final ConnectionPoolMonitor m = con.newInstance(100L, clock);
+		final ConnectionId c = new ConnectionId(SERVER);
+
+		// the first slow check out is logged immediately
+		when(clock.millis()).thenReturn(10000L);
+		m.connectionCheckedOut(checkedOut(c, 99));
+		m.connectionCheckedOut(checkedOut(c, 150));
+		// later slow check outs in the same minute are aggregated
+		when(clock.millis()).thenReturn(20000L);
+		m.connectionCheckedOut(checkedOut(c, 300));
+		m.connectionCheckedOut(checkedOut(c, 200));
+		when(clock.millis()).thenReturn(69999L);
+		m.connectionCheckedOut(checkedOut(c, 100));
+		when(clock.millis()).thenReturn(70000L);
+		m.connectionCheckedOut(checkedOut(c, 50));
+		m.connectionCheckedOut(checkedOut(c, 120));
+		m.connectionCheckedOut(checkedOut(c, 110));
+
+		assertMonitorCorrect(m, 8, 6, 0, 141.125, 300.0, 8);
+		TestCommon.assertLogEventsCorrect(logEvents,
+				new LogEvent(Level.WARN, "1 MongoDB connection check outs took at least 100 " +
+						"ms since the last warning, the longest wait was 150 ms. Consider " +
+						"increasing the pool size", ConnectionPoolMonitor.class),
+				new LogEvent(Level.WARN, "4 MongoDB connection check outs took at least 100 " +
+						"ms since the last warning, the longest wait was 300 ms. Consider " +
+						"increasing the pool size", ConnectionPoolMonitor.class));
+	}
+
+	@Test
+	public void slowCheckOutsDisabled() throws Exception {
+		final ConnectionPoolMonitor m = new ConnectionPoolMonitor(0);
+		m.connectionCheckedOut(checkedOut(new ConnectionId(SERVER), 5000));
+		assertMonitorCorrect(m, 1, 0, 0, 5000.0, 5000.0, 1);
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		try {
+			new ConnectionPoolMonitor(-1);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("slowCheckOutMillis must be >= 0"));
+		}
+	}
+}
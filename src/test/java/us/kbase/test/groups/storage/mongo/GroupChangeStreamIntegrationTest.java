@@ -0,0 +1,239 @@
+package us.kbase.test.groups.storage.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static us.kbase.test.groups.TestCommon.inst;
+import static us.kbase.test.groups.TestCommon.set;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+
+import us.kbase.groups.core.CreateAndModTimes;
+import us.kbase.groups.core.Group;
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupUser;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.storage.CachingGroupsStorage;
+import us.kbase.groups.storage.exceptions.StorageInitException;
+import us.kbase.groups.storage.mongo.GroupChangeStream.GroupChangeListener;
+import us.kbase.groups.storage.mongo.MongoGroupsStorage;
+import us.kbase.test.groups.MongoStorageTestManager;
+import us.kbase.test.groups.TestCommon;
+
+/** Tests watching group changes against a single node MongoDB replica set, since change
+ * streams are not supported by standalone servers. The test controller only starts
+ * standalone servers, so the replica set is started here.
+ */
+public class GroupChangeStreamIntegrationTest {
+
+	private static final String REPLICA_SET = "rs0";
+	private static final String DB_NAME = "test_groupchangestream";
+	private static final long TIMEOUT_SEC = 30;
+
+	private static Process mongod;
+	private static Path tempDir;
+	private static MongoClient mc;
+	private static MongoDatabase db;
+
+	private MongoGroupsStorage storage;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		TestCommon.stfuLoggers();
+		tempDir = Files.createTempDirectory(TestCommon.getTempDir(), "GroupChangeStreamTest");
+		final Path dataDir = Files.createDirectory(tempDir.resolve("data"));
+		final int port = findFreePort();
+		mongod = new ProcessBuilder(TestCommon.getMongoExe().toString(),
+				"--port", "" + port,
+				"--bind_ip", "127.0.0.1",
+				"--dbpath", dataDir.toString(),
+				"--replSet", REPLICA_SET)
+				.redirectErrorStream(true)
+				.redirectOutput(tempDir.resolve("mongo.log").toFile())
+				.start();
+		mc = MongoClients.create(
+				"mongodb://127.0.0.1:" + port + "/?directConnection=true");
+		waitFor(() -> {
+			mc.getDatabase("admin").runCommand(new Document("ping", 1));
+			return true;
+		});
+		mc.getDatabase("admin").runCommand(new Document("replSetInitiate",
+				new Document("_id", REPLICA_SET).append("members", Arrays.asList(
+						new Document("_id", 0).append("host", "127.0.0.1:" + port)))));
+		waitFor(() -> mc.getDatabase("admin").runCommand(new Document("isMaster", 1))
+				.getBoolean("ismaster"));
+		db = mc.getDatabase(DB_NAME);
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (mc != null) {
+			mc.close();
+		}
+		if (mongod != null) {
+			mongod.destroy();
+			mongod.waitFor(TIMEOUT_SEC, TimeUnit.SECONDS);
+		}
+		if (tempDir != null && TestCommon.isDeleteTempFiles()) {
+			FileUtils.deleteQuietly(tempDir.toFile());
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		TestCommon.destroyDB(db);
+		storage = new MongoGroupsStorage(db, set());
+	}
+
+	@After
+	public void tearDown() {
+		if (storage != null) {
+			storage.stopGroupChangeStream();
+			storage.stopExpirationAgent();
+		}
+	}
+
+	private interface Condition {
+		boolean check() throws Exception;
+	}
+
+	private static void waitFor(final Condition condition) throws Exception {
+		final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SEC);
+		Exception last = null;
+		while (System.nanoTime() < end) {
+			try {
+				if (condition.check()) {
+					return;
+				}
+			} catch (Exception e) {
+				last = e;
+			}
+			Thread.sleep(100);
+		}
+		throw new IllegalStateException("Timed out waiting for MongoDB", last);
+	}
+
+	private static int findFreePort() throws IOException {
+		try (final ServerSocket s = new ServerSocket(0)) {
+			return s.getLocalPort();
+		}
+	}
+
+	private static Group getGroup(final String id, final String name) throws Exception {
+		return Group.getBuilder(new GroupID(id), new GroupName(name),
+				GroupUser.getBuilder(new UserName("own"), inst(10000)).build(),
+				new CreateAndModTimes(inst(10000)))
+				.build();
+	}
+
+	private static class QueueListener implements GroupChangeListener {
+
+		private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+		@Override
+		public void groupChanged(final GroupID groupID) {
+			events.add(groupID.getName());
+		}
+
+		@Override
+		public void changesMissed() {
+			events.add("*missed*");
+		}
+
+		private String next() throws Exception {
+			final String e = events.poll(TIMEOUT_SEC, TimeUnit.SECONDS);
+			if (e == null) {
+				fail("timed out waiting for change event");
+			}
+			return e;
+		}
+	}
+
+	@Test
+	public void watchChanges() throws Exception {
+		final QueueListener l = new QueueListener();
+		storage.startGroupChangeStream(l);
+		assertThat("incorrect running", storage.isGroupChangeStreamRunning(), is(true));
+		assertThat("incorrect event", l.next(), is("*missed*"));
+
+		// changes made by another service instance
+		final MongoGroupsStorage other = new MongoGroupsStorage(db, set());
+		other.createGroup(getGroup("g1", "n1"));
+		assertThat("incorrect event", l.next(), is("g1"));
+		other.addMember(new GroupID("g1"),
+				GroupUser.getBuilder(new UserName("m"), inst(20000)).build(), inst(20000));
+		assertThat("incorrect event", l.next(), is("g1"));
+		other.createGroup(getGroup("g2", "n2"));
+		assertThat("incorrect event", l.next(), is("g2"));
+		other.stopExpirationAgent();
+
+		storage.stopGroupChangeStream();
+		assertThat("incorrect running", storage.isGroupChangeStreamRunning(), is(false));
+	}
+
+	@Test
+	public void invalidateCache() throws Exception {
+		final CachingGroupsStorage cache = new CachingGroupsStorage(storage, 1024 * 1024, 600);
+		storage.startGroupChangeStream(new GroupChangeListener() {
+
+			@Override
+			public void groupChanged(final GroupID groupID) {
+				cache.invalidate(groupID);
+			}
+
+			@Override
+			public void changesMissed() {
+				cache.invalidateAll();
+			}
+		});
+		final MongoGroupsStorage other = new MongoGroupsStorage(db, set());
+		other.createGroup(getGroup("g1", "n1"));
+		waitFor(() -> cache.getGroupExists(new GroupID("g1")));
+		assertThat("incorrect members", cache.getGroup(new GroupID("g1")).getMembers(),
+				is(set()));
+
+		other.addMember(new GroupID("g1"),
+				GroupUser.getBuilder(new UserName("m"), inst(20000)).build(), inst(20000));
+		waitFor(() -> cache.getGroup(new GroupID("g1")).getMembers()
+				.equals(set(new UserName("m"))));
+		other.stopExpirationAgent();
+	}
+
+	@Test
+	public void failStartOnStandalone() throws Exception {
+		final MongoStorageTestManager manager = new MongoStorageTestManager(DB_NAME);
+		try {
+			manager.storage.startGroupChangeStream(new QueueListener());
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new StorageInitException(
+					"Watching group changes requires MongoDB to run as a replica set or " +
+					"sharded cluster"));
+		} finally {
+			manager.storage.stopExpirationAgent();
+			manager.destroy();
+		}
+		assertThat("incorrect running", manager.storage.isGroupChangeStreamRunning(),
+				is(false));
+	}
+}
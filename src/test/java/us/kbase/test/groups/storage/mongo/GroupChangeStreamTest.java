@@ -0,0 +1,261 @@
+package us.kbase.test.groups.storage.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.Document;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+
+import us.kbase.groups.core.GroupID;
+import us.kbase.groups.storage.mongo.GroupChangeStream;
+import us.kbase.groups.storage.mongo.GroupChangeStream.GroupChangeListener;
+import us.kbase.test.groups.TestCommon;
+
+public class GroupChangeStreamTest {
+
+	private static final BsonDocument TOKEN1 = new BsonDocument("t", new BsonInt32(1));
+	private static final BsonDocument TOKEN2 = new BsonDocument("t", new BsonInt32(2));
+
+	private static class TestMocks {
+		private final MongoCollection<Document> col;
+		private final ChangeStreamIterable<Document> stream;
+		private final GroupChangeListener listener;
+		private final GroupChangeStream watcher;
+
+		@SuppressWarnings("unchecked")
+		private TestMocks() throws Exception {
+			col = mock(MongoCollection.class);
+			stream = mock(ChangeStreamIterable.class);
+			listener = mock(GroupChangeListener.class);
+			when(col.watch(any(List.class))).thenReturn(stream);
+			when(stream.fullDocument(FullDocument.UPDATE_LOOKUP)).thenReturn(stream);
+			when(stream.maxAwaitTime(anyLong(), any(TimeUnit.class))).thenReturn(stream);
+			when(stream.resumeAfter(any(BsonDocument.class))).thenReturn(stream);
+			final Constructor<GroupChangeStream> con = GroupChangeStream.class
+					.getDeclaredConstructor(
+							MongoCollection.class, GroupChangeListener.class, long.class);
+			con.setAccessible(true);
+			watcher = con.newInstance(col, listener, 1L);
+		}
+	}
+
+	private static ChangeStreamDocument<Document> event(final String op, final String groupID) {
+		return new ChangeStreamDocument<>(op, TOKEN1, null, null,
+				groupID == null ? null : new Document("id", groupID),
+				null, null, null, null, null, null, null, null, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor() {
+		return mock(MongoChangeStreamCursor.class);
+	}
+
+	@Test
+	public void events() throws Exception {
+		final TestMocks m = new TestMocks();
+		final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cur = cursor();
+		when(m.stream.cursor()).thenReturn(cur);
+		when(cur.getResumeToken()).thenReturn(TOKEN1);
+		when(cur.tryNext()).thenReturn(
+				event("insert", "g1"),
+				null,
+				event("update", "g2"),
+				event("replace", "g3"),
+				event("update", null), // deleted before the lookup
+				event("delete", null))
+				.thenAnswer(inv -> {
+					m.watcher.stop();
+					return null;
+				});
+
+		m.watcher.run();
+
+		final InOrder o = inOrder(m.listener);
+		o.verify(m.listener).changesMissed();
+		o.verify(m.listener).groupChanged(new GroupID("g1"));
+		o.verify(m.listener).groupChanged(new GroupID("g2"));
+		o.verify(m.listener).groupChanged(new GroupID("g3"));
+		// the deleted group and the delete event
+		o.verify(m.listener, times(2)).changesMissed();
+		o.verifyNoMoreInteractions();
+		verify(m.stream).fullDocument(FullDocument.UPDATE_LOOKUP);
+		verify(m.stream, never()).resumeAfter(any());
+		verify(cur).close();
+		assertThat("incorrect running", m.watcher.isRunning(), is(false));
+	}
+
+	@Test
+	public void listenerFailure() throws Exception {
+		final TestMocks m = new TestMocks();
+		final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cur = cursor();
+		when(m.stream.cursor()).thenReturn(cur);
+		when(cur.tryNext()).thenReturn(event("insert", "g1"), event("insert", "g2"))
+				.thenAnswer(inv -> {
+					m.watcher.stop();
+					return null;
+				});
+		doThrow(new IllegalStateException("whoops"))
+				.when(m.listener).groupChanged(new GroupID("g1"));
+
+		m.watcher.run();
+
+		verify(m.listener).groupChanged(new GroupID("g2"));
+	}
+
+	@Test
+	public void resumeAfterError() throws Exception {
+		final TestMocks m = new TestMocks();
+		final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cur1 = cursor();
+		final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cur2 = cursor();
+		when(m.stream.cursor()).thenReturn(cur1, cur2);
+		when(cur1.getResumeToken()).thenReturn(TOKEN2);
+		when(cur1.tryNext()).thenReturn(event("insert", "g1"))
+				.thenThrow(new MongoException(6, "host unreachable"));
+		when(cur2.tryNext()).thenReturn(event("insert", "g2"))
+				.thenAnswer(inv -> {
+					m.watcher.stop();
+					return null;
+				});
+
+		m.watcher.run();
+
+		final InOrder o = inOrder(m.listener);
+		o.verify(m.listener).changesMissed();
+		o.verify(m.listener).groupChanged(new GroupID("g1"));
+		o.verify(m.listener).groupChanged(new GroupID("g2"));
+		o.verifyNoMoreInteractions();
+		verify(m.stream).resumeAfter(TOKEN2);
+		verify(cur1).close();
+		verify(cur2).close();
+	}
+
+	@Test
+	public void reopenAfterHistoryLost() throws Exception {
+		final TestMocks m = new TestMocks();
+		final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cur1 = cursor();
+		final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cur2 = cursor();
+		when(m.stream.cursor()).thenReturn(cur1, cur2);
+		when(cur1.getResumeToken()).thenReturn(TOKEN2);
+		when(cur1.tryNext()).thenReturn(event("insert", "g1"))
+				.thenThrow(new MongoException(286, "history lost"));
+		when(cur2.tryNext()).thenAnswer(inv -> {
+			m.watcher.stop();
+			return null;
+		});
+
+		m.watcher.run();
+
+		final InOrder o = inOrder(m.listener);
+		o.verify(m.listener).changesMissed();
+		o.verify(m.listener).groupChanged(new GroupID("g1"));
+		o.verify(m.listener).changesMissed();
+		o.verifyNoMoreInteractions();
+		verify(m.stream, never()).resumeAfter(any());
+	}
+
+	@Test
+	public void reopenAfterInvalidate() throws Exception {
+		final TestMocks m = new TestMocks();
+		final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cur1 = cursor();
+		final MongoChangeStreamCursor<ChangeStreamDocument<Document>> cur2 = cursor();
+		when(m.stream.cursor()).thenReturn(cur1, cur2);
+		when(cur1.getResumeToken()).thenReturn(TOKEN2);
+		when(cur1.tryNext()).thenReturn(event("insert", "g1"), event("invalidate", null));
+		when(cur2.tryNext()).thenAnswer(inv -> {
+			m.watcher.stop();
+			return null;
+		});
+
+		m.watcher.run();
+
+		final InOrder o = inOrder(m.listener);
+		o.verify(m.listener).changesMissed();
+		o.verify(m.listener).groupChanged(new GroupID("g1"));
+		// one call for the invalidate event, one for reopening the stream
+		o.verify(m.listener, times(2)).changesMissed();
+		o.verifyNoMoreInteractions();
+		verify(m.stream, never()).resumeAfter(any());
+		verify(cur1).close();
+	}
+
+	@Test
+	public void stopOnClosedClient() throws Exception {
+		final TestMocks m = new TestMocks();
+		when(m.stream.cursor()).thenThrow(new IllegalStateException("state should be: open"));
+
+		m.watcher.run();
+
+		assertThat("incorrect running", m.watcher.isRunning(), is(false));
+		verify(m.listener, never()).changesMissed();
+	}
+
+	@Test
+	public void stopOnUnsupported() throws Exception {
+		final TestMocks m = new TestMocks();
+		when(m.stream.cursor()).thenThrow(new MongoException(
+				40573, "The $changeStream stage is only supported on replica sets"));
+
+		m.watcher.run();
+
+		assertThat("incorrect running", m.watcher.isRunning(), is(false));
+		verify(m.stream).cursor();
+		verify(m.listener).changesMissed();
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		@SuppressWarnings("unchecked")
+		final MongoCollection<Document> col = mock(MongoCollection.class);
+		final GroupChangeListener l = mock(GroupChangeListener.class);
+		failConstruct(null, l, new NullPointerException("groups"));
+		failConstruct(col, null, new NullPointerException("listener"));
+	}
+
+	private void failConstruct(
+			final MongoCollection<Document> col,
+			final GroupChangeListener listener,
+			final Exception expected) {
+		try {
+			new GroupChangeStream(col, listener);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void pipeline() throws Exception {
+		final TestMocks m = new TestMocks();
+		when(m.stream.cursor()).thenThrow(new IllegalStateException("closed"));
+
+		m.watcher.run();
+
+		verify(m.col).watch(Arrays.asList(new Document("$project",
+				new Document("operationType", 1).append("fullDocument.id", 1))));
+	}
+}
@@ -8,11 +8,17 @@ import static us.kbase.test.groups.TestCommon.set;
 import static us.kbase.test.groups.TestCommon.assertLogEventsCorrect;
 import static us.kbase.test.groups.TestCommon.inst;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -22,7 +28,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
 import org.bson.Document;
@@ -32,6 +40,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableMap;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
@@ -41,6 +52,7 @@ import us.kbase.groups.core.GroupID;
 import us.kbase.groups.core.GroupIDAndName;
 import us.kbase.groups.core.GroupIDNameMembership;
 import us.kbase.groups.core.GroupName;
+import us.kbase.groups.core.GroupSummary;
 import us.kbase.groups.core.GroupUpdateParams;
 import us.kbase.groups.core.GroupUser;
 import us.kbase.groups.core.OptionalGroupFields;
@@ -59,6 +71,8 @@ import us.kbase.groups.core.exceptions.RequestExistsException;
 import us.kbase.groups.core.exceptions.ResourceExistsException;
 import us.kbase.groups.core.exceptions.UserIsMemberException;
 import us.kbase.groups.core.fieldvalidation.NumberedCustomField;
+import us.kbase.groups.core.notifications.OutboxNotification;
+import us.kbase.groups.core.notifications.OutboxNotification.Operation;
 import us.kbase.groups.core.request.GroupRequest;
 import us.kbase.groups.core.request.GroupRequest.Builder;
 import us.kbase.groups.core.request.GroupRequestStatus;
@@ -70,6 +84,7 @@ import us.kbase.groups.core.resource.ResourceAdministrativeID;
 import us.kbase.groups.core.resource.ResourceDescriptor;
 import us.kbase.groups.core.resource.ResourceType;
 import us.kbase.groups.storage.GroupsStorage;
+import us.kbase.groups.storage.GroupsStorage.GroupSummaryConsumer;
 import us.kbase.groups.storage.exceptions.GroupsStorageException;
 import us.kbase.groups.storage.mongo.MongoGroupsStorage;
 import us.kbase.test.groups.TestCommon.LogEvent;
@@ -1280,6 +1295,242 @@ public class MongoGroupsStorageOpsTest {
 						)));
 	}
 	
+	@Test
+	public void getGroupSummariesNoUserWithRoleAndEmpty() throws Exception {
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().build(), false, null),
+				is(Collections.emptyList()));
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name3"), toGUser("uname3"),
+				new CreateAndModTimes(Instant.ofEpochMilli(40000), Instant.ofEpochMilli(50000)))
+				.build());
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().withRole(Role.MEMBER).build(), false, null),
+				is(Collections.emptyList()));
+	}
+	
+	@Test
+	public void getGroupSummaries() throws Exception {
+		final Group g1 = Group.getBuilder(
+				new GroupID("aid"), new GroupName("name1"),
+				GroupUser.getBuilder(new UserName("uname1"), inst(12000))
+						.withCustomField(new NumberedCustomField("field"), "val")
+						.withNullableLastVisit(inst(87000))
+						.build(),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000), Instant.ofEpochMilli(10000)))
+				.withMember(GroupUser.getBuilder(new UserName("foo1"), inst(60000))
+						.withCustomField(new NumberedCustomField("thing"), "er")
+						.withNullableLastVisit(inst(92000))
+						.build())
+				.withMember(toGUser("bar1"))
+				.withAdministrator(toGUser("admin"))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("42")))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("43")))
+				.withResource(new ResourceType("catalogmethod"),
+						new ResourceDescriptor(
+								new ResourceAdministrativeID("m"), new ResourceID("m.n")))
+				.withCustomField(new NumberedCustomField("gfield-1"), "gval")
+				.build();
+		final Group g2 = Group.getBuilder(
+				new GroupID("fid"), new GroupName("name2"), toGUser("uname2"),
+				new CreateAndModTimes(Instant.ofEpochMilli(20000), Instant.ofEpochMilli(30000)))
+				.withIsPrivate(true)
+				.withPrivateMemberList(false)
+				.withMember(toGUser("foo1"))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("42")))
+				.build();
+		final Group g3 = Group.getBuilder(
+				new GroupID("gid"), new GroupName("name3"), toGUser("foo1"),
+				new CreateAndModTimes(Instant.ofEpochMilli(40000), Instant.ofEpochMilli(50000)))
+				.build();
+		manager.storage.createGroup(g1);
+		manager.storage.createGroup(g2);
+		manager.storage.createGroup(g3);
+		// leaves an empty resource list for the type
+		manager.storage.removeResource(g2.getGroupID(), new ResourceType("workspace"),
+				new ResourceID("42"), inst(30000));
+		final Group g2mod = manager.storage.getGroup(g2.getGroupID());
+		
+		final UserName foo1 = new UserName("foo1");
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().build(), false, null),
+				is(Arrays.asList(GroupSummary.from(g1, null), GroupSummary.from(g3, null))));
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().build(), false, foo1),
+				is(Arrays.asList(GroupSummary.from(g1, foo1), GroupSummary.from(g2mod, foo1),
+						GroupSummary.from(g3, foo1))));
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().withNullableSortAscending(false)
+						.withNullableExcludeUpTo("gid").build(), false, foo1),
+				is(Arrays.asList(GroupSummary.from(g2mod, foo1), GroupSummary.from(g1, foo1))));
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().withRole(Role.OWNER).build(), false, foo1),
+				is(Arrays.asList(GroupSummary.from(g3, foo1))));
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().withResource(
+						new ResourceType("workspace"), new ResourceID("42")).build(),
+				true, new UserName("admin")),
+				is(Arrays.asList(GroupSummary.from(g1, new UserName("admin")))));
+		
+		// the summaries must match the full groups for the same query
+		for (final Role r: Role.values()) {
+			final GetGroupsParams p = GetGroupsParams.getBuilder().withRole(r).build();
+			assertThat("incorrect summaries", manager.storage.getGroupSummaries(p, false, foo1),
+					is(manager.storage.getGroups(p, false, foo1).stream()
+							.map(g -> GroupSummary.from(g, foo1))
+							.collect(Collectors.toList())));
+		}
+	}
+	
+	@Test
+	public void getGroupSummariesByID() throws Exception {
+		final Group g1 = Group.getBuilder(
+				new GroupID("g1"), new GroupName("name1"), toGUser("own"),
+				new CreateAndModTimes(inst(10000)))
+				.withAdministrator(GroupUser.getBuilder(new UserName("a"), inst(20000))
+						.withNullableLastVisit(inst(30000))
+						.build())
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("42")))
+				.build();
+		final Group g2 = Group.getBuilder(
+				new GroupID("g2"), new GroupName("name2"), toGUser("a"),
+				new CreateAndModTimes(inst(10000)))
+				.withIsPrivate(true)
+				.build();
+		final Group g3 = Group.getBuilder(
+				new GroupID("g3"), new GroupName("name3"), toGUser("own"),
+				new CreateAndModTimes(inst(10000)))
+				.build();
+		manager.storage.createGroup(g1);
+		manager.storage.createGroup(g2);
+		manager.storage.createGroup(g3);
+		
+		final UserName a = new UserName("a");
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				set(new GroupID("g1"), new GroupID("g2")), a),
+				is(set(GroupSummary.from(g1, a), GroupSummary.from(g2, a))));
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(
+				set(new GroupID("g1"), new GroupID("g3")), null),
+				is(set(GroupSummary.from(g1, null), GroupSummary.from(g3, null))));
+		assertThat("incorrect summaries", manager.storage.getGroupSummaries(set(), a),
+				is(set()));
+	}
+	
+	@Test
+	public void getGroupSummariesByIDFail() throws Exception {
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("g1"), new GroupName("name1"), toGUser("own"),
+				new CreateAndModTimes(inst(10000)))
+				.build());
+		failGetGroupSummaries(null, new NullPointerException("groupIDs"));
+		failGetGroupSummaries(set(new GroupID("g1"), null),
+				new NullPointerException("Null item in collection groupIDs"));
+		failGetGroupSummaries(set(new GroupID("g1"), new GroupID("g2")),
+				new NoSuchGroupException("g2"));
+	}
+	
+	private void failGetGroupSummaries(final Collection<GroupID> ids, final Exception expected) {
+		try {
+			manager.storage.getGroupSummaries(ids, new UserName("own"));
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	private void assertCounts(final int memberCount, final Document resourceCounts) {
+		final Document g = manager.db.getCollection("groups")
+				.find(new Document("id", "gid")).first();
+		assertThat("incorrect member count", g.get("membcnt"), is(memberCount));
+		assertThat("incorrect resource counts", g.get("rescnt"), is(resourceCounts));
+	}
+	
+	@Test
+	public void countsMaintained() throws Exception {
+		final ResourceType ws = new ResourceType("workspace");
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name"), toGUser("own"),
+				new CreateAndModTimes(inst(10000)))
+				.withMember(toGUser("m1"))
+				.withResource(ws, new ResourceDescriptor(new ResourceID("42")))
+				.build());
+		assertCounts(2, new Document("workspace", 1));
+		
+		manager.storage.addMember(new GroupID("gid"), toGUser("m2"), inst(20000));
+		manager.storage.addAdmin(new GroupID("gid"), new UserName("m2"), inst(20000));
+		manager.storage.addResource(new GroupID("gid"), new ResourceType("catalogmethod"),
+				new ResourceDescriptor(new ResourceAdministrativeID("m"), new ResourceID("m.n")),
+				inst(20000));
+		manager.storage.addResource(new GroupID("gid"), ws,
+				new ResourceDescriptor(new ResourceID("43")), inst(20000));
+		assertCounts(3, new Document("workspace", 2).append("catalogmethod", 1));
+		
+		// failed operations should not change the counts
+		try {
+			manager.storage.addMember(new GroupID("gid"), toGUser("m1"), inst(20000));
+			fail("expected exception");
+		} catch (UserIsMemberException e) {
+			// test passed
+		}
+		try {
+			manager.storage.removeResource(new GroupID("gid"), ws, new ResourceID("44"),
+					inst(20000));
+			fail("expected exception");
+		} catch (NoSuchResourceException e) {
+			// test passed
+		}
+		assertCounts(3, new Document("workspace", 2).append("catalogmethod", 1));
+		
+		manager.storage.demoteAdmin(new GroupID("gid"), new UserName("m2"), inst(30000));
+		manager.storage.removeMember(new GroupID("gid"), new UserName("m1"), inst(30000));
+		manager.storage.removeResource(new GroupID("gid"), new ResourceType("catalogmethod"),
+				new ResourceID("m.n"), inst(30000));
+		assertCounts(2, new Document("workspace", 2).append("catalogmethod", 0));
+		
+		assertThat("incorrect summary", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().build(), false, null),
+				is(Arrays.asList(GroupSummary.from(
+						manager.storage.getGroup(new GroupID("gid")), null))));
+		assertThat("incorrect reconcile", manager.storage.reconcileCounts(), is(0L));
+	}
+	
+	@Test
+	public void reconcileCounts() throws Exception {
+		final ResourceType ws = new ResourceType("workspace");
+		final Group g = Group.getBuilder(
+				new GroupID("gid"), new GroupName("name"), toGUser("own"),
+				new CreateAndModTimes(inst(10000)))
+				.withMember(toGUser("m1"))
+				.withResource(ws, new ResourceDescriptor(new ResourceID("42")))
+				.build();
+		manager.storage.createGroup(g);
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("gid2"), new GroupName("name"), toGUser("own"),
+				new CreateAndModTimes(inst(10000)))
+				.build());
+		
+		manager.db.getCollection("groups").updateOne(new Document("id", "gid"),
+				new Document("$set", new Document("membcnt", 6)
+						.append("rescnt", new Document("workspace", 3).append("foo", 1))));
+		
+		assertThat("incorrect reconcile", manager.storage.reconcileCounts(), is(1L));
+		assertCounts(2, new Document("workspace", 1));
+		assertThat("incorrect reconcile", manager.storage.reconcileCounts(), is(0L));
+		
+		manager.db.getCollection("groups").updateOne(new Document("id", "gid"),
+				new Document("$unset", new Document("membcnt", "").append("rescnt", "")));
+		
+		assertThat("incorrect reconcile", manager.storage.reconcileCounts(), is(1L));
+		assertCounts(2, new Document("workspace", 1));
+		assertThat("incorrect summary", manager.storage.getGroupSummaries(
+				GetGroupsParams.getBuilder().build(), false, null).get(0),
+				is(GroupSummary.from(g, null)));
+	}
+	
 	@Test
 	public void getGroupsWithUserRole() throws Exception {
 		final Group g1 = Group.getBuilder(
@@ -1668,6 +1919,120 @@ public class MongoGroupsStorageOpsTest {
 		assertGroupListCorrect("g200", 201, 1);
 		assertGroupListCorrect("g201", 201, 0);
 		assertGroupListCorrect("g300", 201, 0);
+		
+		// caller provided limits, which can't exceed the storage maximum
+		assertGroupListCorrect("g000", 1, 1, 1);
+		assertGroupListCorrect("g049", 50, 10, 10);
+		assertGroupListCorrect("g195", 196, 10, 6);
+		assertGroupListCorrect("g000", 1, 101, 100);
+		assertGroupListCorrect("g000", 1, 1000, 100);
+		
+		assertThat("incorrect size", manager.storage.getGroupSummaries(GetGroupsParams.getBuilder()
+				.withNullableLimit(7).build(), false, null).size(), is(7));
+	}
+	
+	private List<GroupSummary> export(
+			final GetGroupsParams params,
+			final boolean resourceIsPublic,
+			final UserName user)
+			throws Exception {
+		final List<GroupSummary> ret = new LinkedList<>();
+		manager.storage.exportGroupSummaries(params, resourceIsPublic, user, g -> ret.add(g));
+		return ret;
+	}
+	
+	@Test
+	public void exportGroupSummaries() throws Exception {
+		final Group g1 = Group.getBuilder(
+				new GroupID("aid"), new GroupName("name1"), toGUser("uname1"),
+				new CreateAndModTimes(inst(10000)))
+				.withResource(new ResourceType("workspace"),
+						new ResourceDescriptor(new ResourceID("42")))
+				.build();
+		final Group g2 = Group.getBuilder(
+				new GroupID("fid"), new GroupName("name2"), toGUser("uname2"),
+				new CreateAndModTimes(inst(20000)))
+				.withIsPrivate(true)
+				.withMember(toGUser("foo1"))
+				.build();
+		final Group g3 = Group.getBuilder(
+				new GroupID("gid"), new GroupName("name3"), toGUser("foo1"),
+				new CreateAndModTimes(inst(40000)))
+				.build();
+		manager.storage.createGroup(g1);
+		manager.storage.createGroup(g2);
+		manager.storage.createGroup(g3);
+		
+		final UserName foo1 = new UserName("foo1");
+		assertThat("incorrect summaries", export(GetGroupsParams.getBuilder().build(), false, null),
+				is(Arrays.asList(GroupSummary.from(g1, null), GroupSummary.from(g3, null))));
+		assertThat("incorrect summaries", export(GetGroupsParams.getBuilder().build(), false, foo1),
+				is(Arrays.asList(GroupSummary.from(g1, foo1), GroupSummary.from(g2, foo1),
+						GroupSummary.from(g3, foo1))));
+		assertThat("incorrect summaries", export(GetGroupsParams.getBuilder()
+				.withNullableSortAscending(false).withNullableExcludeUpTo("gid").build(),
+				false, foo1),
+				is(Arrays.asList(GroupSummary.from(g2, foo1), GroupSummary.from(g1, foo1))));
+		assertThat("incorrect summaries", export(GetGroupsParams.getBuilder()
+				.withResource(new ResourceType("workspace"), new ResourceID("42")).build(),
+				true, null),
+				is(Arrays.asList(GroupSummary.from(g1, null))));
+		assertThat("incorrect summaries", export(GetGroupsParams.getBuilder()
+				.withRole(Role.MEMBER).build(), false, null),
+				is(Collections.emptyList()));
+		
+		// the export must match the list for the same query
+		for (final Role r: Role.values()) {
+			final GetGroupsParams p = GetGroupsParams.getBuilder().withRole(r).build();
+			assertThat("incorrect summaries", export(p, false, foo1),
+					is(manager.storage.getGroupSummaries(p, false, foo1)));
+		}
+	}
+	
+	@Test
+	public void exportGroupSummariesNoMaxListSize() throws Exception {
+		for (int i = 1; i < 202; i++) {
+			final String id = String.format("g%03d", i);
+			manager.storage.createGroup(Group.getBuilder(
+					new GroupID(id), new GroupName("g" + 1), toGUser("n"),
+					new CreateAndModTimes(inst(1000))).build());
+		}
+		
+		final List<GroupSummary> res = export(GetGroupsParams.getBuilder()
+				.withNullableExcludeUpTo("g010").build(), false, null);
+		assertThat("incorrect size", res.size(), is(191));
+		assertThat("incorrect first", res.get(0).getGroupID(), is(new GroupID("g011")));
+		assertThat("incorrect last", res.get(190).getGroupID(), is(new GroupID("g201")));
+		
+		assertThat("incorrect size", export(GetGroupsParams.getBuilder()
+				.withNullableLimit(150).build(), false, null).size(), is(150));
+	}
+	
+	@Test
+	public void exportGroupSummariesFail() throws Exception {
+		final GroupSummaryConsumer c = g -> {};
+		final GetGroupsParams p = GetGroupsParams.getBuilder().build();
+		failExportGroupSummaries(null, c, new NullPointerException("params"));
+		failExportGroupSummaries(p, null, new NullPointerException("consumer"));
+		
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name3"), toGUser("foo1"),
+				new CreateAndModTimes(inst(40000)))
+				.build());
+		failExportGroupSummaries(p, g -> {throw new IOException("whoops");},
+				new IOException("whoops"));
+	}
+	
+	private void failExportGroupSummaries(
+			final GetGroupsParams params,
+			final GroupSummaryConsumer consumer,
+			final Exception expected) {
+		try {
+			manager.storage.exportGroupSummaries(params, false, null, consumer);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
 	}
 	
 	@Test
@@ -1726,8 +2091,20 @@ public class MongoGroupsStorageOpsTest {
 			final int start,
 			final int size)
 			throws Exception {
+		assertGroupListCorrect(excludeUpTo, start, null, size);
+	}
+	
+	private <T> void assertGroupListCorrect(
+			final String excludeUpTo,
+			final int start,
+			final Integer limit,
+			final int size)
+			throws Exception {
 		final List<Group> res = manager.storage.getGroups(GetGroupsParams.getBuilder()
-				.withNullableExcludeUpTo(excludeUpTo).build(), false, null);
+				.withNullableExcludeUpTo(excludeUpTo)
+				.withNullableLimit(limit)
+				.build(),
+				false, null);
 		assertThat("incorrect size", res.size(), is(size));
 		int i = start;
 		for (final Group g: res) {
@@ -2820,6 +3197,126 @@ public class MongoGroupsStorageOpsTest {
 		}
 	}
 	
+	@Test
+	public void removeResources() throws Exception {
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name3"), toGUser("uname3"),
+				new CreateAndModTimes(Instant.ofEpochMilli(40000), Instant.ofEpochMilli(50000)))
+				.withResource(new ResourceType("ws"), new ResourceDescriptor(
+						new ResourceAdministrativeID("a"), new ResourceID("b")))
+				.withResource(new ResourceType("ws"), new ResourceDescriptor(
+						new ResourceAdministrativeID("a"), new ResourceID("c")), inst(35000))
+				.withResource(new ResourceType("ws"), new ResourceDescriptor(
+						new ResourceAdministrativeID("d"), new ResourceID("d")))
+				.withResource(new ResourceType("cat"), new ResourceDescriptor(
+						new ResourceAdministrativeID("m"), new ResourceID("m.n")))
+				.build());
+		
+		manager.storage.removeResources(
+				new GroupID("gid"),
+				new ResourceType("ws"),
+				set(new ResourceID("c"), new ResourceID("d")),
+				inst(109200));
+		
+		assertThat("incorrect group", manager.storage.getGroup(new GroupID("gid")), is(
+				Group.getBuilder(
+						new GroupID("gid"), new GroupName("name3"), toGUser("uname3"),
+						new CreateAndModTimes(Instant.ofEpochMilli(40000),
+								Instant.ofEpochMilli(109200)))
+						.withResource(new ResourceType("ws"), new ResourceDescriptor(
+								new ResourceAdministrativeID("a"), new ResourceID("b")))
+						.withResource(new ResourceType("cat"), new ResourceDescriptor(
+								new ResourceAdministrativeID("m"), new ResourceID("m.n")))
+						.build()));
+		
+		// resources not in the group are ignored
+		manager.storage.removeResources(
+				new GroupID("gid"),
+				new ResourceType("ws"),
+				set(new ResourceID("b"), new ResourceID("c")),
+				inst(119200));
+		
+		assertThat("incorrect group", manager.storage.getGroup(new GroupID("gid")), is(
+				Group.getBuilder(
+						new GroupID("gid"), new GroupName("name3"), toGUser("uname3"),
+						new CreateAndModTimes(Instant.ofEpochMilli(40000),
+								Instant.ofEpochMilli(119200)))
+						.withResource(new ResourceType("cat"), new ResourceDescriptor(
+								new ResourceAdministrativeID("m"), new ResourceID("m.n")))
+						.build()));
+	}
+	
+	@Test
+	public void removeResourcesNoop() throws Exception {
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name3"), toGUser("uname3"),
+				new CreateAndModTimes(Instant.ofEpochMilli(40000), Instant.ofEpochMilli(50000)))
+				.withResource(new ResourceType("ws"), new ResourceDescriptor(
+						new ResourceAdministrativeID("a"), new ResourceID("b")))
+				.build());
+		
+		manager.storage.removeResources(new GroupID("gid"), new ResourceType("ws"),
+				Collections.emptySet(), inst(109200));
+		manager.storage.removeResources(new GroupID("gid"), new ResourceType("ws"),
+				set(new ResourceID("c")), inst(109200));
+		manager.storage.removeResources(new GroupID("gid"), new ResourceType("cat"),
+				set(new ResourceID("b")), inst(109200));
+		
+		assertThat("incorrect group", manager.storage.getGroup(new GroupID("gid")), is(
+				Group.getBuilder(
+						new GroupID("gid"), new GroupName("name3"), toGUser("uname3"),
+						new CreateAndModTimes(Instant.ofEpochMilli(40000),
+								Instant.ofEpochMilli(50000)))
+						.withResource(new ResourceType("ws"), new ResourceDescriptor(
+								new ResourceAdministrativeID("a"), new ResourceID("b")))
+						.build()));
+	}
+	
+	@Test
+	public void removeResourcesFailNulls() throws Exception {
+		final GroupID g = new GroupID("g");
+		final ResourceType t = new ResourceType("t");
+		final Set<ResourceID> d = set(new ResourceID("i"));
+		
+		failRemoveResources(null, t, d, inst(1), new NullPointerException("groupID"));
+		failRemoveResources(g, null, d, inst(1), new NullPointerException("type"));
+		failRemoveResources(g, t, null, inst(1), new NullPointerException("resources"));
+		failRemoveResources(g, t, set(new ResourceID("i"), null), inst(1),
+				new NullPointerException("Null item in collection resources"));
+		failRemoveResources(g, t, d, null, new NullPointerException("modDate"));
+	}
+	
+	@Test
+	public void removeResourcesFailNoGroup() throws Exception {
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name3"), toGUser("uname3"),
+				new CreateAndModTimes(Instant.ofEpochMilli(40000), Instant.ofEpochMilli(50000)))
+				.build());
+		
+		failRemoveResources(
+				new GroupID("gid1"),
+				new ResourceType("t"),
+				set(new ResourceID("id")),
+				inst(1),
+				new NoSuchGroupException("gid1"));
+		
+		assertModificationTimeIs(new GroupID("gid"), inst(50000));
+	}
+	
+	private void failRemoveResources(
+			final GroupID g,
+			final ResourceType t,
+			final Set<ResourceID> d,
+			final Instant modDate,
+			final Exception expected) {
+		try {
+			manager.storage.removeResources(g, t, d, modDate);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
 	@Test
 	public void storeAndGetRequestMinimal() throws Exception {
 		final UUID id = UUID.randomUUID();
@@ -3333,6 +3830,61 @@ public class MongoGroupsStorageOpsTest {
 				(s, p) -> s.getRequestsByRequester(new UserName("name"), p));
 	}
 	
+	@Test
+	public void getRequestsByRequesterLimitAndTiedModDates() throws Exception {
+		final Instant forever = Instant.ofEpochMilli(1000000000000000L);
+		final List<RequestID> ids = new LinkedList<>();
+		for (int i = 1; i < 6; i++) {
+			final RequestID id = new RequestID(String.format(
+					"f5bd78c2-f5d3-4b1b-8e49-2b2b8c4c4bd%s", i));
+			ids.add(id);
+			// the first four requests are modified at the same time
+			manager.storage.storeRequest(GroupRequest.getBuilder(
+					id, new GroupID("gid" + i), new UserName("name"),
+					CreateModAndExpireTimes.getBuilder(inst(10000), forever)
+							.withModificationTime(inst(i < 5 ? 20000 : 30000))
+							.build())
+					.build());
+		}
+		
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder().withNullableLimit(2),
+				ids.get(0), ids.get(1));
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder().withNullableLimit(2)
+				.withNullableExcludeUpTo(inst(20000), ids.get(1)),
+				ids.get(2), ids.get(3));
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder().withNullableLimit(2)
+				.withNullableExcludeUpTo(inst(20000), ids.get(3)),
+				ids.get(4));
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder()
+				.withNullableExcludeUpTo(inst(30000), ids.get(4)));
+		// a date without an ID skips all requests modified at that date
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder()
+				.withNullableExcludeUpTo(inst(20000)),
+				ids.get(4));
+		
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder().withNullableLimit(2)
+				.withNullableSortAscending(false),
+				ids.get(4), ids.get(3));
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder().withNullableLimit(2)
+				.withNullableSortAscending(false)
+				.withNullableExcludeUpTo(inst(20000), ids.get(3)),
+				ids.get(2), ids.get(1));
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder().withNullableLimit(2)
+				.withNullableSortAscending(false)
+				.withNullableExcludeUpTo(inst(20000), ids.get(1)),
+				ids.get(0));
+	}
+	
+	private void assertRequestIDsCorrect(
+			final GetRequestsParams.Builder params,
+			final RequestID... expected)
+			throws Exception {
+		final List<RequestID> got = manager.storage.getRequestsByRequester(
+				new UserName("name"), params.build())
+				.stream().map(r -> r.getID()).collect(Collectors.toList());
+		assertThat("incorrect requests", got, is(Arrays.asList(expected)));
+	}
+	
 	@Test
 	public void getRequestsByRequesterFail() throws Exception {
 		failGetRequestsByRequester(null, GetRequestsParams.getBuilder().build(),
@@ -4658,6 +5210,79 @@ public class MongoGroupsStorageOpsTest {
 		}
 	}
 	
+	@Test
+	public void getLatestOpenRequestDates() throws Exception {
+		assertThat("incorrect dates", manager.storage.getLatestOpenRequestDates(set()),
+				is(Collections.emptyMap()));
+		for (final String gid: Arrays.asList("foo", "bar", "baz")) {
+			// not incoming request
+			manager.storage.storeRequest(GroupRequest.getBuilder(
+					new RequestID(UUID.randomUUID()), new GroupID(gid), new UserName("bar"),
+						CreateModAndExpireTimes.getBuilder(
+								Instant.ofEpochMilli(90000), Instant.ofEpochMilli(100000))
+								.build())
+					.withType(RequestType.INVITE)
+					.withResource(GroupRequest.USER_TYPE,
+							new ResourceDescriptor(new ResourceID("baz")))
+					.build());
+			// closed
+			manager.storage.storeRequest(GroupRequest.getBuilder(
+					new RequestID(UUID.randomUUID()), new GroupID(gid), new UserName("bat"),
+						CreateModAndExpireTimes.getBuilder(
+								Instant.ofEpochMilli(90000), Instant.ofEpochMilli(100000))
+								.build())
+					.withStatus(GroupRequestStatus.expired())
+					.build());
+		}
+		manager.storage.storeRequest(GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("foo"), new UserName("baz"),
+					CreateModAndExpireTimes.getBuilder(
+							Instant.ofEpochMilli(40000), Instant.ofEpochMilli(80000))
+							.build())
+				.build());
+		manager.storage.storeRequest(GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("foo"), new UserName("whee"),
+					CreateModAndExpireTimes.getBuilder(
+							Instant.ofEpochMilli(50000), Instant.ofEpochMilli(80000))
+							.build())
+				.build());
+		manager.storage.storeRequest(GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("bar"), new UserName("baz"),
+					CreateModAndExpireTimes.getBuilder(
+							Instant.ofEpochMilli(30000), Instant.ofEpochMilli(80000))
+							.build())
+				.build());
+		manager.storage.storeRequest(GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("other"), new UserName("baz"),
+					CreateModAndExpireTimes.getBuilder(
+							Instant.ofEpochMilli(30000), Instant.ofEpochMilli(80000))
+							.build())
+				.build());
+		
+		assertThat("incorrect dates", manager.storage.getLatestOpenRequestDates(set(
+				new GroupID("foo"), new GroupID("bar"), new GroupID("baz"))),
+				is(ImmutableMap.of(new GroupID("foo"), inst(50000),
+						new GroupID("bar"), inst(30000))));
+	}
+	
+	@Test
+	public void failGetLatestOpenRequestDates() throws Exception {
+		failGetLatestOpenRequestDates(null, new NullPointerException("groupIDs"));
+		failGetLatestOpenRequestDates(set(new GroupID("g"), null),
+				new NullPointerException("Null item in collection groupIDs"));
+	}
+	
+	private void failGetLatestOpenRequestDates(
+			final Collection<GroupID> ids,
+			final Exception expected) {
+		try {
+			manager.storage.getLatestOpenRequestDates(ids);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
 	@Test
 	public void closeRequestCancel() throws Exception {
 		final UUID id = UUID.randomUUID();
@@ -4996,12 +5621,721 @@ public class MongoGroupsStorageOpsTest {
 		assertThat("incorrect request", manager.storage.getRequest(new RequestID(id3)), is(gr3ex));
 
 		assertLogEventsCorrect(logEvents,
-				new LogEvent(Level.INFO, "Running expiration agent",
+				new LogEvent(Level.INFO, "Expired 1 requests in 0 ms, 0 expired requests remain",
+						MongoGroupsStorage.class.getName() + "$ExpirationAgent"),
+				new LogEvent(Level.INFO, "Expired 1 requests in 0 ms, 0 expired requests remain",
+						MongoGroupsStorage.class.getName() + "$ExpirationAgent"));
+	}
+	
+	@Test
+	public void expireRequestsWithLimit() throws Exception {
+		final UUID id1 = UUID.randomUUID();
+		final UUID id2 = UUID.randomUUID();
+		final UUID id3 = UUID.randomUUID();
+		final UUID id4 = UUID.randomUUID();
+		for (final Object[] r: Arrays.asList(
+				new Object[] {id1, 50000}, new Object[] {id2, 30000},
+				new Object[] {id3, 35000}, new Object[] {id4, 80000})) {
+			manager.storage.storeRequest(GroupRequest.getBuilder(
+					new RequestID((UUID) r[0]), new GroupID("foo"),
+					new UserName("u" + r[1]),
+					CreateModAndExpireTimes.getBuilder(inst(20000), inst((int) r[1])).build())
+					.build());
+		}
+		final List<List<GroupRequest>> listened = new LinkedList<>();
+		manager.storage.setExpiredRequestsListener(rs -> listened.add(rs));
+		
+		final List<GroupRequest> first = manager.storage.expireRequests(inst(60000), 2);
+		final List<GroupRequest> second = manager.storage.expireRequests(inst(60000), 2);
+		final List<GroupRequest> third = manager.storage.expireRequests(inst(60000), 2);
+		
+		// oldest expiration dates first
+		assertThat("incorrect requests", first, is(Arrays.asList(
+				expired(id2, 30000, 60000), expired(id3, 35000, 60000))));
+		assertThat("incorrect requests", second, is(Arrays.asList(
+				expired(id1, 50000, 60000))));
+		assertThat("incorrect requests", third, is(Collections.emptyList()));
+		assertThat("incorrect listened", listened, is(Arrays.asList(first, second)));
+		assertThat("incorrect request", manager.storage.getRequest(new RequestID(id4)),
+				is(GroupRequest.getBuilder(
+						new RequestID(id4), new GroupID("foo"), new UserName("u80000"),
+						CreateModAndExpireTimes.getBuilder(inst(20000), inst(80000)).build())
+						.build()));
+	}
+	
+	private GroupRequest expired(final UUID id, final int expire, final int mod)
+			throws Exception {
+		return GroupRequest.getBuilder(
+				new RequestID(id), new GroupID("foo"), new UserName("u" + expire),
+				CreateModAndExpireTimes.getBuilder(inst(20000), inst(expire))
+						.withModificationTime(inst(mod))
+						.build())
+				.withStatus(GroupRequestStatus.expired())
+				.build();
+	}
+	
+	@Test
+	public void expireRequestsListenerFails() throws Exception {
+		final UUID id1 = UUID.randomUUID();
+		manager.storage.storeRequest(GroupRequest.getBuilder(
+				new RequestID(id1), new GroupID("foo"), new UserName("u30000"),
+				CreateModAndExpireTimes.getBuilder(inst(20000), inst(30000)).build())
+				.build());
+		manager.storage.setExpiredRequestsListener(rs -> {
+			throw new IllegalStateException("whoops");
+		});
+		logEvents.clear();
+		
+		assertThat("incorrect requests", manager.storage.expireRequests(inst(40000), 10),
+				is(Arrays.asList(expired(id1, 30000, 40000))));
+		
+		assertLogEventsCorrect(logEvents, new LogEvent(
+				Level.ERROR, "Error processing expired requests: whoops",
+				MongoGroupsStorage.class, new IllegalStateException("whoops")));
+	}
+	
+	@Test
+	public void expireRequestsWithLimitFail() throws Exception {
+		failExpireRequests(null, 1, new NullPointerException("expireTime"));
+		failExpireRequests(inst(10000), 0, new IllegalArgumentException("limit must be > 0"));
+	}
+	
+	private void failExpireRequests(final Instant time, final int limit, final Exception expected) {
+		try {
+			manager.storage.expireRequests(time, limit);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	@Test
+	public void archiveRequests() throws Exception {
+		final Instant forever = Instant.ofEpochMilli(1000000000000000L);
+		final List<RequestID> ids = new LinkedList<>();
+		for (int i = 1; i < 6; i++) {
+			final RequestID id = new RequestID(String.format(
+					"f5bd78c2-f5d3-4b1b-8e49-2b2b8c4c4bd%s", i));
+			ids.add(id);
+			manager.storage.storeRequest(GroupRequest.getBuilder(
+					id, new GroupID("gid" + i), new UserName("name"),
+					CreateModAndExpireTimes.getBuilder(inst(10000), forever).build())
+					.build());
+		}
+		manager.storage.closeRequest(ids.get(0), GroupRequestStatus.canceled(), inst(20000));
+		manager.storage.closeRequest(ids.get(1), GroupRequestStatus.accepted(
+				new UserName("a")), inst(30000));
+		manager.storage.closeRequest(ids.get(3), GroupRequestStatus.denied(
+				new UserName("a"), "no"), inst(25000));
+		manager.storage.closeRequest(ids.get(4), GroupRequestStatus.canceled(), inst(60000));
+		final List<GroupRequest> expected = new LinkedList<>();
+		for (final RequestID id: ids) {
+			expected.add(manager.storage.getRequest(id));
+		}
+		
+		assertThat("incorrect archived", manager.storage.archiveRequests(inst(40000), 10), is(3));
+		assertThat("incorrect archived", manager.storage.archiveRequests(inst(40000), 10), is(0));
+		
+		assertThat("incorrect request count",
+				manager.db.getCollection("requests").countDocuments(), is(2L));
+		assertThat("incorrect archive count",
+				manager.db.getCollection("requests_archive").countDocuments(), is(3L));
+		for (int i = 0; i < ids.size(); i++) {
+			assertThat("incorrect request", manager.storage.getRequest(ids.get(i)),
+					is(expected.get(i)));
+		}
+		
+		// listings merge the archive when closed requests are included
+		assertRequestIDsCorrect(GetRequestsParams.getBuilder(), ids.get(2));
+		final Function<Integer, GetRequestsParams.Builder> closed = l -> GetRequestsParams
+				.getBuilder().withNullableIncludeClosed(true).withNullableLimit(l);
+		assertRequestIDsCorrect(closed.apply(null),
+				ids.get(2), ids.get(0), ids.get(3), ids.get(1), ids.get(4));
+		assertRequestIDsCorrect(closed.apply(2), ids.get(2), ids.get(0));
+		assertRequestIDsCorrect(closed.apply(2).withNullableExcludeUpTo(inst(20000), ids.get(0)),
+				ids.get(3), ids.get(1));
+		assertRequestIDsCorrect(closed.apply(2).withNullableExcludeUpTo(inst(30000), ids.get(1)),
+				ids.get(4));
+		assertRequestIDsCorrect(closed.apply(2).withNullableExcludeUpTo(inst(40000)),
+				ids.get(4));
+		assertRequestIDsCorrect(closed.apply(2).withNullableSortAscending(false),
+				ids.get(4), ids.get(1));
+		assertRequestIDsCorrect(closed.apply(2).withNullableSortAscending(false)
+				.withNullableExcludeUpTo(inst(30000), ids.get(1)),
+				ids.get(3), ids.get(0));
+		assertRequestIDsCorrect(closed.apply(2).withNullableSortAscending(false)
+				.withNullableExcludeUpTo(inst(20000), ids.get(0)),
+				ids.get(2));
+	}
+	
+	@Test
+	public void archiveRequestsWithLimit() throws Exception {
+		for (int i = 1; i < 4; i++) {
+			final RequestID id = new RequestID(UUID.randomUUID());
+			manager.storage.storeRequest(GroupRequest.getBuilder(
+					id, new GroupID("gid" + i), new UserName("name"),
+					CreateModAndExpireTimes.getBuilder(inst(10000), inst(50000)).build())
+					.build());
+			manager.storage.closeRequest(id, GroupRequestStatus.canceled(), inst(20000));
+		}
+		
+		assertThat("incorrect archived", manager.storage.archiveRequests(inst(30000), 2), is(2));
+		assertThat("incorrect archived", manager.storage.archiveRequests(inst(30000), 2), is(1));
+		assertThat("incorrect archive count",
+				manager.db.getCollection("requests_archive").countDocuments(), is(3L));
+	}
+	
+	@Test
+	public void archiveRequestsAlreadyCopied() throws Exception {
+		// simulates a previous archive run that failed before removing the requests
+		final RequestID id = new RequestID(UUID.randomUUID());
+		manager.storage.storeRequest(GroupRequest.getBuilder(
+				id, new GroupID("gid"), new UserName("name"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(50000)).build())
+				.build());
+		manager.storage.closeRequest(id, GroupRequestStatus.canceled(), inst(20000));
+		final GroupRequest expected = manager.storage.getRequest(id);
+		manager.db.getCollection("requests_archive").insertOne(
+				manager.db.getCollection("requests").find().first());
+		
+		assertThat("incorrect archived", manager.storage.archiveRequests(inst(30000), 2), is(1));
+		
+		assertThat("incorrect request count",
+				manager.db.getCollection("requests").countDocuments(), is(0L));
+		assertThat("incorrect archive count",
+				manager.db.getCollection("requests_archive").countDocuments(), is(1L));
+		assertThat("incorrect request", manager.storage.getRequest(id), is(expected));
+	}
+	
+	@Test
+	public void archiveRequestsFail() throws Exception {
+		failArchiveRequests(null, 1, new NullPointerException("closedBefore"));
+		failArchiveRequests(inst(10000), 0, new IllegalArgumentException("limit must be > 0"));
+	}
+	
+	private void failArchiveRequests(
+			final Instant time,
+			final int limit,
+			final Exception expected) {
+		try {
+			manager.storage.archiveRequests(time, limit);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	@Test
+	public void setRequestArchiveAgeFail() throws Exception {
+		failSetRequestArchiveAge(Duration.ZERO);
+		failSetRequestArchiveAge(Duration.ofSeconds(-1));
+	}
+	
+	private void failSetRequestArchiveAge(final Duration age) {
+		try {
+			manager.storage.setRequestArchiveAge(age);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("age must be positive"));
+		}
+	}
+	
+	@Test
+	public void listReadPreference() throws Exception {
+		final MongoGroupsStorage s = manager.storage;
+		assertThat("incorrect read pref", s.getListReadPreference(), is((ReadPreference) null));
+		
+		final ReadPreference rp = ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS);
+		s.setListReadPreference(rp);
+		assertThat("incorrect read pref", s.getListReadPreference(), is(rp));
+		
+		// the test database is a standalone server, so just check the reads still work
+		s.createGroup(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name"), toGUser("uname"),
+				new CreateAndModTimes(inst(20000), inst(30000)))
+				.build());
+		final GroupRequest req = GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("gid"), new UserName("bar"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000)).build())
+				.build();
+		s.storeRequest(req);
+		
+		assertThat("incorrect member groups", s.getMemberGroups(new UserName("uname")),
+				is(Arrays.asList(GroupIDAndName.of(new GroupID("gid"), new GroupName("name")))));
+		assertThat("incorrect names", s.getGroupNames(null, set(new GroupID("gid"))),
+				is(Arrays.asList(GroupIDNameMembership.getBuilder(new GroupID("gid"))
+						.withGroupName(new GroupName("name"))
+						.withIsMember(false)
+						.withIsPrivate(false)
+						.build())));
+		assertThat("incorrect requests", s.getRequestsByRequester(new UserName("bar"),
+				GetRequestsParams.getBuilder().build()), is(Arrays.asList(req)));
+		assertThat("incorrect has request", s.groupHasRequest(new GroupID("gid"), null),
+				is(true));
+		
+		s.setListReadPreference(null);
+		assertThat("incorrect read pref", s.getListReadPreference(), is((ReadPreference) null));
+	}
+	
+	private interface StorageCall {
+		
+		void call() throws Exception;
+	}
+	
+	private static Object invoke(final Object target, final Method method, final Object[] args)
+			throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/* Wraps the database such that the names of collections on which a read preference is set
+	 * are recorded.
+	 */
+	private MongoDatabase recordReadPreferences(
+			final MongoDatabase db,
+			final Set<String> collections) {
+		return (MongoDatabase) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {MongoDatabase.class},
+				(dbproxy, dbmethod, dbargs) -> {
+					final Object ret = invoke(db, dbmethod, dbargs);
+					if (!dbmethod.getName().equals("getCollection")) {
+						return ret;
+					}
+					final MongoCollection<?> col = (MongoCollection<?>) ret;
+					return Proxy.newProxyInstance(getClass().getClassLoader(),
+							new Class<?>[] {MongoCollection.class},
+							(colproxy, colmethod, colargs) -> {
+								if (colmethod.getName().equals("withReadPreference")) {
+									collections.add(col.getNamespace().getCollectionName());
+								}
+								return invoke(col, colmethod, colargs);
+							});
+				});
+	}
+	
+	private void assertListReads(
+			final Set<String> collections,
+			final StorageCall call,
+			final Set<String> expected)
+			throws Exception {
+		collections.clear();
+		call.call();
+		assertThat("incorrect list reads", collections, is(expected));
+	}
+	
+	@Test
+	public void listReadPreferenceUsage() throws Exception {
+		final Set<String> cols = Collections.synchronizedSet(new HashSet<>());
+		final MongoGroupsStorage s = new MongoGroupsStorage(
+				recordReadPreferences(manager.db, cols), set());
+		s.stopExpirationAgent();
+		s.setListReadPreference(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS));
+		final GroupID g = new GroupID("gid");
+		final UserName u = new UserName("uname");
+		final GetGroupsParams gp = GetGroupsParams.getBuilder().build();
+		final GetRequestsParams rp = GetRequestsParams.getBuilder().build();
+		s.createGroup(Group.getBuilder(g, new GroupName("name"), toGUser("uname"),
+				new CreateAndModTimes(inst(20000), inst(30000)))
+				.build());
+		final RequestID rid = new RequestID(UUID.randomUUID());
+		s.storeRequest(GroupRequest.getBuilder(rid, g, new UserName("bar"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000)).build())
+				.build());
+		
+		final Set<String> none = Collections.emptySet();
+		final Set<String> groups = set("groups");
+		final Set<String> requests = set("requests");
+		
+		// reads that must observe preceding writes or may be cached use the primary
+		assertListReads(cols, () -> s.getGroup(g), none);
+		assertListReads(cols, () -> s.getGroups(set(g)), none);
+		assertListReads(cols, () -> s.getGroupExists(g), none);
+		assertListReads(cols, () -> s.getAdministratedGroups(u), none);
+		assertListReads(cols, () -> s.getGroupSummaries(set(g), null), none);
+		assertListReads(cols, () -> s.getRequest(rid), none);
+		
+		assertListReads(cols, () -> s.getGroups(gp, false, null), groups);
+		assertListReads(cols, () -> s.getGroupSummaries(gp, false, null), groups);
+		assertListReads(cols, () -> s.exportGroupSummaries(gp, false, null, gs -> {}), groups);
+		assertListReads(cols, () -> s.getGroupNames(null, set(g)), groups);
+		assertListReads(cols, () -> s.getMemberGroups(u), groups);
+		assertListReads(cols, () -> s.getRequestsByRequester(new UserName("bar"), rp),
+				requests);
+		assertListReads(cols, () -> s.getRequestsByGroup(g, rp), requests);
+		// closed requests may be in the archive
+		assertListReads(cols, () -> s.getRequestsByGroup(g, GetRequestsParams.getBuilder()
+				.withNullableIncludeClosed(true).build()), set("requests", "requests_archive"));
+		assertListReads(cols, () -> s.getRequestsByGroups(set(g), rp), requests);
+		assertListReads(cols, () -> s.getRequestsByTarget(rp), requests);
+		assertListReads(cols, () -> s.groupHasRequest(g, null), requests);
+		assertListReads(cols, () -> s.getLatestOpenRequestDates(set(g)), requests);
+	}
+	
+	@Test
+	public void expireAgentArchivesRequests() throws Exception {
+		final MongoGroupsStorage s = manager.storage;
+		s.stopExpirationAgent();
+		when(manager.clockMock.instant()).thenReturn(inst(50000));
+		final RequestID id1 = new RequestID(UUID.randomUUID());
+		final RequestID id2 = new RequestID(UUID.randomUUID());
+		for (final RequestID id: Arrays.asList(id1, id2)) {
+			s.storeRequest(GroupRequest.getBuilder(
+					id, new GroupID("gid"), new UserName(id.equals(id1) ? "n1" : "n2"),
+					CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000)).build())
+					.build());
+		}
+		s.closeRequest(id1, GroupRequestStatus.canceled(), inst(30000));
+		s.closeRequest(id2, GroupRequestStatus.canceled(), inst(45000));
+		s.setRequestArchiveAge(Duration.ofSeconds(10));
+		logEvents.clear();
+		
+		s.startExpirationAgent(10);
+		Thread.sleep(100); // let the agent finish
+		s.stopExpirationAgent();
+		
+		assertThat("incorrect request count",
+				manager.db.getCollection("requests").countDocuments(), is(1L));
+		assertThat("incorrect archive count",
+				manager.db.getCollection("requests_archive").countDocuments(), is(1L));
+		assertThat("incorrect request", s.getRequest(id1).getID(), is(id1));
+		assertLogEventsCorrect(logEvents,
+				new LogEvent(Level.INFO, "Expired 0 requests in 0 ms, 0 expired requests remain",
 						MongoGroupsStorage.class.getName() + "$ExpirationAgent"),
-				new LogEvent(Level.INFO, "Running expiration agent",
+				new LogEvent(Level.INFO, "Archived 1 requests in 0 ms",
 						MongoGroupsStorage.class.getName() + "$ExpirationAgent"));
 	}
 	
+	private GroupRequest getNotificationRequest(final RequestID rid) throws Exception {
+		return GroupRequest.getBuilder(rid, new GroupID("gid"), new UserName("foo"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000))
+						.withModificationTime(inst(15000))
+						.build())
+				.withType(RequestType.INVITE)
+				.withResource(new ResourceType("workspace"), new ResourceDescriptor(
+						new ResourceAdministrativeID("5"), new ResourceID("5")))
+				.withStatus(GroupRequestStatus.denied(new UserName("bar"), "reason"))
+				.build();
+	}
+	
+	@Test
+	public void storeAndClaimNotifications() throws Exception {
+		final UUID id1 = UUID.randomUUID();
+		final UUID id2 = UUID.randomUUID();
+		final UUID id3 = UUID.randomUUID();
+		final RequestID rid = new RequestID(UUID.randomUUID());
+		final OutboxNotification n1 = OutboxNotification.getBuilder(
+				id1, Operation.NOTIFY, inst(20000), getNotificationRequest(rid))
+				.withTargets(set(new UserName("u1"), new UserName("u2")))
+				.build();
+		final OutboxNotification n2 = OutboxNotification.getBuilder(
+				id2, inst(10000), new UserName("a"), new GroupID("g"),
+				new ResourceType("t"), new ResourceID("r"))
+				.build();
+		// not ready to send
+		final OutboxNotification n3 = OutboxNotification.getBuilder(
+				id3, Operation.CANCEL, inst(50000), rid)
+				.build();
+		manager.storage.storeNotification(n1);
+		manager.storage.storeNotification(n2);
+		manager.storage.storeNotification(n3);
+		
+		assertThat("incorrect claim", manager.storage.claimNotifications(
+				inst(40000), inst(100000), 1), is(Arrays.asList(n2)));
+		assertThat("incorrect claim", manager.storage.claimNotifications(
+				inst(40000), inst(100000), 10), is(Arrays.asList(n1)));
+		assertThat("incorrect claim", manager.storage.claimNotifications(
+				inst(40000), inst(100000), 10), is(Collections.emptyList()));
+		
+		// claims have expired
+		assertThat("incorrect claim", manager.storage.claimNotifications(
+				inst(100000), inst(200000), 10), is(Arrays.asList(n3, n2, n1)));
+	}
+	
+	@Test
+	public void retryAndRemoveNotifications() throws Exception {
+		final UUID id1 = UUID.randomUUID();
+		final UUID id2 = UUID.randomUUID();
+		final RequestID rid = new RequestID(UUID.randomUUID());
+		final GroupRequest req = getNotificationRequest(rid);
+		manager.storage.storeNotification(OutboxNotification.getBuilder(
+				id1, Operation.DENY, inst(20000), req).build());
+		manager.storage.storeNotification(OutboxNotification.getBuilder(
+				id2, Operation.ACCEPT, inst(20000), req).build());
+		
+		manager.storage.retryNotification(id1, inst(60000));
+		manager.storage.retryNotification(id1, inst(80000));
+		manager.storage.removeNotification(id2);
+		// no effect
+		manager.storage.retryNotification(UUID.randomUUID(), inst(60000));
+		manager.storage.removeNotification(UUID.randomUUID());
+		
+		assertThat("incorrect claim", manager.storage.claimNotifications(
+				inst(79999), inst(100000), 10), is(Collections.emptyList()));
+		assertThat("incorrect claim", manager.storage.claimNotifications(
+				inst(80000), inst(100000), 10), is(Arrays.asList(
+						OutboxNotification.getBuilder(id1, Operation.DENY, inst(20000), req)
+								.withAttempts(2).build())));
+	}
+	
+	@Test
+	public void storeNotificationFail() throws Exception {
+		final UUID id = UUID.randomUUID();
+		final OutboxNotification n = OutboxNotification.getBuilder(
+				id, Operation.CANCEL, inst(20000), new RequestID(UUID.randomUUID())).build();
+		manager.storage.storeNotification(n);
+		
+		failStoreNotification(null, new NullPointerException("notification"));
+		failStoreNotification(n, new IllegalArgumentException(String.format(
+				"ID %s already exists in the database. The programmer is responsible for " +
+				"maintaining unique IDs.", id)));
+	}
+	
+	private void failStoreNotification(
+			final OutboxNotification n,
+			final Exception expected) {
+		try {
+			manager.storage.storeNotification(n);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	@Test
+	public void claimNotificationsFail() throws Exception {
+		failClaimNotifications(null, inst(1), 1, new NullPointerException("now"));
+		failClaimNotifications(inst(1), null, 1, new NullPointerException("leaseExpiration"));
+		failClaimNotifications(inst(1), inst(1), 0,
+				new IllegalArgumentException("limit must be > 0"));
+	}
+	
+	private void failClaimNotifications(
+			final Instant now,
+			final Instant lease,
+			final int limit,
+			final Exception expected) {
+		try {
+			manager.storage.claimNotifications(now, lease, limit);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	@Test
+	public void retryAndRemoveNotificationFail() throws Exception {
+		try {
+			manager.storage.removeNotification(null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("id"));
+		}
+		try {
+			manager.storage.retryNotification(null, inst(1));
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("id"));
+		}
+		try {
+			manager.storage.retryNotification(UUID.randomUUID(), null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("nextAttempt"));
+		}
+	}
+	
+	@Test
+	public void movePendingNotifications() throws Exception {
+		final UUID id1 = UUID.randomUUID();
+		final UUID id2 = UUID.randomUUID();
+		final UUID id3 = UUID.randomUUID();
+		final RequestID rid = new RequestID(UUID.randomUUID());
+		final GroupRequest req = GroupRequest.getBuilder(
+				rid, new GroupID("gid"), new UserName("foo"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000)).build())
+				.build();
+		manager.storage.createGroup(Group.getBuilder(
+				new GroupID("gid"), new GroupName("name"), toGUser("uname"),
+				new CreateAndModTimes(inst(10000)))
+				.build());
+		final OutboxNotification n1 = OutboxNotification.getBuilder(
+				id1, Operation.NOTIFY, inst(10000), req)
+				.withTargets(set(new UserName("uname")))
+				.build();
+		final OutboxNotification n2 = OutboxNotification.getBuilder(
+				id2, Operation.CANCEL, inst(20000), rid)
+				.build();
+		final OutboxNotification n3 = OutboxNotification.getBuilder(
+				id3, inst(30000), new UserName("uname"), new GroupID("gid"),
+				new ResourceType("t"), new ResourceID("r"))
+				.build();
+		
+		manager.storage.storeRequest(req, n1);
+		manager.storage.closeRequest(rid, GroupRequestStatus.canceled(), inst(20000), n2);
+		manager.storage.addResource(new GroupID("gid"), new ResourceType("t"),
+				new ResourceDescriptor(new ResourceID("r")), inst(30000), n3);
+		
+		// the notifications don't change the request or group
+		assertThat("incorrect request", manager.storage.getRequest(rid), is(
+				GroupRequest.getBuilder(rid, new GroupID("gid"), new UserName("foo"),
+						CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000))
+								.withModificationTime(inst(20000))
+								.build())
+						.withStatus(GroupRequestStatus.canceled())
+						.build()));
+		assertThat("incorrect group", manager.storage.getGroup(new GroupID("gid")), is(
+				Group.getBuilder(
+						new GroupID("gid"), new GroupName("name"), toGUser("uname"),
+						new CreateAndModTimes(inst(10000), inst(30000)))
+						.withResource(new ResourceType("t"),
+								new ResourceDescriptor(new ResourceID("r")), inst(30000))
+						.build()));
+		
+		assertThat("incorrect claim", manager.storage.claimNotifications(
+				inst(40000), inst(100000), 10), is(Collections.emptyList()));
+		
+		assertThat("incorrect moved", manager.storage.movePendingNotifications(10), is(3));
+		assertThat("incorrect moved", manager.storage.movePendingNotifications(10), is(0));
+		
+		assertThat("incorrect claim", new HashSet<>(manager.storage.claimNotifications(
+				inst(40000), inst(100000), 10)), is(set(n1, n2, n3)));
+		assertThat("incorrect request",
+				manager.db.getCollection("requests").find().first().containsKey("pendnote"),
+				is(false));
+		assertThat("incorrect group",
+				manager.db.getCollection("groups").find().first().containsKey("pendnote"),
+				is(false));
+	}
+	
+	@Test
+	public void movePendingNotificationsWithLimit() throws Exception {
+		for (int i = 1; i < 4; i++) {
+			final GroupRequest req = GroupRequest.getBuilder(
+					new RequestID(UUID.randomUUID()), new GroupID("gid" + i),
+					new UserName("foo"),
+					CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000)).build())
+					.build();
+			manager.storage.storeRequest(req, OutboxNotification.getBuilder(
+					UUID.randomUUID(), Operation.NOTIFY, inst(10000), req).build());
+		}
+		
+		assertThat("incorrect moved", manager.storage.movePendingNotifications(2), is(2));
+		assertThat("incorrect moved", manager.storage.movePendingNotifications(2), is(1));
+		assertThat("incorrect moved", manager.storage.movePendingNotifications(2), is(0));
+		assertThat("incorrect outbox count",
+				manager.db.getCollection("outbox").countDocuments(), is(3L));
+	}
+	
+	@Test
+	public void movePendingNotificationsAlreadyStored() throws Exception {
+		// simulates a previous move that failed before removing the notification
+		final GroupRequest req = GroupRequest.getBuilder(
+				new RequestID(UUID.randomUUID()), new GroupID("gid"), new UserName("foo"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000)).build())
+				.build();
+		final OutboxNotification n = OutboxNotification.getBuilder(
+				UUID.randomUUID(), Operation.NOTIFY, inst(10000), req).build();
+		manager.storage.storeRequest(req, n);
+		manager.storage.storeNotification(n);
+		
+		assertThat("incorrect moved", manager.storage.movePendingNotifications(10), is(1));
+		assertThat("incorrect moved", manager.storage.movePendingNotifications(10), is(0));
+		assertThat("incorrect claim", manager.storage.claimNotifications(
+				inst(40000), inst(100000), 10), is(Arrays.asList(n)));
+	}
+	
+	@Test
+	public void archiveRequestsSkipsPendingNotifications() throws Exception {
+		final RequestID rid = new RequestID(UUID.randomUUID());
+		manager.storage.storeRequest(GroupRequest.getBuilder(
+				rid, new GroupID("gid"), new UserName("foo"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000)).build())
+				.build());
+		manager.storage.closeRequest(rid, GroupRequestStatus.canceled(), inst(20000),
+				OutboxNotification.getBuilder(
+						UUID.randomUUID(), Operation.CANCEL, inst(20000), rid).build());
+		
+		assertThat("incorrect archived", manager.storage.archiveRequests(inst(30000), 10), is(0));
+		manager.storage.movePendingNotifications(10);
+		assertThat("incorrect archived", manager.storage.archiveRequests(inst(30000), 10), is(1));
+	}
+	
+	@Test
+	public void storeOrCloseRequestWithNotificationFail() throws Exception {
+		final RequestID rid = new RequestID(UUID.randomUUID());
+		final GroupRequest req = GroupRequest.getBuilder(
+				rid, new GroupID("gid"), new UserName("foo"),
+				CreateModAndExpireTimes.getBuilder(inst(10000), inst(100000)).build())
+				.build();
+		final OutboxNotification other = OutboxNotification.getBuilder(
+				UUID.randomUUID(), Operation.CANCEL, inst(20000),
+				new RequestID(UUID.randomUUID())).build();
+		final Exception wrong = new IllegalArgumentException(
+				"Notification does not refer to request " + rid.getID());
+		
+		try {
+			manager.storage.storeRequest(req, null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("notification"));
+		}
+		try {
+			manager.storage.storeRequest(req, other);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, wrong);
+		}
+		try {
+			manager.storage.closeRequest(rid, GroupRequestStatus.canceled(), inst(1), null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("notification"));
+		}
+		try {
+			manager.storage.closeRequest(rid, GroupRequestStatus.canceled(), inst(1), other);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, wrong);
+		}
+	}
+	
+	@Test
+	public void addResourceWithNotificationFail() throws Exception {
+		final GroupID g = new GroupID("g");
+		final ResourceType t = new ResourceType("t");
+		final ResourceDescriptor d = new ResourceDescriptor(new ResourceID("i"));
+		try {
+			manager.storage.addResource(g, t, d, inst(1), null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("notification"));
+		}
+		try {
+			manager.storage.addResource(g, t, d, inst(1), OutboxNotification.getBuilder(
+					UUID.randomUUID(), inst(1), new UserName("u"), new GroupID("g2"),
+					t, new ResourceID("i")).build());
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalArgumentException(
+					"Notification does not refer to group g"));
+		}
+	}
+	
+	@Test
+	public void movePendingNotificationsFail() throws Exception {
+		try {
+			manager.storage.movePendingNotifications(0);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("limit must be > 0"));
+		}
+	}
+	
 	@Test
 	public void startReaperFail() {
 		final MongoGroupsStorage s = manager.storage;
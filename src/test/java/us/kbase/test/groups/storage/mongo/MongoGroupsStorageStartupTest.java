@@ -5,10 +5,13 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static us.kbase.test.groups.TestCommon.set;
 
+import java.lang.reflect.Method;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
@@ -65,6 +68,44 @@ public class MongoGroupsStorageStartupTest {
 		failMongoStart(manager.db, set(new ResourceType("t"), null), new NullPointerException(
 				"Null item in collection types"));
 	}
+	
+	@Test
+	public void failConstructBadMaxListSize() throws Exception {
+		try {
+			new MongoGroupsStorage(manager.db, set(), 0);
+			fail("started mongo with bad config");
+		} catch (Exception e) {
+			TestCommon.assertExceptionCorrect(e, new IllegalArgumentException(
+					"maxListSize must be > 0"));
+		}
+	}
+	
+	@Test
+	public void queryPlansAreIndexed() throws Exception {
+		final MongoGroupsStorage ms = new MongoGroupsStorage(manager.db, set());
+		final Method m = MongoGroupsStorage.class.getDeclaredMethod("checkQueryPlans");
+		m.setAccessible(true);
+		
+		assertThat("incorrect problems", m.invoke(ms), is(Collections.emptyList()));
+		
+		// check that a missing index is detected
+		final Document ownerIndex = new Document("owner", 1).append("id", 1);
+		final MongoCollection<Document> groups = manager.db.getCollection("groups");
+		groups.dropIndex(ownerIndex);
+		try {
+			@SuppressWarnings("unchecked")
+			final List<String> problems = (List<String>) m.invoke(ms);
+			assertThat("incorrect problem count", problems.size(), is(2));
+			assertThat("incorrect problem", problems.get(0).startsWith(
+					"Query 'list groups with role Admin' is not fully indexed: "), is(true));
+			assertThat("incorrect problem", problems.get(1).startsWith(
+					"Query 'list groups with role Owner' is not fully indexed: "), is(true));
+		} finally {
+			// the database is shared with the other tests
+			groups.createIndex(ownerIndex);
+		}
+	}
+	
 	@Test
 	public void startUpAndCheckConfigDoc() throws Exception {
 		final MongoDatabase db = manager.mc.getDatabase("startUpAndCheckConfigDoc");
@@ -77,6 +118,8 @@ public class MongoGroupsStorageStartupTest {
 		assertThat("correct config key & value", (String)d.get("schema"), is("schema"));
 		assertThat("not in update", (Boolean)d.get("inupdate"), is(false));
 		assertThat("schema v1", (Integer)d.get("schemaver"), is(1));
+		assertThat("counts added", (Boolean)d.get("countsadded"), is(true));
+		assertThat("request indexes replaced", (Boolean)d.get("reqidxreplaced"), is(true));
 		
 		//check startup works with the config object in place
 		final MongoGroupsStorage ms = new MongoGroupsStorage(db, set());
@@ -93,6 +136,91 @@ public class MongoGroupsStorageStartupTest {
 						.build()));
 	}
 	
+	@Test
+	public void startUpAddsCounts() throws Exception {
+		final MongoDatabase db = manager.mc.getDatabase("startUpAddsCounts");
+		final MongoGroupsStorage ms = new MongoGroupsStorage(db, set());
+		ms.createGroup(Group.getBuilder(new GroupID("id"), new GroupName("name"),
+				GroupUser.getBuilder(new UserName("u"), Instant.ofEpochMilli(10000)).build(),
+				new CreateAndModTimes(Instant.ofEpochMilli(10000)))
+				.withMember(GroupUser.getBuilder(new UserName("m"), Instant.ofEpochMilli(10000))
+						.build())
+				.build());
+		// simulate a group created before counts were stored
+		final MongoCollection<Document> col = db.getCollection("groups");
+		col.updateOne(new Document("id", "id"), new Document("$unset",
+				new Document("membcnt", "").append("rescnt", "")));
+		
+		// the counts were added by the first startup, so no scan occurs
+		new MongoGroupsStorage(db, set());
+		assertThat("incorrect counts", col.find(new Document("id", "id")).first()
+				.containsKey("membcnt"), is(false));
+		
+		// simulate a database from before counts were stored
+		db.getCollection("config").updateOne(new Document("schema", "schema"),
+				new Document("$unset", new Document("countsadded", "")));
+		new MongoGroupsStorage(db, set());
+		
+		final Document g = col.find(new Document("id", "id")).first();
+		assertThat("incorrect member count", g.get("membcnt"), is(2));
+		assertThat("incorrect resource counts", g.get("rescnt"), is(new Document()));
+		assertThat("incorrect flag", db.getCollection("config").find().first()
+				.get("countsadded"), is(true));
+	}
+	
+	@Test
+	public void startUpDropsReplacedRequestIndexes() throws Exception {
+		final MongoDatabase db = manager.mc.getDatabase("startUpDropsReplacedRequestIndexes");
+		new MongoGroupsStorage(db, set()).stopExpirationAgent();
+		final MongoCollection<Document> col = db.getCollection("requests");
+		final Set<String> expected = getIndexNames(col);
+		
+		// simulate a database from before the request ID was added to the indexes
+		final List<Document> old = Arrays.asList(
+				new Document("gid", 1).append("type", 1).append("mod", 1),
+				new Document("gid", 1).append("status", 1).append("type", 1).append("mod", 1),
+				new Document("requester", 1).append("mod", 1),
+				new Document("requester", 1).append("status", 1).append("mod", 1),
+				new Document("resaid", 1).append("restype", 1).append("type", 1)
+						.append("mod", 1),
+				new Document("resaid", 1).append("restype", 1).append("status", 1)
+						.append("type", 1).append("mod", 1),
+				new Document("resrid", 1).append("restype", 1).append("type", 1)
+						.append("mod", 1),
+				new Document("resrid", 1).append("restype", 1).append("status", 1)
+						.append("type", 1).append("mod", 1),
+				new Document("resrid", 1).append("requester", 1).append("restype", 1)
+						.append("type", 1).append("mod", 1),
+				new Document("resrid", 1).append("requester", 1).append("restype", 1)
+						.append("status", 1).append("type", 1).append("mod", 1),
+				new Document("resrid", 1).append("gid", 1).append("restype", 1)
+						.append("type", 1).append("mod", 1),
+				new Document("resrid", 1).append("gid", 1).append("restype", 1)
+						.append("status", 1).append("type", 1).append("mod", 1));
+		old.forEach(idx -> col.createIndex(idx));
+		assertThat("incorrect index count", getIndexNames(col).size(),
+				is(expected.size() + old.size()));
+		
+		// the indexes were dropped by the first startup, so no indexes are dropped
+		new MongoGroupsStorage(db, set()).stopExpirationAgent();
+		assertThat("incorrect index count", getIndexNames(col).size(),
+				is(expected.size() + old.size()));
+		
+		db.getCollection("config").updateOne(new Document("schema", "schema"),
+				new Document("$unset", new Document("reqidxreplaced", "")));
+		new MongoGroupsStorage(db, set()).stopExpirationAgent();
+		
+		assertThat("incorrect indexes", getIndexNames(col), is(expected));
+		assertThat("incorrect flag", db.getCollection("config").find().first()
+				.get("reqidxreplaced"), is(true));
+	}
+	
+	private Set<String> getIndexNames(final MongoCollection<Document> col) {
+		final Set<String> names = new HashSet<>();
+		col.listIndexes().forEach(idx -> names.add(idx.getString("name")));
+		return names;
+	}
+	
 	@Test
 	public void startUpWith2ConfigDocs() throws Exception {
 		final MongoDatabase db = manager.mc.getDatabase("startUpWith2ConfigDocs");
@@ -177,7 +305,9 @@ public class MongoGroupsStorageStartupTest {
 		final Set<String> expected = set(
 				"config",
 				"requests",
-				"groups");
+				"requests_archive",
+				"groups",
+				"outbox");
 		if (manager.includeSystemIndexes) {
 			expected.add("system.indexes");
 		}
@@ -228,7 +358,11 @@ public class MongoGroupsStorageStartupTest {
 						.append("name", "priv_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("memb.user", 1).append("id", 1))
-						.append("name", "memb.user_1_id_1")
+						.append("name", "memb.user_1_id_1"),
+				new Document("v", manager.indexVer)
+						.append("sparse", true)
+						.append("key", new Document("pendnote.id", 1))
+						.append("name", "pendnote.id_1")
 				);
 	}
 	
@@ -279,87 +413,165 @@ public class MongoGroupsStorageStartupTest {
 						.append("key", new Document("id", 1))
 						.append("name", "id_1"),
 				new Document("v", manager.indexVer)
-						.append("key", new Document("gid", 1).append("type", 1).append("mod", 1))
-						.append("name", "gid_1_type_1_mod_1"),
+						.append("key", new Document("gid", 1)
+								.append("type", 1)
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "gid_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("gid", 1)
 								.append("status", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "gid_1_status_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "gid_1_status_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
-						.append("key", new Document("requester", 1).append("mod", 1))
-						.append("name", "requester_1_mod_1"),
+						.append("key", new Document("requester", 1)
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "requester_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("requester", 1)
 								.append("status", 1)
-								.append("mod", 1))
-						.append("name", "requester_1_status_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "requester_1_status_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("resaid", 1)
 								.append("restype", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "resaid_1_restype_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resaid_1_restype_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("resaid", 1)
 								.append("restype", 1)
 								.append("status", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "resaid_1_restype_1_status_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resaid_1_restype_1_status_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("resrid", 1)
 								.append("restype", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "resrid_1_restype_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resrid_1_restype_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("resrid", 1)
 								.append("restype", 1)
 								.append("status", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "resrid_1_restype_1_status_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resrid_1_restype_1_status_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("resrid", 1)
 								.append("requester", 1)
 								.append("restype", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "resrid_1_requester_1_restype_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resrid_1_requester_1_restype_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("resrid", 1)
 								.append("requester", 1)
 								.append("restype", 1)
 								.append("status", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "resrid_1_requester_1_restype_1_status_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resrid_1_requester_1_restype_1_status_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("resrid", 1)
 								.append("gid", 1)
 								.append("restype", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "resrid_1_gid_1_restype_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resrid_1_gid_1_restype_1_type_1_mod_1_id_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("resrid", 1)
 								.append("gid", 1)
 								.append("restype", 1)
 								.append("status", 1)
 								.append("type", 1)
-								.append("mod", 1))
-						.append("name", "resrid_1_gid_1_restype_1_status_1_type_1_mod_1"),
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resrid_1_gid_1_restype_1_status_1_type_1_mod_1_id_1"),
 						
 				new Document("v", manager.indexVer)
-						.append("key", new Document("expire", 1))
-						.append("name", "expire_1"),
+						.append("key", new Document("status", 1).append("expire", 1))
+						.append("name", "status_1_expire_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("status", 1).append("mod", 1))
+						.append("name", "status_1_mod_1"),
 				new Document("v", manager.indexVer)
 						.append("unique", true)
 						.append("sparse", true)
 						.append("key", new Document("charstr", 1))
 						.append("name", "charstr_1"),
+				new Document("v", manager.indexVer)
+						.append("sparse", true)
+						.append("key", new Document("pendnote.id", 1))
+						.append("name", "pendnote.id_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("_id", 1))
+						.append("name", "_id_")
+				)));
+	}
+
+	@Test
+	public void indexesRequestsArchive() {
+		final Set<Document> indexes = getAndNormalizeIndexes("requests_archive");
+		assertThat("incorrect indexes", indexes, is(set(
+				new Document("v", manager.indexVer)
+						.append("unique", true)
+						.append("key", new Document("id", 1))
+						.append("name", "id_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("mod", 1).append("id", 1))
+						.append("name", "mod_1_id_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("gid", 1).append("mod", 1).append("id", 1))
+						.append("name", "gid_1_mod_1_id_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("requester", 1)
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "requester_1_mod_1_id_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("resaid", 1)
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resaid_1_mod_1_id_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("resrid", 1)
+								.append("mod", 1)
+								.append("id", 1))
+						.append("name", "resrid_1_mod_1_id_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("_id", 1))
+						.append("name", "_id_")
+				)));
+	}
+	
+	@Test
+	public void indexesOutbox() {
+		final Set<Document> indexes = getAndNormalizeIndexes("outbox");
+		assertThat("incorrect indexes", indexes, is(set(
+				new Document("v", manager.indexVer)
+						.append("unique", true)
+						.append("key", new Document("id", 1))
+						.append("name", "id_1"),
+				new Document("v", manager.indexVer)
+						.append("key", new Document("next", 1).append("create", 1))
+						.append("name", "next_1_create_1"),
+				new Document("v", manager.indexVer)
+						.append("sparse", true)
+						.append("key", new Document("claim", 1))
+						.append("name", "claim_1"),
 				new Document("v", manager.indexVer)
 						.append("key", new Document("_id", 1))
 						.append("name", "_id_")
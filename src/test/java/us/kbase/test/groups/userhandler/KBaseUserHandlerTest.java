@@ -7,6 +7,10 @@ import static org.junit.Assert.fail;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
 
 import org.apache.commons.io.FileUtils;
@@ -14,12 +18,18 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableMap;
+
 import us.kbase.groups.core.Token;
 import us.kbase.groups.core.UserName;
 import us.kbase.groups.core.exceptions.AuthenticationException;
+import us.kbase.groups.core.exceptions.AuthenticationUnavailableException;
 import us.kbase.groups.core.exceptions.ErrorType;
 import us.kbase.groups.core.exceptions.InvalidTokenException;
 import us.kbase.groups.userhandler.KBaseUserHandler;
+import us.kbase.groups.userhandler.TokenCache;
+import us.kbase.groups.util.DependencyGuard;
+import us.kbase.groups.util.DependencyGuard.State;
 import us.kbase.test.auth2.authcontroller.AuthController;
 import us.kbase.test.groups.TestCommon;
 import us.kbase.testutils.controllers.mongo.MongoController;
@@ -88,12 +98,84 @@ public class KBaseUserHandlerTest {
 		assertThat("incorrect user valid", kuh.isValidUser(new UserName("user3")), is(false));
 	}
 	
+	@Test
+	public void areValidUsers() throws Exception {
+		final KBaseUserHandler kuh = new KBaseUserHandler(AUTHURL, new Token(TOKEN2));
+		
+		final Map<UserName, Boolean> expected = ImmutableMap.of(
+				new UserName("user1"), true,
+				new UserName("user2"), true,
+				new UserName("user3"), false);
+		assertThat("incorrect users valid", kuh.areValidUsers(Arrays.asList(
+				new UserName("user1"), new UserName("user2"), new UserName("user3"),
+				new UserName("user1"))),
+				is(expected));
+		// second call hits the cache for valid users
+		assertThat("incorrect users valid", kuh.areValidUsers(Arrays.asList(
+				new UserName("user1"), new UserName("user2"), new UserName("user3"))),
+				is(expected));
+		assertThat("incorrect users valid", kuh.areValidUsers(Collections.emptyList()),
+				is(Collections.emptyMap()));
+	}
+	
 	@Test
 	public void constructFailNulls() throws Exception {
 		failConstruct(null, new Token("t"), new NullPointerException("rootAuthURL"));
 		failConstruct(AUTHURL, null, new NullPointerException("serviceToken"));
 	}
 	
+	@Test
+	public void constructFailNullGuard() throws Exception {
+		try {
+			new KBaseUserHandler(AUTHURL, new Token(TOKEN2), new TokenCache(10, 10, 10), null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("guard"));
+		}
+	}
+	
+	@Test
+	public void guard() throws Exception {
+		final DependencyGuard guard = new DependencyGuard("auth", 0, 1, 100000);
+		final KBaseUserHandler kuh = new KBaseUserHandler(
+				AUTHURL, new Token(TOKEN2), new TokenCache(10, 10, 10), guard);
+		assertThat("incorrect guard", kuh.getGuard(), is(guard));
+		
+		// invalid tokens are the caller's fault and don't count as failures
+		try {
+			kuh.getUser(new Token("fake"));
+			fail("expected exception");
+		} catch (InvalidTokenException e) {
+			// expected
+		}
+		assertThat("incorrect state", guard.getState(), is(State.CLOSED));
+		assertThat("incorrect in flight", guard.getInFlightCount(), is(0));
+		
+		// cached token
+		assertThat("incorrect user", kuh.getUser(new Token(TOKEN2)), is(new UserName("user2")));
+		
+		guard.acquire(err -> new IllegalStateException(err)).release(false);
+		
+		// cached lookups don't pass through the guard
+		assertThat("incorrect user", kuh.getUser(new Token(TOKEN2)), is(new UserName("user2")));
+		
+		final AuthenticationException expected = new AuthenticationUnavailableException(
+				"The auth service is unavailable");
+		try {
+			kuh.getUser(new Token(TOKEN1));
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+		try {
+			kuh.isValidUser(new UserName("user1"));
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+		assertThat("incorrect rejected", guard.getRejectedCount(), is(2L));
+	}
+	
 	@Test
 	public void constructFailBadArgs() throws Exception {
 		failConstruct(new URL(AUTHURL.toString() + "/foo"), new Token(TOKEN1),
@@ -145,4 +227,24 @@ public class KBaseUserHandlerTest {
 			TestCommon.assertExceptionCorrect(got, new NullPointerException("userName"));
 		}
 	}
+	
+	@Test
+	public void areValidUsersFail() throws Exception {
+		final KBaseUserHandler kuh = new KBaseUserHandler(AUTHURL, new Token(TOKEN2));
+		failAreValidUsers(kuh, null, new NullPointerException("userNames"));
+		failAreValidUsers(kuh, Arrays.asList(new UserName("u"), null),
+				new NullPointerException("Null item in collection userNames"));
+	}
+	
+	private void failAreValidUsers(
+			final KBaseUserHandler kuh,
+			final Collection<UserName> names,
+			final Exception expected) {
+		try {
+			kuh.areValidUsers(names);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
 }
@@ -0,0 +1,200 @@
+package us.kbase.test.groups.userhandler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Constructor;
+import java.time.Clock;
+
+import org.junit.Test;
+
+import us.kbase.groups.core.Token;
+import us.kbase.groups.core.UserName;
+import us.kbase.groups.core.exceptions.AuthenticationException;
+import us.kbase.groups.core.exceptions.ErrorType;
+import us.kbase.groups.core.exceptions.InvalidTokenException;
+import us.kbase.groups.userhandler.TokenCache;
+import us.kbase.groups.userhandler.TokenCache.TokenLookup;
+import us.kbase.test.groups.TestCommon;
+
+public class TokenCacheTest {
+
+	private static TokenCache getCache(
+			final int size,
+			final int validTTL,
+			final int invalidTTL,
+			final Clock clock)
+			throws Exception {
+		final Constructor<TokenCache> con = TokenCache.class.getDeclaredConstructor(
+				int.class, int.class, int.class, Clock.class);
+		con.setAccessible(true);
+		return con.newInstance(size, validTTL, invalidTTL, clock);
+	}
+
+	@Test
+	public void cacheValid() throws Exception {
+		final Clock clock = mock(Clock.class);
+		final TokenLookup lookup = mock(TokenLookup.class);
+		final TokenCache c = getCache(10, 300, 10, clock);
+
+		when(lookup.getUser(new Token("t"))).thenReturn(
+				new UserName("foo"), new UserName("bar"));
+
+		when(clock.millis()).thenReturn(10000L);
+		assertThat("incorrect user", c.getUser(new Token("t"), lookup), is(new UserName("foo")));
+		when(clock.millis()).thenReturn(309999L);
+		assertThat("incorrect user", c.getUser(new Token("t"), lookup), is(new UserName("foo")));
+		when(clock.millis()).thenReturn(310000L);
+		assertThat("incorrect user", c.getUser(new Token("t"), lookup), is(new UserName("bar")));
+
+		verify(lookup, times(2)).getUser(new Token("t"));
+		assertThat("incorrect hits", c.getHitCount(), is(1L));
+		assertThat("incorrect misses", c.getMissCount(), is(2L));
+		assertThat("incorrect size", c.size(), is(1L));
+	}
+
+	@Test
+	public void cacheInvalid() throws Exception {
+		final Clock clock = mock(Clock.class);
+		final TokenLookup lookup = mock(TokenLookup.class);
+		final TokenCache c = getCache(10, 300, 10, clock);
+
+		when(lookup.getUser(new Token("t")))
+				.thenThrow(new InvalidTokenException("bad"))
+				.thenReturn(new UserName("foo"));
+
+		when(clock.millis()).thenReturn(10000L);
+		failGetUser(c, new Token("t"), lookup, new InvalidTokenException("bad"));
+		when(clock.millis()).thenReturn(19999L);
+		failGetUser(c, new Token("t"), lookup, new InvalidTokenException("bad"));
+		when(clock.millis()).thenReturn(20000L);
+		assertThat("incorrect user", c.getUser(new Token("t"), lookup), is(new UserName("foo")));
+
+		verify(lookup, times(2)).getUser(new Token("t"));
+		assertThat("incorrect hits", c.getHitCount(), is(1L));
+		assertThat("incorrect misses", c.getMissCount(), is(2L));
+	}
+
+	@Test
+	public void cacheInvalidNewException() throws Exception {
+		final TokenLookup lookup = mock(TokenLookup.class);
+		final TokenCache c = new TokenCache(10, 300, 10);
+
+		final InvalidTokenException e = new InvalidTokenException("bad");
+		when(lookup.getUser(new Token("t"))).thenThrow(e);
+		when(lookup.getUser(new Token("t2"))).thenThrow(new InvalidTokenException());
+
+		assertThat("incorrect exception", getUserError(c, new Token("t"), lookup),
+				sameInstance(e));
+		final Exception got = getUserError(c, new Token("t"), lookup);
+		assertThat("incorrect exception", got, not(sameInstance(e)));
+		TestCommon.assertExceptionCorrect(got, new InvalidTokenException("bad"));
+		assertThat("incorrect exception", getUserError(c, new Token("t"), lookup),
+				not(sameInstance(got)));
+
+		failGetUser(c, new Token("t2"), lookup, new InvalidTokenException());
+		failGetUser(c, new Token("t2"), lookup, new InvalidTokenException());
+
+		verify(lookup, times(1)).getUser(new Token("t"));
+		verify(lookup, times(1)).getUser(new Token("t2"));
+		assertThat("incorrect hits", c.getHitCount(), is(3L));
+	}
+
+	private Exception getUserError(
+			final TokenCache c,
+			final Token token,
+			final TokenLookup lookup) {
+		try {
+			c.getUser(token, lookup);
+			fail("expected exception");
+			return null; // can't get here
+		} catch (Exception e) {
+			return e;
+		}
+	}
+
+	@Test
+	public void noCaching() throws Exception {
+		final Clock clock = mock(Clock.class);
+		final TokenLookup lookup = mock(TokenLookup.class);
+		final TokenCache c = getCache(0, 300, 0, clock);
+
+		when(clock.millis()).thenReturn(10000L);
+		when(lookup.getUser(new Token("t"))).thenReturn(new UserName("foo"));
+		when(lookup.getUser(new Token("t2"))).thenThrow(new InvalidTokenException("bad"));
+
+		assertThat("incorrect user", c.getUser(new Token("t"), lookup), is(new UserName("foo")));
+		assertThat("incorrect user", c.getUser(new Token("t"), lookup), is(new UserName("foo")));
+		failGetUser(c, new Token("t2"), lookup, new InvalidTokenException("bad"));
+		failGetUser(c, new Token("t2"), lookup, new InvalidTokenException("bad"));
+
+		verify(lookup, times(2)).getUser(new Token("t"));
+		verify(lookup, times(2)).getUser(new Token("t2"));
+		assertThat("incorrect hits", c.getHitCount(), is(0L));
+		assertThat("incorrect misses", c.getMissCount(), is(4L));
+	}
+
+	@Test
+	public void authExceptionNotCached() throws Exception {
+		final TokenLookup lookup = mock(TokenLookup.class);
+		final TokenCache c = new TokenCache(10, 300, 10);
+
+		when(lookup.getUser(new Token("t")))
+				.thenThrow(new AuthenticationException(ErrorType.AUTHENTICATION_FAILED, "oops"))
+				.thenReturn(new UserName("foo"));
+
+		failGetUser(c, new Token("t"), lookup,
+				new AuthenticationException(ErrorType.AUTHENTICATION_FAILED, "oops"));
+		assertThat("incorrect user", c.getUser(new Token("t"), lookup), is(new UserName("foo")));
+
+		assertThat("incorrect hits", c.getHitCount(), is(0L));
+		assertThat("incorrect misses", c.getMissCount(), is(2L));
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		failConstruct(-1, 1, 0, new IllegalArgumentException("maximumSize must be >= 0"));
+		failConstruct(0, 0, 0, new IllegalArgumentException("validTTLSec must be > 0"));
+		failConstruct(0, 1, -1, new IllegalArgumentException("invalidTTLSec must be >= 0"));
+	}
+
+	private void failConstruct(
+			final int size,
+			final int validTTL,
+			final int invalidTTL,
+			final Exception expected) {
+		try {
+			new TokenCache(size, validTTL, invalidTTL);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void getUserFailNulls() throws Exception {
+		final TokenCache c = new TokenCache(10, 300, 10);
+		failGetUser(c, null, mock(TokenLookup.class), new NullPointerException("token"));
+		failGetUser(c, new Token("t"), null, new NullPointerException("lookup"));
+	}
+
+	private void failGetUser(
+			final TokenCache c,
+			final Token token,
+			final TokenLookup lookup,
+			final Exception expected) {
+		try {
+			c.getUser(token, lookup);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package us.kbase.test.groups.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Constructor;
+import java.time.Clock;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import us.kbase.groups.util.DependencyGuard;
+import us.kbase.groups.util.DependencyGuard.Permit;
+import us.kbase.groups.util.DependencyGuard.State;
+import us.kbase.test.groups.TestCommon;
+
+public class DependencyGuardTest {
+
+	private static DependencyGuard getGuard(
+			final int maxCalls,
+			final int failureThreshold,
+			final long openMillis,
+			final Clock clock)
+			throws Exception {
+		final Constructor<DependencyGuard> con = DependencyGuard.class.getDeclaredConstructor(
+				String.class, int.class, int.class, long.class, Clock.class);
+		con.setAccessible(true);
+		return con.newInstance("ws", maxCalls, failureThreshold, openMillis, clock);
+	}
+
+	private static Permit acquire(final DependencyGuard g) {
+		return g.acquire(err -> new IllegalStateException(err));
+	}
+
+	private static void failAcquire(final DependencyGuard g, final String expected) {
+		try {
+			acquire(g);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalStateException(expected));
+		}
+	}
+
+	private static void assertGuardState(
+			final DependencyGuard g,
+			final State state,
+			final int inFlight,
+			final long rejected) {
+		assertThat("incorrect state", g.getState(), is(state));
+		assertThat("incorrect in flight", g.getInFlightCount(), is(inFlight));
+		assertThat("incorrect rejected", g.getRejectedCount(), is(rejected));
+	}
+
+	@Test
+	public void unlimited() throws Exception {
+		final DependencyGuard g = new DependencyGuard("auth");
+		assertThat("incorrect name", g.getName(), is("auth"));
+
+		final List<Permit> permits = new LinkedList<>();
+		for (int i = 0; i < 100; i++) {
+			permits.add(acquire(g));
+		}
+		assertGuardState(g, State.CLOSED, 100, 0);
+		for (final Permit p: permits) {
+			assertThat("incorrect trial", p.isTrial(), is(false));
+			p.release(false);
+		}
+		assertGuardState(g, State.CLOSED, 0, 0);
+	}
+
+	@Test
+	public void concurrencyLimit() throws Exception {
+		final DependencyGuard g = getGuard(2, 0, 1, mock(Clock.class));
+
+		final Permit p = acquire(g);
+		acquire(g);
+		failAcquire(g, "Too many concurrent calls to the ws service");
+		assertGuardState(g, State.CLOSED, 2, 1);
+
+		p.release(true);
+		// releasing a permit more than once has no effect
+		p.release(true);
+		assertGuardState(g, State.CLOSED, 1, 1);
+		acquire(g);
+		failAcquire(g, "Too many concurrent calls to the ws service");
+		assertGuardState(g, State.CLOSED, 2, 2);
+	}
+
+	@Test
+	public void circuitBreaker() throws Exception {
+		final Clock clock = mock(Clock.class);
+		final DependencyGuard g = getGuard(0, 3, 10000, clock);
+		when(clock.millis()).thenReturn(5000L);
+
+		// a success resets the failure count
+		for (final boolean success: new boolean[] {false, false, true, false, false}) {
+			acquire(g).release(success);
+		}
+		assertGuardState(g, State.CLOSED, 0, 0);
+
+		final Permit early1 = acquire(g);
+		final Permit early2 = acquire(g);
+		final Permit early3 = acquire(g);
+		acquire(g).release(false);
+		assertGuardState(g, State.OPEN, 3, 0);
+		failAcquire(g, "The ws service is unavailable");
+		// calls started before the circuit opened don't affect it
+		early1.release(true);
+		assertGuardState(g, State.OPEN, 2, 1);
+
+		when(clock.millis()).thenReturn(14999L);
+		failAcquire(g, "The ws service is unavailable");
+
+		// a failed trial call reopens the circuit
+		when(clock.millis()).thenReturn(15000L);
+		final Permit trial1 = acquire(g);
+		assertThat("incorrect trial", trial1.isTrial(), is(true));
+		assertGuardState(g, State.HALF_OPEN, 3, 2);
+		failAcquire(g, "The ws service is unavailable");
+		// only the trial call changes the state of a half open circuit
+		early2.release(true);
+		assertGuardState(g, State.HALF_OPEN, 2, 3);
+		trial1.release(false);
+		assertGuardState(g, State.OPEN, 1, 3);
+		when(clock.millis()).thenReturn(24999L);
+		failAcquire(g, "The ws service is unavailable");
+
+		// a successful trial call closes the circuit
+		when(clock.millis()).thenReturn(25000L);
+		final Permit trial2 = acquire(g);
+		early3.release(false);
+		assertGuardState(g, State.HALF_OPEN, 1, 4);
+		trial2.release(true);
+		// releasing the trial permit again has no effect
+		trial2.release(false);
+		assertGuardState(g, State.CLOSED, 0, 4);
+		assertThat("incorrect trial", acquire(g).isTrial(), is(false));
+		acquire(g);
+		assertGuardState(g, State.CLOSED, 2, 4);
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		failConstruct(null, 0, 0, 1, new NullPointerException("name"));
+		failConstruct("n", -1, 0, 1,
+				new IllegalArgumentException("maxConcurrentCalls must be >= 0"));
+		failConstruct("n", 0, -1, 1,
+				new IllegalArgumentException("failureThreshold must be >= 0"));
+		failConstruct("n", 0, 0, 0, new IllegalArgumentException("openMillis must be > 0"));
+	}
+
+	private void failConstruct(
+			final String name,
+			final int maxCalls,
+			final int failureThreshold,
+			final long openMillis,
+			final Exception expected) {
+		try {
+			new DependencyGuard(name, maxCalls, failureThreshold, openMillis);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void acquireFailNull() throws Exception {
+		try {
+			new DependencyGuard("n").acquire(null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("unavailable"));
+		}
+	}
+}
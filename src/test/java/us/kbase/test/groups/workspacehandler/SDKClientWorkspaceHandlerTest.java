@@ -5,6 +5,7 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -18,11 +19,15 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
+import org.mockito.invocation.InvocationOnMock;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -152,6 +157,26 @@ public class SDKClientWorkspaceHandlerTest {
 		}
 	}
 	
+	@Test
+	public void constructFailBatchArgs() throws Exception {
+		final WorkspaceClient c = mock(WorkspaceClient.class);
+		failConstruct(c, 0, 1, new IllegalArgumentException("batchSize must be > 0"));
+		failConstruct(c, 2, 0, new IllegalArgumentException("infoThreads must be > 0"));
+	}
+	
+	private void failConstruct(
+			final WorkspaceClient c,
+			final int batchSize,
+			final int infoThreads,
+			final Exception expected) {
+		try {
+			new SDKClientWorkspaceHandler(c, batchSize, infoThreads);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
 	@Test
 	public void isAdminAdmin() throws Exception {
 		isAdmin("user1", true);
@@ -752,6 +777,150 @@ public class SDKClientWorkspaceHandlerTest {
 		assertThat("incorrect resources", ri, is(expected));
 	}
 
+	@Test
+	public void getResourceInformationBatched() throws Exception {
+		final WorkspaceClient c = mock(WorkspaceClient.class);
+		
+		when(c.ver()).thenReturn(MIN_WS_VER);
+		
+		final SDKClientWorkspaceHandler h = new SDKClientWorkspaceHandler(c, 3, 2);
+		
+		final Map<Integer, Map<String, String>> perms = ImmutableMap.of(
+				3, ImmutableMap.of("user1", "a", "user2", "w"),
+				5, ImmutableMap.of("user1", "a", "user2", "w"),
+				7, ImmutableMap.of("user1", "w"),
+				10, ImmutableMap.of("user2", "w", "*", "r"),
+				11, ImmutableMap.of("user2", "w"));
+		final Set<Integer> missing = set(20, 21);
+		
+		doAnswer(inv -> getPermissionsMassResponse(inv, perms, missing))
+				.when(c).administer(argThat(uo -> "getPermissionsMass".equals(
+						((Map<?, ?>) uo.asInstance()).get("command"))));
+		
+		doReturn(getWorkspaceInfoResponse(3, "name3", "user1", "2018-10-27T02:16:53+0000", false,
+				Collections.emptyMap()))
+				.when(c).administer(argThat(getWSInfoCommandMatcher(3)));
+		doReturn(getWorkspaceInfoResponse(5, "name5", "user3", "1970-01-01T00:00:00+0000", false,
+				ImmutableMap.of(
+						"is_temporary", "false",
+						"narrative", "6",
+						"narrative_nice_name", "narr_name")))
+				.when(c).administer(argThat(getWSInfoCommandMatcher(5)));
+		doReturn(getWorkspaceInfoResponse(10, "name10", "user3", "2017-07-14T02:40:00+0000", true,
+				ImmutableMap.of("is_temporary", "false")))
+				.when(c).administer(argThat(getWSInfoCommandMatcher(10)));
+		
+		doReturn(new UObject("my desc")).when(c).administer(argThat(getWSDescCommandMatcher(3)));
+		doReturn(null).when(c).administer(argThat(getWSDescCommandMatcher(5)));
+		doReturn(new UObject("my desc10")).when(c)
+				.administer(argThat(getWSDescCommandMatcher(10)));
+		
+		doReturn(getObjectInfoResponse("2017-07-14T02:40:00+0000"))
+				.when(c).administer(argThat(getObjectInfoCommandMatcher(5, 6, 1)));
+		
+		final ResourceInformationSet ri = h.getResourceInformation(
+				new UserName("user1"),
+				set(RD3, RD5, RD7, RD10, RD11, RD20, RD21),
+				ResourceAccess.ADMINISTRATED_AND_PUBLIC);
+		
+		assertThat("incorrect resources", ri, is(ResourceInformationSet.getBuilder(
+				new UserName("user1"))
+				.withNonexistentResource(RD20)
+				.withNonexistentResource(RD21)
+				.withResourceField(RD3, "name", "name3")
+				.withResourceField(RD3, "public", false)
+				.withResourceField(RD3, "narrname", null)
+				.withResourceField(RD3, "narrcreate", null)
+				.withResourceField(RD3, "perm", "Own")
+				.withResourceField(RD3, "description", "my desc")
+				.withResourceField(RD3, "moddate", 1540606613000L)
+				.withResourceField(RD5, "name", "name5")
+				.withResourceField(RD5, "public", false)
+				.withResourceField(RD5, "narrname", "narr_name")
+				.withResourceField(RD5, "narrcreate", 1500000000000L)
+				.withResourceField(RD5, "perm", "Admin")
+				.withResourceField(RD5, "description", null)
+				.withResourceField(RD5, "moddate", 0L)
+				.withResourceField(RD10, "name", "name10")
+				.withResourceField(RD10, "public", true)
+				.withResourceField(RD10, "narrname", null)
+				.withResourceField(RD10, "narrcreate", null)
+				.withResourceField(RD10, "perm", "None")
+				.withResourceField(RD10, "description", "my desc10")
+				.withResourceField(RD10, "moddate", 1500000000000L)
+				.build()));
+		
+		verify(c, never()).administer(argThat(getWSInfoCommandMatcher(7)));
+		verify(c, never()).administer(argThat(getWSInfoCommandMatcher(11)));
+	}
+	
+	@Test
+	public void getResourceInformationBatchedFailGetWS() throws Exception {
+		final WorkspaceClient c = mock(WorkspaceClient.class);
+		
+		when(c.ver()).thenReturn(MIN_WS_VER);
+		when(c.getURL()).thenReturn(new URL("http://foo.com"));
+		
+		final SDKClientWorkspaceHandler h = new SDKClientWorkspaceHandler(c, 10, 2);
+		
+		doAnswer(inv -> getPermissionsMassResponse(inv, ImmutableMap.of(
+				3, ImmutableMap.of("user1", "a"), 5, ImmutableMap.of("user1", "a")), set()))
+				.when(c).administer(argThat(uo -> "getPermissionsMass".equals(
+						((Map<?, ?>) uo.asInstance()).get("command"))));
+		doThrow(new IOException("whee")).when(c).administer(argThat(getWSInfoCommandMatcher(3)));
+		doThrow(new IOException("whee")).when(c).administer(argThat(getWSInfoCommandMatcher(5)));
+		
+		failGetResourceInfo(h, set(RD3, RD5), ResourceAccess.ALL,
+				new ResourceHandlerException("Error contacting workspace at http://foo.com"));
+	}
+	
+	@Test
+	public void close() throws Exception {
+		final WorkspaceClient c = mock(WorkspaceClient.class);
+		
+		when(c.ver()).thenReturn(MIN_WS_VER);
+		
+		final SDKClientWorkspaceHandler h = new SDKClientWorkspaceHandler(c, 10, 2);
+		
+		doAnswer(inv -> getPermissionsMassResponse(inv, ImmutableMap.of(
+				3, ImmutableMap.of("user1", "a")), set()))
+				.when(c).administer(argThat(uo -> "getPermissionsMass".equals(
+						((Map<?, ?>) uo.asInstance()).get("command"))));
+		
+		h.close();
+		h.close(); // no-op
+		
+		try {
+			h.getResourceInformation(new UserName("user1"), set(RD3), ResourceAccess.ALL);
+			fail("expected exception");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+		verify(c, never()).administer(argThat(getWSInfoCommandMatcher(3)));
+		
+		// no threads to stop
+		new SDKClientWorkspaceHandler(c).close();
+	}
+	
+	// mimics the workspace, which fails the entire call on the first inaccessible workspace
+	private static UObject getPermissionsMassResponse(
+			final InvocationOnMock inv,
+			final Map<Integer, Map<String, String>> perms,
+			final Set<Integer> missing)
+			throws Exception {
+		final Map<?, ?> cmd = (Map<?, ?>) ((UObject) inv.getArgument(0)).asInstance();
+		final List<?> wsis = (List<?>) ((Map<?, ?>) cmd.get("params")).get("workspaces");
+		final List<Map<String, String>> ret = new LinkedList<>();
+		for (final Object wsi: wsis) {
+			final int id = ((Number) ((Map<?, ?>) wsi).get("id")).intValue();
+			if (missing.contains(id)) {
+				throw new ServerException("Workspace " + id + " is deleted", -1, "n");
+			}
+			ret.add(perms.get(id));
+		}
+		return new UObject(ImmutableMap.of("perms", ret));
+	}
+	
 	private UObjectArgumentMatcher getWSInfoCommandMatcher(final int wsid) {
 		return new UObjectArgumentMatcher(ImmutableMap.of(
 				"command", "getWorkspaceInfo",